@@ -0,0 +1,110 @@
+package uk.gov.hmcts.reform.enforcement.scheduler;
+
+import com.github.kagkarlsson.scheduler.SchedulerClient;
+import com.github.kagkarlsson.scheduler.task.helper.OneTimeTask;
+import com.github.kagkarlsson.scheduler.task.helper.Tasks;
+import com.github.kagkarlsson.scheduler.testhelper.ManualScheduler;
+import com.github.kagkarlsson.scheduler.testhelper.ManualSchedulerBuilder;
+import com.github.kagkarlsson.scheduler.testhelper.SettableClock;
+import com.github.kagkarlsson.scheduler.testhelper.TestHelper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two lanes sharing one scheduled_tasks table, as every shard's lanes do. Each lane's scheduler sees the other
+ * lane's rows as unresolved executions, which db-scheduler deletes once they have been unresolved for
+ * {@code deleteUnresolvedAfter}.
+ */
+@Testcontainers
+class SchedulerLaneIsolationTest {
+
+    private static final String LANE_A_TASK = "lane-a-task";
+    private static final String LANE_B_TASK = "lane-b-task";
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static HikariDataSource dataSource;
+
+    private final Set<String> executed = ConcurrentHashMap.newKeySet();
+    private final OneTimeTask<Void> laneATask = Tasks.oneTime(LANE_A_TASK)
+        .execute((taskInstance, executionContext) -> executed.add(LANE_A_TASK + "/" + taskInstance.getId()));
+    private final OneTimeTask<Void> laneBTask = Tasks.oneTime(LANE_B_TASK)
+        .execute((taskInstance, executionContext) -> executed.add(LANE_B_TASK + "/" + taskInstance.getId()));
+    private SettableClock clock;
+
+    @BeforeAll
+    static void createSchema() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(postgres.getJdbcUrl());
+        dataSource.setUsername(postgres.getUsername());
+        dataSource.setPassword(postgres.getPassword());
+        dataSource.setMaximumPoolSize(4);
+        new ResourceDatabasePopulator(new ClassPathResource("db/scheduler-shard/V001__scheduled_tasks.sql"))
+            .execute(dataSource);
+    }
+
+    @AfterAll
+    static void closeDataSource() {
+        dataSource.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        new JdbcTemplate(dataSource).update("DELETE FROM scheduled_tasks");
+        clock = new SettableClock();
+        SchedulerClient.Builder.create(dataSource, laneBTask).build()
+            .scheduleIfNotExists(laneBTask.instance("1"), clock.now());
+    }
+
+    @Test
+    void shouldKeepOtherLanesRowsWhileTheyAreUnresolved() {
+        ManualScheduler laneA = lane(laneATask, TaskLanes.SHARED_TABLE_DELETE_UNRESOLVED_AFTER);
+        laneA.runAnyDueExecutions();
+
+        clock.set(clock.now().plus(Duration.ofDays(365)));
+        laneA.runDeadExecutionDetection();
+
+        assertThat(rows(LANE_B_TASK)).isEqualTo(1);
+        lane(laneBTask, TaskLanes.SHARED_TABLE_DELETE_UNRESOLVED_AFTER).runAnyDueExecutions();
+        assertThat(executed).containsExactly(LANE_B_TASK + "/1");
+    }
+
+    @Test
+    void shouldDeleteOtherLanesRowsWithTheDefaultSetting() {
+        ManualScheduler laneA = TestHelper.createManualScheduler(dataSource, laneATask).clock(clock).build();
+        laneA.runAnyDueExecutions();
+
+        clock.set(clock.now().plus(Duration.ofDays(15)));
+        laneA.runDeadExecutionDetection();
+
+        assertThat(rows(LANE_B_TASK)).isZero();
+    }
+
+    private ManualScheduler lane(OneTimeTask<Void> task, Duration deleteUnresolvedAfter) {
+        ManualSchedulerBuilder builder = TestHelper.createManualScheduler(dataSource, task).clock(clock);
+        builder.deleteUnresolvedAfter(deleteUnresolvedAfter);
+        return builder.build();
+    }
+
+    private long rows(String taskName) {
+        Long rows = new JdbcTemplate(dataSource)
+            .queryForObject("SELECT count(*) FROM scheduled_tasks WHERE task_name = ?", Long.class, taskName);
+        return rows != null ? rows : 0;
+    }
+}
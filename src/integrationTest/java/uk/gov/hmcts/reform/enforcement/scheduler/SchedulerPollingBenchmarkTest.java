@@ -0,0 +1,172 @@
+package uk.gov.hmcts.reform.enforcement.scheduler;
+
+import com.github.kagkarlsson.scheduler.Scheduler;
+import com.github.kagkarlsson.scheduler.SchedulerName;
+import com.github.kagkarlsson.scheduler.event.AbstractSchedulerListener;
+import com.github.kagkarlsson.scheduler.event.SchedulerListener.CandidateEventType;
+import com.github.kagkarlsson.scheduler.task.helper.OneTimeTask;
+import com.github.kagkarlsson.scheduler.task.helper.Tasks;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import uk.gov.hmcts.reform.enforcement.config.TaskLaneProperties.PollingStrategy;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures claim throughput and conflict rate of each polling strategy with 1 to 8 simulated executor nodes
+ * sharing one Postgres. Every node is its own scheduler with its own connection pool, and every run drains
+ * the same number of due one-time tasks. A conflict is a polled candidate that was already picked by another
+ * node or had changed since it was fetched.
+ * Not part of the regular integration run; use {@code -Dscheduler.benchmark=true}.
+ */
+@Testcontainers
+@EnabledIfSystemProperty(named = "scheduler.benchmark", matches = "true")
+@Slf4j
+class SchedulerPollingBenchmarkTest {
+
+    private static final String TASK_NAME = "benchmark-task";
+    private static final int TASKS = 5_000;
+    private static final int THREADS_PER_NODE = 10;
+    private static final Duration POLLING_INTERVAL = Duration.ofMillis(100);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofMinutes(5);
+
+    private static final List<String> RESULTS = new ArrayList<>();
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static HikariDataSource setupDataSource;
+
+    @BeforeAll
+    static void createSchema() {
+        setupDataSource = dataSource(2);
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V002__scheduled_tasks.sql"))
+            .execute(setupDataSource);
+    }
+
+    @AfterAll
+    static void report() {
+        log.info("Polling benchmark, {} tasks, {} threads per node:\n{}", TASKS, THREADS_PER_NODE,
+                 String.join("\n", RESULTS));
+        setupDataSource.close();
+    }
+
+    static Stream<Arguments> runs() {
+        return Stream.of(PollingStrategy.values())
+            .flatMap(strategy -> IntStream.of(1, 2, 4, 8).mapToObj(nodes -> Arguments.of(strategy, nodes)));
+    }
+
+    @ParameterizedTest(name = "{0} with {1} nodes")
+    @MethodSource("runs")
+    void shouldDrainDueTasksExactlyOnce(PollingStrategy strategy, int nodes) throws InterruptedException {
+        insertDueTasks();
+
+        Set<String> executed = ConcurrentHashMap.newKeySet();
+        AtomicLong executions = new AtomicLong();
+        Map<CandidateEventType, AtomicLong> candidates = new ConcurrentHashMap<>();
+        OneTimeTask<Void> task = Tasks.oneTime(TASK_NAME).execute((taskInstance, executionContext) -> {
+            executions.incrementAndGet();
+            executed.add(taskInstance.getId());
+        });
+        AbstractSchedulerListener candidateCounter = new AbstractSchedulerListener() {
+            @Override
+            public void onCandidateEvent(CandidateEventType eventType) {
+                candidates.computeIfAbsent(eventType, type -> new AtomicLong()).incrementAndGet();
+            }
+        };
+
+        List<HikariDataSource> pools = new ArrayList<>();
+        List<Scheduler> schedulers = new ArrayList<>();
+        for (int node = 0; node < nodes; node++) {
+            HikariDataSource pool = dataSource(THREADS_PER_NODE + 2);
+            pools.add(pool);
+            var builder = Scheduler.create(pool, task)
+                .threads(THREADS_PER_NODE)
+                .pollingInterval(POLLING_INTERVAL)
+                .schedulerName(new SchedulerName.Fixed("node-" + node))
+                .addSchedulerListener(candidateCounter);
+            if (strategy == PollingStrategy.LOCK_AND_FETCH) {
+                builder.pollUsingLockAndFetch(0.5, strategy.getDefaultUpperLimitFractionOfThreads());
+            } else {
+                builder.pollUsingFetchAndLockOnExecute(0.5, strategy.getDefaultUpperLimitFractionOfThreads());
+            }
+            schedulers.add(builder.build());
+        }
+
+        Instant start = Instant.now();
+        schedulers.forEach(Scheduler::start);
+        Instant deadline = start.plus(DRAIN_TIMEOUT);
+        while (executed.size() < TASKS && Instant.now().isBefore(deadline)) {
+            Thread.sleep(20);
+        }
+        Duration elapsed = Duration.between(start, Instant.now());
+        schedulers.forEach(Scheduler::stop);
+        pools.forEach(HikariDataSource::close);
+
+        long conflicts = count(candidates, CandidateEventType.ALREADY_PICKED)
+            + count(candidates, CandidateEventType.STALE);
+        long polled = conflicts + count(candidates, CandidateEventType.EXECUTED);
+        RESULTS.add(String.format("%-15s nodes=%d  %8.0f claims/s  conflicts=%5.1f%% (%d of %d candidates)",
+                                  strategy, nodes, TASKS * 1000.0 / Math.max(1, elapsed.toMillis()),
+                                  polled == 0 ? 0.0 : conflicts * 100.0 / polled, conflicts, polled));
+
+        assertThat(executed).hasSize(TASKS);
+        assertThat(executions.get()).isEqualTo(TASKS);
+    }
+
+    private static void insertDueTasks() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(setupDataSource);
+        jdbcTemplate.update("DELETE FROM scheduled_tasks");
+        Timestamp due = Timestamp.from(Instant.now().minusSeconds(1));
+        List<Integer> instances = IntStream.range(0, TASKS).boxed().toList();
+        jdbcTemplate.batchUpdate(
+            """
+            INSERT INTO scheduled_tasks (task_name, task_instance, execution_time, picked, consecutive_failures,
+                                         version, priority)
+            VALUES (?, ?, ?, false, 0, 1, 0)
+            """,
+            instances, 1000, (ps, instance) -> {
+                ps.setString(1, TASK_NAME);
+                ps.setString(2, "instance-" + instance);
+                ps.setTimestamp(3, due);
+            });
+    }
+
+    private static long count(Map<CandidateEventType, AtomicLong> candidates, CandidateEventType type) {
+        AtomicLong count = candidates.get(type);
+        return count == null ? 0 : count.get();
+    }
+
+    private static HikariDataSource dataSource(int poolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(postgres.getJdbcUrl());
+        dataSource.setUsername(postgres.getUsername());
+        dataSource.setPassword(postgres.getPassword());
+        dataSource.setMaximumPoolSize(poolSize);
+        return dataSource;
+    }
+}
@@ -0,0 +1,114 @@
+package uk.gov.hmcts.reform.enforcement.scheduler;
+
+import com.github.kagkarlsson.scheduler.SchedulerClient;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Moving task instances between two shards, each a database of its own on one Postgres server.
+ */
+@Testcontainers
+class TaskShardRebalancerTest {
+
+    private static final String SHARDED_TASK = "send-email-task";
+    private static final Instant LAST_SUCCESS = Instant.parse("2025-01-01T10:00:00Z");
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static HikariDataSource primaryDataSource;
+    private static HikariDataSource shardDataSource;
+
+    private TaskShards taskShards;
+
+    @BeforeAll
+    static void createShards() {
+        primaryDataSource = dataSource(postgres.getDatabaseName());
+        new JdbcTemplate(primaryDataSource).execute("CREATE DATABASE shard_a");
+        shardDataSource = dataSource("shard_a");
+        for (HikariDataSource dataSource : List.of(primaryDataSource, shardDataSource)) {
+            new ResourceDatabasePopulator(new ClassPathResource("db/scheduler-shard/V001__scheduled_tasks.sql"))
+                .execute(dataSource);
+        }
+    }
+
+    @AfterAll
+    static void closeDataSources() {
+        shardDataSource.close();
+        primaryDataSource.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        new JdbcTemplate(primaryDataSource).update("DELETE FROM scheduled_tasks");
+        new JdbcTemplate(shardDataSource).update("DELETE FROM scheduled_tasks");
+        taskShards = new TaskShards(List.of(
+            new TaskShards.Shard(TaskShards.PRIMARY_SHARD, primaryDataSource, mock(SchedulerClient.class)),
+            new TaskShards.Shard("a", shardDataSource, mock(SchedulerClient.class))
+        ), Set.of(SHARDED_TASK));
+    }
+
+    @Test
+    void shouldMoveMisplacedInstancesWithEveryColumnAsItWas() {
+        String instance = instanceOn("a");
+        new JdbcTemplate(primaryDataSource).update("""
+            INSERT INTO scheduled_tasks (task_name, task_instance, task_data, execution_time, picked, picked_by,
+                                         last_success, last_failure, consecutive_failures, last_heartbeat,
+                                         version, priority)
+            VALUES (?, ?, ?, now(), false, null, ?, null, null, null, 7, null)
+            """, SHARDED_TASK, instance, new byte[] {1, 2, 3}, Timestamp.from(LAST_SUCCESS));
+
+        Map<String, Integer> moved = new TaskShardRebalancer(taskShards).rebalance(10);
+
+        assertThat(moved).containsEntry(TaskShards.PRIMARY_SHARD, 1);
+        assertThat(new TaskShardRebalancer(taskShards).distribution())
+            .containsEntry(TaskShards.PRIMARY_SHARD, 0L)
+            .containsEntry("a", 1L);
+        Map<String, Object> row = new JdbcTemplate(shardDataSource).queryForMap(
+            "SELECT * FROM scheduled_tasks WHERE task_name = ? AND task_instance = ?", SHARDED_TASK, instance);
+        assertThat(row.get("consecutive_failures")).isNull();
+        assertThat(row.get("priority")).isNull();
+        assertThat(row.get("last_failure")).isNull();
+        assertThat(row.get("last_heartbeat")).isNull();
+        assertThat(((Timestamp) row.get("last_success")).toInstant()).isEqualTo(LAST_SUCCESS);
+        assertThat(row.get("version")).isEqualTo(7L);
+        assertThat((byte[]) row.get("task_data")).containsExactly(1, 2, 3);
+    }
+
+    private String instanceOn(String shardName) {
+        return IntStream.range(0, 100)
+            .mapToObj(i -> "instance-" + i)
+            .filter(instance -> taskShards.shardFor(SHARDED_TASK, instance).name().equals(shardName))
+            .findFirst()
+            .orElseThrow();
+    }
+
+    private static HikariDataSource dataSource(String databaseName) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(postgres.getJdbcUrl().replace("/" + postgres.getDatabaseName() + "?",
+                                                             "/" + databaseName + "?"));
+        dataSource.setUsername(postgres.getUsername());
+        dataSource.setPassword(postgres.getPassword());
+        dataSource.setMaximumPoolSize(2);
+        return dataSource;
+    }
+}
@@ -1,26 +1,54 @@
 package uk.gov.hmcts.reform.enforcement.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import uk.gov.hmcts.reform.enforcement.notify.client.AsyncNotificationClient;
 import uk.gov.service.notify.NotificationClient;
 
+import java.time.Duration;
 import java.util.concurrent.Executor;
 
 @Configuration
 @EnableAsync
 public class NotificationsConfiguration {
+    /**
+     * When "notify.client.async-enabled" = true, the client is an {@link AsyncNotificationClient}: pooled
+     * HTTP/2 connections, a cached signed token, and CompletableFuture variants of send and get.
+     */
     @Bean
     public NotificationClient notificationClient(
-        @Value("${notify.api-key}") String apiKey
+        @Value("${notify.api-key}") String apiKey,
+        @Value("${notify.client.async-enabled:false}") boolean asyncEnabled,
+        @Value("${notify.client.base-url:https://api.notifications.service.gov.uk}") String baseUrl,
+        @Value("${notify.client.connect-timeout:5s}") Duration connectTimeout,
+        @Value("${notify.client.read-timeout:15s}") Duration readTimeout,
+        @Value("${notify.client.token-ttl:25s}") Duration tokenTtl,
+        ObjectMapper objectMapper
     ) {
+        if (asyncEnabled) {
+            return new AsyncNotificationClient(apiKey, baseUrl, objectMapper, connectTimeout, readTimeout, tokenTtl);
+        }
         return new NotificationClient(apiKey);
     }
 
+    /**
+     * Async executor for notification work. With virtual threads enabled each task gets its own virtual
+     * thread and the pool limits are replaced by a concurrency limit of the same maximum size.
+     */
     @Bean
-    public Executor notifyTaskExecutor() {
+    public Executor notifyTaskExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("notification-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(5);
+            return executor;
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
         executor.setMaxPoolSize(5);
@@ -1,22 +1,45 @@
 package uk.gov.hmcts.reform.enforcement.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.kagkarlsson.scheduler.Scheduler;
 import com.github.kagkarlsson.scheduler.SchedulerClient;
+import com.github.kagkarlsson.scheduler.SchedulerName;
 import com.github.kagkarlsson.scheduler.event.ExecutionInterceptor;
 import com.github.kagkarlsson.scheduler.event.SchedulerListener;
+import com.github.kagkarlsson.scheduler.serializer.JavaSerializer;
+import com.github.kagkarlsson.scheduler.serializer.Serializer;
 import com.github.kagkarlsson.scheduler.task.Task;
+import com.github.kagkarlsson.scheduler.task.helper.RecurringTask;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskNotificationListener;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskWakeups;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskDataSerializer;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskLanes;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskShards;
 
 import javax.sql.DataSource;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
 @Configuration
 @Slf4j
@@ -26,44 +49,230 @@ public class SchedulingConfig {
     /**
      * SchedulerClient bean is always on and is used to schedule jobs, but does NOT execute them.
      * Keep active everywhere where job scheduling is needed.
+     * It writes through a transaction-aware proxy, so a task scheduled inside a Spring-managed transaction
+     * commits or rolls back with the rest of it; outside one it commits on its own as before.
      */
     @Bean
     @Primary
-    public SchedulerClient schedulerClient(DataSource dataSource) {
-        return SchedulerClient.Builder.create(dataSource).build();
+    public SchedulerClient schedulerClient(DataSource dataSource, Serializer taskDataSerializer) {
+        return SchedulerClient.Builder.create(new TransactionAwareDataSourceProxy(dataSource))
+            .serializer(taskDataSerializer)
+            .build();
     }
 
     /**
-     * Scheduler bean is conditionally created and started ONLY if job execution is enabled.
+     * The databases holding scheduled_tasks: the application database, plus every "db-scheduler.sharding.shards"
+     * database when "db-scheduler.sharding.enabled" = true. Each extra shard gets its own pool and client, and
+     * its scheduled_tasks table is created or migrated from db/scheduler-shard on startup. Shard pools rewrite
+     * batched inserts into multi-row inserts, like the application pool.
+     */
+    @Bean(destroyMethod = "close")
+    public TaskShards taskShards(DataSource dataSource, SchedulerClient schedulerClient,
+                                 ScheduledTaskRepository scheduledTaskRepository,
+                                 TaskShardProperties shardProperties, Serializer taskDataSerializer) {
+        List<TaskShards.Shard> shards = new ArrayList<>();
+        shards.add(new TaskShards.Shard(TaskShards.PRIMARY_SHARD, dataSource, schedulerClient,
+                                        scheduledTaskRepository));
+        if (shardProperties.isEnabled()) {
+            shardProperties.getShards().forEach((name, shard) -> {
+                HikariDataSource shardDataSource = new HikariDataSource();
+                shardDataSource.setPoolName("SchedulerShard-" + name);
+                shardDataSource.setJdbcUrl(shard.getUrl());
+                shardDataSource.setUsername(shard.getUsername());
+                shardDataSource.setPassword(shard.getPassword());
+                shardDataSource.setMaximumPoolSize(shard.getMaximumPoolSize());
+                shardDataSource.addDataSourceProperty("reWriteBatchedInserts", "true");
+                Flyway.configure()
+                    .dataSource(shardDataSource)
+                    .locations("classpath:db/scheduler-shard")
+                    .load()
+                    .migrate();
+                SchedulerClient client = SchedulerClient.Builder.create(shardDataSource)
+                    .serializer(taskDataSerializer)
+                    .build();
+                shards.add(new TaskShards.Shard(name, shardDataSource, client));
+            });
+            log.info("Sharding {} over {}", shardProperties.getTasks(),
+                     shards.stream().map(TaskShards.Shard::name).toList());
+        }
+        return new TaskShards(shards, Set.copyOf(shardProperties.getTasks()));
+    }
+
+    /**
+     * Serializer for scheduled_tasks.task_data. Shared by the client, the scheduler and anything reading
+     * task rows directly (e.g. the batched send executor), so they always agree on the format.
+     * "db-scheduler.task-data.format" = json writes versioned JSON, gzipped above
+     * "db-scheduler.task-data.compression-threshold" bytes, and still reads rows written with Java
+     * serialization. Only switch to json once every node runs a version that can read it.
+     */
+    @Bean
+    public Serializer taskDataSerializer(@Value("${db-scheduler.task-data.format:java}") String format,
+                                         @Value("${db-scheduler.task-data.compression-threshold:1024}")
+                                         int compressionThreshold,
+                                         ObjectMapper objectMapper,
+                                         MeterRegistry meterRegistry) {
+        if ("json".equalsIgnoreCase(format)) {
+            log.info("Writing task data as JSON, compressed above {} bytes", compressionThreshold);
+            return new TaskDataSerializer(objectMapper, compressionThreshold, meterRegistry);
+        }
+        return new JavaSerializer();
+    }
+
+    /**
+     * Scheduler lanes are conditionally created and started ONLY if job execution is enabled.
      * Use environment variable "DB_SCHEDULER_EXECUTOR_ENABLED" = true to enable execution.
      * Only start with on nodes intended for job execution. Scheduler.start()
      * Share the same database for job metadata for coordination.
      * In order to make sure a task is registered by the scheduler, please use a bean that returns type Task<?>
      * Where ? Can be any type.
+     * Each lane in "db-scheduler.lanes" gets its own scheduler running only its tasks, with its own threads and
+     * polling limits; every other task runs in the default lane with "db-scheduler.threads".
+     * In sharded mode every extra shard gets the same lanes, running only the sharded tasks.
+     * Lanes on one shard share its scheduled_tasks table, so each sees the others' tasks as unresolved; they are
+     * built never to delete unresolved executions, which db-scheduler otherwise does after 14 days.
+     * "db-scheduler.polling.strategy" = lock-and-fetch claims each batch with FOR UPDATE SKIP LOCKED instead of
+     * one optimistic claim per execution, which stops executor pods from losing claims to each other. It claims
+     * rows of any task, so startup fails if a lane using it shares its shard's table with another lane.
+     * When "db-scheduler.listen-notify.enabled" = true, due tasks wake the scheduler through Postgres
+     * LISTEN/NOTIFY, so polling only runs every "db-scheduler.listen-notify.idle-polling-interval-seconds".
+     * When "spring.threads.virtual.enabled" = true, every execution runs on its own virtual thread and
+     * "db-scheduler.virtual-threads.max-concurrent-executions" only limits how many executions are picked;
+     * real concurrency is capped by the Hikari pool and the Notify in-flight limit.
+     * When "db-scheduler.priority.enabled" = true, due tasks are picked highest priority first; by default
+     * they are picked in execution time order.
      */
     @Bean(initMethod = "start", destroyMethod = "stop")
     @ConditionalOnProperty(prefix = "db-scheduler", name = "executor-enabled", havingValue = "true")
     @DependsOn("schedulerClient")
-    public Scheduler startupTasksScheduler(DataSource dataSource,
-                                          @Value("${db-scheduler.threads}")
-                                          int threadCount,
-                                          @Value("${db-scheduler.polling-interval-seconds}")
-                                          long interval,
-                                          List<Task<?>> tasks,
-                                          List<SchedulerListener> schedulerListeners,
-                                          List<ExecutionInterceptor> executionInterceptors) {
-        log.info("Starting scheduler");
-
-        var builder = Scheduler.create(dataSource, tasks)
-            .threads(threadCount)
-            .pollingInterval(Duration.ofSeconds(interval))
+    public TaskLanes taskLanes(TaskShards taskShards,
+                               @Value("${db-scheduler.threads}")
+                               int threadCount,
+                               @Value("${db-scheduler.polling-interval-seconds}")
+                               long interval,
+                               @Value("${db-scheduler.listen-notify.enabled:false}")
+                               boolean listenNotifyEnabled,
+                               @Value("${db-scheduler.listen-notify.idle-polling-interval-seconds:60}")
+                               long idleInterval,
+                               @Value("${spring.threads.virtual.enabled:false}")
+                               boolean virtualThreads,
+                               @Value("${db-scheduler.virtual-threads.max-concurrent-executions:100}")
+                               int virtualThreadExecutions,
+                               @Value("${db-scheduler.priority.enabled:false}")
+                               boolean priorityEnabled,
+                               TaskLaneProperties laneProperties,
+                               Serializer taskDataSerializer,
+                               List<Task<?>> tasks,
+                               List<SchedulerListener> schedulerListeners,
+                               List<ExecutionInterceptor> executionInterceptors,
+                               MeterRegistry meterRegistry) {
+        Duration pollingInterval = Duration.ofSeconds(listenNotifyEnabled ? idleInterval : interval);
+
+        TaskLaneProperties.Lane defaultLane = new TaskLaneProperties.Lane();
+        defaultLane.setThreads(virtualThreads ? virtualThreadExecutions : threadCount);
+        defaultLane.setPollingInterval(pollingInterval);
+        defaultLane.setPolling(laneProperties.getPolling());
+        laneProperties.getLanes().values().stream()
+            .filter(lane -> lane.getPolling() == null)
+            .forEach(lane -> lane.setPolling(laneProperties.getPolling()));
+
+        List<TaskLanes.Lane> lanes = new ArrayList<>();
+        for (TaskShards.Shard shard : taskShards.shards()) {
+            boolean primary = TaskShards.PRIMARY_SHARD.equals(shard.name());
+            Map<String, List<Task<?>>> tasksByLane = tasks.stream()
+                .filter(task -> primary || taskShards.shardedTasks().contains(task.getName()))
+                .collect(Collectors.groupingBy(task -> laneProperties.laneOf(task.getName()), LinkedHashMap::new,
+                                               Collectors.toList()));
+            Map<String, TaskLaneProperties.Lane> shardLanes = new LinkedHashMap<>();
+            if (primary || tasksByLane.containsKey(TaskLanes.DEFAULT_LANE)) {
+                shardLanes.put(TaskLanes.DEFAULT_LANE, defaultLane);
+            }
+            laneProperties.getLanes().forEach((name, lane) -> {
+                if (!tasksByLane.containsKey(name)) {
+                    log.warn("Scheduler lane {} has none of its tasks {} registered on shard {}, not starting it",
+                             name, lane.getTasks(), shard.name());
+                    return;
+                }
+                shardLanes.put(name, lane);
+            });
+            TaskLaneProperties.checkSharedTable(shard.name(), shardLanes);
+            boolean sharedTable = shardLanes.size() > 1;
+            shardLanes.forEach((name, lane) -> lanes.add(
+                lane(shard, name, lane, tasksByLane, pollingInterval, sharedTable, virtualThreads, priorityEnabled,
+                     taskDataSerializer, schedulerListeners, executionInterceptors)));
+        }
+        return new TaskLanes(lanes, meterRegistry);
+    }
+
+    private static TaskLanes.Lane lane(TaskShards.Shard shard, String name, TaskLaneProperties.Lane settings,
+                                       Map<String, List<Task<?>>> tasksByLane, Duration defaultPollingInterval,
+                                       boolean sharedTable, boolean virtualThreads, boolean priorityEnabled,
+                                       Serializer taskDataSerializer,
+                                       List<SchedulerListener> schedulerListeners,
+                                       List<ExecutionInterceptor> executionInterceptors) {
+        List<Task<?>> laneTasks = tasksByLane.getOrDefault(name, List.of());
+        var builder = Scheduler.create(shard.dataSource(), laneTasks)
+            .threads(settings.getThreads())
+            .pollingInterval(settings.getPollingInterval() != null
+                                 ? settings.getPollingInterval() : defaultPollingInterval)
+            .serializer(taskDataSerializer)
+            .startTasks(recurringTasks(laneTasks))
             .registerShutdownHook();
 
+        TaskLaneProperties.Polling polling = settings.getPolling();
+        if (polling.getStrategy() == TaskLaneProperties.PollingStrategy.LOCK_AND_FETCH) {
+            builder.pollUsingLockAndFetch(polling.getLowerLimitFractionOfThreads(), polling.upperLimit());
+        } else {
+            builder.pollUsingFetchAndLockOnExecute(polling.getLowerLimitFractionOfThreads(), polling.upperLimit());
+        }
+        if (sharedTable) {
+            builder.deleteUnresolvedAfter(TaskLanes.SHARED_TABLE_DELETE_UNRESOLVED_AFTER);
+        }
+        if (!TaskShards.PRIMARY_SHARD.equals(shard.name())) {
+            builder.schedulerName(new SchedulerName.Fixed(
+                new SchedulerName.Hostname().getName() + "-" + shard.name() + "-" + name));
+        } else if (!TaskLanes.DEFAULT_LANE.equals(name)) {
+            builder.schedulerName(new SchedulerName.Fixed(new SchedulerName.Hostname().getName() + "-" + name));
+        }
+        if (virtualThreads) {
+            builder.executorService(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        if (priorityEnabled) {
+            builder.enablePriority();
+        }
+
         schedulerListeners.forEach(builder::addSchedulerListener);
         executionInterceptors.forEach(builder::addExecutionInterceptor);
 
-        Scheduler scheduler = builder.build();
-        scheduler.start();
-        return scheduler;
+        Set<String> taskNames = laneTasks.stream().map(Task::getName).collect(Collectors.toSet());
+        return new TaskLanes.Lane(shard.name(), name, builder.build(), settings.getThreads(), taskNames);
+    }
+
+    private static List<RecurringTask<?>> recurringTasks(List<Task<?>> tasks) {
+        return tasks.stream()
+            .filter(RecurringTask.class::isInstance)
+            .<RecurringTask<?>>map(RecurringTask.class::cast)
+            .toList();
+    }
+
+    /**
+     * Wakes the lane running the inserted task on inserts into scheduled_tasks. Falls back to triggering a check every
+     * "db-scheduler.polling-interval-seconds" while the listener connection is down.
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnExpression("${db-scheduler.executor-enabled:false} and ${db-scheduler.listen-notify.enabled:false}")
+    public ScheduledTaskNotificationListener scheduledTaskNotificationListener(
+        TaskLanes taskLanes,
+        DataSourceProperties dataSourceProperties,
+        ScheduledTaskWakeups scheduledTaskWakeups,
+        @Value("${db-scheduler.polling-interval-seconds}") long fallbackInterval,
+        MeterRegistry meterRegistry) {
+
+        return new ScheduledTaskNotificationListener(
+            taskLanes,
+            dataSourceProperties,
+            scheduledTaskWakeups,
+            Duration.ofSeconds(fallbackInterval),
+            meterRegistry
+        );
     }
-} 
\ No newline at end of file
+}
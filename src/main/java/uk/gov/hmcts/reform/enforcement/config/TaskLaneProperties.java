@@ -0,0 +1,107 @@
+package uk.gov.hmcts.reform.enforcement.config;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskLanes;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Execution lanes, "db-scheduler.lanes.&lt;name&gt;". Each lane runs the listed tasks on its own scheduler with
+ * its own thread budget and polling limits; tasks not listed in any lane run in the default lane, which uses
+ * "db-scheduler.threads" and "db-scheduler.polling-interval-seconds".
+ * "db-scheduler.polling" sets how every lane claims due executions unless the lane sets its own.
+ */
+@Component
+@ConfigurationProperties(prefix = "db-scheduler")
+@Data
+public class TaskLaneProperties {
+    private Map<String, Lane> lanes = new LinkedHashMap<>();
+    private Polling polling = new Polling();
+
+    /**
+     * The lane a task runs in.
+     *
+     * @throws IllegalStateException if the task is listed in more than one lane
+     */
+    public String laneOf(String taskName) {
+        List<String> matches = lanes.entrySet().stream()
+            .filter(lane -> lane.getValue().getTasks().contains(taskName))
+            .map(Map.Entry::getKey)
+            .toList();
+        if (matches.size() > 1) {
+            throw new IllegalStateException("Task " + taskName + " is listed in more than one lane: " + matches);
+        }
+        return matches.isEmpty() ? TaskLanes.DEFAULT_LANE : matches.getFirst();
+    }
+
+    /**
+     * Checks that the lanes a shard runs can share its scheduled_tasks table. LOCK_AND_FETCH claims every due row
+     * it selects, whatever its task, so a lane using it would claim other lanes' rows and leave them picked until
+     * they are detected as dead. It is only allowed on a shard that runs that lane alone.
+     *
+     * @throws IllegalStateException if a lane polling with LOCK_AND_FETCH shares the table with another lane
+     */
+    public static void checkSharedTable(String shard, Map<String, Lane> shardLanes) {
+        if (shardLanes.size() < 2) {
+            return;
+        }
+        List<String> lockAndFetch = shardLanes.entrySet().stream()
+            .filter(lane -> lane.getValue().getPolling().getStrategy() == PollingStrategy.LOCK_AND_FETCH)
+            .map(Map.Entry::getKey)
+            .toList();
+        if (!lockAndFetch.isEmpty()) {
+            throw new IllegalStateException("Lanes " + lockAndFetch + " on shard " + shard + " poll with "
+                                                + PollingStrategy.LOCK_AND_FETCH + " but share scheduled_tasks with "
+                                                + "other lanes " + shardLanes.keySet());
+        }
+    }
+
+    @Data
+    public static class Lane {
+        private List<String> tasks = new ArrayList<>();
+        /** Concurrent executions: threads, or picked executions when running on virtual threads. */
+        private int threads = 4;
+        /** Defaults to the default lane's polling interval. */
+        private Duration pollingInterval;
+        /** Defaults to "db-scheduler.polling". */
+        private Polling polling;
+    }
+
+    @Data
+    public static class Polling {
+        private PollingStrategy strategy = PollingStrategy.FETCH;
+        /** Poll again once fewer executions than this fraction of threads are left in the batch. */
+        private double lowerLimitFractionOfThreads = 0.5;
+        /** How many executions to fetch per poll, as a fraction of threads; defaults per strategy. */
+        private Double upperLimitFractionOfThreads;
+
+        public double upperLimit() {
+            return upperLimitFractionOfThreads != null
+                ? upperLimitFractionOfThreads : strategy.getDefaultUpperLimitFractionOfThreads();
+        }
+    }
+
+    /**
+     * How a scheduler claims due executions. FETCH reads a batch of due rows and claims each one with an
+     * optimistic version check just before running it, so pods polling the same rows lose claims to each
+     * other. LOCK_AND_FETCH claims the whole batch in one {@code SELECT ... FOR UPDATE SKIP LOCKED} update,
+     * so concurrent pods take disjoint rows instead; it cannot tell its own tasks from other lanes', so it is
+     * only for a lane that has its shard's table to itself.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public enum PollingStrategy {
+        FETCH(3.0),
+        LOCK_AND_FETCH(1.0);
+
+        private final double defaultUpperLimitFractionOfThreads;
+    }
+}
@@ -0,0 +1,32 @@
+package uk.gov.hmcts.reform.enforcement.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sharded scheduler mode, "db-scheduler.sharding". When enabled, instances of the listed tasks are spread
+ * over the application database and every database in "db-scheduler.sharding.shards", each with its own
+ * {@code scheduled_tasks}. Everything else stays on the application database.
+ */
+@Component
+@ConfigurationProperties(prefix = "db-scheduler.sharding")
+@Data
+public class TaskShardProperties {
+    private boolean enabled;
+    private List<String> tasks = new ArrayList<>(List.of("send-email-task", "verify-email-task"));
+    private Map<String, Shard> shards = new LinkedHashMap<>();
+
+    @Data
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,87 @@
+package uk.gov.hmcts.reform.enforcement.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads pinned to their carrier for longer than the configured threshold, using the JFR
+ * {@code jdk.VirtualThreadPinned} event. Pinning is attributed to the JDBC driver or the Notify client
+ * when they appear in the stack, as those are the libraries with synchronized blocking sections here.
+ */
+@Component
+@Slf4j
+@ConditionalOnExpression(
+    "${spring.threads.virtual.enabled:false} and ${virtual-threads.pinning-diagnostics.enabled:true}"
+)
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 8;
+
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${virtual-threads.pinning-diagnostics.threshold:20ms}")
+                                       Duration threshold) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+    }
+
+    @PostConstruct
+    public void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+        log.info("Reporting virtual thread pinning longer than {}", threshold);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+        String source = source(frames);
+
+        meterRegistry.timer("jvm.virtual-threads.pinned", "source", source).record(event.getDuration());
+        log.warn("Virtual thread pinned for {} ms ({}):\n{}",
+                 event.getDuration().toMillis(),
+                 source,
+                 frames.stream()
+                     .limit(LOGGED_FRAMES)
+                     .map(frame -> "\tat " + frame.getMethod().getType().getName() + "."
+                         + frame.getMethod().getName() + ":" + frame.getLineNumber())
+                     .collect(Collectors.joining("\n")));
+    }
+
+    static String source(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            String className = frame.getMethod().getType().getName();
+            if (className.startsWith("org.postgresql.") || className.startsWith("com.zaxxer.hikari.")) {
+                return "jdbc";
+            }
+            if (className.startsWith("uk.gov.service.notify.")) {
+                return "notify";
+            }
+        }
+        return "other";
+    }
+}
@@ -0,0 +1,114 @@
+package uk.gov.hmcts.reform.enforcement.controllers;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import uk.gov.hmcts.reform.enforcement.notify.model.BulkEmailNotificationRequest;
+import uk.gov.hmcts.reform.enforcement.notify.model.BulkEmailNotificationResponse;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailCampaignRequest;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailCampaignResponse;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationPriority;
+import uk.gov.hmcts.reform.enforcement.notify.service.BulkNotificationService;
+import uk.gov.hmcts.reform.enforcement.notify.service.CampaignService;
+import uk.gov.hmcts.reform.enforcement.notify.service.NotificationAdmissionControl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Schedules emails for calling services, many per request. Callers are authenticated by the service auth
+ * filter. Each email gets its own result, so one invalid email does not reject the rest.
+ * Bulk and streamed emails honour their own idempotencyKey, but not their reference; campaigns take no key.
+ * Runs too large for one JSON request are uploaded as newline-delimited JSON to the stream endpoint, which
+ * answers with one result line per input line as each chunk is committed. Sending one template to many
+ * recipients is best done as a campaign, which stores the template once and expands recipients gradually.
+ * All three count as bulk traffic for admission control, so they are the first turned away, with 429 and a
+ * Retry-After, when the service falls behind.
+ */
+@Slf4j
+@RestController
+public class NotificationController {
+
+    private final BulkNotificationService bulkNotificationService;
+    private final CampaignService campaignService;
+    private final NotificationAdmissionControl admissionControl;
+
+    public NotificationController(BulkNotificationService bulkNotificationService,
+                                  CampaignService campaignService,
+                                  NotificationAdmissionControl admissionControl) {
+        this.bulkNotificationService = bulkNotificationService;
+        this.campaignService = campaignService;
+        this.admissionControl = admissionControl;
+    }
+
+    @PostMapping(value = "/notifications/email/bulk", consumes = MediaType.APPLICATION_JSON_VALUE,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkEmailNotificationResponse> scheduleEmails(
+        @RequestHeader(value = "ServiceAuthorization") String serviceAuthorization,
+        @RequestBody BulkEmailNotificationRequest request) {
+
+        Optional<Duration> shed = admissionControl.shed(NotificationPriority.BULK);
+        if (shed.isPresent()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(shed.get())).build();
+        }
+        try {
+            BulkEmailNotificationResponse response = bulkNotificationService.scheduleEmailNotifications(request);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected bulk email request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping(value = "/notifications/email/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+        produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamEmails(
+        @RequestHeader(value = "ServiceAuthorization") String serviceAuthorization,
+        @RequestParam(value = "fromLine", defaultValue = "1") long fromLine,
+        InputStream body,
+        HttpServletResponse response) throws IOException {
+
+        Optional<Duration> shed = admissionControl.shed(NotificationPriority.BULK);
+        if (shed.isPresent()) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds(shed.get()));
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        bulkNotificationService.streamEmailNotifications(body, response.getOutputStream(), fromLine);
+    }
+
+    @PostMapping(value = "/notifications/email/campaigns", consumes = MediaType.APPLICATION_JSON_VALUE,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<EmailCampaignResponse> createCampaign(
+        @RequestHeader(value = "ServiceAuthorization") String serviceAuthorization,
+        @RequestBody EmailCampaignRequest request) {
+
+        Optional<Duration> shed = admissionControl.shed(NotificationPriority.BULK);
+        if (shed.isPresent()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(shed.get())).build();
+        }
+        try {
+            return ResponseEntity.ok(campaignService.createCampaign(request));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected email campaign request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private static String retryAfterSeconds(Duration retryAfter) {
+        return Long.toString(Math.ceilDiv(retryAfter.toMillis(), 1000));
+    }
+}
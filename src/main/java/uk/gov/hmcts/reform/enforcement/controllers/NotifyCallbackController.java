@@ -0,0 +1,67 @@
+package uk.gov.hmcts.reform.enforcement.controllers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import uk.gov.hmcts.reform.enforcement.notify.model.DeliveryReceipt;
+import uk.gov.hmcts.reform.enforcement.notify.service.DeliveryReceiptService;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+/**
+ * Receives delivery receipts from GOV.UK Notify. Notify cannot present a service token, so the path is
+ * anonymous to the service auth filter and callers are authenticated with the bearer token configured for
+ * the callback in Notify ("notify.callback.bearer-token").
+ * Receipts for unknown notifications get a 404 and are retried by Notify, which covers receipts arriving
+ * before this node has learnt about a notification sent by another node.
+ */
+@Slf4j
+@RestController
+@ConditionalOnProperty(prefix = "notify.callback", name = "enabled", havingValue = "true")
+public class NotifyCallbackController {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final DeliveryReceiptService deliveryReceiptService;
+    private final byte[] bearerToken;
+
+    public NotifyCallbackController(DeliveryReceiptService deliveryReceiptService,
+                                    @Value("${notify.callback.bearer-token}") String bearerToken) {
+        this.deliveryReceiptService = deliveryReceiptService;
+        this.bearerToken = bearerToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostMapping(value = "/notify/delivery-receipts", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Void> deliveryReceipt(
+        @RequestHeader(value = AUTHORIZATION, required = false) String authorization,
+        @RequestBody DeliveryReceipt receipt) {
+
+        if (!isAuthorised(authorization)) {
+            log.warn("Rejected delivery receipt with missing or invalid bearer token");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        return switch (deliveryReceiptService.apply(receipt)) {
+            case APPLIED, QUEUED, IGNORED -> ResponseEntity.noContent().build();
+            case UNKNOWN -> ResponseEntity.notFound().build();
+        };
+    }
+
+    private boolean isAuthorised(String authorization) {
+        if (bearerToken.length == 0 || authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return false;
+        }
+        byte[] presented = authorization.substring(BEARER_PREFIX.length()).getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(presented, bearerToken);
+    }
+}
@@ -0,0 +1,178 @@
+package uk.gov.hmcts.reform.enforcement.notify.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import uk.gov.service.notify.Notification;
+import uk.gov.service.notify.NotificationClient;
+import uk.gov.service.notify.NotificationClientException;
+import uk.gov.service.notify.NotificationList;
+import uk.gov.service.notify.SendEmailResponse;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * GOV.UK Notify client for the send email, get notification and list notifications operations, built on the JDK
+ * {@link HttpClient}. Connections are pooled and kept alive, HTTP/2 is negotiated when the server
+ * offers it (so many requests share one connection), and the signed token is reused for its validity
+ * window instead of being signed per request.
+ * The blocking {@link NotificationClient} methods are kept so existing callers work unchanged; callers
+ * that can pipeline should use the {@code *Async} variants, which do not hold a thread while waiting.
+ * Anything not overridden here falls through to the stock client.
+ */
+public class AsyncNotificationClient extends NotificationClient {
+
+    private static final String USER_AGENT = "NOTIFY-API-JAVA-CLIENT/enforcement-api-async";
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final NotifyTokenSigner tokenSigner;
+    private final URI baseUri;
+    private final Duration readTimeout;
+
+    public AsyncNotificationClient(String apiKey, String baseUrl, ObjectMapper objectMapper,
+                                   Duration connectTimeout, Duration readTimeout, Duration tokenTtl) {
+        this(apiKey, baseUrl, objectMapper,
+             HttpClient.newBuilder()
+                 .version(HttpClient.Version.HTTP_2)
+                 .connectTimeout(connectTimeout)
+                 .followRedirects(HttpClient.Redirect.NEVER)
+                 .build(),
+             new NotifyTokenSigner(apiKey, tokenTtl),
+             readTimeout);
+    }
+
+    AsyncNotificationClient(String apiKey, String baseUrl, ObjectMapper objectMapper, HttpClient httpClient,
+                            NotifyTokenSigner tokenSigner, Duration readTimeout) {
+        super(apiKey, baseUrl);
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.tokenSigner = tokenSigner;
+        this.baseUri = URI.create(baseUrl.endsWith("/") ? baseUrl : baseUrl + "/");
+        this.readTimeout = readTimeout;
+    }
+
+    @Override
+    public SendEmailResponse sendEmail(String templateId, String emailAddress, Map<String, ?> personalisation,
+                                       String reference) throws NotificationClientException {
+        return await(sendEmailAsync(templateId, emailAddress, personalisation, reference, null));
+    }
+
+    @Override
+    public SendEmailResponse sendEmail(String templateId, String emailAddress, Map<String, ?> personalisation,
+                                       String reference, String emailReplyToId) throws NotificationClientException {
+        return await(sendEmailAsync(templateId, emailAddress, personalisation, reference, emailReplyToId));
+    }
+
+    @Override
+    public Notification getNotificationById(String notificationId) throws NotificationClientException {
+        return await(getNotificationByIdAsync(notificationId));
+    }
+
+    @Override
+    public NotificationList getNotifications(String status, String notificationType, String reference,
+                                             String olderThanId) throws NotificationClientException {
+        return await(getNotificationsAsync(status, notificationType, reference, olderThanId));
+    }
+
+    public CompletableFuture<SendEmailResponse> sendEmailAsync(String templateId, String emailAddress,
+                                                               Map<String, ?> personalisation, String reference,
+                                                               String emailReplyToId) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("email_address", emailAddress);
+        body.put("template_id", templateId);
+        if (personalisation != null) {
+            body.put("personalisation", personalisation);
+        }
+        if (reference != null) {
+            body.put("reference", reference);
+        }
+        if (emailReplyToId != null) {
+            body.put("email_reply_to_id", emailReplyToId);
+        }
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new NotifyHttpException(400, "Unserialisable request body", e));
+        }
+
+        HttpRequest request = request("v2/notifications/email")
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build();
+        return exchange(request, 201, SendEmailResponse::new);
+    }
+
+    public CompletableFuture<Notification> getNotificationByIdAsync(String notificationId) {
+        HttpRequest request = request("v2/notifications/" + notificationId).GET().build();
+        return exchange(request, 200, Notification::new);
+    }
+
+    public CompletableFuture<NotificationList> getNotificationsAsync(String status, String notificationType,
+                                                                     String reference, String olderThanId) {
+        Map<String, String> query = new LinkedHashMap<>();
+        query.put("status", status);
+        query.put("template_type", notificationType);
+        query.put("reference", reference);
+        query.put("older_than", olderThanId);
+        String queryString = query.entrySet().stream()
+            .filter(entry -> entry.getValue() != null && !entry.getValue().isEmpty())
+            .map(entry -> entry.getKey() + "=" + URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8))
+            .collect(Collectors.joining("&"));
+
+        HttpRequest request = request("v2/notifications" + (queryString.isEmpty() ? "" : "?" + queryString))
+            .GET()
+            .build();
+        return exchange(request, 200, NotificationList::new);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+            .timeout(readTimeout)
+            .header("Authorization", "Bearer " + tokenSigner.token())
+            .header("User-Agent", USER_AGENT);
+    }
+
+    private <T> CompletableFuture<T> exchange(HttpRequest request, int expectedStatus, Function<String, T> parser) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .handle((response, error) -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    throw new CompletionException(new NotifyHttpException(
+                        0, "Notify request failed: " + cause, cause instanceof Exception e ? e : null));
+                }
+                if (response.statusCode() != expectedStatus) {
+                    throw new CompletionException(new NotifyHttpException(
+                        response.statusCode(), "Status code: " + response.statusCode() + " " + response.body()));
+                }
+                return parser.apply(response.body());
+            });
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws NotificationClientException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof NotificationClientException notificationClientException) {
+                throw notificationClientException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new NotifyHttpException(0, "Notify request failed", e);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package uk.gov.hmcts.reform.enforcement.notify.client;
+
+import uk.gov.service.notify.NotificationClientException;
+
+/**
+ * A single outbound call to GOV.UK Notify.
+ */
+@FunctionalInterface
+public interface NotifyCall<T> {
+    T call() throws NotificationClientException;
+}
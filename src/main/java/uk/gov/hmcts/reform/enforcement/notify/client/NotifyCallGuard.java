@@ -0,0 +1,188 @@
+package uk.gov.hmcts.reform.enforcement.notify.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.enforcement.notify.exception.NotifyCallRejectedException;
+import uk.gov.service.notify.NotificationClientException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of concurrent calls to GOV.UK Notify made by this node.
+ * With virtual threads the number of task executions is no longer bounded by a thread pool, so the
+ * in-flight limit has to be explicit; it is set by {@link NotifyConcurrencyLimit}, which adapts it to
+ * Notify's latency and error rate. Calls that cannot get a permit are rejected straight away with a
+ * {@link NotifyCallRejectedException} so the task is deferred instead of holding a thread.
+ * Sends additionally take a token from the cluster-wide {@link NotifyRateLimiter}, handed back if the call
+ * is then turned away, and no call is made at all while the {@link NotifyCircuitBreaker} is open.
+ */
+@Component
+@Slf4j
+public class NotifyCallGuard {
+
+    private final NotifyConcurrencyLimit concurrencyLimit;
+    private final NotifyRateLimiter rateLimiter;
+    private final NotifyCircuitBreaker circuitBreaker;
+    private final Duration retryAfter;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public NotifyCallGuard(NotifyConcurrencyLimit concurrencyLimit,
+                           NotifyRateLimiter rateLimiter,
+                           NotifyCircuitBreaker circuitBreaker,
+                           @Value("${notify.rejected-retry-after:5s}") Duration retryAfter,
+                           MeterRegistry meterRegistry) {
+        this.concurrencyLimit = concurrencyLimit;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.retryAfter = retryAfter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * How long work should be put off because Notify is known to be unavailable, so that tasks can be
+     * deferred before doing anything else. Empty when calls may be attempted.
+     */
+    public Optional<Duration> outageDeferral() {
+        if (circuitBreaker.isCallPermitted()) {
+            return Optional.empty();
+        }
+        return Optional.of(circuitBreaker.remainingOpen().plus(retryAfter));
+    }
+
+    /**
+     * Makes a call that sends a message, so counts against the Notify rate limit as well as the
+     * in-flight limit. The token is taken first, as waiting for one must not hold an in-flight permit, and
+     * returned to the limiter when the circuit breaker or the in-flight limit then rejects the call.
+     */
+    public <T> T send(NotifyCall<T> call) throws NotificationClientException {
+        if (!circuitBreaker.isCallPermitted()) {
+            throw circuitOpen();
+        }
+        rateLimiter.acquire();
+        try {
+            admit();
+        } catch (NotifyCallRejectedException e) {
+            rateLimiter.release(1);
+            throw e;
+        }
+        return invoke(call);
+    }
+
+    public <T> T call(NotifyCall<T> call) throws NotificationClientException {
+        admit();
+        return invoke(call);
+    }
+
+    /**
+     * Starts an asynchronous call if an in-flight permit is available, for batch paths that pipeline many
+     * calls at once. The permit is given back, and the limit adjusted to the call's round trip or failure,
+     * when the returned future completes. Circuit breaker and rate limiter are left to the caller.
+     *
+     * @return the call in progress, or empty if the in-flight limit has been reached
+     */
+    public <T> Optional<CompletableFuture<T>> tryCallAsync(Supplier<CompletableFuture<T>> call) {
+        if (!concurrencyLimit.tryAcquire()) {
+            meterRegistry.counter("notify.calls.rejected", "reason", "in-flight").increment();
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        CompletableFuture<T> response;
+        try {
+            response = call.get();
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        return Optional.of(response.whenComplete((result, error) -> {
+            long rttNanos = System.nanoTime() - start;
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            if (cause == null) {
+                concurrencyLimit.onSuccess(rttNanos);
+                record("success", rttNanos);
+            } else if (cause instanceof NotificationClientException e && !isOverload(e.getHttpResult())) {
+                concurrencyLimit.onIgnore();
+                record("error", rttNanos);
+            } else {
+                concurrencyLimit.onDropped();
+                record("dropped", rttNanos);
+            }
+        }));
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Takes a circuit breaker permission and an in-flight permit, both given back by {@link #invoke}.
+     */
+    private void admit() {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            throw circuitOpen();
+        }
+        if (!concurrencyLimit.tryAcquire()) {
+            circuitBreaker.onIgnore();
+            meterRegistry.counter("notify.calls.rejected", "reason", "in-flight").increment();
+            log.debug("Notify in-flight limit of {} reached", (int) concurrencyLimit.getLimit());
+            throw new NotifyCallRejectedException("Notify in-flight limit reached", retryAfter);
+        }
+    }
+
+    private <T> T invoke(NotifyCall<T> call) throws NotificationClientException {
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            long rttNanos = System.nanoTime() - start;
+            concurrencyLimit.onSuccess(rttNanos);
+            circuitBreaker.onSuccess();
+            record("success", rttNanos);
+            return result;
+        } catch (NotificationClientException e) {
+            if (isOverload(e.getHttpResult())) {
+                concurrencyLimit.onDropped();
+                circuitBreaker.onFailure();
+                record("dropped", System.nanoTime() - start);
+            } else {
+                concurrencyLimit.onIgnore();
+                circuitBreaker.onSuccess();
+                record("error", System.nanoTime() - start);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            // I/O errors and timeouts surface as runtime exceptions from the client
+            concurrencyLimit.onDropped();
+            circuitBreaker.onFailure();
+            record("dropped", System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private NotifyCallRejectedException circuitOpen() {
+        meterRegistry.counter("notify.calls.rejected", "reason", "circuit-open").increment();
+        return new NotifyCallRejectedException("Notify circuit breaker is open",
+                                               circuitBreaker.remainingOpen().plus(retryAfter));
+    }
+
+    private void record(String outcome, long rttNanos) {
+        Timer.builder("notify.call.duration")
+            .tag("outcome", outcome)
+            .register(meterRegistry)
+            .record(rttNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 429 and 5xx mean Notify is overloaded; 0 means no HTTP status was received.
+     */
+    public static boolean isOverload(int httpResult) {
+        return httpResult == 429 || httpResult >= 500 || httpResult == 0;
+    }
+}
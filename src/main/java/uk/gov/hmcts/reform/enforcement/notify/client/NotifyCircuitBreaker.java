@@ -0,0 +1,212 @@
+package uk.gov.hmcts.reform.enforcement.notify.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Circuit breaker for calls to GOV.UK Notify, shared by the send and verify paths.
+ * It opens when at least "notify.circuit-breaker.failure-rate-threshold" of the last
+ * "notify.circuit-breaker.window-size" calls failed with a 429, 5xx, I/O error or timeout, and stays open
+ * for "notify.circuit-breaker.open-duration". It then goes half-open and lets one probe call through,
+ * doubling the number of concurrent probes after each success until
+ * "notify.circuit-breaker.half-open-successes" probes have succeeded and it closes again. Any failed probe
+ * reopens it.
+ * Opening publishes a {@link NotifyCircuitOpenedEvent} so pending work can be rescheduled in bulk.
+ */
+@Component
+@Slf4j
+public class NotifyCircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final Clock clock;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final Duration openDuration;
+    private final int halfOpenSuccesses;
+    private final boolean[] outcomes;
+
+    private State state = State.CLOSED;
+    private int recordedCalls;
+    private int failedCalls;
+    private int nextOutcome;
+    private Instant openUntil = Instant.EPOCH;
+    private int probeLimit;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    @Autowired
+    public NotifyCircuitBreaker(ApplicationEventPublisher eventPublisher,
+                                MeterRegistry meterRegistry,
+                                @Value("${notify.circuit-breaker.window-size:20}") int windowSize,
+                                @Value("${notify.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                                @Value("${notify.circuit-breaker.failure-rate-threshold:0.5}")
+                                double failureRateThreshold,
+                                @Value("${notify.circuit-breaker.open-duration:30s}") Duration openDuration,
+                                @Value("${notify.circuit-breaker.half-open-successes:10}") int halfOpenSuccesses) {
+        this(eventPublisher, Clock.systemUTC(), windowSize, minimumCalls, failureRateThreshold, openDuration,
+             halfOpenSuccesses);
+        meterRegistry.gauge("notify.circuit-breaker.state", this, breaker -> breaker.getState().ordinal());
+    }
+
+    NotifyCircuitBreaker(ApplicationEventPublisher eventPublisher, Clock clock, int windowSize, int minimumCalls,
+                         double failureRateThreshold, Duration openDuration, int halfOpenSuccesses) {
+        this.eventPublisher = eventPublisher;
+        this.clock = clock;
+        this.outcomes = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDuration = openDuration;
+        this.halfOpenSuccesses = halfOpenSuccesses;
+    }
+
+    /**
+     * Whether a call could currently be attempted, without taking a probe permit.
+     */
+    public synchronized boolean isCallPermitted() {
+        return state != State.OPEN || !clock.instant().isBefore(openUntil);
+    }
+
+    public synchronized boolean isClosed() {
+        return state == State.CLOSED;
+    }
+
+    /**
+     * Takes permission for one call. While half-open this is a probe permit, which must be handed back
+     * through {@link #onSuccess()}, {@link #onFailure()} or {@link #onIgnore()}.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (clock.instant().isBefore(openUntil)) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+            probeLimit = 1;
+            probesInFlight = 0;
+            probeSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= probeLimit) {
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    /**
+     * Time left until the breaker lets a probe through, zero unless it is open.
+     */
+    public synchronized Duration remainingOpen() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        Duration remaining = Duration.between(clock.instant(), openUntil);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    /**
+     * Records a call that reached Notify and got an answer, including client errors such as 400 or 404.
+     */
+    public synchronized void onSuccess() {
+        switch (state) {
+            case CLOSED -> record(false);
+            case HALF_OPEN -> {
+                releaseProbe();
+                probeSuccesses++;
+                if (probeSuccesses >= halfOpenSuccesses) {
+                    transitionTo(State.CLOSED);
+                    resetWindow();
+                } else {
+                    probeLimit = Math.min(probeLimit * 2, halfOpenSuccesses);
+                }
+            }
+            default -> {
+                // a call that was already in flight when the breaker opened
+            }
+        }
+    }
+
+    /**
+     * Records a call that showed Notify is unavailable or overloaded.
+     */
+    public void onFailure() {
+        Instant openedUntil = null;
+        synchronized (this) {
+            if (state == State.HALF_OPEN || (state == State.CLOSED && record(true))) {
+                openedUntil = open();
+            }
+        }
+        if (openedUntil != null) {
+            eventPublisher.publishEvent(new NotifyCircuitOpenedEvent(openedUntil));
+        }
+    }
+
+    /**
+     * Hands back a permit for a call that was not made.
+     */
+    public synchronized void onIgnore() {
+        if (state == State.HALF_OPEN) {
+            releaseProbe();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Adds an outcome to the sliding window and reports whether the failure rate now calls for opening.
+     */
+    private boolean record(boolean failed) {
+        if (recordedCalls == outcomes.length) {
+            if (outcomes[nextOutcome]) {
+                failedCalls--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        outcomes[nextOutcome] = failed;
+        if (failed) {
+            failedCalls++;
+        }
+        nextOutcome = (nextOutcome + 1) % outcomes.length;
+        return recordedCalls >= minimumCalls && (double) failedCalls / recordedCalls >= failureRateThreshold;
+    }
+
+    private Instant open() {
+        transitionTo(State.OPEN);
+        openUntil = clock.instant().plus(openDuration);
+        resetWindow();
+        log.warn("Notify circuit breaker open until {}", openUntil);
+        return openUntil;
+    }
+
+    private void releaseProbe() {
+        probesInFlight = Math.max(0, probesInFlight - 1);
+    }
+
+    private void resetWindow() {
+        recordedCalls = 0;
+        failedCalls = 0;
+        nextOutcome = 0;
+    }
+
+    private void transitionTo(State next) {
+        if (state != next) {
+            log.info("Notify circuit breaker {} -> {}", state, next);
+            state = next;
+        }
+    }
+}
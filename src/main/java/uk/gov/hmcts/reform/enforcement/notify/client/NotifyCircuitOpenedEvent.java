@@ -0,0 +1,9 @@
+package uk.gov.hmcts.reform.enforcement.notify.client;
+
+import java.time.Instant;
+
+/**
+ * Published when the Notify circuit breaker opens; no calls will be attempted before {@code openUntil}.
+ */
+public record NotifyCircuitOpenedEvent(Instant openUntil) {
+}
@@ -0,0 +1,146 @@
+package uk.gov.hmcts.reform.enforcement.notify.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-node limit on concurrent calls to GOV.UK Notify.
+ * With "notify.concurrency.adaptive" = true the limit follows AIMD: it grows by one after each successful
+ * call made while the limit was at least half used, and is multiplied by "notify.concurrency.backoff-ratio"
+ * after a 429, 5xx, timeout, or a call slower than "notify.concurrency.rtt-tolerance" times the lowest
+ * round trip seen in the current window. Otherwise, the default, the limit stays at "notify.max-in-flight".
+ * Acquiring never blocks; callers that do not get a permit leave the work in scheduled_tasks.
+ */
+@Component
+@Slf4j
+public class NotifyConcurrencyLimit {
+
+    private final boolean adaptive;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double rttTolerance;
+    private final long rttWindowNanos;
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private long baselineRttNanos = Long.MAX_VALUE;
+    private long windowMinRttNanos = Long.MAX_VALUE;
+    private long windowStartNanos;
+
+    @Autowired
+    public NotifyConcurrencyLimit(@Value("${notify.concurrency.adaptive:false}") boolean adaptive,
+                                  @Value("${notify.concurrency.initial-limit:10}") int initialLimit,
+                                  @Value("${notify.concurrency.min-limit:2}") int minLimit,
+                                  @Value("${notify.max-in-flight:20}") int maxLimit,
+                                  @Value("${notify.concurrency.backoff-ratio:0.9}") double backoffRatio,
+                                  @Value("${notify.concurrency.rtt-tolerance:2.0}") double rttTolerance,
+                                  @Value("${notify.concurrency.rtt-window:60s}") Duration rttWindow,
+                                  MeterRegistry meterRegistry) {
+        this(adaptive, initialLimit, minLimit, maxLimit, backoffRatio, rttTolerance, rttWindow, System::nanoTime);
+        meterRegistry.gauge("notify.concurrency.limit", this, NotifyConcurrencyLimit::getLimit);
+        meterRegistry.gauge("notify.calls.in-flight", inFlight);
+    }
+
+    NotifyConcurrencyLimit(boolean adaptive, int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                           double rttTolerance, Duration rttWindow, LongSupplier nanoClock) {
+        this.adaptive = adaptive;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.rttTolerance = rttTolerance;
+        this.rttWindowNanos = rttWindow.toNanos();
+        this.nanoClock = nanoClock;
+        this.limit = adaptive ? Math.clamp(initialLimit, minLimit, maxLimit) : maxLimit;
+        this.windowStartNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Takes a permit if fewer calls than the current limit are in flight.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a permit after a call that completed normally, taking its round trip time into account.
+     */
+    public void onSuccess(long rttNanos) {
+        int inFlightBeforeRelease = inFlight.getAndDecrement();
+        if (!adaptive) {
+            return;
+        }
+        synchronized (this) {
+            long baseline = recordRtt(rttNanos);
+            if (baseline != Long.MAX_VALUE && rttNanos > baseline * rttTolerance) {
+                decrease();
+            } else if (inFlightBeforeRelease * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+    }
+
+    /**
+     * Releases a permit after a call that showed Notify is overloaded (429, 5xx or timeout).
+     */
+    public void onDropped() {
+        inFlight.decrementAndGet();
+        if (adaptive) {
+            synchronized (this) {
+                decrease();
+            }
+        }
+    }
+
+    /**
+     * Releases a permit without adjusting the limit, for failures that say nothing about Notify's load.
+     */
+    public void onIgnore() {
+        inFlight.decrementAndGet();
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void decrease() {
+        double previous = limit;
+        limit = Math.max(minLimit, limit * backoffRatio);
+        if ((int) previous != (int) limit) {
+            log.debug("Notify concurrency limit reduced from {} to {}", (int) previous, (int) limit);
+        }
+    }
+
+    private long recordRtt(long rttNanos) {
+        long now = nanoClock.getAsLong();
+        if (now - windowStartNanos > rttWindowNanos) {
+            if (windowMinRttNanos != Long.MAX_VALUE) {
+                baselineRttNanos = windowMinRttNanos;
+            }
+            windowMinRttNanos = Long.MAX_VALUE;
+            windowStartNanos = now;
+        }
+        windowMinRttNanos = Math.min(windowMinRttNanos, rttNanos);
+        return Math.min(baselineRttNanos, windowMinRttNanos);
+    }
+}
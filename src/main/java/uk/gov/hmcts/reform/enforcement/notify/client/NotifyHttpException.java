@@ -0,0 +1,33 @@
+package uk.gov.hmcts.reform.enforcement.notify.client;
+
+import uk.gov.service.notify.NotificationClientException;
+
+/**
+ * Error from {@link AsyncNotificationClient}, carrying the HTTP status the same way the stock client does.
+ * The status is 0 when no response was received (connection failure or timeout).
+ */
+public class NotifyHttpException extends NotificationClientException {
+
+    private final int httpResult;
+    private final String message;
+
+    public NotifyHttpException(int httpResult, String message) {
+        this(httpResult, message, null);
+    }
+
+    public NotifyHttpException(int httpResult, String message, Exception cause) {
+        super(cause);
+        this.httpResult = httpResult;
+        this.message = message;
+    }
+
+    @Override
+    public int getHttpResult() {
+        return httpResult;
+    }
+
+    @Override
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,245 @@
+package uk.gov.hmcts.reform.enforcement.notify.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.enforcement.notify.exception.NotifyCallRejectedException;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotifyRateLimitRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cluster-wide limit on emails sent through GOV.UK Notify, so that all nodes together stay under the
+ * per-API-key rate limit instead of finding out through 429 responses.
+ * Tokens live in a Postgres token bucket shared by every node. Each node leases
+ * "notify.rate-limit.lease-size" tokens at a time and spends them locally, so most sends need no
+ * database round trip. Leased tokens that are not spent within "notify.rate-limit.lease-ttl" are
+ * dropped, which keeps a node from saving up tokens and bursting over the limit later. Each lease keeps its
+ * own expiry; leasing more never extends the life of tokens already held.
+ * Only one lease is in flight per node at a time, and the database round trip happens outside the lock, so
+ * requests that can be served from tokens already held never wait for it.
+ * When enabled is false every request is granted.
+ */
+@Component
+@Slf4j
+public class NotifyRateLimiter {
+
+    private final NotifyRateLimitRepository repository;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final boolean enabled;
+    private final String bucketKey;
+    private final double capacity;
+    private final double refillPerSecond;
+    private final int leaseSize;
+    private final Duration leaseTtl;
+    private final Duration maxWait;
+    private final Duration retryAfter;
+
+    private final ReentrantLock leaseLock = new ReentrantLock();
+    private final Deque<Lease> leases = new ArrayDeque<>();
+    private CompletableFuture<Void> leaseInFlight;
+
+    @Autowired
+    public NotifyRateLimiter(NotifyRateLimitRepository repository,
+                             MeterRegistry meterRegistry,
+                             @Value("${notify.rate-limit.enabled:false}") boolean enabled,
+                             @Value("${notify.rate-limit.bucket-key:notify-email}") String bucketKey,
+                             @Value("${notify.rate-limit.per-minute:2850}") int perMinute,
+                             @Value("${notify.rate-limit.burst:100}") int burst,
+                             @Value("${notify.rate-limit.lease-size:20}") int leaseSize,
+                             @Value("${notify.rate-limit.lease-ttl:2s}") Duration leaseTtl,
+                             @Value("${notify.rate-limit.max-wait:2s}") Duration maxWait,
+                             @Value("${notify.rejected-retry-after:5s}") Duration retryAfter) {
+        this(repository, meterRegistry, Clock.systemUTC(), enabled, bucketKey, perMinute, burst, leaseSize,
+             leaseTtl, maxWait, retryAfter);
+    }
+
+    NotifyRateLimiter(NotifyRateLimitRepository repository, MeterRegistry meterRegistry, Clock clock,
+                      boolean enabled, String bucketKey, int perMinute, int burst, int leaseSize,
+                      Duration leaseTtl, Duration maxWait, Duration retryAfter) {
+        this.repository = repository;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.bucketKey = bucketKey;
+        this.capacity = burst;
+        this.refillPerSecond = perMinute / 60d;
+        this.leaseSize = leaseSize;
+        this.leaseTtl = leaseTtl;
+        this.maxWait = maxWait;
+        this.retryAfter = retryAfter;
+    }
+
+    @PostConstruct
+    public void configureBucket() {
+        if (enabled) {
+            repository.configure(bucketKey, capacity, refillPerSecond);
+            log.info("Notify rate limit bucket {}: {} per second, burst {}", bucketKey, refillPerSecond, capacity);
+        }
+    }
+
+    /**
+     * Takes one token, waiting up to "notify.rate-limit.max-wait" for the bucket to refill.
+     *
+     * @throws NotifyCallRejectedException if no token became available in time
+     */
+    public void acquire() {
+        if (!enabled || tryAcquire(1) == 1) {
+            return;
+        }
+
+        Instant deadline = clock.instant().plus(maxWait);
+        Duration pause = Duration.ofMillis(Math.max(1, (long) (leaseSize * 1000 / refillPerSecond)));
+        while (clock.instant().plus(pause).isBefore(deadline)) {
+            if (!sleep(pause)) {
+                break;
+            }
+            if (tryAcquire(1) == 1) {
+                meterRegistry.counter("notify.rate-limit.waits").increment();
+                return;
+            }
+        }
+
+        meterRegistry.counter("notify.calls.rejected", "reason", "rate-limit").increment();
+        throw new NotifyCallRejectedException("Notify rate limit reached", retryAfter);
+    }
+
+    /**
+     * Takes up to {@code permits} tokens without waiting on other callers, other than for a lease already in
+     * flight when too few tokens are held.
+     *
+     * @return the number of tokens granted, between zero and {@code permits}
+     */
+    public int tryAcquire(int permits) {
+        if (!enabled) {
+            return permits;
+        }
+
+        Instant now = clock.instant();
+        CompletableFuture<Void> lease;
+        int requested = 0;
+        leaseLock.lock();
+        try {
+            dropExpired(now);
+            int held = leases.stream().mapToInt(entry -> entry.tokens).sum();
+            if (held >= permits) {
+                return take(permits);
+            }
+            if (leaseInFlight == null) {
+                leaseInFlight = new CompletableFuture<>();
+                requested = Math.max(leaseSize, permits - held);
+            }
+            lease = leaseInFlight;
+        } finally {
+            leaseLock.unlock();
+        }
+
+        if (requested > 0) {
+            lease(requested, now, lease);
+        } else {
+            lease.join();
+        }
+
+        leaseLock.lock();
+        try {
+            dropExpired(now);
+            return take(permits);
+        } finally {
+            leaseLock.unlock();
+        }
+    }
+
+    /**
+     * Hands back tokens that were acquired but not used, for example when fewer tasks were due than
+     * tokens were taken for. They join the oldest lease still held, so they never outlive the lease they
+     * came from; if every lease has expired they are dropped.
+     */
+    public void release(int permits) {
+        if (!enabled || permits <= 0) {
+            return;
+        }
+        Instant now = clock.instant();
+        leaseLock.lock();
+        try {
+            dropExpired(now);
+            Lease oldest = leases.peekFirst();
+            if (oldest != null) {
+                oldest.tokens += permits;
+            }
+        } finally {
+            leaseLock.unlock();
+        }
+    }
+
+    private void lease(int requested, Instant now, CompletableFuture<Void> lease) {
+        int leased = 0;
+        try {
+            leased = repository.lease(bucketKey, requested);
+            meterRegistry.counter("notify.rate-limit.leases").increment();
+        } finally {
+            leaseLock.lock();
+            try {
+                if (leased > 0) {
+                    leases.addLast(new Lease(leased, now.plus(leaseTtl)));
+                }
+                leaseInFlight = null;
+            } finally {
+                leaseLock.unlock();
+            }
+            lease.complete(null);
+        }
+    }
+
+    private void dropExpired(Instant now) {
+        leases.removeIf(lease -> now.isAfter(lease.expiry));
+    }
+
+    /**
+     * Takes up to {@code permits} tokens, oldest lease first. Must be called holding the lease lock.
+     */
+    private int take(int permits) {
+        int granted = 0;
+        for (Lease lease : leases) {
+            int taken = Math.min(permits - granted, lease.tokens);
+            lease.tokens -= taken;
+            granted += taken;
+            if (granted == permits) {
+                break;
+            }
+        }
+        return granted;
+    }
+
+    private static boolean sleep(Duration pause) {
+        try {
+            Thread.sleep(pause);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Tokens leased together, spendable until their expiry.
+     */
+    private static final class Lease {
+        private int tokens;
+        private final Instant expiry;
+
+        private Lease(int tokens, Instant expiry) {
+            this.tokens = tokens;
+            this.expiry = expiry;
+        }
+    }
+}
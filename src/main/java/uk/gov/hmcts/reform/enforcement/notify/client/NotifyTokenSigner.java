@@ -0,0 +1,70 @@
+package uk.gov.hmcts.reform.enforcement.notify.client;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Signs the HS256 JWT that GOV.UK Notify expects as a bearer token, and reuses it until it is
+ * {@code tokenTtl} old. Notify accepts tokens issued within the last 30 seconds, so the TTL must stay
+ * below that.
+ */
+class NotifyTokenSigner {
+
+    private static final String HEADER = base64("{\"typ\":\"JWT\",\"alg\":\"HS256\"}");
+
+    private final String serviceId;
+    private final SecretKeySpec secretKey;
+    private final Duration tokenTtl;
+    private final Clock clock;
+
+    private volatile SignedToken current;
+
+    NotifyTokenSigner(String apiKey, Duration tokenTtl) {
+        this(apiKey, tokenTtl, Clock.systemUTC());
+    }
+
+    NotifyTokenSigner(String apiKey, Duration tokenTtl, Clock clock) {
+        // API keys are "<key name>-<service id (36 chars)>-<secret (36 chars)>"
+        this.serviceId = apiKey.substring(Math.max(0, apiKey.length() - 73), Math.max(0, apiKey.length() - 37));
+        this.secretKey = new SecretKeySpec(
+            apiKey.substring(Math.max(0, apiKey.length() - 36)).getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        this.tokenTtl = tokenTtl;
+        this.clock = clock;
+    }
+
+    String token() {
+        Instant now = clock.instant();
+        SignedToken token = current;
+        if (token == null || !now.isBefore(token.issuedAt().plus(tokenTtl))) {
+            token = new SignedToken(sign(now), now);
+            current = token;
+        }
+        return token.value();
+    }
+
+    private String sign(Instant issuedAt) {
+        String claims = base64("{\"iss\":\"" + serviceId + "\",\"iat\":" + issuedAt.getEpochSecond() + "}");
+        String unsigned = HEADER + "." + claims;
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(secretKey);
+            byte[] signature = mac.doFinal(unsigned.getBytes(StandardCharsets.US_ASCII));
+            return unsigned + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign Notify token", e);
+        }
+    }
+
+    private static String base64(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record SignedToken(String value, Instant issuedAt) {
+    }
+}
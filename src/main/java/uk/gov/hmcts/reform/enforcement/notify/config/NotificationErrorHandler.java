@@ -50,14 +50,14 @@ public class NotificationErrorHandler {
             case 400, 403 -> {
                 statusUpdater.accept(new NotificationStatusUpdate(
                     caseNotification,
-                    NotificationStatus.SUBMITTED,
+                    NotificationStatus.PERMANENT_FAILURE,
                     null
                 ));
             }
             case 429, 500 -> {
                 statusUpdater.accept(new NotificationStatusUpdate(
                     caseNotification,
-                    NotificationStatus.TEMPORARY_FAILURE,
+                    NotificationStatus.SEND_FAILED,
                     null
                 ));
                 throw new TemporaryNotificationException("Email temporarily failed to send.", exception);
@@ -65,7 +65,7 @@ public class NotificationErrorHandler {
             default -> {
                 statusUpdater.accept(new NotificationStatusUpdate(
                     caseNotification,
-                    NotificationStatus.TECHNICAL_FAILURE,
+                    NotificationStatus.SEND_FAILED,
                     null
                 ));
                 throw new NotificationException("Email failed to send, please try again.", exception);
@@ -61,6 +61,21 @@ public class CaseNotification {
     @Column(name = "recipient", nullable = false)
     private String recipient;
 
+    @Column(name = "task_id")
+    private String taskId;
+
+    @Column(name = "idempotency_key", unique = true)
+    private String idempotencyKey;
+
+    @Column(name = "request_hash")
+    private String requestHash;
+
+    @Column(name = "sequence_key")
+    private String sequenceKey;
+
+    @Column(name = "sequence_number")
+    private Long sequenceNumber;
+
     @PrePersist
     public void prePersist() {
         this.lastUpdatedAt = Instant.now();
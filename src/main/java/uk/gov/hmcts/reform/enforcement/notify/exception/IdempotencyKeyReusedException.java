@@ -0,0 +1,12 @@
+package uk.gov.hmcts.reform.enforcement.notify.exception;
+
+/**
+ * Thrown when an idempotency key already used for one email comes back with a different template, recipient or
+ * personalisation. Returning the earlier notification would report an email that was never asked for as sent.
+ */
+public class IdempotencyKeyReusedException extends NotificationException {
+
+    public IdempotencyKeyReusedException(String idempotencyKey) {
+        super("Idempotency key " + idempotencyKey + " was already used for a different email", null);
+    }
+}
@@ -0,0 +1,21 @@
+package uk.gov.hmcts.reform.enforcement.notify.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a call to GOV.UK Notify is not attempted because this node is at its limit.
+ * Callers should defer the work by {@link #getRetryAfter()} rather than treat it as a failure.
+ */
+public class NotifyCallRejectedException extends NotificationException {
+
+    private final transient Duration retryAfter;
+
+    public NotifyCallRejectedException(String message, Duration retryAfter) {
+        super(message, null);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
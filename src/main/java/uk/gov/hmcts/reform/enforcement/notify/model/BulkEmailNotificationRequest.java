@@ -0,0 +1,19 @@
+package uk.gov.hmcts.reform.enforcement.notify.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkEmailNotificationRequest {
+
+    private List<EmailNotificationRequest> notifications;
+    private Duration spread; // Window the sends are spread over; derived from the schedule rate when absent
+}
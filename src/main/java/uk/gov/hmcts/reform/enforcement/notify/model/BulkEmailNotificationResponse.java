@@ -0,0 +1,28 @@
+package uk.gov.hmcts.reform.enforcement.notify.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkEmailNotificationResponse {
+    private int accepted;
+    private int rejected;
+    private List<Item> results; // In the order of the request
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private int index; // Position in the request, or line number when streamed
+        private String taskId;
+        private UUID notificationId; // Database notification record ID
+        private String status;
+        private String error;
+    }
+}
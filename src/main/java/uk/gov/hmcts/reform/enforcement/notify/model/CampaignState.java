@@ -0,0 +1,23 @@
+package uk.gov.hmcts.reform.enforcement.notify.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Task data of the campaign driver task. Progress is kept on the campaign row, not here, so that it
+ * advances in the same transaction as the sends it schedules.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CampaignState implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private UUID campaignId;
+}
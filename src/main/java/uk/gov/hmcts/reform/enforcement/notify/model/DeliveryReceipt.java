@@ -0,0 +1,37 @@
+package uk.gov.hmcts.reform.enforcement.notify.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Delivery receipt posted by GOV.UK Notify to the callback endpoint.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryReceipt {
+
+    private UUID id;
+    private String reference;
+    private String to;
+    private String status;
+    @JsonProperty("created_at")
+    private Instant createdAt;
+    @JsonProperty("completed_at")
+    private Instant completedAt;
+    @JsonProperty("sent_at")
+    private Instant sentAt;
+    @JsonProperty("notification_type")
+    private String notificationType;
+    @JsonProperty("template_id")
+    private UUID templateId;
+    @JsonProperty("template_version")
+    private Integer templateVersion;
+}
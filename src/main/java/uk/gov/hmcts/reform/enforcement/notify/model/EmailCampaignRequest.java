@@ -0,0 +1,31 @@
+package uk.gov.hmcts.reform.enforcement.notify.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailCampaignRequest {
+
+    private String templateId;
+    private Map<String, Object> personalisation; // Shared by every recipient
+    private String reference;
+    private String emailReplyToId;
+    private List<Recipient> recipients;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Recipient {
+        private String emailAddress;
+        private Map<String, Object> personalisation; // Overrides the shared values with the same keys
+    }
+}
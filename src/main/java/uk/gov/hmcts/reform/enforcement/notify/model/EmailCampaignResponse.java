@@ -0,0 +1,18 @@
+package uk.gov.hmcts.reform.enforcement.notify.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailCampaignResponse {
+    private UUID campaignId;
+    private int accepted;
+    private int rejected;
+    private List<BulkEmailNotificationResponse.Item> rejections; // Only the recipients that were left out
+}
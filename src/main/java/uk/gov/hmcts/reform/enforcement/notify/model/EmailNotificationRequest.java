@@ -18,4 +18,7 @@ public class EmailNotificationRequest {
     private Map<String, Object> personalisation;
     private String reference;
     private String emailReplyToId;
+    private NotificationPriority priority; // Defaults to NORMAL for single emails, BULK for bulk uploads
+    private String idempotencyKey; // Defaults to the reference; a repeated key returns the existing notification
+    private String sequenceKey; // E.g. a case ID or recipient; emails sharing a key are sent one at a time, in order
 }
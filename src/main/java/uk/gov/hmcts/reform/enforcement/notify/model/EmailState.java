@@ -26,4 +26,7 @@ public class EmailState implements Serializable {
     private String emailReplyToId;
     private String notificationId; // GOV.UK Notify notification ID (set after sending)
     private UUID dbNotificationId; // Database notification record ID (set before sending)
+    private NotificationPriority priority; // Null for tasks scheduled before priorities existed
+    private String sequenceKey; // Null unless sent in order with other notifications for the same key
+    private Long sequenceNumber; // Position within the sequence key
 }
@@ -0,0 +1,114 @@
+package uk.gov.hmcts.reform.enforcement.notify.model;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.CREATED;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.DELIVERED;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.PENDING;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.PENDING_SCHEDULE;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.PERMANENT_FAILURE;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.SCHEDULED;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.SEND_FAILED;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.SENDING;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.SUBMITTED;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.TECHNICAL_FAILURE;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.TEMPORARY_FAILURE;
+
+/**
+ * The notification lifecycle as a state machine over {@link NotificationStatus}. Each status has the set of
+ * statuses it may move to and the action still owed to the notification in it. Both tables, and the
+ * inverted predecessor table used for conditional updates, are built once when the class loads.
+ * Failure statuses reported by Notify are final; a send attempt of ours that failed and will be retried is
+ * {@link NotificationStatus#SEND_FAILED}.
+ */
+public final class NotificationLifecycle {
+
+    /**
+     * What remains to be done for a notification in a given status.
+     */
+    public enum Action {
+        /** Not yet accepted by Notify; the send task sends or retries it. */
+        SEND,
+        /** Accepted by Notify; a verify task checks the outcome. */
+        VERIFY,
+        /** Notify is still delivering it; check again later without treating it as failed. */
+        REPOLL,
+        /** The status will never change again. */
+        NONE
+    }
+
+    private static final Map<NotificationStatus, Set<NotificationStatus>> SUCCESSORS =
+        new EnumMap<>(NotificationStatus.class);
+    private static final Map<NotificationStatus, Set<NotificationStatus>> PREDECESSORS =
+        new EnumMap<>(NotificationStatus.class);
+    private static final Map<NotificationStatus, Action> NEXT_ACTIONS = new EnumMap<>(NotificationStatus.class);
+
+    static {
+        Set<NotificationStatus> reported = EnumSet.of(CREATED, SENDING, PENDING, DELIVERED, PERMANENT_FAILURE,
+                                                      TEMPORARY_FAILURE, TECHNICAL_FAILURE);
+        // a late SUBMITTED or SEND_FAILED must not overwrite a status already reported by Notify
+        transitions(PENDING_SCHEDULE, reported, SCHEDULED, SUBMITTED, SEND_FAILED);
+        transitions(SCHEDULED, reported, SUBMITTED, SEND_FAILED);
+        transitions(SEND_FAILED, reported, SUBMITTED, SEND_FAILED);
+        transitions(SUBMITTED, reported);
+        transitions(CREATED, reported);
+        transitions(SENDING, reported);
+        transitions(PENDING, reported);
+        transitions(TEMPORARY_FAILURE, EnumSet.noneOf(NotificationStatus.class));
+        transitions(TECHNICAL_FAILURE, EnumSet.noneOf(NotificationStatus.class));
+        transitions(DELIVERED, EnumSet.noneOf(NotificationStatus.class));
+        transitions(PERMANENT_FAILURE, EnumSet.noneOf(NotificationStatus.class));
+
+        for (NotificationStatus status : NotificationStatus.values()) {
+            Set<NotificationStatus> predecessors = EnumSet.noneOf(NotificationStatus.class);
+            SUCCESSORS.forEach((from, successors) -> {
+                if (successors.contains(status)) {
+                    predecessors.add(from);
+                }
+            });
+            PREDECESSORS.put(status, Collections.unmodifiableSet(predecessors));
+        }
+
+        NEXT_ACTIONS.put(PENDING_SCHEDULE, Action.SEND);
+        NEXT_ACTIONS.put(SCHEDULED, Action.SEND);
+        NEXT_ACTIONS.put(SEND_FAILED, Action.SEND);
+        NEXT_ACTIONS.put(SUBMITTED, Action.VERIFY);
+        NEXT_ACTIONS.put(CREATED, Action.REPOLL);
+        NEXT_ACTIONS.put(SENDING, Action.REPOLL);
+        NEXT_ACTIONS.put(PENDING, Action.REPOLL);
+        NEXT_ACTIONS.put(DELIVERED, Action.NONE);
+        NEXT_ACTIONS.put(PERMANENT_FAILURE, Action.NONE);
+        NEXT_ACTIONS.put(TEMPORARY_FAILURE, Action.NONE);
+        NEXT_ACTIONS.put(TECHNICAL_FAILURE, Action.NONE);
+    }
+
+    private NotificationLifecycle() {
+    }
+
+    public static Action nextAction(NotificationStatus status) {
+        return NEXT_ACTIONS.get(status);
+    }
+
+    public static boolean canTransition(NotificationStatus from, NotificationStatus to) {
+        return SUCCESSORS.get(from).contains(to);
+    }
+
+    /**
+     * The statuses a notification may be in for a transition to {@code status} to apply.
+     */
+    public static Set<NotificationStatus> predecessors(NotificationStatus status) {
+        return PREDECESSORS.get(status);
+    }
+
+    private static void transitions(NotificationStatus from, Set<NotificationStatus> to,
+                                    NotificationStatus... more) {
+        Set<NotificationStatus> successors = EnumSet.noneOf(NotificationStatus.class);
+        successors.addAll(to);
+        Collections.addAll(successors, more);
+        SUCCESSORS.put(from, Collections.unmodifiableSet(successors));
+    }
+}
@@ -0,0 +1,48 @@
+package uk.gov.hmcts.reform.enforcement.notify.model;
+
+import java.util.Locale;
+
+/**
+ * Priority class of a notification, mapped onto {@code scheduled_tasks.priority}; the scheduler picks due
+ * tasks with a higher value first. Verify tasks sit below every send, so checking on emails already sent
+ * never holds up sending new ones.
+ */
+public enum NotificationPriority {
+    /** Time-critical notices, such as eviction or enforcement dates. */
+    URGENT(70),
+    /** Default for single emails. */
+    NORMAL(50),
+    /** Default for bulk uploads and campaigns. */
+    BULK(30);
+
+    public static final int VERIFY_TASK_PRIORITY = 10;
+
+    private final int taskPriority;
+
+    NotificationPriority(int taskPriority) {
+        this.taskPriority = taskPriority;
+    }
+
+    public int taskPriority() {
+        return taskPriority;
+    }
+
+    /**
+     * The task priority for {@code priority}, or for {@code fallback} when none was given.
+     */
+    public static int taskPriority(NotificationPriority priority, NotificationPriority fallback) {
+        return (priority != null ? priority : fallback).taskPriority;
+    }
+
+    /**
+     * The lane a task priority falls in, for reporting; aged tasks count towards the lane they have reached.
+     */
+    public static String lane(int taskPriority) {
+        for (NotificationPriority priority : values()) {
+            if (taskPriority >= priority.taskPriority) {
+                return priority.name().toLowerCase(Locale.ROOT);
+            }
+        }
+        return "verify";
+    }
+}
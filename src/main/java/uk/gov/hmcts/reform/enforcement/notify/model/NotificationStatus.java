@@ -1,15 +1,20 @@
 package uk.gov.hmcts.reform.enforcement.notify.model;
 
+import java.util.Set;
+
 public enum NotificationStatus {
     CREATED("created"),
     SENDING("sending"),
+    PENDING("pending"),
     DELIVERED("delivered"),
     PERMANENT_FAILURE("permanent-failure"),
     TEMPORARY_FAILURE("temporary-failure"),
     TECHNICAL_FAILURE("technical-failure"),
     SCHEDULED("scheduled"),
     PENDING_SCHEDULE("pending-schedule"),
-    SUBMITTED("submitted");
+    SUBMITTED("submitted"),
+    // not a Notify status: our own request to Notify failed and is to be retried
+    SEND_FAILED("send-failed");
 
     private final String apiValue;
 
@@ -26,6 +31,22 @@ public enum NotificationStatus {
         return apiValue;
     }
 
+    /**
+     * Whether notifications in this status never change status again. This is the one definition of a final
+     * status; everything deciding whether a notification is finished goes through it.
+     */
+    public boolean isTerminal() {
+        return NotificationLifecycle.nextAction(this) == NotificationLifecycle.Action.NONE;
+    }
+
+    /**
+     * The statuses a notification may be in for a transition to this status to apply, as given by
+     * {@link NotificationLifecycle}.
+     */
+    public Set<NotificationStatus> allowedPredecessors() {
+        return NotificationLifecycle.predecessors(this);
+    }
+
     public static NotificationStatus fromString(String status) {
         for (NotificationStatus notificationStatus : NotificationStatus.values()) {
             if (notificationStatus.apiValue.equalsIgnoreCase(status)) {
@@ -0,0 +1,25 @@
+package uk.gov.hmcts.reform.enforcement.notify.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A status transition for a single case notification, applied in bulk by
+ * {@code NotificationStatusJdbcRepository}.
+ *
+ * @param notificationId database notification record ID
+ * @param status the new status
+ * @param providerNotificationId GOV.UK Notify notification ID, or null to keep the current value
+ * @param submittedAt time the email was accepted by Notify, or null to keep the current value
+ * @param updatedAt time of the transition
+ */
+public record NotificationStatusChange(UUID notificationId,
+                                       NotificationStatus status,
+                                       UUID providerNotificationId,
+                                       Instant submittedAt,
+                                       Instant updatedAt) {
+
+    public static NotificationStatusChange of(UUID notificationId, NotificationStatus status, Instant updatedAt) {
+        return new NotificationStatusChange(notificationId, status, null, null, updatedAt);
+    }
+}
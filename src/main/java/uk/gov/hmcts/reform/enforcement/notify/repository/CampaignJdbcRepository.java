@@ -0,0 +1,136 @@
+package uk.gov.hmcts.reform.enforcement.notify.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Stores email campaigns: the template and shared personalisation once per campaign, and a compact row per
+ * recipient holding only the address and any personalisation overrides. The campaign row carries the index
+ * of the next recipient to expand into a send, so progress survives restarts.
+ */
+@Repository
+public class CampaignJdbcRepository {
+
+    private static final String INSERT_CAMPAIGN = """
+        INSERT INTO notification_campaign (campaign_id, template_id, personalisation, reference, email_reply_to_id,
+                                           recipient_count, next_index, created_at)
+        VALUES (?, ?, ?, ?, ?, ?, 0, ?)
+        """;
+
+    private static final String INSERT_RECIPIENT = """
+        INSERT INTO campaign_recipient (campaign_id, recipient_index, email_address, personalisation)
+        VALUES (?, ?, ?, ?)
+        """;
+
+    private static final String FIND_FOR_UPDATE = """
+        SELECT campaign_id, template_id, personalisation, reference, email_reply_to_id, recipient_count,
+               next_index, completed_at
+        FROM notification_campaign
+        WHERE campaign_id = ?
+        FOR UPDATE
+        """;
+
+    private static final String FIND_RECIPIENTS = """
+        SELECT recipient_index, email_address, personalisation
+        FROM campaign_recipient
+        WHERE campaign_id = ? AND recipient_index >= ?
+        ORDER BY recipient_index
+        LIMIT ?
+        """;
+
+    private static final String ADVANCE = """
+        UPDATE notification_campaign SET next_index = ?, completed_at = ? WHERE campaign_id = ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CampaignJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insert(Campaign campaign, Instant createdAt) {
+        jdbcTemplate.update(INSERT_CAMPAIGN, campaign.campaignId(), campaign.templateId(),
+                            campaign.personalisation(), campaign.reference(), campaign.emailReplyToId(),
+                            campaign.recipientCount(), Timestamp.from(createdAt));
+    }
+
+    /**
+     * Inserts a campaign's recipients in one JDBC batch.
+     */
+    public void insertRecipients(UUID campaignId, List<Recipient> recipients) {
+        if (recipients.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_RECIPIENT, recipients, recipients.size(), (ps, recipient) -> {
+            ps.setObject(1, campaignId);
+            ps.setInt(2, recipient.index());
+            ps.setString(3, recipient.emailAddress());
+            ps.setString(4, recipient.personalisation());
+        });
+    }
+
+    /**
+     * Reads a campaign and locks its row until the end of the transaction, so only one driver expands it
+     * at a time.
+     */
+    public Optional<Campaign> findForUpdate(UUID campaignId) {
+        return jdbcTemplate.query(
+            FIND_FOR_UPDATE,
+            (rs, rowNum) -> new Campaign(
+                rs.getObject("campaign_id", UUID.class),
+                rs.getString("template_id"),
+                rs.getString("personalisation"),
+                rs.getString("reference"),
+                rs.getString("email_reply_to_id"),
+                rs.getInt("recipient_count"),
+                rs.getInt("next_index"),
+                rs.getTimestamp("completed_at") != null
+            ),
+            campaignId
+        ).stream().findFirst();
+    }
+
+    /**
+     * Reads up to {@code limit} recipients in index order, starting at {@code fromIndex}.
+     */
+    public List<Recipient> findRecipients(UUID campaignId, int fromIndex, int limit) {
+        return jdbcTemplate.query(
+            FIND_RECIPIENTS,
+            (rs, rowNum) -> new Recipient(
+                rs.getInt("recipient_index"),
+                rs.getString("email_address"),
+                rs.getString("personalisation")
+            ),
+            campaignId,
+            fromIndex,
+            limit
+        );
+    }
+
+    /**
+     * Moves a campaign on to {@code nextIndex}, marking it complete when {@code completedAt} is given.
+     */
+    public void advance(UUID campaignId, int nextIndex, Instant completedAt) {
+        jdbcTemplate.update(ADVANCE, nextIndex, completedAt == null ? null : Timestamp.from(completedAt),
+                            campaignId);
+    }
+
+    /**
+     * A campaign, with personalisation as a JSON object.
+     */
+    public record Campaign(UUID campaignId, String templateId, String personalisation, String reference,
+                           String emailReplyToId, int recipientCount, int nextIndex, boolean complete) {
+    }
+
+    /**
+     * A campaign recipient, with personalisation overrides as a JSON object or null.
+     */
+    public record Recipient(int index, String emailAddress, String personalisation) {
+    }
+}
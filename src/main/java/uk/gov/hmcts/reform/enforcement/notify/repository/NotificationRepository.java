@@ -1,11 +1,51 @@
 package uk.gov.hmcts.reform.enforcement.notify.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import uk.gov.hmcts.reform.enforcement.notify.entities.CaseNotification;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface NotificationRepository extends JpaRepository<CaseNotification, UUID> {
     Optional<CaseNotification> findByProviderNotificationId(UUID providerNotificationId);
+
+    Optional<CaseNotification> findByIdempotencyKey(String idempotencyKey);
+
+    @Query("""
+        SELECT n.providerNotificationId FROM CaseNotification n
+        WHERE n.providerNotificationId IS NOT NULL AND n.lastUpdatedAt >= :since
+        """)
+    List<UUID> findProviderNotificationIdsUpdatedSince(@Param("since") Instant since);
+
+    /**
+     * Moves a notification to {@code status} in a single UPDATE, but only if it is currently in one of
+     * {@code allowedFrom}. Null provider notification id and submitted at leave the stored values as they are.
+     *
+     * @return the number of rows updated; zero when the notification does not exist or was not in an
+     *     allowed status
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("""
+        UPDATE CaseNotification n
+        SET n.status = :status,
+            n.providerNotificationId = COALESCE(:providerNotificationId, n.providerNotificationId),
+            n.submittedAt = COALESCE(:submittedAt, n.submittedAt),
+            n.lastUpdatedAt = :updatedAt
+        WHERE n.notificationId = :notificationId AND n.status IN :allowedFrom
+        """)
+    int updateStatusIfIn(@Param("notificationId") UUID notificationId,
+                         @Param("status") NotificationStatus status,
+                         @Param("providerNotificationId") UUID providerNotificationId,
+                         @Param("submittedAt") Instant submittedAt,
+                         @Param("updatedAt") Instant updatedAt,
+                         @Param("allowedFrom") Collection<NotificationStatus> allowedFrom);
 }
@@ -0,0 +1,112 @@
+package uk.gov.hmcts.reform.enforcement.notify.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Per-key sequences of notifications that must be sent one at a time, in order. A key has a row only while
+ * it has notifications waiting or in flight: {@code head} is the number of the one allowed to run,
+ * {@code tail} the number last handed out. Numbers come from one database sequence and are taken under the
+ * key's row lock, so they increase in the order requests for a key commit.
+ */
+@Repository
+public class NotificationSequenceRepository {
+
+    private static final String ENQUEUE = """
+        INSERT INTO notification_sequence (sequence_key, head, tail)
+        SELECT ?, next.number, next.number FROM (SELECT nextval('notification_sequence_number') AS number) next
+        ON CONFLICT (sequence_key) DO UPDATE SET tail = nextval('notification_sequence_number')
+        RETURNING head, tail
+        """;
+
+    private static final String HEAD = """
+        SELECT head FROM notification_sequence WHERE sequence_key = ?
+        """;
+
+    private static final String LOCK = """
+        SELECT head, tail FROM notification_sequence WHERE sequence_key = ? FOR UPDATE
+        """;
+
+    private static final String NEXT = """
+        SELECT task_id, sequence_number
+        FROM case_notification
+        WHERE sequence_key = ? AND sequence_number > ?
+        ORDER BY sequence_number
+        LIMIT 1
+        """;
+
+    private static final String ENTRY = """
+        SELECT task_id, sequence_number
+        FROM case_notification
+        WHERE sequence_key = ? AND sequence_number = ?
+        """;
+
+    private static final String ADVANCE = """
+        UPDATE notification_sequence SET head = ? WHERE sequence_key = ?
+        """;
+
+    private static final String REMOVE = """
+        DELETE FROM notification_sequence WHERE sequence_key = ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NotificationSequenceRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Appends to the key's sequence, creating it when the key has nothing waiting. Holds the key's row lock
+     * until the caller's transaction ends.
+     */
+    public Position enqueue(String sequenceKey) {
+        return jdbcTemplate.queryForObject(ENQUEUE, (rs, rowNum) -> new Position(
+            rs.getLong("head"), rs.getLong("tail")), sequenceKey);
+    }
+
+    public Optional<Long> head(String sequenceKey) {
+        return jdbcTemplate.query(HEAD, (rs, rowNum) -> rs.getLong("head"), sequenceKey).stream().findFirst();
+    }
+
+    /**
+     * Locks the key's row for the rest of the caller's transaction.
+     */
+    public Optional<Position> lock(String sequenceKey) {
+        return jdbcTemplate.query(LOCK, (rs, rowNum) -> new Position(rs.getLong("head"), rs.getLong("tail")),
+                                  sequenceKey).stream().findFirst();
+    }
+
+    /**
+     * The notification following {@code after} in the key's sequence.
+     */
+    public Optional<Entry> next(String sequenceKey, long after) {
+        return jdbcTemplate.query(NEXT, (rs, rowNum) -> new Entry(rs.getString("task_id"),
+                                                                  rs.getLong("sequence_number")),
+                                  sequenceKey, after).stream().findFirst();
+    }
+
+    /**
+     * The notification numbered {@code number} in the key's sequence.
+     */
+    public Optional<Entry> entry(String sequenceKey, long number) {
+        return jdbcTemplate.query(ENTRY, (rs, rowNum) -> new Entry(rs.getString("task_id"),
+                                                                   rs.getLong("sequence_number")),
+                                  sequenceKey, number).stream().findFirst();
+    }
+
+    public void advance(String sequenceKey, long head) {
+        jdbcTemplate.update(ADVANCE, head, sequenceKey);
+    }
+
+    public void remove(String sequenceKey) {
+        jdbcTemplate.update(REMOVE, sequenceKey);
+    }
+
+    public record Position(long head, long tail) {
+    }
+
+    public record Entry(String taskId, long sequenceNumber) {
+    }
+}
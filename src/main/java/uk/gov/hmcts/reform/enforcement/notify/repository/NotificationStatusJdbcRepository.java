@@ -0,0 +1,327 @@
+package uk.gov.hmcts.reform.enforcement.notify.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import uk.gov.hmcts.reform.enforcement.notify.entities.CaseNotification;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatusChange;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Inserts case notifications and applies many status transitions in single JDBC batches, without going
+ * through the entities.
+ */
+@Repository
+public class NotificationStatusJdbcRepository {
+
+    private static final String INSERT = """
+        INSERT INTO case_notification (notification_id, case_id, scheduled_at, last_updated_at, status, type,
+                                       recipient, task_id, idempotency_key, request_hash)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final String UPDATE_STATUS = """
+        UPDATE case_notification
+        SET status = ?,
+            provider_notification_id = COALESCE(?, provider_notification_id),
+            submitted_at = COALESCE(?, submitted_at),
+            last_updated_at = ?
+        WHERE notification_id = ?
+        """;
+
+    private static final String UPDATE_STATUS_IF_IN = UPDATE_STATUS.strip() + " AND status IN (%s)";
+
+    private static final String UPDATE_STATUS_BY_PROVIDER_ID = """
+        UPDATE case_notification cn
+        SET status = reported.status,
+            last_updated_at = ?
+        FROM unnest(?::uuid[], ?::text[]) AS reported(provider_notification_id, status)
+        WHERE cn.provider_notification_id = reported.provider_notification_id
+          AND cn.status <> reported.status
+          AND cn.status = ANY (?::text[])
+        """;
+
+    private static final String UPDATE_STATUS_BY_TASK_ID = """
+        UPDATE case_notification
+        SET status = ?,
+            last_updated_at = ?
+        WHERE task_id = ANY (?::text[])
+          AND status = ANY (?::text[])
+        """;
+
+    private static final String SELECT_IN_STATUS = """
+        SELECT notification_id FROM case_notification
+        WHERE notification_id = ANY (?::uuid[])
+          AND status = ANY (?::text[])
+        """;
+
+    private static final String SELECT_STATUS = """
+        SELECT notification_id, status FROM case_notification
+        WHERE notification_id = ANY (?::uuid[])
+        """;
+
+    private static final String SELECT_SUBMITTED_IN_STATUS = """
+        SELECT notification_id, provider_notification_id, task_id FROM case_notification
+        WHERE submitted_at >= ?
+          AND submitted_at < ?
+          AND status = ANY (?::text[])
+          AND provider_notification_id IS NOT NULL
+          AND task_id IS NOT NULL
+        """;
+
+    private static final String SELECT_BY_IDEMPOTENCY_KEY = """
+        SELECT notification_id, task_id, status, idempotency_key, request_hash FROM case_notification
+        WHERE idempotency_key = ANY (?::text[])
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NotificationStatusJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts new case notifications, which must already have their ids, in one JDBC batch. Fails on an
+     * idempotency key that is already taken, so callers check {@link #findByIdempotencyKeys} first.
+     */
+    public void insertAll(List<CaseNotification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT, notifications, notifications.size(), (ps, notification) -> {
+            ps.setObject(1, notification.getNotificationId());
+            ps.setObject(2, notification.getCaseId());
+            ps.setTimestamp(3, Timestamp.from(notification.getScheduledAt()));
+            ps.setTimestamp(4, Timestamp.from(notification.getLastUpdatedAt()));
+            ps.setString(5, notification.getStatus().name());
+            ps.setString(6, notification.getType());
+            ps.setString(7, notification.getRecipient());
+            ps.setString(8, notification.getTaskId());
+            ps.setString(9, notification.getIdempotencyKey());
+            ps.setString(10, notification.getRequestHash());
+        });
+    }
+
+    /**
+     * The notifications already holding any of the given idempotency keys, by key, in one query. Only the
+     * id, task id, status, key and request hash of each are read.
+     */
+    public Map<String, CaseNotification> findByIdempotencyKeys(Collection<String> idempotencyKeys) {
+        if (idempotencyKeys.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, CaseNotification> found = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_BY_IDEMPOTENCY_KEY);
+            ps.setArray(1, connection.createArrayOf("text", idempotencyKeys.toArray()));
+            return ps;
+        }, rs -> {
+            CaseNotification notification = new CaseNotification();
+            notification.setNotificationId(rs.getObject("notification_id", UUID.class));
+            notification.setTaskId(rs.getString("task_id"));
+            notification.setStatus(NotificationStatus.valueOf(rs.getString("status")));
+            notification.setIdempotencyKey(rs.getString("idempotency_key"));
+            notification.setRequestHash(rs.getString("request_hash"));
+            found.put(notification.getIdempotencyKey(), notification);
+        });
+        return found;
+    }
+
+    /**
+     * The notifications submitted to Notify in {@code [from, to)} that are still in one of the given statuses,
+     * in one query. Only the id, Notify notification id and task id of each are read.
+     */
+    public List<CaseNotification> findSubmittedInStatus(Instant from, Instant to,
+                                                        Collection<NotificationStatus> statuses) {
+        if (statuses.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_SUBMITTED_IN_STATUS);
+            ps.setTimestamp(1, Timestamp.from(from));
+            ps.setTimestamp(2, Timestamp.from(to));
+            ps.setArray(3, connection.createArrayOf("text", statuses.stream().map(Enum::name).toArray()));
+            return ps;
+        }, (rs, rowNum) -> {
+            CaseNotification notification = new CaseNotification();
+            notification.setNotificationId(rs.getObject("notification_id", UUID.class));
+            notification.setProviderNotificationId(rs.getObject("provider_notification_id", UUID.class));
+            notification.setTaskId(rs.getString("task_id"));
+            return notification;
+        });
+    }
+
+    public void updateStatuses(Collection<NotificationStatusChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_STATUS, changes, changes.size(), NotificationStatusJdbcRepository::setValues);
+    }
+
+    /**
+     * Like {@link #updateStatuses(Collection)}, but each change only applies if the notification is in one of
+     * the allowed predecessors of its new status. Runs one JDBC batch per target status.
+     *
+     * @return the number of changes applied
+     */
+    public int updateStatusesIfAllowed(Collection<NotificationStatusChange> changes) {
+        return changes.size() - applyStatusesIfAllowed(changes).size();
+    }
+
+    /**
+     * Like {@link #updateStatusesIfAllowed(Collection)}, but reports which changes did not apply because their
+     * notification is missing or not in an allowed predecessor of the new status. A change the driver reports
+     * as {@code SUCCESS_NO_INFO} is taken to have applied.
+     *
+     * @return the changes not applied
+     */
+    public List<NotificationStatusChange> applyStatusesIfAllowed(Collection<NotificationStatusChange> changes) {
+        Map<NotificationStatus, List<NotificationStatusChange>> byStatus = changes.stream()
+            .collect(Collectors.groupingBy(NotificationStatusChange::status,
+                                           () -> new EnumMap<>(NotificationStatus.class),
+                                           Collectors.toList()));
+        List<NotificationStatusChange> notApplied = new ArrayList<>();
+        for (Map.Entry<NotificationStatus, List<NotificationStatusChange>> group : byStatus.entrySet()) {
+            Set<NotificationStatus> allowedFrom = group.getKey().allowedPredecessors();
+            List<NotificationStatusChange> batch = group.getValue();
+            if (allowedFrom.isEmpty()) {
+                notApplied.addAll(batch);
+                continue;
+            }
+            String sql = UPDATE_STATUS_IF_IN.formatted(
+                allowedFrom.stream().map(status -> "'" + status.name() + "'").collect(Collectors.joining(", ")));
+            int[][] counts = jdbcTemplate.batchUpdate(sql, batch, batch.size(),
+                                                      NotificationStatusJdbcRepository::setValues);
+            int index = 0;
+            for (int[] chunk : counts) {
+                for (int count : chunk) {
+                    // drivers may report SUCCESS_NO_INFO (-2) for batched statements; only 0 is known not to apply
+                    if (count == 0) {
+                        notApplied.add(batch.get(index));
+                    }
+                    index++;
+                }
+            }
+        }
+        return notApplied;
+    }
+
+    /**
+     * Applies statuses reported by Notify, keyed by Notify notification id, in one set-based UPDATE. A status
+     * only applies to notifications in an allowed predecessor of every reported status, so terminal statuses
+     * are never overwritten.
+     *
+     * @return the number of notifications updated
+     */
+    public int updateStatusesByProviderId(Map<UUID, NotificationStatus> statuses, Instant updatedAt) {
+        if (statuses.isEmpty()) {
+            return 0;
+        }
+        Set<NotificationStatus> allowedFrom = EnumSet.allOf(NotificationStatus.class);
+        statuses.values().forEach(status -> allowedFrom.retainAll(status.allowedPredecessors()));
+
+        List<Map.Entry<UUID, NotificationStatus>> entries = List.copyOf(statuses.entrySet());
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(UPDATE_STATUS_BY_PROVIDER_ID);
+            ps.setTimestamp(1, Timestamp.from(updatedAt));
+            ps.setArray(2, connection.createArrayOf("uuid", entries.stream().map(Map.Entry::getKey).toArray()));
+            ps.setArray(3, connection.createArrayOf(
+                "text", entries.stream().map(entry -> entry.getValue().name()).toArray()));
+            ps.setArray(4, connection.createArrayOf("text", allowedFrom.stream().map(Enum::name).toArray()));
+            return ps;
+        });
+    }
+
+    /**
+     * Moves the notifications sent by the given send task instances to {@code status}, for when only the task
+     * instance is known, e.g. because its task data could not be read. Only notifications in an allowed
+     * predecessor of the status are changed.
+     *
+     * @return the number of notifications updated
+     */
+    public int updateStatusesByTaskId(Collection<String> taskIds, NotificationStatus status, Instant updatedAt) {
+        if (taskIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(UPDATE_STATUS_BY_TASK_ID);
+            ps.setString(1, status.name());
+            ps.setTimestamp(2, Timestamp.from(updatedAt));
+            ps.setArray(3, connection.createArrayOf("text", taskIds.toArray()));
+            ps.setArray(4, connection.createArrayOf(
+                "text", status.allowedPredecessors().stream().map(Enum::name).toArray()));
+            return ps;
+        });
+    }
+
+    /**
+     * The current status of each of the given notifications, in one query. Missing notifications are absent
+     * from the result.
+     */
+    public Map<UUID, NotificationStatus> findStatuses(Collection<UUID> notificationIds) {
+        if (notificationIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, NotificationStatus> statuses = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_STATUS);
+            ps.setArray(1, connection.createArrayOf("uuid", notificationIds.toArray()));
+            return ps;
+        }, rs -> {
+            statuses.put(rs.getObject("notification_id", UUID.class),
+                         NotificationStatus.valueOf(rs.getString("status")));
+        });
+        return statuses;
+    }
+
+    /**
+     * The given notifications whose status is terminal, in one query.
+     */
+    public Set<UUID> findTerminal(Collection<UUID> notificationIds) {
+        if (notificationIds.isEmpty()) {
+            return Set.of();
+        }
+        Object[] terminal = EnumSet.allOf(NotificationStatus.class).stream()
+            .filter(NotificationStatus::isTerminal)
+            .map(Enum::name)
+            .toArray();
+        Set<UUID> found = new HashSet<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_IN_STATUS);
+            ps.setArray(1, connection.createArrayOf("uuid", notificationIds.toArray()));
+            ps.setArray(2, connection.createArrayOf("text", terminal));
+            return ps;
+        }, rs -> {
+            found.add(rs.getObject("notification_id", UUID.class));
+        });
+        return found;
+    }
+
+    private static void setValues(PreparedStatement ps, NotificationStatusChange change) throws SQLException {
+        ps.setString(1, change.status().name());
+        ps.setObject(2, change.providerNotificationId(), Types.OTHER);
+        ps.setTimestamp(3, toTimestamp(change.submittedAt()));
+        ps.setTimestamp(4, toTimestamp(change.updatedAt()));
+        ps.setObject(5, change.notificationId());
+    }
+
+    private static Timestamp toTimestamp(Instant instant) {
+        return instant == null ? null : Timestamp.from(instant);
+    }
+}
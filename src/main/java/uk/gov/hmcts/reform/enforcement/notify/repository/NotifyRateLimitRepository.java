@@ -0,0 +1,64 @@
+package uk.gov.hmcts.reform.enforcement.notify.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Token bucket rows shared by every node calling GOV.UK Notify with the same API key.
+ * Refill is computed from the database clock when tokens are leased, so node clock skew does not matter
+ * and no background job is needed to top the bucket up.
+ */
+@Repository
+public class NotifyRateLimitRepository {
+
+    private static final String CONFIGURE = """
+        INSERT INTO notify_rate_limit (bucket_key, tokens, capacity, refill_per_second, updated_at)
+        VALUES (?, ?, ?, ?, now())
+        ON CONFLICT (bucket_key) DO UPDATE
+        SET capacity = EXCLUDED.capacity,
+            refill_per_second = EXCLUDED.refill_per_second,
+            tokens = LEAST(notify_rate_limit.tokens, EXCLUDED.capacity)
+        """;
+
+    private static final String LEASE = """
+        WITH bucket AS (
+            SELECT bucket_key,
+                   LEAST(capacity, tokens + refill_per_second
+                       * GREATEST(EXTRACT(EPOCH FROM (clock_timestamp() - updated_at)), 0)) AS available
+            FROM notify_rate_limit
+            WHERE bucket_key = ?
+            FOR UPDATE
+        )
+        UPDATE notify_rate_limit b
+        SET tokens = bucket.available - LEAST(FLOOR(bucket.available), ?),
+            updated_at = clock_timestamp()
+        FROM bucket
+        WHERE b.bucket_key = bucket.bucket_key
+        RETURNING CAST(LEAST(FLOOR(bucket.available), ?) AS INTEGER) AS granted
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NotifyRateLimitRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Creates the bucket, or applies a changed capacity and refill rate to the existing one.
+     */
+    public void configure(String bucketKey, double capacity, double refillPerSecond) {
+        jdbcTemplate.update(CONFIGURE, bucketKey, capacity, capacity, refillPerSecond);
+    }
+
+    /**
+     * Takes up to {@code requested} whole tokens from the bucket in one statement.
+     *
+     * @return the number of tokens granted, zero when the bucket is empty or missing
+     */
+    public int lease(String bucketKey, int requested) {
+        return jdbcTemplate.query(LEASE, (rs, rowNum) -> rs.getInt("granted"), bucketKey, requested, requested)
+            .stream()
+            .findFirst()
+            .orElse(0);
+    }
+}
@@ -0,0 +1,456 @@
+package uk.gov.hmcts.reform.enforcement.notify.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.kagkarlsson.scheduler.serializer.Serializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.hmcts.reform.enforcement.notify.entities.CaseNotification;
+import uk.gov.hmcts.reform.enforcement.notify.model.BulkEmailNotificationRequest;
+import uk.gov.hmcts.reform.enforcement.notify.model.BulkEmailNotificationResponse;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailNotificationRequest;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailState;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationPriority;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationStatusJdbcRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository.NewTask;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskShards;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static java.util.UUID.randomUUID;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.SCHEDULED;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationType.EMAIL;
+import static uk.gov.hmcts.reform.enforcement.notify.task.SendEmailTaskComponent.sendEmailTask;
+
+/**
+ * Schedules many emails in one call, either from a JSON request or streamed as newline-delimited JSON.
+ * Case notifications and send tasks are written with two JDBC batches per transaction; items that fail
+ * validation are reported back and left out.
+ * Send times are spaced evenly over the requested spread, or over one second per
+ * "notify.bulk.schedule-rate" emails, so a large request does not make every send task due at once.
+ * Emails without a priority are sent as {@link NotificationPriority#BULK}, behind single emails.
+ * An email carrying an idempotency key already used, by an earlier request or earlier in the same one, gets
+ * that notification back instead, and its task and notification ids are derived from the key, so a retried
+ * request schedules nothing twice. A key already used for a different template, recipient or personalisation
+ * gets an error result. Unlike single emails, the reference is not used as a key: bulk requests often share
+ * one reference across all their emails. Emails without a key are scheduled again on a retry.
+ */
+@Service
+@Slf4j
+public class BulkNotificationService {
+
+    private final NotificationStatusJdbcRepository notificationJdbcRepository;
+    private final TaskShards taskShards;
+    private final Serializer taskDataSerializer;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ObjectReader requestReader;
+    private final ObjectWriter resultWriter;
+    private final Clock clock;
+    private final int maxItems;
+    private final int streamChunkSize;
+    private final int maxLineLength;
+    private final int scheduleRate;
+    private final Duration maxSpread;
+
+    @Autowired
+    public BulkNotificationService(NotificationStatusJdbcRepository notificationJdbcRepository,
+                                   TaskShards taskShards,
+                                   Serializer taskDataSerializer,
+                                   TransactionTemplate transactionTemplate,
+                                   MeterRegistry meterRegistry,
+                                   ObjectMapper objectMapper,
+                                   @Value("${notify.bulk.max-items:5000}") int maxItems,
+                                   @Value("${notify.bulk.stream.chunk-size:500}") int streamChunkSize,
+                                   @Value("${notify.bulk.stream.max-line-length:65536}") int maxLineLength,
+                                   @Value("${notify.bulk.schedule-rate:50}") int scheduleRate,
+                                   @Value("${notify.bulk.max-spread:1h}") Duration maxSpread) {
+        this(notificationJdbcRepository, taskShards, taskDataSerializer, transactionTemplate,
+             meterRegistry, objectMapper, Clock.systemUTC(), maxItems, streamChunkSize, maxLineLength, scheduleRate,
+             maxSpread);
+    }
+
+    BulkNotificationService(NotificationStatusJdbcRepository notificationJdbcRepository,
+                            TaskShards taskShards, Serializer taskDataSerializer,
+                            TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                            ObjectMapper objectMapper, Clock clock, int maxItems, int streamChunkSize,
+                            int maxLineLength, int scheduleRate, Duration maxSpread) {
+        this.notificationJdbcRepository = notificationJdbcRepository;
+        this.taskShards = taskShards;
+        this.taskDataSerializer = taskDataSerializer;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.requestReader = objectMapper.readerFor(EmailNotificationRequest.class);
+        this.resultWriter = objectMapper.writerFor(BulkEmailNotificationResponse.Item.class);
+        this.clock = clock;
+        this.maxItems = maxItems;
+        this.streamChunkSize = streamChunkSize;
+        this.maxLineLength = maxLineLength;
+        this.scheduleRate = scheduleRate;
+        this.maxSpread = maxSpread;
+    }
+
+    /**
+     * Validates and schedules every email in the request.
+     *
+     * @throws IllegalArgumentException if the request is empty or has more than "notify.bulk.max-items" emails
+     */
+    public BulkEmailNotificationResponse scheduleEmailNotifications(BulkEmailNotificationRequest request) {
+        List<EmailNotificationRequest> requests = request.getNotifications();
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("No notifications in request");
+        }
+        if (requests.size() > maxItems) {
+            throw new IllegalArgumentException(
+                "Too many notifications in request: " + requests.size() + ", at most " + maxItems + " allowed");
+        }
+
+        List<BulkEmailNotificationResponse.Item> results = new ArrayList<>(requests.size());
+        List<Integer> acceptedPositions = new ArrayList<>();
+        List<EmailNotificationRequest> accepted = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String error = validate(requests.get(i));
+            if (error == null) {
+                acceptedPositions.add(i);
+                accepted.add(requests.get(i));
+            }
+            results.add(new BulkEmailNotificationResponse.Item(i, null, null, null, error));
+        }
+
+        Instant now = clock.instant();
+        Duration spread = spread(request.getSpread(), accepted.size());
+        Duration interval = accepted.isEmpty() ? Duration.ZERO : spread.dividedBy(accepted.size());
+        List<BulkEmailNotificationResponse.Item> scheduled =
+            scheduleRetryingOnConflict(accepted, acceptedPositions, now, interval, now);
+        for (int n = 0; n < scheduled.size(); n++) {
+            results.set(acceptedPositions.get(n), scheduled.get(n));
+        }
+
+        int rejected = (int) results.stream().filter(item -> item.getError() != null).count();
+        int acceptedCount = requests.size() - rejected;
+        meterRegistry.counter("notify.bulk.items", "outcome", "accepted").increment(acceptedCount);
+        meterRegistry.counter("notify.bulk.items", "outcome", "rejected").increment(rejected);
+        log.info("Scheduled {} of {} bulk email notifications over {}", acceptedCount, requests.size(), spread);
+        return new BulkEmailNotificationResponse(acceptedCount, rejected, results);
+    }
+
+    /**
+     * Schedules emails read one JSON object per line from {@code ndjson}, writing one result per line to
+     * {@code results} in the same format. Lines are committed in chunks of "notify.bulk.stream.chunk-size"
+     * and a chunk's results are written and flushed only once it is committed, so an acknowledged line is
+     * durably scheduled and memory use does not grow with the upload. Lines before {@code fromLine} are
+     * skipped, which lets a client resume an interrupted upload after the last line it saw acknowledged.
+     * Blank lines are ignored; a line that is not a valid email gets an error result and the rest carry on.
+     * A line longer than "notify.bulk.stream.max-line-length" characters is skipped unread with an error result,
+     * so one oversized or unterminated line cannot exhaust memory.
+     * Send times continue at "notify.bulk.schedule-rate" emails per second across the whole stream.
+     *
+     * @return the number of emails scheduled
+     */
+    public long streamEmailNotifications(InputStream ndjson, OutputStream results, long fromLine)
+        throws IOException {
+        BoundedLineReader reader = new BoundedLineReader(
+            new InputStreamReader(ndjson, StandardCharsets.UTF_8), maxLineLength);
+        Instant start = clock.instant();
+        Duration interval = Duration.ofSeconds(1).dividedBy(scheduleRate);
+        long lineNumber = 0;
+        long items = 0;
+        long scheduled = 0;
+
+        List<BulkEmailNotificationResponse.Item> chunk = new ArrayList<>(streamChunkSize);
+        List<Integer> acceptedPositions = new ArrayList<>(streamChunkSize);
+        List<EmailNotificationRequest> accepted = new ArrayList<>(streamChunkSize);
+        String line;
+        while ((line = reader.next()) != null) {
+            lineNumber++;
+            if (lineNumber < fromLine || !reader.isTooLong() && line.isBlank()) {
+                continue;
+            }
+            items++;
+            EmailNotificationRequest emailRequest = null;
+            String error;
+            if (reader.isTooLong()) {
+                error = "Line longer than " + maxLineLength + " characters";
+            } else {
+                try {
+                    emailRequest = requestReader.readValue(line);
+                    error = validate(emailRequest);
+                } catch (JsonProcessingException e) {
+                    error = "Invalid JSON: " + e.getOriginalMessage();
+                }
+            }
+            if (error == null) {
+                acceptedPositions.add(chunk.size());
+                accepted.add(emailRequest);
+            }
+            chunk.add(new BulkEmailNotificationResponse.Item(Math.toIntExact(lineNumber), null, null, null, error));
+
+            if (chunk.size() == streamChunkSize) {
+                scheduled += commitChunk(chunk, acceptedPositions, accepted, start, interval, scheduled, results);
+            }
+        }
+        scheduled += commitChunk(chunk, acceptedPositions, accepted, start, interval, scheduled, results);
+        long rejected = items - scheduled;
+
+        meterRegistry.counter("notify.bulk.items", "outcome", "accepted").increment(scheduled);
+        meterRegistry.counter("notify.bulk.items", "outcome", "rejected").increment(rejected);
+        log.info("Scheduled {} streamed email notifications, rejected {}, from line {} to {}",
+                 scheduled, rejected, fromLine, lineNumber);
+        return scheduled;
+    }
+
+    private int commitChunk(List<BulkEmailNotificationResponse.Item> chunk, List<Integer> acceptedPositions,
+                            List<EmailNotificationRequest> accepted, Instant start, Duration interval,
+                            long scheduledSoFar, OutputStream results) throws IOException {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        Instant firstExecution = start.plus(interval.multipliedBy(scheduledSoFar));
+        List<BulkEmailNotificationResponse.Item> scheduled =
+            scheduleRetryingOnConflict(accepted, acceptedPositions, firstExecution, interval, clock.instant());
+        for (int n = 0; n < scheduled.size(); n++) {
+            BulkEmailNotificationResponse.Item item = scheduled.get(n);
+            item.setIndex(chunk.get(acceptedPositions.get(n)).getIndex());
+            chunk.set(acceptedPositions.get(n), item);
+        }
+        for (BulkEmailNotificationResponse.Item item : chunk) {
+            results.write(resultWriter.writeValueAsBytes(item));
+            results.write('\n');
+        }
+        results.flush();
+
+        int count = (int) scheduled.stream().filter(item -> item.getError() == null).count();
+        chunk.clear();
+        acceptedPositions.clear();
+        accepted.clear();
+        return count;
+    }
+
+    /**
+     * Like {@link #schedule}, run again once if a concurrent request took one of the idempotency keys first,
+     * so the second run finds that request's notification instead.
+     */
+    private List<BulkEmailNotificationResponse.Item> scheduleRetryingOnConflict(
+        List<EmailNotificationRequest> requests, List<Integer> positions, Instant firstExecution, Duration interval,
+        Instant now) {
+        try {
+            return schedule(requests, positions, firstExecution, interval, now);
+        } catch (DataIntegrityViolationException e) {
+            log.info("Concurrent request took an idempotency key of the batch, scheduling it again");
+            return schedule(requests, positions, firstExecution, interval, now);
+        }
+    }
+
+    /**
+     * Writes case notifications and send tasks for the given emails in one transaction, the n-th due at
+     * {@code firstExecution + n * interval}. Joins the caller's transaction if there is one. Send tasks are
+     * written to the shard they belong on; tasks placed on another shard are written there once the transaction
+     * has committed (see {@link TaskShards#write}), so none runs before its notification row is visible.
+     *
+     * @return a scheduled result per email, in order, indexed by the given positions; the existing notification
+     *     for an email whose idempotency key is already taken, or an error if it was taken by a different email
+     */
+    List<BulkEmailNotificationResponse.Item> schedule(List<EmailNotificationRequest> requests,
+                                                      List<Integer> positions, Instant firstExecution,
+                                                      Duration interval, Instant now) {
+        Map<String, CaseNotification> existing = notificationJdbcRepository.findByIdempotencyKeys(
+            requests.stream().map(BulkNotificationService::idempotencyKey).filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+        Map<String, CaseNotification> scheduledByKey = new HashMap<>();
+        List<CaseNotification> notifications = new ArrayList<>(requests.size());
+        List<NewTask> tasks = new ArrayList<>(requests.size());
+        List<BulkEmailNotificationResponse.Item> results = new ArrayList<>(requests.size());
+        for (int n = 0; n < requests.size(); n++) {
+            EmailNotificationRequest emailRequest = requests.get(n);
+            String idempotencyKey = idempotencyKey(emailRequest);
+            String requestHash = idempotencyKey != null ? EmailRequestHash.of(emailRequest) : null;
+            CaseNotification earlier = idempotencyKey == null ? null
+                : existing.getOrDefault(idempotencyKey, scheduledByKey.get(idempotencyKey));
+            if (earlier != null) {
+                results.add(EmailRequestHash.conflicts(earlier, requestHash)
+                    ? new BulkEmailNotificationResponse.Item(positions.get(n), null, null, null,
+                                                             "idempotencyKey already used for a different email")
+                    : new BulkEmailNotificationResponse.Item(positions.get(n), earlier.getTaskId(),
+                                                             earlier.getNotificationId(),
+                                                             earlier.getStatus().toString(), null));
+                continue;
+            }
+
+            Instant executionTime = firstExecution.plus(interval.multipliedBy(n));
+            String taskId = idempotencyKey != null ? nameUuid(idempotencyKey).toString() : randomUUID().toString();
+            UUID notificationId = idempotencyKey != null ? nameUuid("notification:" + idempotencyKey) : randomUUID();
+            NotificationPriority priority = emailRequest.getPriority() != null
+                ? emailRequest.getPriority() : NotificationPriority.BULK;
+
+            CaseNotification notification = caseNotification(notificationId, emailRequest.getEmailAddress(), taskId,
+                                                              idempotencyKey, requestHash, executionTime, now);
+            notifications.add(notification);
+            EmailState emailState = EmailState.builder()
+                .id(taskId)
+                .emailAddress(emailRequest.getEmailAddress())
+                .templateId(emailRequest.getTemplateId())
+                .personalisation(emailRequest.getPersonalisation())
+                .reference(emailRequest.getReference())
+                .emailReplyToId(emailRequest.getEmailReplyToId())
+                .dbNotificationId(notificationId)
+                .priority(priority)
+                .build();
+            tasks.add(new NewTask(sendEmailTask.getTaskName(), taskId, taskDataSerializer.serialize(emailState),
+                                  executionTime, priority.taskPriority()));
+            results.add(new BulkEmailNotificationResponse.Item(positions.get(n), taskId, notificationId,
+                                                               SCHEDULED.toString(), null));
+            if (idempotencyKey != null) {
+                scheduledByKey.put(idempotencyKey, notification);
+            }
+        }
+
+        if (!notifications.isEmpty()) {
+            Map<TaskShards.Shard, List<NewTask>> tasksByShard = tasks.stream()
+                .collect(Collectors.groupingBy(task -> taskShards.shardFor(task.taskName(), task.taskInstance()),
+                                               LinkedHashMap::new, Collectors.toList()));
+            transactionTemplate.executeWithoutResult(status -> {
+                notificationJdbcRepository.insertAll(notifications);
+                tasksByShard.forEach((shard, shardTasks) -> taskShards.write(
+                    shard, () -> shard.tasks().insertAll(shardTasks)));
+            });
+        }
+        return results;
+    }
+
+    private Duration spread(Duration requested, int count) {
+        Duration spread = requested != null ? requested : Duration.ofMillis(1000L * count / scheduleRate);
+        if (spread.isNegative()) {
+            return Duration.ZERO;
+        }
+        return spread.compareTo(maxSpread) > 0 ? maxSpread : spread;
+    }
+
+    private static String validate(EmailNotificationRequest emailRequest) {
+        if (emailRequest == null) {
+            return "Notification is empty";
+        }
+        if (emailRequest.getTemplateId() == null || emailRequest.getTemplateId().isBlank()) {
+            return "templateId is required";
+        }
+        if (emailRequest.getEmailAddress() == null || emailRequest.getEmailAddress().isBlank()) {
+            return "emailAddress is required";
+        }
+        return null;
+    }
+
+    private static String idempotencyKey(EmailNotificationRequest emailRequest) {
+        String key = emailRequest.getIdempotencyKey();
+        return key == null || key.isBlank() ? null : key;
+    }
+
+    private static UUID nameUuid(String name) {
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static CaseNotification caseNotification(UUID notificationId, String recipient, String taskId,
+                                                     String idempotencyKey, String requestHash, Instant scheduledAt,
+                                                     Instant now) {
+        CaseNotification notification = new CaseNotification();
+        notification.setNotificationId(notificationId);
+        notification.setCaseId(randomUUID());
+        notification.setStatus(SCHEDULED);
+        notification.setType(EMAIL.toString());
+        notification.setRecipient(recipient);
+        notification.setTaskId(taskId);
+        notification.setIdempotencyKey(idempotencyKey);
+        notification.setRequestHash(requestHash);
+        notification.setScheduledAt(scheduledAt);
+        notification.setLastUpdatedAt(now);
+        return notification;
+    }
+
+    /**
+     * Splits a stream into lines on '\n', dropping a trailing '\r', like {@code BufferedReader.readLine} but
+     * holding at most {@code maxLength} characters of a line. The rest of a longer line is read past and
+     * discarded.
+     */
+    private static final class BoundedLineReader {
+
+        private final Reader reader;
+        private final int maxLength;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+        private int limit;
+        private boolean tooLong;
+
+        private BoundedLineReader(Reader reader, int maxLength) {
+            this.reader = reader;
+            this.maxLength = maxLength;
+        }
+
+        /**
+         * The next line, or null at the end of the stream. A line over the limit comes back empty, with
+         * {@link #isTooLong()} set until the next call.
+         */
+        String next() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+            boolean any = false;
+            int c;
+            while ((c = read()) != -1) {
+                any = true;
+                if (c == '\n') {
+                    break;
+                }
+                if (!tooLong) {
+                    line.append((char) c);
+                    if (line.length() > maxLength && !(line.length() == maxLength + 1 && c == '\r')) {
+                        tooLong = true;
+                        line.setLength(0);
+                    }
+                }
+            }
+            if (!any) {
+                return null;
+            }
+            if (!line.isEmpty() && line.charAt(line.length() - 1) == '\r') {
+                line.setLength(line.length() - 1);
+            }
+            return line.toString();
+        }
+
+        boolean isTooLong() {
+            return tooLong;
+        }
+
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = Math.max(reader.read(buffer, 0, buffer.length), 0);
+                position = 0;
+                if (limit == 0) {
+                    return -1;
+                }
+            }
+            return buffer[position++];
+        }
+    }
+}
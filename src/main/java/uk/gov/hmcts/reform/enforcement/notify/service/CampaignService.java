@@ -0,0 +1,221 @@
+package uk.gov.hmcts.reform.enforcement.notify.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.kagkarlsson.scheduler.serializer.Serializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.hmcts.reform.enforcement.notify.model.BulkEmailNotificationResponse;
+import uk.gov.hmcts.reform.enforcement.notify.model.CampaignState;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailCampaignRequest;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailCampaignResponse;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailNotificationRequest;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationPriority;
+import uk.gov.hmcts.reform.enforcement.notify.repository.CampaignJdbcRepository;
+import uk.gov.hmcts.reform.enforcement.notify.repository.CampaignJdbcRepository.Campaign;
+import uk.gov.hmcts.reform.enforcement.notify.repository.CampaignJdbcRepository.Recipient;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository.NewTask;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskShards;
+
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static uk.gov.hmcts.reform.enforcement.notify.task.CampaignDriverTaskComponent.campaignDriverTask;
+
+/**
+ * Sends one template to many recipients without a send task per recipient up front. The template and shared
+ * personalisation are stored once, recipients with only their overrides, and a single driver task per
+ * campaign expands them into send tasks a window at a time. {@code scheduled_tasks} then holds about one
+ * window per running campaign however many recipients it has.
+ */
+@Service
+@Slf4j
+public class CampaignService {
+
+    private static final TypeReference<Map<String, Object>> PERSONALISATION = new TypeReference<>() {
+    };
+
+    private final CampaignJdbcRepository campaignRepository;
+    private final BulkNotificationService bulkNotificationService;
+    private final TaskShards taskShards;
+    private final Serializer taskDataSerializer;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final int maxRecipients;
+
+    @Autowired
+    public CampaignService(CampaignJdbcRepository campaignRepository,
+                           BulkNotificationService bulkNotificationService,
+                           TaskShards taskShards,
+                           Serializer taskDataSerializer,
+                           TransactionTemplate transactionTemplate,
+                           MeterRegistry meterRegistry,
+                           ObjectMapper objectMapper,
+                           @Value("${notify.campaign.max-recipients:100000}") int maxRecipients) {
+        this(campaignRepository, bulkNotificationService, taskShards, taskDataSerializer,
+             transactionTemplate, meterRegistry, objectMapper, Clock.systemUTC(), maxRecipients);
+    }
+
+    CampaignService(CampaignJdbcRepository campaignRepository, BulkNotificationService bulkNotificationService,
+                    TaskShards taskShards, Serializer taskDataSerializer,
+                    TransactionTemplate transactionTemplate, MeterRegistry meterRegistry, ObjectMapper objectMapper,
+                    Clock clock, int maxRecipients) {
+        this.campaignRepository = campaignRepository;
+        this.bulkNotificationService = bulkNotificationService;
+        this.taskShards = taskShards;
+        this.taskDataSerializer = taskDataSerializer;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.maxRecipients = maxRecipients;
+    }
+
+    /**
+     * Stores the campaign and its valid recipients and schedules its driver task, all in one transaction.
+     * Campaigns take no idempotency key: a create retried after a timeout makes a second campaign, so callers
+     * should check for the first one before retrying.
+     *
+     * @throws IllegalArgumentException if the template is missing, or there are no recipients or more than
+     *     "notify.campaign.max-recipients"
+     */
+    public EmailCampaignResponse createCampaign(EmailCampaignRequest request) {
+        if (request.getTemplateId() == null || request.getTemplateId().isBlank()) {
+            throw new IllegalArgumentException("templateId is required");
+        }
+        List<EmailCampaignRequest.Recipient> requested = request.getRecipients();
+        if (requested == null || requested.isEmpty()) {
+            throw new IllegalArgumentException("No recipients in campaign");
+        }
+        if (requested.size() > maxRecipients) {
+            throw new IllegalArgumentException(
+                "Too many recipients in campaign: " + requested.size() + ", at most " + maxRecipients + " allowed");
+        }
+
+        List<Recipient> recipients = new ArrayList<>(requested.size());
+        List<BulkEmailNotificationResponse.Item> rejections = new ArrayList<>();
+        for (int i = 0; i < requested.size(); i++) {
+            EmailCampaignRequest.Recipient recipient = requested.get(i);
+            if (recipient == null || recipient.getEmailAddress() == null || recipient.getEmailAddress().isBlank()) {
+                rejections.add(new BulkEmailNotificationResponse.Item(i, null, null, null,
+                                                                      "emailAddress is required"));
+            } else {
+                recipients.add(new Recipient(recipients.size(), recipient.getEmailAddress(),
+                                             toJson(recipient.getPersonalisation())));
+            }
+        }
+
+        UUID campaignId = UUID.randomUUID();
+        if (!recipients.isEmpty()) {
+            Instant now = clock.instant();
+            Campaign campaign = new Campaign(campaignId, request.getTemplateId(), toJson(request.getPersonalisation()),
+                                             request.getReference(), request.getEmailReplyToId(),
+                                             recipients.size(), 0, false);
+            NewTask driver = new NewTask(campaignDriverTask.getTaskName(), campaignId.toString(),
+                                         taskDataSerializer.serialize(new CampaignState(campaignId)), now,
+                                         NotificationPriority.BULK.taskPriority());
+            transactionTemplate.executeWithoutResult(status -> {
+                campaignRepository.insert(campaign, now);
+                campaignRepository.insertRecipients(campaignId, recipients);
+                taskShards.tasksFor(driver.taskName(), driver.taskInstance()).insertAll(List.of(driver));
+            });
+        }
+
+        meterRegistry.counter("notify.campaign.recipients", "outcome", "accepted").increment(recipients.size());
+        meterRegistry.counter("notify.campaign.recipients", "outcome", "rejected").increment(rejections.size());
+        log.info("Created campaign {} for template {} with {} recipients, rejected {}",
+                 campaignId, request.getTemplateId(), recipients.size(), rejections.size());
+        return new EmailCampaignResponse(recipients.isEmpty() ? null : campaignId, recipients.size(),
+                                         rejections.size(), rejections);
+    }
+
+    /**
+     * Expands up to {@code limit} more recipients of a campaign into send tasks, the n-th due at
+     * {@code now + n * interval}, and moves the campaign on past them in the same transaction, so a
+     * recipient is scheduled exactly once even if the driver is interrupted. Each recipient's email is keyed
+     * by campaign and recipient index; send tasks on other shards are only written once the expansion has
+     * committed.
+     */
+    public Expansion expand(UUID campaignId, int limit, Duration interval) {
+        return transactionTemplate.execute(status -> {
+            Optional<Campaign> found = campaignRepository.findForUpdate(campaignId);
+            if (found.isEmpty() || found.get().complete()) {
+                return new Expansion(0, true);
+            }
+            Campaign campaign = found.get();
+            List<Recipient> recipients = campaignRepository.findRecipients(campaignId, campaign.nextIndex(), limit);
+
+            Map<String, Object> shared = fromJson(campaign.personalisation());
+            List<EmailNotificationRequest> emails = new ArrayList<>(recipients.size());
+            List<Integer> positions = new ArrayList<>(recipients.size());
+            for (Recipient recipient : recipients) {
+                Map<String, Object> personalisation = new HashMap<>(shared);
+                personalisation.putAll(fromJson(recipient.personalisation()));
+                emails.add(EmailNotificationRequest.builder()
+                               .templateId(campaign.templateId())
+                               .emailAddress(recipient.emailAddress())
+                               .personalisation(personalisation)
+                               .reference(campaign.reference())
+                               .emailReplyToId(campaign.emailReplyToId())
+                               .idempotencyKey(campaignId + ":" + recipient.index())
+                               .build());
+                positions.add(recipient.index());
+            }
+
+            Instant now = clock.instant();
+            bulkNotificationService.schedule(emails, positions, now, interval, now);
+
+            int nextIndex = campaign.nextIndex() + recipients.size();
+            boolean complete = recipients.size() < limit || nextIndex >= campaign.recipientCount();
+            campaignRepository.advance(campaignId, nextIndex, complete ? now : null);
+            meterRegistry.counter("notify.campaign.expanded").increment(recipients.size());
+            if (complete) {
+                log.info("Campaign {} fully expanded into {} sends", campaignId, nextIndex);
+            }
+            return new Expansion(recipients.size(), complete);
+        });
+    }
+
+    private String toJson(Map<String, Object> personalisation) {
+        if (personalisation == null || personalisation.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(personalisation);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Personalisation cannot be written as JSON", e);
+        }
+    }
+
+    private Map<String, Object> fromJson(String personalisation) {
+        if (personalisation == null) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(personalisation, PERSONALISATION);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Unreadable campaign personalisation", e);
+        }
+    }
+
+    /**
+     * The result of one expansion step: how many sends were scheduled and whether the campaign is done.
+     */
+    public record Expansion(int scheduled, boolean complete) {
+    }
+}
@@ -0,0 +1,170 @@
+package uk.gov.hmcts.reform.enforcement.notify.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rolling histogram of the time from Notify accepting an email to it being delivered, kept per template.
+ * Latencies fall into exponentially sized buckets from one second to several hours. Each histogram covers
+ * the current and the previous "notify.check-status.adaptive.window", so old observations age out.
+ * Template ids come from callers, so at most {@value #MAX_TRACKED_TEMPLATES} templates get a histogram of
+ * their own; later ones only count towards the histogram across all templates.
+ * Every observation is also recorded on the {@code notify.delivery.latency} timer with a percentile histogram
+ * for dashboards. Only the first {@value #MAX_TAGGED_TEMPLATES} templates seen are tagged with their id; the
+ * rest share the template tag "other", keeping the number of meter series bounded.
+ */
+@Component
+public class DeliveryLatencyTracker {
+
+    static final String ALL_TEMPLATES = "all";
+    static final String OTHER_TEMPLATES = "other";
+    static final int MAX_TRACKED_TEMPLATES = 1000;
+    static final int MAX_TAGGED_TEMPLATES = 50;
+
+    private static final long[] BUCKET_UPPER_MILLIS = bucketBounds();
+
+    private final Map<String, RollingHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Duration window;
+
+    @Autowired
+    public DeliveryLatencyTracker(MeterRegistry meterRegistry,
+                                  @Value("${notify.check-status.adaptive.window:15m}") Duration window) {
+        this(meterRegistry, Clock.systemUTC(), window);
+    }
+
+    DeliveryLatencyTracker(MeterRegistry meterRegistry, Clock clock, Duration window) {
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.window = window;
+    }
+
+    /**
+     * Records how long Notify took to deliver an email sent with the given template.
+     */
+    public void record(String templateId, Instant createdAt, Instant completedAt) {
+        if (createdAt == null || completedAt == null || completedAt.isBefore(createdAt)) {
+            return;
+        }
+        Duration latency = Duration.between(createdAt, completedAt);
+        String template = templateId == null ? ALL_TEMPLATES : templateId;
+        Instant now = clock.instant();
+
+        histogram(ALL_TEMPLATES).record(latency.toMillis(), now);
+        if (!ALL_TEMPLATES.equals(template)) {
+            RollingHistogram histogram = histograms.get(template);
+            if (histogram == null && histograms.size() <= MAX_TRACKED_TEMPLATES) {
+                histogram = histogram(template);
+            }
+            if (histogram != null) {
+                histogram.record(latency.toMillis(), now);
+            }
+        }
+
+        timer(template).record(latency);
+    }
+
+    /**
+     * The latency below which the given fraction of recent deliveries for the template fell, as the upper
+     * bound of the bucket containing it. Empty when fewer than {@code minSamples} deliveries were seen.
+     */
+    public Optional<Duration> quantile(String templateId, double quantile, int minSamples) {
+        RollingHistogram histogram = histograms.get(templateId == null ? ALL_TEMPLATES : templateId);
+        return histogram == null ? Optional.empty() : histogram.quantile(quantile, minSamples, clock.instant());
+    }
+
+    private RollingHistogram histogram(String template) {
+        return histograms.computeIfAbsent(template, ignored -> new RollingHistogram());
+    }
+
+    private Timer timer(String template) {
+        Timer timer = timers.get(template);
+        if (timer != null) {
+            return timer;
+        }
+        String tag = timers.size() < MAX_TAGGED_TEMPLATES ? template : OTHER_TEMPLATES;
+        Timer registered = Timer.builder("notify.delivery.latency")
+            .description("Time from Notify accepting an email until it was delivered")
+            .tag("template", tag)
+            .publishPercentileHistogram()
+            .maximumExpectedValue(Duration.ofMillis(BUCKET_UPPER_MILLIS[BUCKET_UPPER_MILLIS.length - 1]))
+            .register(meterRegistry);
+        return tag.equals(template) ? timers.computeIfAbsent(template, ignored -> registered) : registered;
+    }
+
+    /**
+     * Bucket upper bounds growing by half each step, from one second to a little over four hours.
+     */
+    private static long[] bucketBounds() {
+        int count = 25;
+        long[] bounds = new long[count];
+        double bound = 1000;
+        for (int i = 0; i < count; i++) {
+            bounds[i] = Math.round(bound);
+            bound *= 1.5;
+        }
+        return bounds;
+    }
+
+    private static int bucket(long millis) {
+        for (int i = 0; i < BUCKET_UPPER_MILLIS.length; i++) {
+            if (millis <= BUCKET_UPPER_MILLIS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_UPPER_MILLIS.length - 1;
+    }
+
+    private final class RollingHistogram {
+        private long[] current = new long[BUCKET_UPPER_MILLIS.length];
+        private long[] previous = new long[BUCKET_UPPER_MILLIS.length];
+        private Instant windowStart = clock.instant();
+
+        synchronized void record(long millis, Instant now) {
+            rotate(now);
+            current[bucket(millis)]++;
+        }
+
+        synchronized Optional<Duration> quantile(double quantile, int minSamples, Instant now) {
+            rotate(now);
+            long total = 0;
+            for (int i = 0; i < current.length; i++) {
+                total += current[i] + previous[i];
+            }
+            if (total == 0 || total < minSamples) {
+                return Optional.empty();
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < current.length; i++) {
+                seen += current[i] + previous[i];
+                if (seen >= rank) {
+                    return Optional.of(Duration.ofMillis(BUCKET_UPPER_MILLIS[i]));
+                }
+            }
+            return Optional.of(Duration.ofMillis(BUCKET_UPPER_MILLIS[BUCKET_UPPER_MILLIS.length - 1]));
+        }
+
+        private void rotate(Instant now) {
+            if (now.isBefore(windowStart.plus(window))) {
+                return;
+            }
+            boolean skippedWindow = !now.isBefore(windowStart.plus(window.multipliedBy(2)));
+            previous = skippedWindow ? new long[current.length] : current;
+            current = new long[current.length];
+            windowStart = now;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package uk.gov.hmcts.reform.enforcement.notify.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import uk.gov.hmcts.reform.enforcement.notify.entities.CaseNotification;
+import uk.gov.hmcts.reform.enforcement.notify.model.DeliveryReceipt;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskShards;
+
+import java.util.Optional;
+
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.DELIVERED;
+import static uk.gov.hmcts.reform.enforcement.notify.task.VerifyEmailTaskComponent.verifyEmailTask;
+
+/**
+ * Applies delivery receipts pushed by GOV.UK Notify. Once a receipt with a final status is applied, the
+ * pending verify task for the notification is cancelled on the shard holding it, so polling only happens for
+ * notifications that got no receipt in time. A receipt only queued by the status write-behind leaves the
+ * verify task in place, as whether it applies is not known yet.
+ */
+@Service
+@Slf4j
+public class DeliveryReceiptService {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationService notificationService;
+    private final TaskShards taskShards;
+    private final ProviderNotificationIdFilter providerIdFilter;
+    private final DeliveryLatencyTracker latencyTracker;
+    private final MeterRegistry meterRegistry;
+
+    public DeliveryReceiptService(NotificationRepository notificationRepository,
+                                  NotificationService notificationService,
+                                  TaskShards taskShards,
+                                  ProviderNotificationIdFilter providerIdFilter,
+                                  DeliveryLatencyTracker latencyTracker,
+                                  MeterRegistry meterRegistry) {
+        this.notificationRepository = notificationRepository;
+        this.notificationService = notificationService;
+        this.taskShards = taskShards;
+        this.providerIdFilter = providerIdFilter;
+        this.latencyTracker = latencyTracker;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public enum Outcome {
+        APPLIED,
+        QUEUED,
+        IGNORED,
+        UNKNOWN
+    }
+
+    public Outcome apply(DeliveryReceipt receipt) {
+        Outcome outcome = applyReceipt(receipt);
+        meterRegistry.counter("notify.callback.receipts", "outcome", outcome.name().toLowerCase()).increment();
+        return outcome;
+    }
+
+    private Outcome applyReceipt(DeliveryReceipt receipt) {
+        if (receipt.getId() == null || !providerIdFilter.mightContain(receipt.getId())) {
+            return Outcome.UNKNOWN;
+        }
+
+        Optional<CaseNotification> notification = notificationRepository.findByProviderNotificationId(receipt.getId());
+        if (notification.isEmpty()) {
+            log.debug("Delivery receipt for unknown Notify notification {}", receipt.getId());
+            return Outcome.UNKNOWN;
+        }
+
+        CaseNotification caseNotification = notification.get();
+        NotificationService.StatusUpdate update =
+            notificationService.updateNotificationStatus(caseNotification.getNotificationId(), receipt.getStatus());
+        if (update == NotificationService.StatusUpdate.NOT_APPLIED) {
+            return Outcome.IGNORED;
+        }
+
+        NotificationStatus status = NotificationStatus.fromString(receipt.getStatus());
+        if (status == DELIVERED) {
+            String templateId = receipt.getTemplateId() == null ? null : receipt.getTemplateId().toString();
+            latencyTracker.record(templateId, receipt.getCreatedAt(), receipt.getCompletedAt());
+        }
+        if (update == NotificationService.StatusUpdate.QUEUED) {
+            log.info("Queued {} receipt for notification ID: {}", status, caseNotification.getNotificationId());
+            return Outcome.QUEUED;
+        }
+        if (status.isTerminal() && caseNotification.getTaskId() != null
+            && taskShards.tasksFor(verifyEmailTask.getTaskName(), caseNotification.getTaskId())
+                .cancelUnpicked(verifyEmailTask.getTaskName(), caseNotification.getTaskId())) {
+            log.debug("Cancelled verify task {} after {} receipt", caseNotification.getTaskId(), status);
+        }
+        log.info("Applied {} receipt to notification ID: {}", status, caseNotification.getNotificationId());
+        return Outcome.APPLIED;
+    }
+}
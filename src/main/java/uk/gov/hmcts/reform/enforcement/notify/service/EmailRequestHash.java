@@ -0,0 +1,53 @@
+package uk.gov.hmcts.reform.enforcement.notify.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import uk.gov.hmcts.reform.enforcement.notify.entities.CaseNotification;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailNotificationRequest;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A SHA-256 of what an email request asks to send: template, recipient and personalisation, with map keys in
+ * sorted order. Stored alongside the idempotency key, it tells a retry of the same request apart from a key
+ * reused for a different email.
+ */
+final class EmailRequestHash {
+
+    private static final ObjectWriter WRITER = JsonMapper.builder()
+        .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+        .build()
+        .writer();
+
+    private EmailRequestHash() {
+    }
+
+    static String of(EmailNotificationRequest request) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("templateId", request.getTemplateId());
+        fields.put("emailAddress", request.getEmailAddress());
+        fields.put("personalisation", request.getPersonalisation() != null ? request.getPersonalisation() : Map.of());
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(WRITER.writeValueAsBytes(fields));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Personalisation cannot be written as JSON", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Whether a notification stored with the request's idempotency key was made for a different email. Rows
+     * stored before hashes were kept have none and are taken to match.
+     */
+    static boolean conflicts(CaseNotification existing, String requestHash) {
+        return existing.getRequestHash() != null && !existing.getRequestHash().equals(requestHash);
+    }
+}
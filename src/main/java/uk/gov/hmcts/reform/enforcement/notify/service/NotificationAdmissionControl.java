@@ -0,0 +1,226 @@
+package uk.gov.hmcts.reform.enforcement.notify.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationPriority;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for new notifications. Every "notify.admission.refresh-interval" each node measures
+ * the due send backlog, how long the oldest due send has been waiting and the mean wait for a database
+ * connection since the last measurement, each as a fraction of its limit ("notify.admission.max-backlog",
+ * "notify.admission.max-oldest-due-age", "notify.admission.max-pool-wait"). The largest fraction is the
+ * pressure. Requests are turned away from memory, without touching the database, once the pressure reaches
+ * the level set for their priority in "notify.admission.shed-at", so bulk traffic is shed first and urgent
+ * traffic last. The suggested retry delay grows with how far past that level the pressure is.
+ * The backlog only counts tasks at bulk priority or above, i.e. send and campaign driver tasks; verifies and
+ * housekeeping tasks are kept below it and do not hold up new notifications. Only the application database
+ * is measured. Off unless "notify.admission.enabled" = true; while off every request is admitted.
+ */
+@Component
+@Slf4j
+public class NotificationAdmissionControl {
+
+    private static final String POOL_ACQUIRE_TIMER = "hikaricp.connections.acquire";
+    private static final String POOL_TIMEOUT_COUNTER = "hikaricp.connections.timeout";
+    private static final int SEND_PRIORITY = NotificationPriority.BULK.taskPriority();
+
+    private final ScheduledTaskRepository scheduledTaskRepository;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final boolean enabled;
+    private final Duration refreshInterval;
+    private final int maxBacklog;
+    private final Duration maxOldestDueAge;
+    private final Duration maxPoolWait;
+    private final Duration maxRetryAfter;
+    private final Map<NotificationPriority, Double> shedAt = new EnumMap<>(NotificationPriority.class);
+
+    private volatile double pressure;
+    private double queuePressure;
+    private double lastAcquireCount;
+    private double lastAcquireNanos;
+    private double lastTimeoutCount;
+    private ScheduledExecutorService refresher;
+
+    @Autowired
+    public NotificationAdmissionControl(
+        ScheduledTaskRepository scheduledTaskRepository,
+        MeterRegistry meterRegistry,
+        @Value("${notify.admission.enabled:false}") boolean enabled,
+        @Value("${notify.admission.refresh-interval:5s}") Duration refreshInterval,
+        @Value("${notify.admission.max-backlog:50000}") int maxBacklog,
+        @Value("${notify.admission.max-oldest-due-age:15m}") Duration maxOldestDueAge,
+        @Value("${notify.admission.max-pool-wait:500ms}") Duration maxPoolWait,
+        @Value("${notify.admission.max-retry-after:5m}") Duration maxRetryAfter,
+        @Value("${notify.admission.shed-at.bulk:0.8}") double shedBulkAt,
+        @Value("${notify.admission.shed-at.normal:1.0}") double shedNormalAt,
+        @Value("${notify.admission.shed-at.urgent:1.5}") double shedUrgentAt
+    ) {
+        this(scheduledTaskRepository, meterRegistry, Clock.systemUTC(), enabled, refreshInterval, maxBacklog,
+             maxOldestDueAge, maxPoolWait, maxRetryAfter, shedBulkAt, shedNormalAt, shedUrgentAt);
+    }
+
+    NotificationAdmissionControl(ScheduledTaskRepository scheduledTaskRepository, MeterRegistry meterRegistry,
+                                 Clock clock, boolean enabled, Duration refreshInterval, int maxBacklog,
+                                 Duration maxOldestDueAge, Duration maxPoolWait, Duration maxRetryAfter,
+                                 double shedBulkAt, double shedNormalAt, double shedUrgentAt) {
+        this.scheduledTaskRepository = scheduledTaskRepository;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.refreshInterval = refreshInterval;
+        this.maxBacklog = maxBacklog;
+        this.maxOldestDueAge = maxOldestDueAge;
+        this.maxPoolWait = maxPoolWait;
+        this.maxRetryAfter = maxRetryAfter;
+        shedAt.put(NotificationPriority.BULK, shedBulkAt);
+        shedAt.put(NotificationPriority.NORMAL, shedNormalAt);
+        shedAt.put(NotificationPriority.URGENT, shedUrgentAt);
+        meterRegistry.gauge("notify.admission.pressure", this, NotificationAdmissionControl::getPressure);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-admission");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = refreshInterval.toMillis();
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    public double getPressure() {
+        return pressure;
+    }
+
+    /**
+     * How often the signals are measured; the shortest delay worth suggesting to a caller that was turned away.
+     */
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    /**
+     * Whether a new notification of the given priority should be turned away; notifications without one
+     * count as normal.
+     *
+     * @return how long the caller should wait before retrying, or empty to admit the notification
+     */
+    public Optional<Duration> shed(NotificationPriority priority) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        NotificationPriority effective = priority != null ? priority : NotificationPriority.NORMAL;
+        double threshold = shedAt.get(effective);
+        double current = pressure;
+        if (current < threshold) {
+            return Optional.empty();
+        }
+        Counter.builder("notify.admission.shed")
+            .tag("priority", effective.name().toLowerCase(Locale.ROOT))
+            .register(meterRegistry)
+            .increment();
+        return Optional.of(retryAfter(current, threshold));
+    }
+
+    /**
+     * The delay suggested to a shed caller: one refresh interval at the shedding level, growing in
+     * proportion to the pressure, up to "notify.admission.max-retry-after".
+     */
+    Duration retryAfter(double current, double threshold) {
+        long millis = Math.round(refreshInterval.toMillis() * current / threshold);
+        return Duration.ofMillis(Math.clamp(millis, refreshInterval.toMillis(), maxRetryAfter.toMillis()));
+    }
+
+    /**
+     * Measures the signals and recomputes the pressure. The connection pool is measured first, so a database
+     * too busy to answer the backlog queries still raises the pressure through it.
+     */
+    synchronized void refresh() {
+        double poolPressure = ratio(poolWait(), maxPoolWait);
+        try {
+            Instant now = clock.instant();
+            long backlog = scheduledTaskRepository.countDue(now, SEND_PRIORITY, maxBacklog * 2);
+            Duration oldestDueAge = scheduledTaskRepository.oldestDue(now, SEND_PRIORITY)
+                .map(oldest -> Duration.between(oldest, now))
+                .orElse(Duration.ZERO);
+            queuePressure = Math.max((double) backlog / maxBacklog, ratio(oldestDueAge, maxOldestDueAge));
+        } finally {
+            double previous = pressure;
+            pressure = Math.max(queuePressure, poolPressure);
+            if ((previous < 1.0) != (pressure < 1.0)) {
+                log.info("Notification admission pressure went from {} to {}", previous, pressure);
+            }
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Failed to measure the scheduler backlog for admission control: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Mean time taken to get a database connection since the last call. Any connection request timing out
+     * in that time counts as twice the limit.
+     */
+    private Duration poolWait() {
+        double count = 0;
+        double totalNanos = 0;
+        for (Timer timer : meterRegistry.find(POOL_ACQUIRE_TIMER).timers()) {
+            count += timer.count();
+            totalNanos += timer.totalTime(TimeUnit.NANOSECONDS);
+        }
+        double timeouts = meterRegistry.find(POOL_TIMEOUT_COUNTER).counters().stream()
+            .mapToDouble(Counter::count)
+            .sum();
+
+        double acquired = count - lastAcquireCount;
+        double waitedNanos = totalNanos - lastAcquireNanos;
+        boolean timedOut = timeouts > lastTimeoutCount;
+        lastAcquireCount = count;
+        lastAcquireNanos = totalNanos;
+        lastTimeoutCount = timeouts;
+
+        if (timedOut) {
+            return maxPoolWait.multipliedBy(2);
+        }
+        return acquired > 0 ? Duration.ofNanos(Math.round(waitedNanos / acquired)) : Duration.ZERO;
+    }
+
+    private static double ratio(Duration value, Duration limit) {
+        return (double) value.toNanos() / limit.toNanos();
+    }
+}
@@ -0,0 +1,151 @@
+package uk.gov.hmcts.reform.enforcement.notify.service;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailState;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationSequenceRepository;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationSequenceRepository.Entry;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationSequenceRepository.Position;
+import uk.gov.hmcts.reform.enforcement.notify.task.SendEmailTaskComponent;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskShards;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Sends emails that share a sequence key one at a time, in the order they were scheduled, while emails for
+ * other keys run in parallel. Only the send task at the head of a key's sequence is due; the ones behind it
+ * are parked "notify.send-email.sequence.park-timeout" ahead and woken, one by one, as the head is released.
+ * A send task is released once its email has left this service for good: sent, rejected, out of retries or
+ * found to have been sent already. Waiting for delivery is not part of the sequence.
+ * A parked task that comes due before its turn, e.g. because a head was never released, is parked again,
+ * unless every email ahead of it has left; then it takes the turn itself.
+ */
+@Service
+@Slf4j
+public class NotificationSequencer {
+
+    private static final String SEND_EMAIL_TASK_NAME = SendEmailTaskComponent.sendEmailTask.getTaskName();
+
+    private final NotificationSequenceRepository sequenceRepository;
+    private final TaskShards taskShards;
+    private final TransactionTemplate transactionTemplate;
+    @Getter
+    private final Duration parkTimeout;
+
+    public NotificationSequencer(NotificationSequenceRepository sequenceRepository,
+                                 TaskShards taskShards,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${notify.send-email.sequence.park-timeout:6h}") Duration parkTimeout) {
+        this.sequenceRepository = sequenceRepository;
+        this.taskShards = taskShards;
+        this.transactionTemplate = transactionTemplate;
+        this.parkTimeout = parkTimeout;
+    }
+
+    /**
+     * Appends a notification to the key's sequence. Must run in the transaction saving the notification, so
+     * a rolled back request leaves no gap behind.
+     *
+     * @return the notification's position: its number is the tail, and it may run straight away when it is
+     *     also the head
+     */
+    public Position enqueue(String sequenceKey) {
+        return sequenceRepository.enqueue(sequenceKey);
+    }
+
+    /**
+     * Whether an email may be sent now: it is not sequenced, or nothing scheduled before it for the same key
+     * is still waiting or in flight.
+     */
+    public boolean isTurn(EmailState emailState) {
+        if (emailState.getSequenceKey() == null) {
+            return true;
+        }
+        Optional<Long> head = sequenceRepository.head(emailState.getSequenceKey());
+        if (head.isEmpty() || emailState.getSequenceNumber() <= head.get()) {
+            return true;
+        }
+        return takeTurn(emailState);
+    }
+
+    /**
+     * Releases a sequenced email and wakes the next one for its key; removes the key once nothing is left.
+     * Releasing an email that is not the head, e.g. when a send task reruns after it was released, does
+     * nothing. When the next email's task is running, i.e. it came due before its turn and is being parked
+     * again, the head stays on the released email and the next email takes the turn when it runs again.
+     * Joins the caller's transaction if there is one.
+     */
+    public void release(EmailState emailState) {
+        if (emailState.getSequenceKey() == null) {
+            return;
+        }
+        String sequenceKey = emailState.getSequenceKey();
+        long number = emailState.getSequenceNumber();
+        transactionTemplate.executeWithoutResult(status -> {
+            Optional<Position> position = sequenceRepository.lock(sequenceKey);
+            if (position.isEmpty() || position.get().head() != number) {
+                return;
+            }
+            long tail = position.get().tail();
+            long head = number;
+            while (head < tail) {
+                Optional<Entry> next = sequenceRepository.next(sequenceKey, head);
+                if (next.isEmpty()) {
+                    break;
+                }
+                head = next.get().sequenceNumber();
+                String taskId = next.get().taskId();
+                ScheduledTaskRepository tasks = taskShards.tasksFor(SEND_EMAIL_TASK_NAME, taskId);
+                if (tasks.wake(SEND_EMAIL_TASK_NAME, taskId, Instant.now())) {
+                    sequenceRepository.advance(sequenceKey, head);
+                    log.debug("Released {} in sequence {}, woke send task {}", number, sequenceKey, taskId);
+                    return;
+                }
+                if (tasks.exists(SEND_EMAIL_TASK_NAME, taskId)) {
+                    log.debug("Released {} in sequence {}, send task {} is running and takes its turn next time",
+                              number, sequenceKey, taskId);
+                    return;
+                }
+                log.warn("Send task {} is no longer waiting in sequence {}, skipping it", taskId, sequenceKey);
+            }
+            sequenceRepository.remove(sequenceKey);
+            log.debug("Released {}, the last in sequence {}", number, sequenceKey);
+        });
+    }
+
+    /**
+     * Moves the key's head to an email that came due before its turn, if the head's send task and those of
+     * every email between them are gone: they left this service, but the turn was not handed on, e.g. because
+     * this email was running when the head was released.
+     */
+    private boolean takeTurn(EmailState emailState) {
+        String sequenceKey = emailState.getSequenceKey();
+        long number = emailState.getSequenceNumber();
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            Optional<Position> position = sequenceRepository.lock(sequenceKey);
+            if (position.isEmpty() || number <= position.get().head()) {
+                return true;
+            }
+            long head = position.get().head();
+            Optional<Entry> ahead = sequenceRepository.entry(sequenceKey, head)
+                .or(() -> sequenceRepository.next(sequenceKey, head));
+            while (ahead.isPresent() && ahead.get().sequenceNumber() < number) {
+                String taskId = ahead.get().taskId();
+                if (taskShards.tasksFor(SEND_EMAIL_TASK_NAME, taskId).exists(SEND_EMAIL_TASK_NAME, taskId)) {
+                    return false;
+                }
+                ahead = sequenceRepository.next(sequenceKey, ahead.get().sequenceNumber());
+            }
+            sequenceRepository.advance(sequenceKey, number);
+            log.info("Send task {} took its turn in sequence {}, the emails ahead of it have left",
+                     emailState.getId(), sequenceKey);
+            return true;
+        }));
+    }
+}
@@ -1,24 +1,31 @@
 package uk.gov.hmcts.reform.enforcement.notify.service;
 
-import com.github.kagkarlsson.scheduler.SchedulerClient;
+import com.github.kagkarlsson.scheduler.task.SchedulableInstance;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import uk.gov.hmcts.reform.enforcement.notify.entities.CaseNotification;
+import uk.gov.hmcts.reform.enforcement.notify.exception.IdempotencyKeyReusedException;
 import uk.gov.hmcts.reform.enforcement.notify.exception.NotificationException;
 import uk.gov.hmcts.reform.enforcement.notify.model.EmailNotificationRequest;
 import uk.gov.hmcts.reform.enforcement.notify.model.EmailNotificationResponse;
 import uk.gov.hmcts.reform.enforcement.notify.model.EmailState;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationPriority;
 import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatusChange;
 import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationRepository;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationSequenceRepository.Position;
 import uk.gov.hmcts.reform.enforcement.notify.task.SendEmailTaskComponent;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskShards;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
 import static java.util.UUID.randomUUID;
-import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.PENDING_SCHEDULE;
 import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.SCHEDULED;
 import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationType.EMAIL;
 
@@ -27,48 +34,129 @@ import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationType.EMAI
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
-    private final SchedulerClient schedulerClient;
+    private final TaskShards taskShards;
+    private final NotificationStatusWriteBehind statusWriteBehind;
+    private final ProviderNotificationIdFilter providerIdFilter;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationSequencer notificationSequencer;
+
+    /**
+     * What became of a status update: written, buffered by the status write-behind to be written shortly
+     * (and still subject to the same conditional update), or not applied.
+     */
+    public enum StatusUpdate {
+        APPLIED,
+        QUEUED,
+        NOT_APPLIED
+    }
 
     public NotificationService(NotificationRepository notificationRepository,
-                               SchedulerClient schedulerClient) {
+                               TaskShards taskShards,
+                               NotificationStatusWriteBehind statusWriteBehind,
+                               ProviderNotificationIdFilter providerIdFilter,
+                               TransactionTemplate transactionTemplate,
+                               NotificationSequencer notificationSequencer) {
         this.notificationRepository = notificationRepository;
-        this.schedulerClient = schedulerClient;
+        this.taskShards = taskShards;
+        this.statusWriteBehind = statusWriteBehind;
+        this.providerIdFilter = providerIdFilter;
+        this.transactionTemplate = transactionTemplate;
+        this.notificationSequencer = notificationSequencer;
     }
 
+    /**
+     * Saves a notification and schedules its send task. A request carrying an idempotency key, or failing that
+     * a reference, already used by an earlier request gets that earlier notification back instead, so callers
+     * can safely retry after a timeout.
+     * Requests with a sequence key are sent one at a time, in the order they are scheduled, after every earlier
+     * request with the same key (see {@link NotificationSequencer}).
+     *
+     * @throws IdempotencyKeyReusedException if the key was used before for a different template, recipient or
+     *     personalisation
+     */
     public EmailNotificationResponse scheduleEmailNotification(EmailNotificationRequest emailRequest) {
-        String taskId = randomUUID().toString();
+        String idempotencyKey = idempotencyKey(emailRequest);
+        String requestHash = idempotencyKey != null ? EmailRequestHash.of(emailRequest) : null;
+        if (idempotencyKey != null) {
+            Optional<CaseNotification> existing = notificationRepository.findByIdempotencyKey(idempotencyKey);
+            if (existing.isPresent()) {
+                log.info("Email notification with idempotency key {} already exists", idempotencyKey);
+                return existingResponse(existing.get(), idempotencyKey, requestHash);
+            }
+        }
+
+        // derived from the key, so a retry racing the first request also collides on the task
+        String taskId = idempotencyKey != null
+            ? UUID.nameUUIDFromBytes(idempotencyKey.getBytes(StandardCharsets.UTF_8)).toString()
+            : randomUUID().toString();
 
+        try {
+            return transactionTemplate.execute(status -> schedule(emailRequest, taskId, idempotencyKey, requestHash));
+        } catch (DataIntegrityViolationException e) {
+            Optional<CaseNotification> existing = idempotencyKey == null
+                ? Optional.empty() : notificationRepository.findByIdempotencyKey(idempotencyKey);
+            if (existing.isEmpty()) {
+                throw new NotificationException("Failed to save Case Notification.", e);
+            }
+            log.info("Concurrent request created email notification with idempotency key {}", idempotencyKey);
+            return existingResponse(existing.get(), idempotencyKey, requestHash);
+        }
+    }
+
+    /**
+     * Inserts the notification already SCHEDULED and its send task in the caller's transaction. The scheduler
+     * client writes through a transaction-aware data source, so both rows commit or neither does.
+     * In sharded mode a task placed on another shard is scheduled there once the transaction has committed (see
+     * {@link TaskShards#write}), so it never runs before its notification row is visible.
+     * A sequenced send task behind others for its key is parked until they are released.
+     */
+    private EmailNotificationResponse schedule(EmailNotificationRequest emailRequest, String taskId,
+                                               String idempotencyKey, String requestHash) {
+        Instant now = Instant.now();
+        NotificationPriority priority = emailRequest.getPriority() != null
+            ? emailRequest.getPriority() : NotificationPriority.NORMAL;
+        String sequenceKey = emailRequest.getSequenceKey() == null || emailRequest.getSequenceKey().isBlank()
+            ? null : emailRequest.getSequenceKey();
+        Position position = sequenceKey != null ? notificationSequencer.enqueue(sequenceKey) : null;
+        Long sequenceNumber = position != null ? position.tail() : null;
         CaseNotification caseNotification = createCaseNotification(
             emailRequest.getEmailAddress(),
             randomUUID(),
-            taskId
-        );
-
-        EmailState emailState = new EmailState(
             taskId,
-            emailRequest.getEmailAddress(),
-            emailRequest.getTemplateId(),
-            emailRequest.getPersonalisation(),
-            emailRequest.getReference(),
-            emailRequest.getEmailReplyToId(),
-            null,
-            caseNotification.getNotificationId()
+            idempotencyKey,
+            requestHash,
+            sequenceKey,
+            sequenceNumber,
+            now
         );
 
-        // Set initial status to SCHEDULED
-        updateNotificationStatus(caseNotification, SCHEDULED, null);
+        EmailState emailState = EmailState.builder()
+            .id(taskId)
+            .emailAddress(emailRequest.getEmailAddress())
+            .templateId(emailRequest.getTemplateId())
+            .personalisation(emailRequest.getPersonalisation())
+            .reference(emailRequest.getReference())
+            .emailReplyToId(emailRequest.getEmailReplyToId())
+            .dbNotificationId(caseNotification.getNotificationId())
+            .priority(priority)
+            .sequenceKey(sequenceKey)
+            .sequenceNumber(sequenceNumber)
+            .build();
+        Instant executionTime = position == null || position.head() == position.tail()
+            ? now : now.plus(notificationSequencer.getParkTimeout());
 
         // Schedule a task that will update to SUBMITTED within 1-3 seconds per Acceptance Criteria
-        boolean scheduled = schedulerClient.scheduleIfNotExists(
-            SendEmailTaskComponent.sendEmailTask
-                .instance(taskId)
-                .data(emailState)
-                .scheduledTo(Instant.now())
-        );
-
-        if (!scheduled) {
-            log.warn("Task with ID {} already exists and has not been scheduled", taskId);
-        }
+        SchedulableInstance<EmailState> sendTask = SendEmailTaskComponent.sendEmailTask
+            .instance(taskId)
+            .priority(priority.taskPriority())
+            .data(emailState)
+            .scheduledTo(executionTime);
+        TaskShards.Shard shard = taskShards.shardFor(SendEmailTaskComponent.sendEmailTask.getTaskName(), taskId);
+        taskShards.write(shard, () -> {
+            if (!shard.client().scheduleIfNotExists(sendTask)) {
+                log.warn("Task with ID {} already exists and has not been scheduled", taskId);
+            }
+        });
 
         EmailNotificationResponse response = new EmailNotificationResponse();
         response.setTaskId(taskId);
@@ -81,46 +169,77 @@ public class NotificationService {
         return response;
     }
 
-    public void updateNotificationAfterSending(UUID dbNotificationId, UUID providerNotificationId) {
-        Optional<CaseNotification> notificationOpt = notificationRepository.findById(dbNotificationId);
-        if (notificationOpt.isEmpty()) {
-            log.error("Notification not found with ID: {}", dbNotificationId);
-            return;
+    private static String idempotencyKey(EmailNotificationRequest emailRequest) {
+        String key = emailRequest.getIdempotencyKey() != null
+            ? emailRequest.getIdempotencyKey() : emailRequest.getReference();
+        return key == null || key.isBlank() ? null : key;
+    }
+
+    /**
+     * The response for a request whose idempotency key is already taken by {@code notification}.
+     *
+     * @throws IdempotencyKeyReusedException if the notification was made for a different email
+     */
+    private static EmailNotificationResponse existingResponse(CaseNotification notification, String idempotencyKey,
+                                                              String requestHash) {
+        if (EmailRequestHash.conflicts(notification, requestHash)) {
+            throw new IdempotencyKeyReusedException(idempotencyKey);
         }
+        EmailNotificationResponse response = new EmailNotificationResponse();
+        response.setTaskId(notification.getTaskId());
+        response.setStatus(notification.getStatus().toString());
+        response.setNotificationId(notification.getNotificationId());
+        return response;
+    }
 
-        CaseNotification notification = notificationOpt.get();
-        updateNotificationStatus(notification, NotificationStatus.SUBMITTED, providerNotificationId);
+    public StatusUpdate updateNotificationAfterSending(UUID dbNotificationId, UUID providerNotificationId) {
+        providerIdFilter.add(providerNotificationId);
+        return transitionStatus(dbNotificationId, NotificationStatus.SUBMITTED, providerNotificationId);
     }
 
     public void updateNotificationAfterFailure(UUID dbNotificationId, Exception exception) {
-        Optional<CaseNotification> notificationOpt = notificationRepository.findById(dbNotificationId);
-        if (notificationOpt.isEmpty()) {
-            log.error("Notification not found with ID on failure: {}", dbNotificationId);
-            return;
-        }
-
-        CaseNotification notification = notificationOpt.get();
         // Set to SUBMITTED per acceptance criteria
-        updateNotificationStatus(notification, NotificationStatus.SUBMITTED, null);
+        transitionStatus(dbNotificationId, NotificationStatus.SUBMITTED, null);
         log.error("Email sending failed for notification ID: {}, error: {}",
                   dbNotificationId, exception.getMessage());
     }
 
-    private CaseNotification createCaseNotification(String recipient, UUID caseId, String taskId) {
+    /**
+     * Whether the notification has already reached a terminal status, e.g. through the bulk verifier, so no
+     * further status check against Notify is needed.
+     */
+    public boolean hasTerminalStatus(UUID dbNotificationId) {
+        return notificationRepository.findById(dbNotificationId)
+            .map(notification -> notification.getStatus().isTerminal())
+            .orElse(false);
+    }
+
+    private CaseNotification createCaseNotification(String recipient, UUID caseId, String taskId,
+                                                    String idempotencyKey, String requestHash, String sequenceKey,
+                                                    Long sequenceNumber, Instant scheduledAt) {
         CaseNotification toSaveNotification = new CaseNotification();
 
         toSaveNotification.setCaseId(caseId);
-        toSaveNotification.setStatus(PENDING_SCHEDULE);
+        toSaveNotification.setStatus(SCHEDULED);
+        toSaveNotification.setScheduledAt(scheduledAt);
         toSaveNotification.setType(EMAIL.toString());
         toSaveNotification.setRecipient(recipient);
+        toSaveNotification.setTaskId(taskId);
+        toSaveNotification.setIdempotencyKey(idempotencyKey);
+        toSaveNotification.setRequestHash(requestHash);
+        toSaveNotification.setSequenceKey(sequenceKey);
+        toSaveNotification.setSequenceNumber(sequenceNumber);
 
         try {
-            CaseNotification savedNotification = notificationRepository.save(toSaveNotification);
+            // flushed so a duplicate idempotency key fails here rather than at commit
+            CaseNotification savedNotification = notificationRepository.saveAndFlush(toSaveNotification);
             log.info(
                 "Case Notification with ID {} has been saved to the database with task ID {}",
                 savedNotification.getNotificationId(), taskId
             );
             return savedNotification;
+        } catch (DataIntegrityViolationException duplicate) {
+            throw duplicate;
         } catch (DataAccessException dataAccessException) {
             log.error(
                 "Failed to save Case Notification with Case ID: {}. Reason: {}",
@@ -132,46 +251,53 @@ public class NotificationService {
         }
     }
 
-    public void updateNotificationStatus(UUID dbNotificationId, String statusString) {
-        notificationRepository.findById(dbNotificationId)
-            .ifPresentOrElse(
-                notification -> processStatusUpdate(notification, statusString),
-                () -> log.error("Notification not found with ID on status update: {}", dbNotificationId)
-            );
-    }
-
-    private void updateNotificationStatus(
-        CaseNotification notification,
-        NotificationStatus status,
-        UUID providerNotificationId) {
-
+    /**
+     * Applies a status reported for a notification in a single conditional UPDATE.
+     *
+     * With the status write-behind buffer enabled the update is queued instead, unless the buffer is full.
+     *
+     * @return NOT_APPLIED for unknown statuses, missing notifications and transitions not allowed from the
+     *     current status; QUEUED when the update was buffered and whether it applies is not yet known
+     */
+    public StatusUpdate updateNotificationStatus(UUID dbNotificationId, String statusString) {
+        NotificationStatus status;
         try {
-            notification.setStatus(status);
-            notification.setLastUpdatedAt(Instant.now());
+            status = NotificationStatus.fromString(statusString);
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown notification status: {}", statusString);
+            return StatusUpdate.NOT_APPLIED;
+        }
+        return transitionStatus(dbNotificationId, status, null);
+    }
 
-            if (providerNotificationId != null) {
-                notification.setProviderNotificationId(providerNotificationId);
+    private StatusUpdate transitionStatus(UUID dbNotificationId, NotificationStatus status,
+                                          UUID providerNotificationId) {
+        Instant now = Instant.now();
+        Instant submittedAt = status == NotificationStatus.SENDING || status == NotificationStatus.SUBMITTED
+            ? now : null;
+        if (statusWriteBehind.isEnabled()) {
+            if (statusWriteBehind.enqueue(new NotificationStatusChange(
+                dbNotificationId, status, providerNotificationId, submittedAt, now))) {
+                log.debug("Queued notification status {} for notification ID: {}", status, dbNotificationId);
+                return StatusUpdate.QUEUED;
             }
-
-            if (status == NotificationStatus.SENDING || status == NotificationStatus.SUBMITTED) {
-                notification.setSubmittedAt(Instant.now());
+            log.debug("Status write-behind full, writing status {} for notification ID: {} directly",
+                      status, dbNotificationId);
+        }
+        try {
+            int updated = notificationRepository.updateStatusIfIn(
+                dbNotificationId, status, providerNotificationId, submittedAt, now, status.allowedPredecessors());
+            if (updated == 0) {
+                log.warn("Status {} not applied to notification ID: {}, it is missing or already past that status",
+                         status, dbNotificationId);
+                return StatusUpdate.NOT_APPLIED;
             }
-
-            notificationRepository.save(notification);
-            log.info("Updated notification status to {} for notification ID: {}",
-                     status, notification.getNotificationId());
+            log.info("Updated notification status to {} for notification ID: {}", status, dbNotificationId);
+            return StatusUpdate.APPLIED;
         } catch (Exception e) {
             log.error("Error updating notification status to {}: {}",
                       status, e.getMessage(), e);
-        }
-    }
-
-    private void processStatusUpdate(CaseNotification notification, String statusString) {
-        try {
-            NotificationStatus status = NotificationStatus.fromString(statusString);
-            updateNotificationStatus(notification, status, null);
-        } catch (IllegalArgumentException e) {
-            log.warn("Unknown notification status: {}", statusString);
+            return StatusUpdate.NOT_APPLIED;
         }
     }
 }
@@ -0,0 +1,290 @@
+package uk.gov.hmcts.reform.enforcement.notify.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatusChange;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationStatusJdbcRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional write-behind stage for notification status transitions. Transitions are held in a bounded
+ * in-memory buffer, coalesced per notification and written every "notify.status-write-behind.flush-interval"
+ * or once "notify.status-write-behind.batch-size" are pending, as one conditional JDBC batch per status.
+ * Callers that need their transitions persisted, such as a task about to be marked complete, call
+ * {@link #awaitFlushed()}. The buffer holds at most "notify.status-write-behind.capacity" notifications, counting
+ * a batch being written, so a failed batch can always go back in; once full the enqueuing thread flushes it
+ * itself, and a transition that still does not fit is refused for the caller to write directly.
+ * When enabled is false nothing is buffered and {@link NotificationService} updates rows directly.
+ */
+@Component
+@Slf4j
+public class NotificationStatusWriteBehind {
+
+    private final NotificationStatusJdbcRepository repository;
+    private final boolean enabled;
+    private final Duration flushInterval;
+    private final int batchSize;
+    private final int capacity;
+    private final Duration flushTimeout;
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizeSummary;
+    private final Counter rejectedCounter;
+
+    private final ReentrantLock bufferLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ThreadLocal<CompletableFuture<Void>> enqueuedGeneration = new ThreadLocal<>();
+    private Map<UUID, NotificationStatusChange> pending = new LinkedHashMap<>();
+    private CompletableFuture<Void> generation = new CompletableFuture<>();
+    private int flushing;
+    private ScheduledExecutorService flusher;
+
+    @Autowired
+    public NotificationStatusWriteBehind(NotificationStatusJdbcRepository repository,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${notify.status-write-behind.enabled:false}") boolean enabled,
+                                         @Value("${notify.status-write-behind.flush-interval:20ms}")
+                                         Duration flushInterval,
+                                         @Value("${notify.status-write-behind.batch-size:200}") int batchSize,
+                                         @Value("${notify.status-write-behind.capacity:10000}") int capacity,
+                                         @Value("${notify.status-write-behind.flush-timeout:5s}")
+                                         Duration flushTimeout) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.flushInterval = flushInterval;
+        this.batchSize = batchSize;
+        this.capacity = capacity;
+        this.flushTimeout = flushTimeout;
+        this.flushTimer = meterRegistry.timer("notify.status-write-behind.flush");
+        this.batchSizeSummary = meterRegistry.summary("notify.status-write-behind.batch-size");
+        this.rejectedCounter = meterRegistry.counter("notify.status-write-behind.rejected");
+        meterRegistry.gauge("notify.status-write-behind.pending", this, NotificationStatusWriteBehind::pendingCount);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-status-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = Math.max(1, flushInterval.toMillis());
+        flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Buffering notification status updates, flushing every {} or {} updates", flushInterval, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(flushTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        int lost = pendingCount();
+        if (lost > 0) {
+            log.error("{} notification status updates could not be written on shutdown", lost);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Buffers a status transition. A transition for a notification that already has one pending replaces it
+     * when the pending status may move to the new one, keeping the provider id and submitted time it carried.
+     * Otherwise the new transition is dropped, as the conditional update would not apply it either.
+     *
+     * @return false if the buffer is full, in which case nothing was buffered
+     */
+    public boolean enqueue(NotificationStatusChange change) {
+        int size = tryEnqueue(change);
+        if (size < 0) {
+            flushQuietly();
+            size = tryEnqueue(change);
+        }
+        if (size < 0) {
+            rejectedCounter.increment();
+            return false;
+        }
+
+        if (size >= capacity) {
+            flushQuietly();
+        } else if (size >= batchSize && flusher != null) {
+            flusher.execute(this::flushQuietly);
+        }
+        return true;
+    }
+
+    /**
+     * Buffers the transition unless that would take the buffer past its capacity.
+     *
+     * @return the number of pending transitions, or -1 if the transition did not fit
+     */
+    private int tryEnqueue(NotificationStatusChange change) {
+        bufferLock.lock();
+        try {
+            if (!pending.containsKey(change.notificationId()) && pending.size() + flushing >= capacity) {
+                return -1;
+            }
+            pending.merge(change.notificationId(), change, NotificationStatusWriteBehind::coalesce);
+            enqueuedGeneration.set(generation);
+            return pending.size();
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the transitions enqueued by the current thread have been written, up to
+     * "notify.status-write-behind.flush-timeout".
+     *
+     * @return false if the write failed or did not finish in time
+     */
+    public boolean awaitFlushed() {
+        CompletableFuture<Void> enqueued = enqueuedGeneration.get();
+        enqueuedGeneration.remove();
+        if (enqueued == null) {
+            return true;
+        }
+        try {
+            enqueued.get(flushTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.warn("Buffered notification status updates not written within {}: {}", flushTimeout, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Writes every pending transition. On failure the transitions go back into the buffer and are retried by
+     * the next flush, and callers waiting on them keep waiting.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<UUID, NotificationStatusChange> batch;
+            CompletableFuture<Void> flushed;
+            bufferLock.lock();
+            try {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                flushed = generation;
+                flushing = batch.size();
+                pending = new LinkedHashMap<>();
+                generation = new CompletableFuture<>();
+            } finally {
+                bufferLock.unlock();
+            }
+
+            List<NotificationStatusChange> changes = new ArrayList<>(batch.values());
+            try {
+                int applied = flushTimer.recordCallable(() -> repository.updateStatusesIfAllowed(changes));
+                batchSizeSummary.record(changes.size());
+                log.debug("Wrote {} of {} buffered notification status updates", applied, changes.size());
+                clearFlushing();
+                flushed.complete(null);
+            } catch (Exception e) {
+                requeue(changes, flushed);
+                throw new IllegalStateException("Failed to write buffered notification status updates", e);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    int pendingCount() {
+        bufferLock.lock();
+        try {
+            return pending.size();
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    private void clearFlushing() {
+        bufferLock.lock();
+        try {
+            flushing = 0;
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("{}, will retry: {}", e.getMessage(), e.getCause() == null ? "" : e.getCause().getMessage());
+        }
+    }
+
+    private void requeue(List<NotificationStatusChange> changes, CompletableFuture<Void> failedGeneration) {
+        bufferLock.lock();
+        try {
+            // anything enqueued since the batch was taken is newer, so it is merged on top of the failed entries;
+            // enqueue kept pending and the batch within capacity between them, so the merge stays within it too
+            flushing = 0;
+            Map<UUID, NotificationStatusChange> retried = new LinkedHashMap<>();
+            changes.forEach(change -> retried.put(change.notificationId(), change));
+            pending.values().forEach(change -> retried.merge(change.notificationId(), change,
+                                                             NotificationStatusWriteBehind::coalesce));
+            pending = retried;
+            generation.whenComplete((ignored, failure) -> {
+                if (failure == null) {
+                    failedGeneration.complete(null);
+                } else {
+                    failedGeneration.completeExceptionally(failure);
+                }
+            });
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    static NotificationStatusChange coalesce(NotificationStatusChange pending, NotificationStatusChange incoming) {
+        if (pending.status() != incoming.status()
+            && !incoming.status().allowedPredecessors().contains(pending.status())) {
+            return pending;
+        }
+        return new NotificationStatusChange(
+            incoming.notificationId(),
+            incoming.status(),
+            incoming.providerNotificationId() != null
+                ? incoming.providerNotificationId() : pending.providerNotificationId(),
+            incoming.submittedAt() != null ? incoming.submittedAt() : pending.submittedAt(),
+            incoming.updatedAt()
+        );
+    }
+}
@@ -0,0 +1,209 @@
+package uk.gov.hmcts.reform.enforcement.notify.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory Bloom filter over the Notify notification ids this service has sent, used to turn away delivery
+ * receipts for unknown ids without a database lookup. A miss is definite; a hit still needs the lookup.
+ * Every node loads the ids updated within "notify.callback.filter.lookback" on startup and then picks up
+ * new ones every "notify.callback.filter.refresh-interval", so an id sent by another node is only missed
+ * until the next refresh, and Notify retries the receipt. The filter is rebuilt daily so old ids drop out.
+ * Ids added on this node during a rebuild go into the new filter as well, and ids added in the last
+ * few minutes are carried over into it, as their rows may not be written yet, e.g. while the status
+ * write-behind still holds them.
+ * When callbacks are disabled nothing is loaded and every id passes.
+ */
+@Component
+@Slf4j
+public class ProviderNotificationIdFilter {
+
+    private static final Duration REBUILD_INTERVAL = Duration.ofDays(1);
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final Duration RECENT_ADD_RETENTION = Duration.ofMinutes(10);
+
+    private final NotificationRepository notificationRepository;
+    private final Clock clock;
+    private final boolean enabled;
+    private final Duration lookback;
+    private final Duration refreshInterval;
+    private final int bitCount;
+    private final int hashCount;
+
+    private volatile AtomicLongArray bits;
+    private volatile AtomicLongArray rebuilding;
+    private final Deque<RecentAdd> recentAdds = new ConcurrentLinkedDeque<>();
+    private Instant refreshedUpTo;
+    private Instant builtAt;
+    private ScheduledExecutorService refresher;
+
+    @Autowired
+    public ProviderNotificationIdFilter(NotificationRepository notificationRepository,
+                                        @Value("${notify.callback.enabled:false}") boolean enabled,
+                                        @Value("${notify.callback.filter.expected-ids:1000000}") int expectedIds,
+                                        @Value("${notify.callback.filter.lookback:7d}") Duration lookback,
+                                        @Value("${notify.callback.filter.refresh-interval:5s}")
+                                        Duration refreshInterval) {
+        this(notificationRepository, Clock.systemUTC(), enabled, expectedIds, lookback, refreshInterval);
+    }
+
+    ProviderNotificationIdFilter(NotificationRepository notificationRepository, Clock clock, boolean enabled,
+                                 int expectedIds, Duration lookback, Duration refreshInterval) {
+        this.notificationRepository = notificationRepository;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.lookback = lookback;
+        this.refreshInterval = refreshInterval;
+        double ln2 = Math.log(2);
+        this.bitCount = (int) Math.ceil(-expectedIds * Math.log(FALSE_POSITIVE_RATE) / (ln2 * ln2));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedIds * ln2));
+        this.bits = new AtomicLongArray(Math.ceilDiv(bitCount, Long.SIZE));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        rebuild();
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "provider-id-filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = refreshInterval.toMillis();
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, intervalMillis, intervalMillis,
+                                         TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * Whether the id may belong to a notification sent by this service. False means it certainly does not.
+     */
+    public boolean mightContain(UUID providerNotificationId) {
+        if (!enabled) {
+            return true;
+        }
+        AtomicLongArray current = bits;
+        long hash1 = providerNotificationId.getMostSignificantBits();
+        long hash2 = providerNotificationId.getLeastSignificantBits();
+        for (int i = 0; i < hashCount; i++) {
+            if (!isSet(current, index(hash1, hash2, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds an id sent from this node straight away, without waiting for the next refresh.
+     */
+    public void add(UUID providerNotificationId) {
+        if (!enabled) {
+            return;
+        }
+        // recorded before either filter is read, so a rebuild starting now still carries the id over
+        recentAdds.addLast(new RecentAdd(providerNotificationId, clock.instant()));
+        AtomicLongArray next = rebuilding;
+        if (next != null) {
+            add(next, providerNotificationId);
+        }
+        add(bits, providerNotificationId);
+    }
+
+    synchronized void refresh() {
+        Instant now = clock.instant();
+        pruneRecentAdds(now);
+        if (builtAt == null || builtAt.plus(REBUILD_INTERVAL).isBefore(now)) {
+            rebuild();
+            return;
+        }
+        // overlap by one interval so ids committed late by slow transactions are not missed
+        Instant since = refreshedUpTo.minus(refreshInterval);
+        notificationRepository.findProviderNotificationIdsUpdatedSince(since).forEach(id -> add(bits, id));
+        refreshedUpTo = now;
+    }
+
+    private synchronized void rebuild() {
+        Instant now = clock.instant();
+        AtomicLongArray rebuilt = new AtomicLongArray(bits.length());
+        rebuilding = rebuilt;
+        List<UUID> ids;
+        try {
+            ids = notificationRepository.findProviderNotificationIdsUpdatedSince(now.minus(lookback));
+            ids.forEach(id -> add(rebuilt, id));
+            pruneRecentAdds(now);
+            recentAdds.forEach(recent -> add(rebuilt, recent.id()));
+            bits = rebuilt;
+        } finally {
+            rebuilding = null;
+        }
+        builtAt = now;
+        refreshedUpTo = now;
+        log.info("Loaded {} Notify notification ids into the delivery receipt filter", ids.size());
+    }
+
+    private void pruneRecentAdds(Instant now) {
+        Instant cutoff = now.minus(RECENT_ADD_RETENTION);
+        RecentAdd oldest = recentAdds.peekFirst();
+        while (oldest != null && oldest.at().isBefore(cutoff)) {
+            recentAdds.pollFirst();
+            oldest = recentAdds.peekFirst();
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("Failed to refresh the delivery receipt filter: {}", e.getMessage());
+        }
+    }
+
+    private void add(AtomicLongArray target, UUID providerNotificationId) {
+        long hash1 = providerNotificationId.getMostSignificantBits();
+        long hash2 = providerNotificationId.getLeastSignificantBits();
+        for (int i = 0; i < hashCount; i++) {
+            int index = index(hash1, hash2, i);
+            long mask = 1L << (index % Long.SIZE);
+            target.getAndUpdate(index / Long.SIZE, word -> word | mask);
+        }
+    }
+
+    private static boolean isSet(AtomicLongArray target, int index) {
+        return (target.get(index / Long.SIZE) & (1L << (index % Long.SIZE))) != 0;
+    }
+
+    /**
+     * Double hashing over the two halves of the id, which are already random for Notify's version 4 UUIDs.
+     */
+    private int index(long hash1, long hash2, int i) {
+        return (int) Math.floorMod(hash1 + i * hash2, (long) bitCount);
+    }
+
+    private record RecentAdd(UUID id, Instant at) {
+    }
+}
@@ -0,0 +1,215 @@
+package uk.gov.hmcts.reform.enforcement.notify.task;
+
+import com.github.kagkarlsson.scheduler.serializer.Serializer;
+import com.github.kagkarlsson.scheduler.task.helper.RecurringTask;
+import com.github.kagkarlsson.scheduler.task.helper.Tasks;
+import com.github.kagkarlsson.scheduler.task.schedule.Schedules;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCallGuard;
+import uk.gov.hmcts.reform.enforcement.notify.entities.CaseNotification;
+import uk.gov.hmcts.reform.enforcement.notify.exception.NotifyCallRejectedException;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailState;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationLifecycle;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationPriority;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationStatusJdbcRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository.NewTask;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskShards;
+import uk.gov.service.notify.Notification;
+import uk.gov.service.notify.NotificationClient;
+import uk.gov.service.notify.NotificationClientException;
+import uk.gov.service.notify.NotificationList;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static uk.gov.hmcts.reform.enforcement.notify.task.VerifyEmailTaskComponent.verifyEmailTask;
+
+/**
+ * Verifies delivery for every recently sent email at once by paging through Notify's notification listing,
+ * newest first, using the id of the last notification on each page as the "olderThan" cursor. Paging stops
+ * at the first notification older than "notify.bulk-verify.lookback". Final statuses, as defined by
+ * {@link NotificationStatus#isTerminal()}, are matched to
+ * case_notification.provider_notification_id and applied in one set-based update.
+ * Sending an email schedules no verify task while this verifier is enabled. Instead, each run schedules a
+ * verify task, due at once, for every email submitted between "notify.bulk-verify.lookback" and
+ * "notify.bulk-verify.straggler-delay" ago that is still awaiting a final status. An email that already has
+ * one keeps it.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "notify.bulk-verify", name = "enabled", havingValue = "true")
+public class BulkVerifyEmailTaskComponent {
+    private static final String BULK_VERIFY_EMAIL_TASK_NAME = "bulk-verify-email-task";
+    private static final String EMAIL_TYPE = "email";
+    private static final Set<NotificationStatus> UNRESOLVED = EnumSet.allOf(NotificationStatus.class).stream()
+        .filter(status -> NotificationLifecycle.nextAction(status) == NotificationLifecycle.Action.VERIFY
+            || NotificationLifecycle.nextAction(status) == NotificationLifecycle.Action.REPOLL)
+        .collect(Collectors.toCollection(() -> EnumSet.noneOf(NotificationStatus.class)));
+
+    private final NotificationClient notificationClient;
+    private final NotifyCallGuard notifyCallGuard;
+    private final NotificationStatusJdbcRepository statusRepository;
+    private final TaskShards taskShards;
+    private final Serializer taskDataSerializer;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Duration interval;
+    private final Duration lookback;
+    private final Duration stragglerDelay;
+    private final int maxPages;
+
+    @Autowired
+    public BulkVerifyEmailTaskComponent(
+        NotificationClient notificationClient,
+        NotifyCallGuard notifyCallGuard,
+        NotificationStatusJdbcRepository statusRepository,
+        TaskShards taskShards,
+        Serializer taskDataSerializer,
+        MeterRegistry meterRegistry,
+        @Value("${notify.bulk-verify.interval:30s}") Duration interval,
+        @Value("${notify.bulk-verify.lookback:2h}") Duration lookback,
+        @Value("${notify.bulk-verify.straggler-delay:15m}") Duration stragglerDelay,
+        @Value("${notify.bulk-verify.max-pages:50}") int maxPages
+    ) {
+        this(notificationClient, notifyCallGuard, statusRepository, taskShards, taskDataSerializer, meterRegistry,
+             Clock.systemUTC(), interval, lookback, stragglerDelay, maxPages);
+    }
+
+    BulkVerifyEmailTaskComponent(NotificationClient notificationClient, NotifyCallGuard notifyCallGuard,
+                                 NotificationStatusJdbcRepository statusRepository, TaskShards taskShards,
+                                 Serializer taskDataSerializer, MeterRegistry meterRegistry, Clock clock,
+                                 Duration interval, Duration lookback, Duration stragglerDelay, int maxPages) {
+        this.notificationClient = notificationClient;
+        this.notifyCallGuard = notifyCallGuard;
+        this.statusRepository = statusRepository;
+        this.taskShards = taskShards;
+        this.taskDataSerializer = taskDataSerializer;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.interval = interval;
+        this.lookback = lookback;
+        this.stragglerDelay = stragglerDelay;
+        this.maxPages = maxPages;
+    }
+
+    @Bean
+    public RecurringTask<Void> bulkVerifyEmailTask() {
+        return Tasks.recurring(BULK_VERIFY_EMAIL_TASK_NAME, Schedules.fixedDelay(interval))
+            .execute((taskInstance, executionContext) -> {
+                verifyRecent();
+                scheduleStragglers();
+            });
+    }
+
+    /**
+     * Pages through recent email notifications and applies their final statuses.
+     *
+     * @return the number of case notifications updated
+     */
+    int verifyRecent() {
+        if (notifyCallGuard.outageDeferral().isPresent()) {
+            log.debug("Notify unavailable, skipping bulk verify");
+            return 0;
+        }
+
+        Instant cutoff = clock.instant().minus(lookback);
+        Map<UUID, NotificationStatus> reported = new HashMap<>();
+        String olderThanId = null;
+        int pages = 0;
+        boolean reachedCutoff = false;
+
+        try {
+            while (!reachedCutoff && pages < maxPages) {
+                String cursor = olderThanId;
+                NotificationList page = notifyCallGuard.call(
+                    () -> notificationClient.getNotifications(null, EMAIL_TYPE, null, cursor));
+                pages++;
+
+                List<Notification> notifications = page.getNotifications();
+                if (notifications == null || notifications.isEmpty()) {
+                    break;
+                }
+                for (Notification notification : notifications) {
+                    if (notification.getCreatedAt().toInstant().isBefore(cutoff)) {
+                        reachedCutoff = true;
+                        break;
+                    }
+                    finalStatus(notification.getStatus())
+                        .ifPresent(status -> reported.put(notification.getId(), status));
+                }
+                olderThanId = notifications.getLast().getId().toString();
+            }
+        } catch (NotifyCallRejectedException e) {
+            log.info("Bulk verify stopped after {} pages: {}", pages, e.getMessage());
+        } catch (NotificationClientException e) {
+            log.warn("Bulk verify stopped after {} pages, Notify listing failed: {}", pages, e.getMessage());
+        }
+
+        int updated = statusRepository.updateStatusesByProviderId(reported, clock.instant());
+        meterRegistry.counter("notify.bulk-verify.pages").increment(pages);
+        meterRegistry.counter("notify.bulk-verify.updated").increment(updated);
+        log.info("Bulk verify read {} pages, {} final statuses, {} notifications updated",
+                 pages, reported.size(), updated);
+        return updated;
+    }
+
+    /**
+     * Schedules a verify task for each email submitted between the lookback and the straggler delay ago that
+     * is still awaiting a final status. Existing verify tasks are left as they are.
+     *
+     * @return the number of emails found awaiting a final status
+     */
+    int scheduleStragglers() {
+        Instant now = clock.instant();
+        List<CaseNotification> stragglers =
+            statusRepository.findSubmittedInStatus(now.minus(lookback), now.minus(stragglerDelay), UNRESOLVED);
+        if (stragglers.isEmpty()) {
+            return 0;
+        }
+
+        Map<TaskShards.Shard, List<NewTask>> tasksByShard = stragglers.stream()
+            .map(notification -> verifyTask(notification, now))
+            .collect(Collectors.groupingBy(task -> taskShards.shardFor(task.taskName(), task.taskInstance()),
+                                           LinkedHashMap::new, Collectors.toList()));
+        tasksByShard.forEach((shard, tasks) -> shard.tasks().insertAll(tasks));
+        meterRegistry.counter("notify.bulk-verify.stragglers").increment(stragglers.size());
+        log.info("Bulk verify found {} emails still awaiting a final status", stragglers.size());
+        return stragglers.size();
+    }
+
+    private NewTask verifyTask(CaseNotification notification, Instant now) {
+        EmailState emailState = EmailState.builder()
+            .id(notification.getTaskId())
+            .notificationId(notification.getProviderNotificationId().toString())
+            .dbNotificationId(notification.getNotificationId())
+            .build();
+        return new NewTask(verifyEmailTask.getTaskName(), notification.getTaskId(),
+                           taskDataSerializer.serialize(emailState), now, NotificationPriority.VERIFY_TASK_PRIORITY);
+    }
+
+    private static Optional<NotificationStatus> finalStatus(String status) {
+        try {
+            NotificationStatus notificationStatus = NotificationStatus.fromString(status);
+            return notificationStatus.isTerminal() ? Optional.of(notificationStatus) : Optional.empty();
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package uk.gov.hmcts.reform.enforcement.notify.task;
+
+import com.github.kagkarlsson.scheduler.task.CompletionHandler;
+import com.github.kagkarlsson.scheduler.task.FailureHandler;
+import com.github.kagkarlsson.scheduler.task.SchedulableInstance;
+import com.github.kagkarlsson.scheduler.task.TaskDescriptor;
+import com.github.kagkarlsson.scheduler.task.helper.CustomTask;
+import com.github.kagkarlsson.scheduler.task.helper.Tasks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCallGuard;
+import uk.gov.hmcts.reform.enforcement.notify.model.CampaignState;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationPriority;
+import uk.gov.hmcts.reform.enforcement.notify.service.CampaignService;
+import uk.gov.hmcts.reform.enforcement.notify.service.CampaignService.Expansion;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Drives an email campaign: each run expands the next "notify.campaign.window-size" recipients into send
+ * tasks spaced at the Notify rate limit ("notify.rate-limit.per-minute"), then reschedules itself for when
+ * the last of them falls due. Sends are therefore created no faster than the limiter lets them go out, and
+ * no expansion happens while Notify is known to be unavailable.
+ */
+@Component
+@Slf4j
+public class CampaignDriverTaskComponent {
+    private static final String CAMPAIGN_DRIVER_TASK_NAME = "campaign-driver-task";
+
+    public static final TaskDescriptor<CampaignState> campaignDriverTask =
+        TaskDescriptor.of(CAMPAIGN_DRIVER_TASK_NAME, CampaignState.class);
+
+    private final CampaignService campaignService;
+    private final NotifyCallGuard notifyCallGuard;
+    private final int windowSize;
+    private final Duration sendInterval;
+    private final Duration retryDelay;
+
+    @Autowired
+    public CampaignDriverTaskComponent(
+        CampaignService campaignService,
+        NotifyCallGuard notifyCallGuard,
+        @Value("${notify.campaign.window-size:200}") int windowSize,
+        @Value("${notify.rate-limit.per-minute:2850}") int perMinute,
+        @Value("${notify.campaign.retry-delay:30s}") Duration retryDelay
+    ) {
+        this.campaignService = campaignService;
+        this.notifyCallGuard = notifyCallGuard;
+        this.windowSize = windowSize;
+        this.sendInterval = Duration.ofMinutes(1).dividedBy(perMinute);
+        this.retryDelay = retryDelay;
+    }
+
+    @Bean
+    public CustomTask<CampaignState> campaignDriverTask() {
+        return Tasks.custom(campaignDriverTask)
+            .onFailure(new FailureHandler.OnFailureRetryLater<>(retryDelay))
+            .execute((taskInstance, executionContext) -> {
+                CampaignState campaignState = taskInstance.getData();
+
+                Optional<Duration> outage = notifyCallGuard.outageDeferral();
+                if (outage.isPresent()) {
+                    log.debug("Notify unavailable, deferring campaign {}", campaignState.getCampaignId());
+                    return rescheduleAfter(campaignState, outage.get());
+                }
+
+                Expansion expansion = campaignService.expand(campaignState.getCampaignId(), windowSize,
+                                                             sendInterval);
+                if (expansion.complete()) {
+                    return new CompletionHandler.OnCompleteRemove<>();
+                }
+                return rescheduleAfter(campaignState, sendInterval.multipliedBy(expansion.scheduled()));
+            });
+    }
+
+    private CompletionHandler<CampaignState> rescheduleAfter(CampaignState campaignState, Duration delay) {
+        return new CompletionHandler.OnCompleteReplace<>(
+            currentInstance -> SchedulableInstance.of(
+                campaignDriverTask.instance(currentInstance.getId())
+                    .priority(NotificationPriority.BULK.taskPriority())
+                    .data(campaignState)
+                    .build(),
+                Instant.now().plus(delay)
+            )
+        );
+    }
+}
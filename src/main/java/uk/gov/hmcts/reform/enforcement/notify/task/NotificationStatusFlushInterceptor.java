@@ -0,0 +1,45 @@
+package uk.gov.hmcts.reform.enforcement.notify.task;
+
+import com.github.kagkarlsson.scheduler.event.ExecutionChain;
+import com.github.kagkarlsson.scheduler.event.ExecutionInterceptor;
+import com.github.kagkarlsson.scheduler.task.CompletionHandler;
+import com.github.kagkarlsson.scheduler.task.ExecutionContext;
+import com.github.kagkarlsson.scheduler.task.TaskInstance;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.enforcement.notify.exception.TemporaryNotificationException;
+import uk.gov.hmcts.reform.enforcement.notify.service.NotificationStatusWriteBehind;
+
+/**
+ * Holds back the completion of a task execution until the status updates it buffered have been written, so a
+ * task is never marked complete (or replaced by its next step) ahead of the status it recorded. If they are not
+ * written in time the execution fails instead, and is retried by the task's failure handler.
+ */
+@Component
+@ConditionalOnProperty(prefix = "notify.status-write-behind", name = "enabled", havingValue = "true")
+public class NotificationStatusFlushInterceptor implements ExecutionInterceptor {
+
+    private final NotificationStatusWriteBehind statusWriteBehind;
+
+    public NotificationStatusFlushInterceptor(NotificationStatusWriteBehind statusWriteBehind) {
+        this.statusWriteBehind = statusWriteBehind;
+    }
+
+    @Override
+    public CompletionHandler<?> execute(TaskInstance<?> taskInstance,
+                                        ExecutionContext executionContext,
+                                        ExecutionChain chain) {
+        CompletionHandler<?> completion;
+        try {
+            completion = chain.proceed(taskInstance, executionContext);
+        } catch (RuntimeException e) {
+            statusWriteBehind.awaitFlushed();
+            throw e;
+        }
+        if (!statusWriteBehind.awaitFlushed()) {
+            throw new TemporaryNotificationException(
+                "Status updates of task " + taskInstance.getId() + " were not written in time", null);
+        }
+        return completion;
+    }
+}
@@ -0,0 +1,48 @@
+package uk.gov.hmcts.reform.enforcement.notify.task;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCircuitOpenedEvent;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskShards;
+
+import java.time.Duration;
+import java.util.List;
+
+import static uk.gov.hmcts.reform.enforcement.notify.task.SendEmailTaskComponent.sendEmailTask;
+import static uk.gov.hmcts.reform.enforcement.notify.task.VerifyEmailTaskComponent.verifyEmailTask;
+
+/**
+ * Reschedules pending send and verify tasks in one update per shard when the Notify circuit breaker opens, so
+ * they are not picked up only to be deferred one by one. They are spread over
+ * "notify.circuit-breaker.resume-spread" after the breaker's open period, which lets the half-open probes ramp
+ * sending back up gradually.
+ */
+@Component
+@Slf4j
+public class NotifyOutageTaskPostponer {
+
+    private final TaskShards taskShards;
+    private final Duration resumeSpread;
+
+    @Autowired
+    public NotifyOutageTaskPostponer(TaskShards taskShards,
+                                     @Value("${notify.circuit-breaker.resume-spread:60s}") Duration resumeSpread) {
+        this.taskShards = taskShards;
+        this.resumeSpread = resumeSpread;
+    }
+
+    @Async("notifyTaskExecutor")
+    @EventListener
+    public void onCircuitOpened(NotifyCircuitOpenedEvent event) {
+        List<String> taskNames = List.of(sendEmailTask.getTaskName(), verifyEmailTask.getTaskName());
+        int postponed = 0;
+        for (TaskShards.Shard shard : taskShards.shards()) {
+            postponed += shard.tasks().postponeDue(taskNames, event.openUntil(), resumeSpread);
+        }
+        log.warn("Notify unavailable, postponed {} pending email tasks to after {}", postponed, event.openUntil());
+    }
+}
@@ -0,0 +1,463 @@
+package uk.gov.hmcts.reform.enforcement.notify.task;
+
+import com.github.kagkarlsson.scheduler.SchedulerName;
+import com.github.kagkarlsson.scheduler.serializer.Serializer;
+import com.github.kagkarlsson.scheduler.task.helper.RecurringTask;
+import com.github.kagkarlsson.scheduler.task.helper.Tasks;
+import com.github.kagkarlsson.scheduler.task.schedule.Schedules;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.hmcts.reform.enforcement.notify.client.AsyncNotificationClient;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCallGuard;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCircuitBreaker;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyRateLimiter;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailState;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationLifecycle;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationPriority;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatusChange;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationStatusJdbcRepository;
+import uk.gov.hmcts.reform.enforcement.notify.service.NotificationSequencer;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository.ClaimedTask;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository.Replacement;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository.Retry;
+import uk.gov.service.notify.NotificationClient;
+import uk.gov.service.notify.NotificationClientException;
+import uk.gov.service.notify.SendEmailResponse;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationLifecycle.Action.SEND;
+import static uk.gov.hmcts.reform.enforcement.notify.task.SendEmailTaskComponent.notifyReference;
+import static uk.gov.hmcts.reform.enforcement.notify.task.SendEmailTaskComponent.sendEmailTask;
+import static uk.gov.hmcts.reform.enforcement.notify.task.VerifyEmailTaskComponent.verifyEmailTask;
+
+/**
+ * Batched execution mode for {@code send-email-task}.
+ * A recurring task claims up to "notify.send-email.batch.size" due send tasks in one query, sends them
+ * concurrently within the node's {@link NotifyCallGuard} in-flight limit (pipelined over shared connections
+ * when the {@link AsyncNotificationClient} is in use, otherwise on up to "notify.send-email.batch.max-in-flight"
+ * threads), and writes all outcomes (status updates, verify task replacements, retries) in one transaction of
+ * JDBC batches. A send waits for the batch's own calls to free a permit; a task that gets none because the
+ * limit is taken by other callers is parked again for "notify.rejected-retry-after" and its token handed back.
+ * A task whose data cannot be read fails its notification, found by task instance, rather than vanishing.
+ * The statuses of the claimed notifications are read in one query; a task whose notification is missing or no
+ * longer owes a send is removed without calling Notify, as on the per-task path. Status changes only apply to
+ * notifications in an allowed predecessor status, so a status already reported by Notify is never overwritten.
+ * The per-task path keeps working alongside it; both claim rows through the same picked/version protocol.
+ * No more tasks are claimed than there are Notify rate limit tokens available, and none while the Notify
+ * circuit breaker is anything but closed; half-open probing is left to the per-task path.
+ * A sequenced email claimed before its turn is parked again; one that leaves the batch for good is released
+ * in the same transaction as its outcome.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "notify.send-email.batch", name = "enabled", havingValue = "true")
+public class SendEmailBatchTaskComponent {
+    private static final String SEND_EMAIL_BATCH_TASK_NAME = "send-email-batch-task";
+    private static final double BACKOFF_RATE = 1.5;
+    private static final Duration MAX_DRAIN_TIME = Duration.ofSeconds(30);
+
+    private final ScheduledTaskRepository scheduledTaskRepository;
+    private final NotificationStatusJdbcRepository statusRepository;
+    private final NotificationClient notificationClient;
+    private final NotifyRateLimiter rateLimiter;
+    private final NotifyCircuitBreaker circuitBreaker;
+    private final NotifyCallGuard notifyCallGuard;
+    private final Serializer taskDataSerializer;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final int maxRetriesSendEmail;
+    private final Duration sendingBackoffDelay;
+    private final VerifyDelayPolicy verifyDelayPolicy;
+    private final NotificationSequencer notificationSequencer;
+    private final ExecutorService sendExecutor;
+    private final String pickedBy;
+
+    @Autowired
+    public SendEmailBatchTaskComponent(
+        ScheduledTaskRepository scheduledTaskRepository,
+        NotificationStatusJdbcRepository statusRepository,
+        NotificationClient notificationClient,
+        NotifyRateLimiter rateLimiter,
+        NotifyCircuitBreaker circuitBreaker,
+        NotifyCallGuard notifyCallGuard,
+        Serializer taskDataSerializer,
+        TransactionTemplate transactionTemplate,
+        MeterRegistry meterRegistry,
+        @Value("${notify.send-email.batch.size:100}") int batchSize,
+        @Value("${notify.send-email.batch.max-in-flight:20}") int maxInFlight,
+        @Value("${notify.send-email.batch.poll-interval:1s}") Duration pollInterval,
+        @Value("${notify.send-email.max-retries:5}") int maxRetriesSendEmail,
+        @Value("${notify.send-email.backoff-delay-seconds:300s}") Duration sendingBackoffDelay,
+        VerifyDelayPolicy verifyDelayPolicy,
+        NotificationSequencer notificationSequencer
+    ) {
+        this.scheduledTaskRepository = scheduledTaskRepository;
+        this.statusRepository = statusRepository;
+        this.notificationClient = notificationClient;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.notifyCallGuard = notifyCallGuard;
+        this.taskDataSerializer = taskDataSerializer;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.maxRetriesSendEmail = maxRetriesSendEmail;
+        this.sendingBackoffDelay = sendingBackoffDelay;
+        this.verifyDelayPolicy = verifyDelayPolicy;
+        this.notificationSequencer = notificationSequencer;
+        this.pickedBy = new SchedulerName.Hostname().getName() + "-batch";
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sendExecutor = Executors.newFixedThreadPool(maxInFlight, runnable -> {
+            Thread thread = new Thread(runnable, "notify-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Bean
+    public RecurringTask<Void> sendEmailBatchTask() {
+        return Tasks.recurring(SEND_EMAIL_BATCH_TASK_NAME, Schedules.fixedDelay(pollInterval))
+            .execute((taskInstance, executionContext) -> drain());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendExecutor.shutdown();
+    }
+
+    /**
+     * Keeps processing batches while they come back full, up to a bounded amount of time per execution.
+     */
+    void drain() {
+        Instant deadline = Instant.now().plus(MAX_DRAIN_TIME);
+        int processed;
+        do {
+            processed = processBatch();
+        } while (processed == batchSize && Instant.now().isBefore(deadline));
+    }
+
+    int processBatch() {
+        if (!circuitBreaker.isClosed()) {
+            return 0;
+        }
+
+        int permits = rateLimiter.tryAcquire(batchSize);
+        if (permits == 0) {
+            log.debug("No Notify rate limit tokens available for a send batch");
+            return 0;
+        }
+
+        Instant claimedAt = Instant.now();
+        List<ClaimedTask> claimed = scheduledTaskRepository.claimDue(
+            sendEmailTask.getTaskName(), permits, pickedBy, claimedAt);
+        rateLimiter.release(permits - claimed.size());
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<CompletableFuture<Outcome>> sends = new ArrayList<>();
+        Map<ClaimedTask, EmailState> readable = new LinkedHashMap<>();
+        for (ClaimedTask task : claimed) {
+            EmailState emailState = read(task);
+            if (emailState == null) {
+                sends.add(CompletableFuture.completedFuture(Outcome.unreadable(task)));
+            } else {
+                readable.put(task, emailState);
+            }
+        }
+        Map<UUID, NotificationStatus> statuses = statusRepository.findStatuses(
+            readable.values().stream().map(EmailState::getDbNotificationId).toList());
+        readable.forEach((task, emailState) -> sends.add(
+            send(task, emailState, statuses.get(emailState.getDbNotificationId()), sends)));
+        List<Outcome> outcomes = sends.stream().map(CompletableFuture::join).toList();
+
+        List<Outcome> written = writeOutcomes(outcomes);
+
+        long elapsedNanos = sample.stop(meterRegistry.timer("notify.send.batch.duration"));
+        DistributionSummary.builder("notify.send.batch.size").register(meterRegistry).record(claimed.size());
+        long sent = written.stream()
+            .filter(outcome -> outcome.replacement() != null && outcome.statusChange() != null)
+            .count();
+        meterRegistry.counter("notify.emails.sent", "mode", "batch").increment(sent);
+
+        double elapsedSeconds = Math.max(elapsedNanos, 1) / 1_000_000_000d;
+        log.info("Batch of {} send tasks processed in {} ms, {} sent ({} emails/s)",
+                 claimed.size(), Math.round(elapsedSeconds * 1000), sent, Math.round(sent / elapsedSeconds));
+        return claimed.size();
+    }
+
+    private EmailState read(ClaimedTask task) {
+        try {
+            return taskDataSerializer.deserialize(EmailState.class, task.taskData());
+        } catch (RuntimeException e) {
+            log.error("Unreadable task data for send task {}, failing its notification: {}",
+                      task.taskInstance(), e.getMessage(), e);
+            meterRegistry.counter("notify.send.batch.unreadable").increment();
+            return null;
+        }
+    }
+
+    /**
+     * Starts sending one claimed task, waiting only for an in-flight permit. With the
+     * {@link AsyncNotificationClient} the request is pipelined without holding a thread; otherwise it runs
+     * on the send executor.
+     *
+     * @param status the current status of the task's notification, or null if it is missing
+     * @param started the sends of this batch started so far, whose completion frees permits
+     */
+    private CompletableFuture<Outcome> send(ClaimedTask task, EmailState emailState, NotificationStatus status,
+                                            List<CompletableFuture<Outcome>> started) {
+        if (!notificationSequencer.isTurn(emailState)) {
+            log.info("Send email task {} is waiting for earlier emails in sequence {}",
+                     emailState.getId(), emailState.getSequenceKey());
+            return CompletableFuture.completedFuture(new Outcome(null, new Replacement(
+                task, sendEmailTask.getTaskName(), task.taskData(),
+                Instant.now().plus(notificationSequencer.getParkTimeout()),
+                NotificationPriority.taskPriority(emailState.getPriority(), NotificationPriority.NORMAL)
+            ), null, null));
+        }
+        if (status == null) {
+            log.error("Notification not found with ID: {}", emailState.getDbNotificationId());
+            return CompletableFuture.completedFuture(new Outcome(null, null, null, task).releasing(emailState));
+        }
+        if (NotificationLifecycle.nextAction(status) != SEND) {
+            log.warn("Notification {} is already {}, not sending it again", emailState.getDbNotificationId(), status);
+            return CompletableFuture.completedFuture(new Outcome(null, null, null, task).releasing(emailState));
+        }
+
+        Instant now = Instant.now();
+        Optional<CompletableFuture<SendEmailResponse>> response = notifyCallGuard.tryCallAsync(
+            () -> sendEmail(emailState));
+        while (response.isEmpty() && awaitAny(started)) {
+            response = notifyCallGuard.tryCallAsync(() -> sendEmail(emailState));
+        }
+        if (response.isEmpty()) {
+            log.debug("Notify in-flight limit reached, parking send email task {}", emailState.getId());
+            rateLimiter.release(1);
+            return CompletableFuture.completedFuture(new Outcome(null, new Replacement(
+                task, sendEmailTask.getTaskName(), task.taskData(), now.plus(notifyCallGuard.getRetryAfter()),
+                NotificationPriority.taskPriority(emailState.getPriority(), NotificationPriority.NORMAL)
+            ), null, null));
+        }
+        return response.get().handle((sendEmailResponse, error) -> {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            return outcome(task, emailState, sendEmailResponse, cause, now).releasing(emailState);
+        });
+    }
+
+    /**
+     * Waits for one of the given sends still in flight to complete.
+     *
+     * @return false if none was in flight
+     */
+    private static boolean awaitAny(List<CompletableFuture<Outcome>> sends) {
+        CompletableFuture<?>[] inFlight = sends.stream()
+            .filter(send -> !send.isDone())
+            .toArray(CompletableFuture[]::new);
+        if (inFlight.length == 0) {
+            return false;
+        }
+        CompletableFuture.anyOf(inFlight).join();
+        return true;
+    }
+
+    private CompletableFuture<SendEmailResponse> sendEmail(EmailState emailState) {
+        String reference = notifyReference(emailState);
+        if (notificationClient instanceof AsyncNotificationClient asyncClient) {
+            return asyncClient.sendEmailAsync(emailState.getTemplateId(), emailState.getEmailAddress(),
+                                              emailState.getPersonalisation(), reference, null);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return notificationClient.sendEmail(emailState.getTemplateId(), emailState.getEmailAddress(),
+                                                    emailState.getPersonalisation(), reference);
+            } catch (NotificationClientException e) {
+                throw new CompletionException(e);
+            }
+        }, sendExecutor);
+    }
+
+    private Outcome outcome(ClaimedTask task, EmailState emailState, SendEmailResponse response, Throwable error,
+                            Instant now) {
+        if (error instanceof NotificationClientException e) {
+            log.error("NotificationClient error sending email for task {}: {}", emailState.getId(), e.getMessage());
+            if (NotifyCallGuard.isOverload(e.getHttpResult())) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            return switch (e.getHttpResult()) {
+                // Notify rejected the request itself; a retry cannot succeed
+                case 400, 403 -> new Outcome(
+                    NotificationStatusChange.of(emailState.getDbNotificationId(),
+                                                NotificationStatus.PERMANENT_FAILURE, now),
+                    null, null, task);
+                default -> retryOrGiveUp(task, emailState, now);
+            };
+        }
+        if (error != null) {
+            log.error("Unexpected error sending email for task {}: {}", emailState.getId(), error.getMessage(), error);
+            circuitBreaker.onFailure();
+            return retryOrGiveUp(task, emailState, now);
+        }
+
+        circuitBreaker.onSuccess();
+        if (response.getNotificationId() == null) {
+            log.error("Email service returned null notification ID for task: {}", emailState.getId());
+            return retryOrGiveUp(task, emailState, now);
+        }
+
+        NotificationStatusChange submitted = new NotificationStatusChange(
+            emailState.getDbNotificationId(), NotificationStatus.SUBMITTED, response.getNotificationId(), now, now);
+        if (!verifyDelayPolicy.verifyOnSend()) {
+            return new Outcome(submitted, null, null, task);
+        }
+        EmailState nextState = emailState.toBuilder()
+            .notificationId(response.getNotificationId().toString())
+            .build();
+        return new Outcome(
+            submitted,
+            new Replacement(task, verifyEmailTask.getTaskName(), taskDataSerializer.serialize(nextState),
+                            now.plus(verifyDelayPolicy.firstCheckDelay(emailState.getTemplateId())),
+                            NotificationPriority.VERIFY_TASK_PRIORITY),
+            null,
+            null
+        );
+    }
+
+    private Outcome retryOrGiveUp(ClaimedTask task, EmailState emailState, Instant now) {
+        NotificationStatusChange statusChange = NotificationStatusChange.of(
+            emailState.getDbNotificationId(), NotificationStatus.SEND_FAILED, now);
+        if (task.consecutiveFailures() + 1 >= maxRetriesSendEmail) {
+            log.error("Giving up on send task {} after {} attempts", emailState.getId(), maxRetriesSendEmail);
+            return new Outcome(statusChange, null, null, task);
+        }
+        long backoffMillis = (long) (sendingBackoffDelay.toMillis()
+            * Math.pow(BACKOFF_RATE, task.consecutiveFailures()));
+        return new Outcome(statusChange, null, new Retry(task, now.plusMillis(backoffMillis)), null);
+    }
+
+    /**
+     * Writes the outcomes in one transaction. Task rows are updated first; an outcome whose task was claimed
+     * again in the meantime, so its version-guarded update matched nothing, is dropped along with its status
+     * change and release, leaving the notification to whoever holds the task now.
+     *
+     * @return the outcomes written
+     */
+    private List<Outcome> writeOutcomes(List<Outcome> outcomes) {
+        List<Replacement> replacements = new ArrayList<>();
+        List<Retry> retries = new ArrayList<>();
+        List<ClaimedTask> removals = new ArrayList<>();
+
+        for (Outcome outcome : outcomes) {
+            if (outcome.replacement() != null) {
+                replacements.add(outcome.replacement());
+            } else if (outcome.retry() != null) {
+                retries.add(outcome.retry());
+            } else if (outcome.removal() != null) {
+                removals.add(outcome.removal());
+            }
+        }
+
+        Instant now = Instant.now();
+        return transactionTemplate.execute(status -> {
+            Set<String> lost = new HashSet<>();
+            scheduledTaskRepository.replaceAll(replacements, now).forEach(task -> lost.add(task.taskInstance()));
+            scheduledTaskRepository.retryAll(retries, now).forEach(task -> lost.add(task.taskInstance()));
+            scheduledTaskRepository.removeAll(removals).forEach(task -> lost.add(task.taskInstance()));
+            if (!lost.isEmpty()) {
+                log.warn("Send tasks {} were claimed again before their outcome was written, leaving them be", lost);
+                meterRegistry.counter("notify.send.batch.lost").increment(lost.size());
+            }
+
+            List<Outcome> held = outcomes.stream()
+                .filter(outcome -> !lost.contains(outcome.task().taskInstance()))
+                .toList();
+            statusRepository.applyStatusesIfAllowed(held.stream()
+                                                         .map(Outcome::statusChange)
+                                                         .filter(Objects::nonNull)
+                                                         .toList())
+                .forEach(change -> log.warn(
+                    "Status {} not applied to notification ID: {}, it is missing or already past that status",
+                    change.status(), change.notificationId()));
+            statusRepository.updateStatusesByTaskId(held.stream()
+                                                        .filter(Outcome::unreadable)
+                                                        .map(outcome -> outcome.task().taskInstance())
+                                                        .toList(),
+                                                    NotificationStatus.PERMANENT_FAILURE, now);
+            held.stream()
+                .map(Outcome::released)
+                .filter(Objects::nonNull)
+                .forEach(notificationSequencer::release);
+            return held;
+        });
+    }
+
+    /**
+     * Result of sending one claimed task. Exactly one of replacement, retry and removal is set;
+     * the status change is absent when the task was parked again, skipped because its notification is missing
+     * or no longer owes a send, or its data could not be read, in which case unreadable is set and the
+     * notification is failed by task instance instead.
+     * Released is the sequenced email to release once the outcome is written, if any.
+     */
+    record Outcome(NotificationStatusChange statusChange, Replacement replacement, Retry retry, ClaimedTask removal,
+                   EmailState released, boolean unreadable) {
+
+        Outcome(NotificationStatusChange statusChange, Replacement replacement, Retry retry, ClaimedTask removal) {
+            this(statusChange, replacement, retry, removal, null, false);
+        }
+
+        static Outcome unreadable(ClaimedTask task) {
+            return new Outcome(null, null, null, task, null, true);
+        }
+
+        ClaimedTask task() {
+            if (replacement != null) {
+                return replacement.claimed();
+            }
+            return retry != null ? retry.claimed() : removal;
+        }
+
+        /**
+         * This outcome releasing a sequenced email, unless the email is to be retried.
+         */
+        Outcome releasing(EmailState emailState) {
+            if (retry != null || emailState.getSequenceKey() == null) {
+                return this;
+            }
+            return new Outcome(statusChange, replacement, retry, removal, emailState, unreadable);
+        }
+    }
+}
@@ -4,7 +4,6 @@ import com.github.kagkarlsson.scheduler.task.CompletionHandler;
 import com.github.kagkarlsson.scheduler.task.FailureHandler;
 import com.github.kagkarlsson.scheduler.task.SchedulableInstance;
 import com.github.kagkarlsson.scheduler.task.TaskDescriptor;
-import com.github.kagkarlsson.scheduler.task.TaskInstance;
 import com.github.kagkarlsson.scheduler.task.helper.CustomTask;
 import com.github.kagkarlsson.scheduler.task.helper.Tasks;
 import lombok.extern.slf4j.Slf4j;
@@ -12,12 +11,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCallGuard;
 import uk.gov.hmcts.reform.enforcement.notify.config.NotificationErrorHandler;
 import uk.gov.hmcts.reform.enforcement.notify.entities.CaseNotification;
+import uk.gov.hmcts.reform.enforcement.notify.exception.NotifyCallRejectedException;
 import uk.gov.hmcts.reform.enforcement.notify.exception.PermanentNotificationException;
 import uk.gov.hmcts.reform.enforcement.notify.exception.TemporaryNotificationException;
 import uk.gov.hmcts.reform.enforcement.notify.model.EmailState;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationLifecycle;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationPriority;
 import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationRepository;
+import uk.gov.hmcts.reform.enforcement.notify.service.NotificationSequencer;
 import uk.gov.hmcts.reform.enforcement.notify.service.NotificationService;
 import uk.gov.service.notify.NotificationClient;
 import uk.gov.service.notify.NotificationClientException;
@@ -27,8 +31,8 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationLifecycle.Action.SEND;
 import static uk.gov.hmcts.reform.enforcement.notify.task.VerifyEmailTaskComponent.verifyEmailTask;
 
 @Component
@@ -43,10 +47,12 @@ public class SendEmailTaskComponent {
     private final NotificationClient notificationClient;
     private final NotificationErrorHandler errorHandler;
     private final NotificationRepository notificationRepository;
+    private final NotifyCallGuard notifyCallGuard;
     private final int maxRetriesSendEmail;
     private final Duration sendingBackoffDelay;
     private final Duration processingDelay;
-    private final Duration statusCheckTaskDelay;
+    private final VerifyDelayPolicy verifyDelayPolicy;
+    private final NotificationSequencer notificationSequencer;
 
     @Autowired
     public SendEmailTaskComponent(
@@ -54,19 +60,23 @@ public class SendEmailTaskComponent {
         NotificationClient notificationClient,
         NotificationErrorHandler errorHandler,
         NotificationRepository notificationRepository,
+        NotifyCallGuard notifyCallGuard,
         @Value("${notify.send-email.max-retries:5}") int maxRetriesSendEmail,
         @Value("${notify.send-email.backoff-delay-seconds:300s}") Duration sendingBackoffDelay,
         @Value("${notify.task-processing-delay-seconds:2s}") Duration processingDelay,
-        @Value("${notify.check-status.task-delay-seconds:60s}") Duration statusCheckTaskDelay
+        VerifyDelayPolicy verifyDelayPolicy,
+        NotificationSequencer notificationSequencer
     ) {
         this.notificationService = notificationService;
         this.notificationClient = notificationClient;
         this.errorHandler = errorHandler;
         this.notificationRepository = notificationRepository;
+        this.notifyCallGuard = notifyCallGuard;
         this.maxRetriesSendEmail = maxRetriesSendEmail;
         this.sendingBackoffDelay = sendingBackoffDelay;
         this.processingDelay = processingDelay;
-        this.statusCheckTaskDelay = statusCheckTaskDelay;
+        this.verifyDelayPolicy = verifyDelayPolicy;
+        this.notificationSequencer = notificationSequencer;
     }
 
     @Bean
@@ -74,34 +84,55 @@ public class SendEmailTaskComponent {
         return Tasks.custom(sendEmailTask)
             .onFailure(new FailureHandler.MaxRetriesFailureHandler<>(
                 maxRetriesSendEmail,
-                new FailureHandler.ExponentialBackoffFailureHandler<>(sendingBackoffDelay)
+                new FailureHandler.ExponentialBackoffFailureHandler<>(sendingBackoffDelay),
+                (executionComplete, executionOperations) -> notificationSequencer.release(
+                    (EmailState) executionComplete.getExecution().taskInstance.getData())
             ))
             .execute((taskInstance, executionContext) -> {
                 EmailState emailState = taskInstance.getData();
                 log.info("Processing send email task: {} with DB notification ID: {}",
                          emailState.getId(), emailState.getDbNotificationId());
 
+                if (!notificationSequencer.isTurn(emailState)) {
+                    log.info("Send email task {} is waiting for earlier emails in sequence {}",
+                             emailState.getId(), emailState.getSequenceKey());
+                    return defer(emailState, notificationSequencer.getParkTimeout());
+                }
+
+                Optional<Duration> outage = notifyCallGuard.outageDeferral();
+                if (outage.isPresent()) {
+                    log.debug("Notify unavailable, deferring send email task {}", emailState.getId());
+                    return defer(emailState, outage.get());
+                }
+
                 Optional<CaseNotification> notificationOpt = notificationRepository.findById(
                     emailState.getDbNotificationId());
                 if (notificationOpt.isEmpty()) {
                     log.error("Notification not found with ID: {}", emailState.getDbNotificationId());
+                    notificationSequencer.release(emailState);
                     return new CompletionHandler.OnCompleteRemove<>();
                 }
 
                 CaseNotification caseNotification = notificationOpt.get();
+                if (NotificationLifecycle.nextAction(caseNotification.getStatus()) != SEND) {
+                    log.warn("Notification {} is already {}, not sending it again",
+                             emailState.getDbNotificationId(), caseNotification.getStatus());
+                    notificationSequencer.release(emailState);
+                    return new CompletionHandler.OnCompleteRemove<>();
+                }
 
                 try {
                     final String templateId = emailState.getTemplateId();
                     final String destinationAddress = emailState.getEmailAddress();
                     final Map<String, Object> personalisation = emailState.getPersonalisation();
-                    final String referenceId = UUID.randomUUID().toString();
+                    final String referenceId = notifyReference(emailState);
 
-                    SendEmailResponse response = notificationClient.sendEmail(
+                    SendEmailResponse response = notifyCallGuard.send(() -> notificationClient.sendEmail(
                         templateId,
                         destinationAddress,
                         personalisation,
                         referenceId
-                    );
+                    ));
 
                     if (response.getNotificationId() == null) {
                         log.error("Email service returned null notification ID for task: {}", emailState.getId());
@@ -114,24 +145,31 @@ public class SendEmailTaskComponent {
                         emailState.getDbNotificationId(),
                         response.getNotificationId()
                     );
+                    notificationSequencer.release(emailState);
 
                     String notificationId = response.getNotificationId().toString();
                     log.info("Request sent successfully. Notification ID: {}", notificationId);
 
+                    if (!verifyDelayPolicy.verifyOnSend()) {
+                        return new CompletionHandler.OnCompleteRemove<>();
+                    }
                     EmailState nextState = emailState.toBuilder()
                         .notificationId(notificationId)
                         .build();
 
                     return new CompletionHandler.OnCompleteReplace<>(
                         currentInstance -> SchedulableInstance.of(
-                            new TaskInstance<>(
-                                verifyEmailTask.getTaskName(),
-                                currentInstance.getId(), 
-                                nextState
-                            ),
-                            Instant.now().plus(statusCheckTaskDelay)
+                            verifyEmailTask.instance(currentInstance.getId())
+                                .priority(NotificationPriority.VERIFY_TASK_PRIORITY)
+                                .data(nextState)
+                                .build(),
+                            Instant.now().plus(verifyDelayPolicy.firstCheckDelay(templateId))
                         )
                     );
+                } catch (NotifyCallRejectedException e) {
+                    log.info("Deferring send email task {} by {}: {}",
+                             emailState.getId(), e.getRetryAfter(), e.getMessage());
+                    return defer(emailState, e.getRetryAfter());
                 } catch (NotificationClientException e) {
                     log.error("NotificationClient error sending email: {}", e.getMessage(), e);
 
@@ -139,25 +177,12 @@ public class SendEmailTaskComponent {
                         errorHandler.handleSendEmailException(
                             e,
                             caseNotification,
-                            UUID.randomUUID().toString(),
+                            notifyReference(emailState),
                             this::updateNotificationFromStatusUpdate
                         );
-                        
-                        String dummyNotificationId = UUID.randomUUID().toString();
-                        EmailState nextState = emailState.toBuilder()
-                            .notificationId(dummyNotificationId)
-                            .build();
-                            
-                        return new CompletionHandler.OnCompleteReplace<>(
-                            currentInstance -> SchedulableInstance.of(
-                                new TaskInstance<>(
-                                    verifyEmailTask.getTaskName(),
-                                    currentInstance.getId(), 
-                                    nextState
-                                ),
-                                Instant.now().plus(statusCheckTaskDelay)
-                            )
-                        );
+                        // Notify rejected the request, so there is nothing to verify
+                        notificationSequencer.release(emailState);
+                        return new CompletionHandler.OnCompleteRemove<>();
                     } else {
                         throw new TemporaryNotificationException("Email temporarily failed to send.", e);
                     }
@@ -165,6 +190,15 @@ public class SendEmailTaskComponent {
             });
     }
 
+    /**
+     * The reference sent to Notify with an email: the caller's reference, or else the notification's own id.
+     * It stays the same across resends, so a resend after a crash can be matched to an earlier attempt.
+     */
+    static String notifyReference(EmailState emailState) {
+        String reference = emailState.getReference();
+        return reference != null && !reference.isBlank() ? reference : emailState.getDbNotificationId().toString();
+    }
+
     private void updateNotificationFromStatusUpdate(NotificationErrorHandler.NotificationStatusUpdate statusUpdate) {
         notificationService.updateNotificationStatus(
             statusUpdate.notification().getNotificationId(),
@@ -176,4 +210,16 @@ public class SendEmailTaskComponent {
         int httpStatusCode = e.getHttpResult();
         return httpStatusCode == 400 || httpStatusCode == 403;
     }
+
+    private CompletionHandler<EmailState> defer(EmailState emailState, Duration delay) {
+        return new CompletionHandler.OnCompleteReplace<>(
+            currentInstance -> SchedulableInstance.of(
+                sendEmailTask.instance(currentInstance.getId())
+                    .priority(NotificationPriority.taskPriority(emailState.getPriority(), NotificationPriority.NORMAL))
+                    .data(emailState)
+                    .build(),
+                Instant.now().plus(delay)
+            )
+        );
+    }
 }
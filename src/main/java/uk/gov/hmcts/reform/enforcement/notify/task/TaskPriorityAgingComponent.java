@@ -0,0 +1,112 @@
+package uk.gov.hmcts.reform.enforcement.notify.task;
+
+import com.github.kagkarlsson.scheduler.task.helper.RecurringTask;
+import com.github.kagkarlsson.scheduler.task.helper.Tasks;
+import com.github.kagkarlsson.scheduler.task.schedule.Schedules;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationPriority;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskShards;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the notification priority lanes fair. Every "db-scheduler.priority.aging.interval" it raises the
+ * priority of tasks on every shard that have been due for longer than "db-scheduler.priority.aging.after" by
+ * "db-scheduler.priority.aging.step", so bulk sends and verifies still go out while a steady stream of
+ * higher priority work keeps arriving. Sends climb to just below the urgent lane and verifies to just below
+ * the bulk lane, so aged work never overtakes urgent sends and verifies never overtake sends. It also
+ * publishes the number of due tasks in each lane, over all shards, as {@code scheduler.queue.depth}.
+ * Only runs while "db-scheduler.priority.enabled" = true.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "db-scheduler.priority", name = "enabled", havingValue = "true")
+public class TaskPriorityAgingComponent {
+    private static final String TASK_PRIORITY_AGING_TASK_NAME = "task-priority-aging-task";
+    private static final String VERIFY_LANE = "verify";
+
+    private final TaskShards taskShards;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Duration interval;
+    private final Duration after;
+    private final int step;
+    private final Map<String, AtomicLong> queueDepth = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TaskPriorityAgingComponent(
+        TaskShards taskShards,
+        MeterRegistry meterRegistry,
+        @Value("${db-scheduler.priority.aging.interval:30s}") Duration interval,
+        @Value("${db-scheduler.priority.aging.after:2m}") Duration after,
+        @Value("${db-scheduler.priority.aging.step:10}") int step
+    ) {
+        this(taskShards, meterRegistry, Clock.systemUTC(), interval, after, step);
+    }
+
+    TaskPriorityAgingComponent(TaskShards taskShards, MeterRegistry meterRegistry, Clock clock, Duration interval,
+                               Duration after, int step) {
+        this.taskShards = taskShards;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.interval = interval;
+        this.after = after;
+        this.step = step;
+        for (NotificationPriority priority : NotificationPriority.values()) {
+            registerLane(NotificationPriority.lane(priority.taskPriority()));
+        }
+        registerLane(VERIFY_LANE);
+    }
+
+    @Bean
+    public RecurringTask<Void> taskPriorityAgingTask() {
+        return Tasks.recurring(TASK_PRIORITY_AGING_TASK_NAME, Schedules.fixedDelay(interval))
+            .execute((taskInstance, executionContext) -> ageAndMeasure());
+    }
+
+    /**
+     * Ages long-waiting tasks on every shard, then refreshes the per-lane queue depth summed over the shards.
+     *
+     * @return the number of tasks whose priority was raised
+     */
+    int ageAndMeasure() {
+        Instant now = clock.instant();
+        Instant dueBefore = now.minus(after);
+        int aged = 0;
+        Map<String, Long> depths = new HashMap<>();
+        for (TaskShards.Shard shard : taskShards.shards()) {
+            ScheduledTaskRepository tasks = shard.tasks();
+            aged += tasks.ageWaiting(dueBefore, step, NotificationPriority.BULK.taskPriority(),
+                                     NotificationPriority.URGENT.taskPriority() - 1)
+                + tasks.ageWaiting(dueBefore, step, NotificationPriority.VERIFY_TASK_PRIORITY,
+                                   NotificationPriority.BULK.taskPriority() - 1);
+            tasks.countDueByPriority(now)
+                .forEach((priority, due) -> depths.merge(NotificationPriority.lane(priority), due, Long::sum));
+        }
+        if (aged > 0) {
+            log.debug("Raised the priority of {} tasks due for over {}", aged, after);
+            meterRegistry.counter("scheduler.priority.aged").increment(aged);
+        }
+        queueDepth.forEach((lane, depth) -> depth.set(depths.getOrDefault(lane, 0L)));
+        return aged;
+    }
+
+    private void registerLane(String lane) {
+        queueDepth.put(lane, meterRegistry.gauge("scheduler.queue.depth", Tags.of("priority", lane),
+                                                 new AtomicLong()));
+    }
+}
@@ -0,0 +1,123 @@
+package uk.gov.hmcts.reform.enforcement.notify.task;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.enforcement.notify.service.DeliveryLatencyTracker;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Decides whether and when to check the status of a sent email.
+ * With the bulk verifier enabled no verify task is scheduled when an email is sent; the bulk verifier
+ * schedules one for each email it has not resolved after "notify.bulk-verify.straggler-delay".
+ * With delivery receipts enabled, verify tasks are only a fallback for emails no receipt has resolved,
+ * so the first check waits for "notify.callback.receipt-deadline". Otherwise the first check is timed at the
+ * "notify.check-status.adaptive.quantile" of recent delivery latencies for the template, and a check that
+ * finds the email still in flight is repeated when the "notify.check-status.adaptive.recheck-quantile"
+ * is reached. Until enough deliveries have been seen, "notify.check-status.task-delay-seconds" is used.
+ * Every delay is jittered by up to "notify.check-status.adaptive.jitter" either way so checks for a burst
+ * of emails are spread out.
+ */
+@Component
+public class VerifyDelayPolicy {
+
+    private final DeliveryLatencyTracker latencyTracker;
+    private final DoubleSupplier random;
+    private final boolean verifyOnSend;
+    private final Duration fallbackDeadline;
+    private final Duration defaultDelay;
+    private final boolean adaptive;
+    private final double quantile;
+    private final double recheckQuantile;
+    private final int minSamples;
+    private final Duration minDelay;
+    private final Duration maxDelay;
+    private final double jitter;
+
+    @Autowired
+    public VerifyDelayPolicy(
+        DeliveryLatencyTracker latencyTracker,
+        @Value("${notify.callback.enabled:false}") boolean callbackEnabled,
+        @Value("${notify.callback.receipt-deadline:30m}") Duration receiptDeadline,
+        @Value("${notify.bulk-verify.enabled:false}") boolean bulkVerifyEnabled,
+        @Value("${notify.check-status.task-delay-seconds:60s}") Duration defaultDelay,
+        @Value("${notify.check-status.adaptive.enabled:true}") boolean adaptive,
+        @Value("${notify.check-status.adaptive.quantile:0.9}") double quantile,
+        @Value("${notify.check-status.adaptive.recheck-quantile:0.99}") double recheckQuantile,
+        @Value("${notify.check-status.adaptive.min-samples:50}") int minSamples,
+        @Value("${notify.check-status.adaptive.min-delay:5s}") Duration minDelay,
+        @Value("${notify.check-status.adaptive.max-delay:30m}") Duration maxDelay,
+        @Value("${notify.check-status.adaptive.jitter:0.2}") double jitter
+    ) {
+        this(latencyTracker, () -> ThreadLocalRandom.current().nextDouble(), !bulkVerifyEnabled,
+             callbackEnabled ? receiptDeadline : null, defaultDelay, adaptive, quantile, recheckQuantile,
+             minSamples, minDelay, maxDelay, jitter);
+    }
+
+    VerifyDelayPolicy(DeliveryLatencyTracker latencyTracker, DoubleSupplier random, boolean verifyOnSend,
+                      Duration fallbackDeadline, Duration defaultDelay, boolean adaptive, double quantile,
+                      double recheckQuantile, int minSamples, Duration minDelay, Duration maxDelay,
+                      double jitter) {
+        this.latencyTracker = latencyTracker;
+        this.random = random;
+        this.verifyOnSend = verifyOnSend;
+        this.fallbackDeadline = fallbackDeadline;
+        this.defaultDelay = defaultDelay;
+        this.adaptive = adaptive;
+        this.quantile = quantile;
+        this.recheckQuantile = recheckQuantile;
+        this.minSamples = minSamples;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Whether sending an email schedules its verify task. False while the bulk verifier is enabled.
+     */
+    public boolean verifyOnSend() {
+        return verifyOnSend;
+    }
+
+    /**
+     * Delay from sending an email to its first status check.
+     */
+    public Duration firstCheckDelay(String templateId) {
+        if (fallbackDeadline != null) {
+            return jittered(fallbackDeadline);
+        }
+        if (!adaptive) {
+            return defaultDelay;
+        }
+        return jittered(clamp(latencyTracker.quantile(templateId, quantile, minSamples).orElse(defaultDelay)));
+    }
+
+    /**
+     * Delay until the next check of an email Notify still reports as in flight, {@code elapsed} after it
+     * was accepted.
+     */
+    public Duration recheckDelay(String templateId, Duration elapsed) {
+        Duration target = adaptive
+            ? latencyTracker.quantile(templateId, recheckQuantile, minSamples).orElse(defaultDelay)
+            : defaultDelay;
+        Duration remaining = target.minus(elapsed);
+        // past the expected latency, back off in proportion to how long the email has been in flight
+        Duration delay = remaining.compareTo(minDelay) > 0 ? remaining : elapsed.dividedBy(2);
+        return jittered(clamp(delay));
+    }
+
+    private Duration clamp(Duration delay) {
+        if (delay.compareTo(minDelay) < 0) {
+            return minDelay;
+        }
+        return delay.compareTo(maxDelay) > 0 ? maxDelay : delay;
+    }
+
+    private Duration jittered(Duration delay) {
+        double factor = 1 + jitter * (2 * random.getAsDouble() - 1);
+        return Duration.ofMillis(Math.round(delay.toMillis() * factor));
+    }
+}
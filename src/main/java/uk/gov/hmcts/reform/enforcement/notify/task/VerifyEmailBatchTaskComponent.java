@@ -0,0 +1,360 @@
+package uk.gov.hmcts.reform.enforcement.notify.task;
+
+import com.github.kagkarlsson.scheduler.SchedulerName;
+import com.github.kagkarlsson.scheduler.serializer.Serializer;
+import com.github.kagkarlsson.scheduler.task.helper.RecurringTask;
+import com.github.kagkarlsson.scheduler.task.helper.Tasks;
+import com.github.kagkarlsson.scheduler.task.schedule.Schedules;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.hmcts.reform.enforcement.notify.client.AsyncNotificationClient;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCallGuard;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCircuitBreaker;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailState;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationLifecycle;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationPriority;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatusChange;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationStatusJdbcRepository;
+import uk.gov.hmcts.reform.enforcement.notify.service.DeliveryLatencyTracker;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository.ClaimedTask;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository.Replacement;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository.Retry;
+import uk.gov.service.notify.Notification;
+import uk.gov.service.notify.NotificationClient;
+import uk.gov.service.notify.NotificationClientException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static uk.gov.hmcts.reform.enforcement.notify.task.VerifyEmailTaskComponent.verifyEmailTask;
+
+/**
+ * Batched execution mode for {@code verify-email-task}, the verify counterpart of
+ * {@link SendEmailBatchTaskComponent}. A recurring task claims up to "notify.check-status.batch.size" due
+ * verify tasks in one query, skips the ones whose notification already has a final status, looks the rest
+ * up concurrently within the node's {@link NotifyCallGuard} in-flight limit (pipelined over shared connections
+ * when the {@link AsyncNotificationClient} is in use, otherwise on up to
+ * "notify.check-status.batch.max-in-flight" threads), and writes all outcomes in one transaction of JDBC
+ * batches. A lookup that gets no permit, even after the batch's own calls have finished, is parked again for
+ * "notify.rejected-retry-after". Status changes only apply from an allowed predecessor, and an outcome whose
+ * task was claimed again meanwhile is dropped.
+ * The per-task path keeps working alongside it. Nothing is claimed while the circuit breaker is not closed.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "notify.check-status.batch", name = "enabled", havingValue = "true")
+public class VerifyEmailBatchTaskComponent {
+    private static final String VERIFY_EMAIL_BATCH_TASK_NAME = "verify-email-batch-task";
+    private static final double BACKOFF_RATE = 1.5;
+
+    private final ScheduledTaskRepository scheduledTaskRepository;
+    private final NotificationStatusJdbcRepository statusRepository;
+    private final NotificationClient notificationClient;
+    private final NotifyCircuitBreaker circuitBreaker;
+    private final NotifyCallGuard notifyCallGuard;
+    private final Serializer taskDataSerializer;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final VerifyDelayPolicy verifyDelayPolicy;
+    private final DeliveryLatencyTracker latencyTracker;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final int maxRetriesCheckEmail;
+    private final Duration statusCheckBackoffDelay;
+    private final ExecutorService lookupExecutor;
+    private final String pickedBy;
+
+    @Autowired
+    public VerifyEmailBatchTaskComponent(
+        ScheduledTaskRepository scheduledTaskRepository,
+        NotificationStatusJdbcRepository statusRepository,
+        NotificationClient notificationClient,
+        NotifyCircuitBreaker circuitBreaker,
+        NotifyCallGuard notifyCallGuard,
+        Serializer taskDataSerializer,
+        TransactionTemplate transactionTemplate,
+        MeterRegistry meterRegistry,
+        VerifyDelayPolicy verifyDelayPolicy,
+        DeliveryLatencyTracker latencyTracker,
+        @Value("${notify.check-status.batch.size:100}") int batchSize,
+        @Value("${notify.check-status.batch.max-in-flight:20}") int maxInFlight,
+        @Value("${notify.check-status.batch.poll-interval:1s}") Duration pollInterval,
+        @Value("${notify.check-status.max-retries:5}") int maxRetriesCheckEmail,
+        @Value("${notify.check-status.backoff-delay-seconds:3600s}") Duration statusCheckBackoffDelay
+    ) {
+        this.scheduledTaskRepository = scheduledTaskRepository;
+        this.statusRepository = statusRepository;
+        this.notificationClient = notificationClient;
+        this.circuitBreaker = circuitBreaker;
+        this.notifyCallGuard = notifyCallGuard;
+        this.taskDataSerializer = taskDataSerializer;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.verifyDelayPolicy = verifyDelayPolicy;
+        this.latencyTracker = latencyTracker;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.maxRetriesCheckEmail = maxRetriesCheckEmail;
+        this.statusCheckBackoffDelay = statusCheckBackoffDelay;
+        this.pickedBy = new SchedulerName.Hostname().getName() + "-verify-batch";
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.lookupExecutor = Executors.newFixedThreadPool(maxInFlight, runnable -> {
+            Thread thread = new Thread(runnable, "notify-verify-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Bean
+    public RecurringTask<Void> verifyEmailBatchTask() {
+        return Tasks.recurring(VERIFY_EMAIL_BATCH_TASK_NAME, Schedules.fixedDelay(pollInterval))
+            .execute((taskInstance, executionContext) -> processBatch());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lookupExecutor.shutdown();
+    }
+
+    int processBatch() {
+        if (!circuitBreaker.isClosed()) {
+            return 0;
+        }
+
+        List<ClaimedTask> claimed = scheduledTaskRepository.claimDue(
+            verifyEmailTask.getTaskName(), batchSize, pickedBy, Instant.now());
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        Map<ClaimedTask, EmailState> readable = new LinkedHashMap<>();
+        List<Outcome> outcomes = new ArrayList<>();
+        for (ClaimedTask task : claimed) {
+            try {
+                readable.put(task, taskDataSerializer.deserialize(EmailState.class, task.taskData()));
+            } catch (RuntimeException e) {
+                log.error("Unreadable task data for verify task {}: {}", task.taskInstance(), e.getMessage(), e);
+                meterRegistry.counter("notify.verify.batch.unreadable").increment();
+                outcomes.add(Outcome.unreadable(task));
+            }
+        }
+
+        Set<UUID> resolved = statusRepository.findTerminal(
+            readable.values().stream().map(EmailState::getDbNotificationId).toList());
+        List<CompletableFuture<Outcome>> lookups = new ArrayList<>();
+        readable.forEach((task, emailState) -> {
+            if (resolved.contains(emailState.getDbNotificationId())) {
+                outcomes.add(new Outcome(null, null, null, task));
+            } else {
+                lookups.add(lookup(task, emailState, lookups));
+            }
+        });
+        lookups.stream().map(CompletableFuture::join).forEach(outcomes::add);
+
+        writeOutcomes(outcomes);
+        log.info("Batch of {} verify tasks processed, {} looked up in Notify", claimed.size(), lookups.size());
+        return claimed.size();
+    }
+
+    /**
+     * Starts looking up one claimed task, waiting only for one of the batch's own lookups in {@code started}
+     * to free an in-flight permit.
+     */
+    private CompletableFuture<Outcome> lookup(ClaimedTask task, EmailState emailState,
+                                              List<CompletableFuture<Outcome>> started) {
+        Optional<CompletableFuture<Notification>> response = notifyCallGuard.tryCallAsync(
+            () -> getNotification(emailState.getNotificationId()));
+        while (response.isEmpty() && awaitAny(started)) {
+            response = notifyCallGuard.tryCallAsync(() -> getNotification(emailState.getNotificationId()));
+        }
+        if (response.isEmpty()) {
+            log.debug("Notify in-flight limit reached, parking verify task {}", emailState.getId());
+            return CompletableFuture.completedFuture(new Outcome(
+                null, new Replacement(task, verifyEmailTask.getTaskName(), task.taskData(),
+                                      Instant.now().plus(notifyCallGuard.getRetryAfter()),
+                                      NotificationPriority.VERIFY_TASK_PRIORITY),
+                null, null));
+        }
+        return response.get().handle((notification, error) -> {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            return outcome(task, emailState, notification, cause, Instant.now());
+        });
+    }
+
+    /**
+     * Waits for one of the given lookups still in flight to complete.
+     *
+     * @return false if none was in flight
+     */
+    private static boolean awaitAny(List<CompletableFuture<Outcome>> lookups) {
+        CompletableFuture<?>[] inFlight = lookups.stream()
+            .filter(lookup -> !lookup.isDone())
+            .toArray(CompletableFuture[]::new);
+        if (inFlight.length == 0) {
+            return false;
+        }
+        CompletableFuture.anyOf(inFlight).join();
+        return true;
+    }
+
+    private CompletableFuture<Notification> getNotification(String notificationId) {
+        if (notificationClient instanceof AsyncNotificationClient asyncClient) {
+            return asyncClient.getNotificationByIdAsync(notificationId);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return notificationClient.getNotificationById(notificationId);
+            } catch (NotificationClientException e) {
+                throw new CompletionException(e);
+            }
+        }, lookupExecutor);
+    }
+
+    private Outcome outcome(ClaimedTask task, EmailState emailState, Notification notification, Throwable error,
+                            Instant now) {
+        if (error instanceof NotificationClientException e) {
+            if (NotifyCallGuard.isOverload(e.getHttpResult())) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            if (e.getHttpResult() == 404) {
+                log.info("Notification {} not found in Notify, failing it", emailState.getNotificationId());
+                return new Outcome(NotificationStatusChange.of(emailState.getDbNotificationId(),
+                                                               NotificationStatus.PERMANENT_FAILURE, now),
+                                   null, null, task);
+            }
+            log.error("Failed to verify status of {}: {}", emailState.getNotificationId(), e.getMessage());
+            return retryOrGiveUp(task, emailState, now);
+        }
+        if (error != null) {
+            log.error("Unexpected error verifying {}: {}", emailState.getNotificationId(), error.getMessage(), error);
+            circuitBreaker.onFailure();
+            return retryOrGiveUp(task, emailState, now);
+        }
+
+        circuitBreaker.onSuccess();
+        String reported = notification.getStatus();
+        if (VerifyEmailTaskComponent.reportedAction(reported) == NotificationLifecycle.Action.REPOLL) {
+            Duration elapsed = notification.getCreatedAt() == null
+                ? Duration.ZERO
+                : Duration.between(notification.getCreatedAt().toInstant(), now);
+            Duration delay = verifyDelayPolicy.recheckDelay(emailState.getTemplateId(), elapsed);
+            return new Outcome(null, new Replacement(task, verifyEmailTask.getTaskName(), task.taskData(),
+                                                     now.plus(delay), NotificationPriority.VERIFY_TASK_PRIORITY),
+                               null, null);
+        }
+
+        NotificationStatus stored = VerifyEmailTaskComponent.storedStatus(reported);
+        if (stored == NotificationStatus.DELIVERED && notification.getCreatedAt() != null) {
+            notification.getCompletedAt().ifPresent(completedAt -> latencyTracker.record(
+                emailState.getTemplateId(), notification.getCreatedAt().toInstant(), completedAt.toInstant()));
+        }
+        return new Outcome(NotificationStatusChange.of(emailState.getDbNotificationId(), stored, now),
+                           null, null, task);
+    }
+
+    private Outcome retryOrGiveUp(ClaimedTask task, EmailState emailState, Instant now) {
+        if (task.consecutiveFailures() + 1 >= maxRetriesCheckEmail) {
+            log.error("Giving up on verify task {} after {} attempts", emailState.getId(), maxRetriesCheckEmail);
+            return new Outcome(null, null, null, task);
+        }
+        long backoffMillis = (long) (statusCheckBackoffDelay.toMillis()
+            * Math.pow(BACKOFF_RATE, task.consecutiveFailures()));
+        return new Outcome(null, null, new Retry(task, now.plusMillis(backoffMillis)), null);
+    }
+
+    /**
+     * Writes the outcomes in one transaction, dropping those whose task was claimed again in the meantime.
+     */
+    private void writeOutcomes(List<Outcome> outcomes) {
+        List<Replacement> replacements = new ArrayList<>();
+        List<Retry> retries = new ArrayList<>();
+        List<ClaimedTask> removals = new ArrayList<>();
+
+        for (Outcome outcome : outcomes) {
+            if (outcome.replacement() != null) {
+                replacements.add(outcome.replacement());
+            } else if (outcome.retry() != null) {
+                retries.add(outcome.retry());
+            } else if (outcome.removal() != null) {
+                removals.add(outcome.removal());
+            }
+        }
+
+        Instant now = Instant.now();
+        transactionTemplate.execute(status -> {
+            Set<String> lost = new HashSet<>();
+            scheduledTaskRepository.replaceAll(replacements, now).forEach(task -> lost.add(task.taskInstance()));
+            scheduledTaskRepository.retryAll(retries, now).forEach(task -> lost.add(task.taskInstance()));
+            scheduledTaskRepository.removeAll(removals).forEach(task -> lost.add(task.taskInstance()));
+            if (!lost.isEmpty()) {
+                log.warn("Verify tasks {} were claimed again before their outcome was written, leaving them be",
+                         lost);
+                meterRegistry.counter("notify.verify.batch.lost").increment(lost.size());
+            }
+
+            List<Outcome> held = outcomes.stream()
+                .filter(outcome -> !lost.contains(outcome.task().taskInstance()))
+                .toList();
+            statusRepository.updateStatusesIfAllowed(held.stream()
+                                                         .map(Outcome::statusChange)
+                                                         .filter(Objects::nonNull)
+                                                         .toList());
+            statusRepository.updateStatusesByTaskId(held.stream()
+                                                        .filter(Outcome::unreadable)
+                                                        .map(outcome -> outcome.task().taskInstance())
+                                                        .toList(),
+                                                    NotificationStatus.PERMANENT_FAILURE, now);
+            return held;
+        });
+    }
+
+    /**
+     * Result of verifying one claimed task. Exactly one of replacement (check again later), retry and removal
+     * is set; the status change is set when Notify reported a final status. Unreadable is set when the task
+     * data could not be read, in which case the notification is failed by task instance instead.
+     */
+    record Outcome(NotificationStatusChange statusChange, Replacement replacement, Retry retry, ClaimedTask removal,
+                   boolean unreadable) {
+
+        Outcome(NotificationStatusChange statusChange, Replacement replacement, Retry retry, ClaimedTask removal) {
+            this(statusChange, replacement, retry, removal, false);
+        }
+
+        static Outcome unreadable(ClaimedTask task) {
+            return new Outcome(null, null, null, task, true);
+        }
+
+        ClaimedTask task() {
+            if (replacement != null) {
+                return replacement.claimed();
+            }
+            return retry != null ? retry.claimed() : removal;
+        }
+    }
+}
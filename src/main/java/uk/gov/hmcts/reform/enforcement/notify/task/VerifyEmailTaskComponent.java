@@ -2,6 +2,7 @@ package uk.gov.hmcts.reform.enforcement.notify.task;
 
 import com.github.kagkarlsson.scheduler.task.CompletionHandler;
 import com.github.kagkarlsson.scheduler.task.FailureHandler;
+import com.github.kagkarlsson.scheduler.task.SchedulableInstance;
 import com.github.kagkarlsson.scheduler.task.TaskDescriptor;
 import com.github.kagkarlsson.scheduler.task.helper.CustomTask;
 import com.github.kagkarlsson.scheduler.task.helper.Tasks;
@@ -10,15 +11,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCallGuard;
 import uk.gov.hmcts.reform.enforcement.notify.config.NotificationErrorHandler;
+import uk.gov.hmcts.reform.enforcement.notify.exception.NotifyCallRejectedException;
 import uk.gov.hmcts.reform.enforcement.notify.model.EmailState;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationLifecycle;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationPriority;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus;
+import uk.gov.hmcts.reform.enforcement.notify.service.DeliveryLatencyTracker;
 import uk.gov.hmcts.reform.enforcement.notify.service.NotificationService;
 import uk.gov.service.notify.Notification;
 import uk.gov.service.notify.NotificationClient;
 import uk.gov.service.notify.NotificationClientException;
 
 import java.time.Duration;
-import java.util.Objects;
+import java.time.Instant;
+import java.util.Optional;
 
 import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.DELIVERED;
 import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.PERMANENT_FAILURE;
@@ -34,6 +42,9 @@ public class VerifyEmailTaskComponent {
     private final NotificationService notificationService;
     private final NotificationClient notificationClient;
     private final NotificationErrorHandler errorHandler;
+    private final NotifyCallGuard notifyCallGuard;
+    private final VerifyDelayPolicy verifyDelayPolicy;
+    private final DeliveryLatencyTracker latencyTracker;
     private final int maxRetriesCheckEmail;
     private final Duration statusCheckBackoffDelay;
 
@@ -42,12 +53,18 @@ public class VerifyEmailTaskComponent {
         NotificationService notificationService,
         NotificationClient notificationClient,
         NotificationErrorHandler errorHandler,
+        NotifyCallGuard notifyCallGuard,
+        VerifyDelayPolicy verifyDelayPolicy,
+        DeliveryLatencyTracker latencyTracker,
         @Value("${notify.check-status.max-retries:5}") int maxRetriesCheckEmail,
         @Value("${notify.check-status.backoff-delay-seconds:3600s}") Duration statusCheckBackoffDelay
     ) {
         this.notificationService = notificationService;
         this.notificationClient = notificationClient;
         this.errorHandler = errorHandler;
+        this.notifyCallGuard = notifyCallGuard;
+        this.verifyDelayPolicy = verifyDelayPolicy;
+        this.latencyTracker = latencyTracker;
         this.maxRetriesCheckEmail = maxRetriesCheckEmail;
         this.statusCheckBackoffDelay = statusCheckBackoffDelay;
     }
@@ -63,19 +80,36 @@ public class VerifyEmailTaskComponent {
                 EmailState emailState = taskInstance.getData();
                 log.info("Verifying email delivery for ID: {}", emailState.getNotificationId());
 
+                if (notificationService.hasTerminalStatus(emailState.getDbNotificationId())) {
+                    log.debug("Status of {} already final, skipping verify", emailState.getNotificationId());
+                    return new CompletionHandler.OnCompleteRemove<>();
+                }
+
+                Optional<Duration> outage = notifyCallGuard.outageDeferral();
+                if (outage.isPresent()) {
+                    log.debug("Notify unavailable, deferring verify email task {}", emailState.getId());
+                    return defer(emailState, outage.get());
+                }
+
                 try {
-                    Notification notification = notificationClient.getNotificationById(emailState.getNotificationId());
+                    Notification notification = notifyCallGuard.call(
+                        () -> notificationClient.getNotificationById(emailState.getNotificationId())
+                    );
 
-                    if (Objects.equals(notification.getStatus().toLowerCase(), DELIVERED.toString())) {
-                        notificationService.updateNotificationStatus(
-                            emailState.getDbNotificationId(),
-                            notification.getStatus()
-                        );
-                    } else {
-                        notificationService.updateNotificationStatus(
-                            emailState.getDbNotificationId(),
-                            PERMANENT_FAILURE.toString()
-                        );
+                    if (reportedAction(notification.getStatus()) == NotificationLifecycle.Action.REPOLL) {
+                        Duration elapsed = notification.getCreatedAt() == null
+                            ? Duration.ZERO
+                            : Duration.between(notification.getCreatedAt().toInstant(), Instant.now());
+                        Duration delay = verifyDelayPolicy.recheckDelay(emailState.getTemplateId(), elapsed);
+                        log.debug("Email {} still {}, checking again in {}",
+                                  emailState.getId(), notification.getStatus(), delay);
+                        return defer(emailState, delay);
+                    }
+
+                    NotificationStatus stored = storedStatus(notification.getStatus());
+                    notificationService.updateNotificationStatus(emailState.getDbNotificationId(), stored.toString());
+                    if (stored == DELIVERED) {
+                        recordLatency(emailState, notification);
                     }
 
                     String status = notification.getStatus();
@@ -85,6 +119,10 @@ public class VerifyEmailTaskComponent {
                         log.error("Failure with status: {} for task: {}", status, emailState.getId());
                     }
                     return new CompletionHandler.OnCompleteRemove<>();
+                } catch (NotifyCallRejectedException e) {
+                    log.info("Deferring verify email task {} by {}: {}",
+                             emailState.getId(), e.getRetryAfter(), e.getMessage());
+                    return defer(emailState, e.getRetryAfter());
                 } catch (NotificationClientException e) {
                     log.error("Failed to verify status due to API error", e);
                     
@@ -100,4 +138,52 @@ public class VerifyEmailTaskComponent {
                 }
             });
     }
+
+    /**
+     * The lifecycle action for a status reported by Notify; statuses this service does not model are treated
+     * as final.
+     */
+    static NotificationLifecycle.Action reportedAction(String status) {
+        try {
+            return NotificationLifecycle.nextAction(NotificationStatus.fromString(status));
+        } catch (IllegalArgumentException e) {
+            return NotificationLifecycle.Action.NONE;
+        }
+    }
+
+    /**
+     * The status stored for a final status reported by Notify: the reported status itself, or
+     * PERMANENT_FAILURE for a status this service does not model as final.
+     */
+    static NotificationStatus storedStatus(String status) {
+        try {
+            NotificationStatus reported = NotificationStatus.fromString(status);
+            return reported.isTerminal() ? reported : PERMANENT_FAILURE;
+        } catch (IllegalArgumentException e) {
+            return PERMANENT_FAILURE;
+        }
+    }
+
+    private void recordLatency(EmailState emailState, Notification notification) {
+        if (notification.getCreatedAt() == null) {
+            return;
+        }
+        notification.getCompletedAt().ifPresent(completedAt -> latencyTracker.record(
+            emailState.getTemplateId(),
+            notification.getCreatedAt().toInstant(),
+            completedAt.toInstant()
+        ));
+    }
+
+    private CompletionHandler<EmailState> defer(EmailState emailState, Duration delay) {
+        return new CompletionHandler.OnCompleteReplace<>(
+            currentInstance -> SchedulableInstance.of(
+                verifyEmailTask.instance(currentInstance.getId())
+                    .priority(NotificationPriority.VERIFY_TASK_PRIORITY)
+                    .data(emailState)
+                    .build(),
+                Instant.now().plus(delay)
+            )
+        );
+    }
 }
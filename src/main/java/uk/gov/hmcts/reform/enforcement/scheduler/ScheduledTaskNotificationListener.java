@@ -0,0 +1,180 @@
+package uk.gov.hmcts.reform.enforcement.scheduler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Listens on the {@code scheduled_tasks_due} channel on a dedicated (non-pooled) connection and wakes the
+ * scheduler lane running a task as soon as a due instance of it is inserted, so the regular polling interval
+ * can be kept long.
+ * If the listener connection is lost, or listening fails in any other way, the listener falls back to
+ * triggering a check every fallback interval until it manages to reconnect.
+ */
+@Slf4j
+public class ScheduledTaskNotificationListener {
+
+    public static final String CHANNEL = "scheduled_tasks_due";
+
+    private static final int RECEIVE_TIMEOUT_MILLIS = 1000;
+
+    private final TaskLanes lanes;
+    private final ConnectionSource connectionSource;
+    private final ScheduledTaskWakeups wakeups;
+    private final Duration fallbackPollingInterval;
+    // One thread blocks on the listener connection, the other fires wakeups for tasks due shortly
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "scheduled-tasks-listener");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicInteger connected = new AtomicInteger(0);
+    private final MeterRegistry meterRegistry;
+
+    public ScheduledTaskNotificationListener(TaskLanes lanes,
+                                             DataSourceProperties dataSourceProperties,
+                                             ScheduledTaskWakeups wakeups,
+                                             Duration fallbackPollingInterval,
+                                             MeterRegistry meterRegistry) {
+        this(lanes, () -> DriverManager.getConnection(
+            dataSourceProperties.determineUrl(),
+            dataSourceProperties.determineUsername(),
+            dataSourceProperties.determinePassword()
+        ), wakeups, fallbackPollingInterval, meterRegistry);
+    }
+
+    ScheduledTaskNotificationListener(TaskLanes lanes,
+                                      ConnectionSource connectionSource,
+                                      ScheduledTaskWakeups wakeups,
+                                      Duration fallbackPollingInterval,
+                                      MeterRegistry meterRegistry) {
+        this.lanes = lanes;
+        this.connectionSource = connectionSource;
+        this.wakeups = wakeups;
+        this.fallbackPollingInterval = fallbackPollingInterval;
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gauge("scheduler.wakeup.listener.connected", connected);
+    }
+
+    public void start() {
+        if (running.compareAndSet(false, true)) {
+            log.info("Starting LISTEN on channel {}", CHANNEL);
+            executor.execute(this::run);
+        }
+    }
+
+    public void stop() {
+        running.set(false);
+        executor.shutdownNow();
+    }
+
+    private void run() {
+        while (running.get()) {
+            try (Connection connection = connectionSource.open()) {
+                listen(connection);
+            } catch (SQLException | RuntimeException e) {
+                connected.set(0);
+                if (running.get()) {
+                    log.warn("Lost LISTEN connection on channel {}, falling back to polling every {}. Reason: {}",
+                             CHANNEL, fallbackPollingInterval, e.getMessage());
+                    fallbackPoll();
+                }
+            }
+        }
+    }
+
+    private void listen(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+        }
+        connected.set(1);
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+
+        // Anything inserted while we were not listening would otherwise wait for the idle poll
+        wake();
+
+        Instant lastEviction = Instant.now();
+        while (running.get()) {
+            PGNotification[] notifications = pgConnection.getNotifications(RECEIVE_TIMEOUT_MILLIS);
+            if (notifications != null) {
+                for (PGNotification notification : notifications) {
+                    handle(notification.getParameter());
+                }
+            }
+            if (Instant.now().isAfter(lastEviction.plus(fallbackPollingInterval))) {
+                wakeups.evictOlderThan(fallbackPollingInterval);
+                lastEviction = Instant.now();
+            }
+        }
+    }
+
+    void handle(String payload) {
+        String[] parts = payload == null ? new String[0] : payload.split("\\|", 3);
+        Instant executionTime = parts.length < 3 ? null : executionTime(parts[0]);
+        if (executionTime == null) {
+            log.debug("Ignoring malformed {} payload: {}", CHANNEL, payload);
+            wake();
+            return;
+        }
+
+        String taskName = parts[1];
+        wakeups.wakeupReceived(taskName, parts[2], executionTime);
+
+        long delayMillis = Duration.between(Instant.now(), executionTime).toMillis();
+        if (delayMillis > 0) {
+            executor.schedule(() -> wake(taskName), delayMillis, TimeUnit.MILLISECONDS);
+        } else {
+            wake(taskName);
+        }
+    }
+
+    private static Instant executionTime(String epochMillis) {
+        try {
+            return Instant.ofEpochMilli(Long.parseLong(epochMillis));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void fallbackPoll() {
+        meterRegistry.counter("scheduler.wakeup.fallback.polls").increment();
+        wake();
+        try {
+            Thread.sleep(fallbackPollingInterval.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running.set(false);
+        }
+    }
+
+    private void wake() {
+        lanes.triggerCheckForDueExecutions();
+    }
+
+    private void wake(String taskName) {
+        lanes.triggerCheckForDueExecutions(taskName);
+    }
+
+    /**
+     * Opens the dedicated listener connection.
+     */
+    @FunctionalInterface
+    interface ConnectionSource {
+        Connection open() throws SQLException;
+    }
+}
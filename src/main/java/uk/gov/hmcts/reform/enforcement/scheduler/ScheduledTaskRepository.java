@@ -0,0 +1,335 @@
+package uk.gov.hmcts.reform.enforcement.scheduler;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Set-based access to the db-scheduler {@code scheduled_tasks} table for the cases where going through
+ * {@code SchedulerClient} one instance at a time is too expensive.
+ * Rows claimed here follow the same picked/version protocol as db-scheduler itself, so both can work on
+ * the same table concurrently.
+ */
+@Repository
+public class ScheduledTaskRepository {
+
+    private static final String INSERT = """
+        INSERT INTO scheduled_tasks (task_name, task_instance, task_data, execution_time, picked,
+                                     consecutive_failures, version, priority)
+        VALUES (?, ?, ?, ?, false, 0, 1, ?)
+        ON CONFLICT (task_name, task_instance) DO NOTHING
+        """;
+
+    private static final String CLAIM_DUE = """
+        UPDATE scheduled_tasks st
+        SET picked = true, picked_by = ?, last_heartbeat = ?, version = st.version + 1
+        FROM (
+            SELECT task_name, task_instance
+            FROM scheduled_tasks
+            WHERE task_name = ? AND picked = false AND execution_time <= ?
+            ORDER BY priority DESC, execution_time
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+        ) due
+        WHERE st.task_name = due.task_name AND st.task_instance = due.task_instance
+        RETURNING st.task_instance, st.task_data, st.consecutive_failures, st.version
+        """;
+
+    private static final String REPLACE = """
+        UPDATE scheduled_tasks
+        SET task_name = ?, task_data = ?, execution_time = ?, priority = ?, picked = false, picked_by = NULL,
+            last_heartbeat = NULL, last_success = ?, consecutive_failures = 0, version = version + 1
+        WHERE task_name = ? AND task_instance = ? AND version = ?
+        """;
+
+    private static final String RETRY = """
+        UPDATE scheduled_tasks
+        SET execution_time = ?, picked = false, picked_by = NULL, last_heartbeat = NULL,
+            last_failure = ?, consecutive_failures = ?, version = version + 1
+        WHERE task_name = ? AND task_instance = ? AND version = ?
+        """;
+
+    private static final String REMOVE = """
+        DELETE FROM scheduled_tasks WHERE task_name = ? AND task_instance = ? AND version = ?
+        """;
+
+    private static final String CANCEL_UNPICKED = """
+        DELETE FROM scheduled_tasks WHERE task_name = ? AND task_instance = ? AND picked = false
+        """;
+
+    private static final String WAKE = """
+        UPDATE scheduled_tasks SET execution_time = ?, version = version + 1
+        WHERE task_name = ? AND task_instance = ? AND picked = false
+        """;
+
+    private static final String EXISTS = """
+        SELECT count(*) FROM scheduled_tasks WHERE task_name = ? AND task_instance = ?
+        """;
+
+    private static final String POSTPONE_DUE = """
+        UPDATE scheduled_tasks
+        SET execution_time = ? + random() * ? * INTERVAL '1 millisecond', version = version + 1
+        WHERE task_name IN (%s) AND picked = false AND execution_time < ?
+        """;
+
+    private static final String AGE_WAITING = """
+        UPDATE scheduled_tasks
+        SET priority = LEAST(priority + ?, ?)
+        WHERE picked = false AND execution_time < ? AND priority >= ? AND priority < ?
+        """;
+
+    private static final String COUNT_DUE_BY_PRIORITY = """
+        SELECT priority, count(*) AS due
+        FROM scheduled_tasks
+        WHERE picked = false AND execution_time <= ?
+        GROUP BY priority
+        """;
+
+    private static final String COUNT_DUE = """
+        SELECT count(*) FROM (
+            SELECT 1 FROM scheduled_tasks
+            WHERE picked = false AND execution_time <= ? AND priority >= ?
+            LIMIT ?
+        ) due
+        """;
+
+    private static final String OLDEST_DUE = """
+        SELECT min(execution_time) FROM scheduled_tasks
+        WHERE picked = false AND execution_time <= ? AND priority >= ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ScheduledTaskRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Schedules new task instances in one JDBC batch. An instance that already exists is left as it is, like
+     * {@code SchedulerClient.scheduleIfNotExists}, so a retried insert with the same instance ids adds nothing.
+     */
+    public void insertAll(List<NewTask> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT, tasks, tasks.size(), (ps, task) -> {
+            ps.setString(1, task.taskName());
+            ps.setString(2, task.taskInstance());
+            ps.setBytes(3, task.taskData());
+            ps.setTimestamp(4, Timestamp.from(task.executionTime()));
+            ps.setInt(5, task.priority());
+        });
+    }
+
+    /**
+     * Claims up to {@code limit} due, unpicked instances of a task in one statement, highest priority first.
+     * Rows locked by a concurrent claim are skipped rather than waited for.
+     */
+    public List<ClaimedTask> claimDue(String taskName, int limit, String pickedBy, Instant now) {
+        return jdbcTemplate.query(
+            CLAIM_DUE,
+            (rs, rowNum) -> new ClaimedTask(
+                taskName,
+                rs.getString("task_instance"),
+                rs.getBytes("task_data"),
+                rs.getInt("consecutive_failures"),
+                rs.getLong("version")
+            ),
+            pickedBy,
+            Timestamp.from(now),
+            taskName,
+            Timestamp.from(now),
+            limit
+        );
+    }
+
+    /**
+     * Replaces claimed instances with a new task (same instance id) in one JDBC batch.
+     *
+     * @return the instances left as they are because they were no longer held at the claimed version, e.g.
+     *     because their execution was declared dead and claimed again
+     */
+    public List<ClaimedTask> replaceAll(List<Replacement> replacements, Instant now) {
+        if (replacements.isEmpty()) {
+            return List.of();
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(REPLACE, replacements, replacements.size(), (ps, replacement) -> {
+            ps.setString(1, replacement.newTaskName());
+            ps.setBytes(2, replacement.newTaskData());
+            ps.setTimestamp(3, Timestamp.from(replacement.executionTime()));
+            ps.setInt(4, replacement.priority());
+            ps.setTimestamp(5, Timestamp.from(now));
+            ps.setString(6, replacement.claimed().taskName());
+            ps.setString(7, replacement.claimed().taskInstance());
+            ps.setLong(8, replacement.claimed().version());
+        });
+        return lost(replacements.stream().map(Replacement::claimed).toList(), counts);
+    }
+
+    /**
+     * Releases claimed instances for a later retry in one JDBC batch.
+     *
+     * @return the instances left as they are because they were no longer held at the claimed version
+     */
+    public List<ClaimedTask> retryAll(List<Retry> retries, Instant now) {
+        if (retries.isEmpty()) {
+            return List.of();
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(RETRY, retries, retries.size(), (ps, retry) -> {
+            ps.setTimestamp(1, Timestamp.from(retry.executionTime()));
+            ps.setTimestamp(2, Timestamp.from(now));
+            ps.setInt(3, retry.claimed().consecutiveFailures() + 1);
+            ps.setString(4, retry.claimed().taskName());
+            ps.setString(5, retry.claimed().taskInstance());
+            ps.setLong(6, retry.claimed().version());
+        });
+        return lost(retries.stream().map(Retry::claimed).toList(), counts);
+    }
+
+    /**
+     * Removes claimed instances in one JDBC batch.
+     *
+     * @return the instances left as they are because they were no longer held at the claimed version
+     */
+    public List<ClaimedTask> removeAll(List<ClaimedTask> claimed) {
+        if (claimed.isEmpty()) {
+            return List.of();
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(REMOVE, claimed, claimed.size(), (ps, task) -> {
+            ps.setString(1, task.taskName());
+            ps.setString(2, task.taskInstance());
+            ps.setLong(3, task.version());
+        });
+        return lost(claimed, counts);
+    }
+
+    /**
+     * Deletes an instance that is not currently executing.
+     *
+     * @return whether an instance was deleted
+     */
+    public boolean cancelUnpicked(String taskName, String taskInstance) {
+        return jdbcTemplate.update(CANCEL_UNPICKED, taskName, taskInstance) > 0;
+    }
+
+    /**
+     * Makes an instance due at {@code at}. An instance that is currently executing is left as it is. On
+     * Postgres moving an instance forward announces it on {@code scheduled_tasks_due}, like an insert.
+     *
+     * @return whether an unpicked instance was made due
+     */
+    public boolean wake(String taskName, String taskInstance, Instant at) {
+        return jdbcTemplate.update(WAKE, Timestamp.from(at), taskName, taskInstance) > 0;
+    }
+
+    /**
+     * Whether an instance exists, picked or not.
+     */
+    public boolean exists(String taskName, String taskInstance) {
+        Long existing = jdbcTemplate.queryForObject(EXISTS, Long.class, taskName, taskInstance);
+        return existing != null && existing > 0;
+    }
+
+    /**
+     * Moves every unpicked instance of the given tasks that would run before {@code until} to a random time
+     * between {@code until} and {@code until + spread}, in one statement.
+     *
+     * @return the number of instances moved
+     */
+    public int postponeDue(List<String> taskNames, Instant until, Duration spread) {
+        if (taskNames.isEmpty()) {
+            return 0;
+        }
+        String sql = POSTPONE_DUE.formatted(String.join(", ", Collections.nCopies(taskNames.size(), "?")));
+        List<Object> args = new ArrayList<>();
+        args.add(Timestamp.from(until));
+        args.add(spread.toMillis());
+        args.addAll(taskNames);
+        args.add(Timestamp.from(until));
+        return jdbcTemplate.update(sql, args.toArray());
+    }
+
+    /**
+     * Raises the priority of every unpicked instance in {@code [floor, ceiling)} that has been due since before
+     * {@code dueBefore} by {@code step}, up to {@code ceiling}, in one statement. Repeated runs let long-waiting
+     * low priority work climb past newer high priority work instead of waiting behind it indefinitely.
+     * The version is left alone: only the pick order changes, so a poller that read the row can still claim it.
+     *
+     * @return the number of instances raised
+     */
+    public int ageWaiting(Instant dueBefore, int step, int floor, int ceiling) {
+        return jdbcTemplate.update(AGE_WAITING, step, ceiling, Timestamp.from(dueBefore), floor, ceiling);
+    }
+
+    /**
+     * Counts due, unpicked instances of all tasks by priority.
+     */
+    public Map<Integer, Long> countDueByPriority(Instant now) {
+        Map<Integer, Long> counts = new HashMap<>();
+        jdbcTemplate.query(COUNT_DUE_BY_PRIORITY, rs -> {
+            counts.put(rs.getInt("priority"), rs.getLong("due"));
+        }, Timestamp.from(now));
+        return counts;
+    }
+
+    /**
+     * Counts due, unpicked instances with a priority of at least {@code minPriority}, stopping at {@code limit}
+     * so a deep backlog stays cheap to measure.
+     */
+    public long countDue(Instant now, int minPriority, int limit) {
+        Long due = jdbcTemplate.queryForObject(COUNT_DUE, Long.class, Timestamp.from(now), minPriority, limit);
+        return due != null ? due : 0;
+    }
+
+    /**
+     * The execution time of the longest-waiting due, unpicked instance with a priority of at least
+     * {@code minPriority}, if any.
+     */
+    public Optional<Instant> oldestDue(Instant now, int minPriority) {
+        Timestamp oldest = jdbcTemplate.queryForObject(OLDEST_DUE, Timestamp.class, Timestamp.from(now),
+                                                       minPriority);
+        return Optional.ofNullable(oldest).map(Timestamp::toInstant);
+    }
+
+    /**
+     * The claims whose version-guarded statement matched no row. Counts come back in batch order; a driver
+     * reporting SUCCESS_NO_INFO is taken to have applied the statement.
+     */
+    private static List<ClaimedTask> lost(List<ClaimedTask> claimed, int[][] counts) {
+        List<ClaimedTask> lost = new ArrayList<>();
+        int index = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                if (count == 0) {
+                    lost.add(claimed.get(index));
+                }
+                index++;
+            }
+        }
+        return lost;
+    }
+
+    public record NewTask(String taskName, String taskInstance, byte[] taskData, Instant executionTime,
+                          int priority) {
+    }
+
+    public record ClaimedTask(String taskName, String taskInstance, byte[] taskData,
+                              int consecutiveFailures, long version) {
+    }
+
+    public record Replacement(ClaimedTask claimed, String newTaskName, byte[] newTaskData, Instant executionTime,
+                              int priority) {
+    }
+
+    public record Retry(ClaimedTask claimed, Instant executionTime) {
+    }
+}
@@ -0,0 +1,89 @@
+package uk.gov.hmcts.reform.enforcement.scheduler;
+
+import com.github.kagkarlsson.scheduler.event.ExecutionChain;
+import com.github.kagkarlsson.scheduler.event.ExecutionInterceptor;
+import com.github.kagkarlsson.scheduler.task.CompletionHandler;
+import com.github.kagkarlsson.scheduler.task.ExecutionContext;
+import com.github.kagkarlsson.scheduler.task.TaskInstance;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of task instances announced on the {@code scheduled_tasks_due} channel and records how long
+ * it took from the wakeup until the scheduler actually started executing them.
+ * Only executions picked by this node are measured; announcements picked elsewhere are evicted by age.
+ */
+@Component
+@ConditionalOnProperty(prefix = "db-scheduler.listen-notify", name = "enabled", havingValue = "true")
+public class ScheduledTaskWakeups implements ExecutionInterceptor {
+
+    static final int MAX_TRACKED_WAKEUPS = 10_000;
+
+    private final Map<String, Instant> pendingWakeups = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+
+    public ScheduledTaskWakeups(MeterRegistry meterRegistry) {
+        this(meterRegistry, Clock.systemUTC());
+    }
+
+    ScheduledTaskWakeups(MeterRegistry meterRegistry, Clock clock) {
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+    }
+
+    /**
+     * Records that a task instance has been announced as due.
+     *
+     * @param taskName the task name from the notification payload
+     * @param taskInstance the task instance id from the notification payload
+     * @param executionTime the execution time of the task instance
+     */
+    public void wakeupReceived(String taskName, String taskInstance, Instant executionTime) {
+        if (pendingWakeups.size() >= MAX_TRACKED_WAKEUPS) {
+            evictOlderThan(Duration.ofMinutes(1));
+        }
+        Instant now = clock.instant();
+        pendingWakeups.put(key(taskName, taskInstance), executionTime.isAfter(now) ? executionTime : now);
+        meterRegistry.counter("scheduler.wakeup.received", "task", taskName).increment();
+    }
+
+    /**
+     * Drops announcements that were never picked up by this node, typically because another node claimed them.
+     */
+    public void evictOlderThan(Duration age) {
+        Instant cutoff = clock.instant().minus(age);
+        pendingWakeups.values().removeIf(wakeup -> wakeup.isBefore(cutoff));
+    }
+
+    int pendingCount() {
+        return pendingWakeups.size();
+    }
+
+    @Override
+    public CompletionHandler<?> execute(TaskInstance<?> taskInstance,
+                                        ExecutionContext executionContext,
+                                        ExecutionChain chain) {
+        Instant wokenAt = pendingWakeups.remove(key(taskInstance.getTaskName(), taskInstance.getId()));
+        if (wokenAt != null) {
+            Timer.builder("scheduler.wakeup.pick.latency")
+                .description("Time from a scheduled_tasks notification until the task started executing")
+                .tag("task", taskInstance.getTaskName())
+                .register(meterRegistry)
+                .record(Duration.between(wokenAt, clock.instant()));
+        }
+        return chain.proceed(taskInstance, executionContext);
+    }
+
+    private static String key(String taskName, String taskInstance) {
+        return taskName + "|" + taskInstance;
+    }
+}
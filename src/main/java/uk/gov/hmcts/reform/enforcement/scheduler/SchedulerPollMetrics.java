@@ -0,0 +1,28 @@
+package uk.gov.hmcts.reform.enforcement.scheduler;
+
+import com.github.kagkarlsson.scheduler.event.AbstractSchedulerListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Counts what happens to every due execution a scheduler polls, as {@code scheduler.poll.candidates} by
+ * outcome: executed, already picked by another node, or stale (changed since it was fetched). The share of
+ * already_picked and stale is the claim conflict rate between executor pods.
+ */
+@Component
+public class SchedulerPollMetrics extends AbstractSchedulerListener {
+
+    private final MeterRegistry meterRegistry;
+
+    public SchedulerPollMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void onCandidateEvent(CandidateEventType eventType) {
+        meterRegistry.counter("scheduler.poll.candidates", "outcome", eventType.name().toLowerCase(Locale.ROOT))
+            .increment();
+    }
+}
@@ -0,0 +1,133 @@
+package uk.gov.hmcts.reform.enforcement.scheduler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.kagkarlsson.scheduler.serializer.JavaSerializer;
+import com.github.kagkarlsson.scheduler.serializer.Serializer;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Task data serializer writing JSON through the application {@link ObjectMapper}, gzipped above a size
+ * threshold. Every payload starts with a one byte schema version and a one byte encoding, so the format can
+ * change without breaking rows already in scheduled_tasks.
+ * Rows written by {@link JavaSerializer} start with the Java serialization stream magic and are still read,
+ * so existing tasks keep working while they drain. Payload size and serialization time are recorded per
+ * format to compare against Java serialization.
+ */
+public class TaskDataSerializer implements Serializer {
+
+    static final byte SCHEMA_VERSION = 1;
+    static final byte ENCODING_JSON = 0;
+    static final byte ENCODING_GZIP_JSON = 1;
+
+    private static final int HEADER_LENGTH = 2;
+    private static final byte JAVA_STREAM_MAGIC = (byte) 0xAC;
+
+    private final ObjectMapper objectMapper;
+    private final JavaSerializer javaSerializer = new JavaSerializer();
+    private final int compressionThreshold;
+    private final MeterRegistry meterRegistry;
+
+    public TaskDataSerializer(ObjectMapper objectMapper, int compressionThreshold, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.compressionThreshold = compressionThreshold;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public byte[] serialize(Object data) {
+        if (data == null) {
+            return null;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize task data of type " + data.getClass().getName(), e);
+        }
+
+        byte[] compressed = json.length > compressionThreshold ? gzip(json) : null;
+        boolean compress = compressed != null && compressed.length < json.length;
+        byte[] body = compress ? compressed : json;
+        byte[] serialized = new byte[HEADER_LENGTH + body.length];
+        serialized[0] = SCHEMA_VERSION;
+        serialized[1] = compress ? ENCODING_GZIP_JSON : ENCODING_JSON;
+        System.arraycopy(body, 0, serialized, HEADER_LENGTH, body.length);
+
+        String format = compress ? "json-gzip" : "json";
+        sample.stop(timer("serialize", format));
+        size(format).record(serialized.length);
+        return serialized;
+    }
+
+    @Override
+    public <T> T deserialize(Class<T> clazz, byte[] serializedData) {
+        if (serializedData == null) {
+            return null;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        if (serializedData.length > 0 && serializedData[0] == JAVA_STREAM_MAGIC) {
+            T data = javaSerializer.deserialize(clazz, serializedData);
+            sample.stop(timer("deserialize", "java"));
+            size("java").record(serializedData.length);
+            return data;
+        }
+        if (serializedData.length < HEADER_LENGTH || serializedData[0] != SCHEMA_VERSION) {
+            throw new IllegalArgumentException("Unsupported task data schema version: "
+                                                   + (serializedData.length == 0 ? "empty" : serializedData[0]));
+        }
+
+        byte encoding = serializedData[1];
+        try (InputStream body = body(encoding, serializedData)) {
+            T data = objectMapper.readValue(body, clazz);
+            sample.stop(timer("deserialize", encoding == ENCODING_GZIP_JSON ? "json-gzip" : "json"));
+            return data;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to deserialize task data as " + clazz.getName(), e);
+        }
+    }
+
+    private static InputStream body(byte encoding, byte[] serializedData) throws IOException {
+        InputStream body = new ByteArrayInputStream(
+            serializedData, HEADER_LENGTH, serializedData.length - HEADER_LENGTH);
+        return switch (encoding) {
+            case ENCODING_JSON -> body;
+            case ENCODING_GZIP_JSON -> new GZIPInputStream(body);
+            default -> throw new IllegalArgumentException("Unsupported task data encoding: " + encoding);
+        };
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private Timer timer(String operation, String format) {
+        return Timer.builder("scheduler.task-data.serialization")
+            .tag("operation", operation)
+            .tag("format", format)
+            .register(meterRegistry);
+    }
+
+    private DistributionSummary size(String format) {
+        return DistributionSummary.builder("scheduler.task-data.size")
+            .baseUnit("bytes")
+            .tag("format", format)
+            .register(meterRegistry);
+    }
+}
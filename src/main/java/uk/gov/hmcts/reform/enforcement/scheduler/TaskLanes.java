@@ -0,0 +1,92 @@
+package uk.gov.hmcts.reform.enforcement.scheduler;
+
+import com.github.kagkarlsson.scheduler.Scheduler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The executing schedulers, one per lane. Each lane runs only its own tasks with its own thread budget and
+ * polling limits, so a backlog in one lane (e.g. tens of thousands of due verifies) cannot hold the threads
+ * another lane needs. Lanes share {@code scheduled_tasks}; a scheduler leaves rows of tasks it does not run
+ * to the lane that does, and never deletes them as unresolved.
+ * In sharded mode every shard has its own set of lanes; wakeups only go to the primary shard's lanes, as only
+ * the application database announces inserts.
+ * Reports {@code scheduler.lane.executing} and {@code scheduler.lane.saturation} (executing over capacity)
+ * per shard and lane.
+ */
+@Slf4j
+public class TaskLanes {
+
+    public static final String DEFAULT_LANE = "default";
+
+    /**
+     * How long a lane sharing its table with other lanes keeps rows of tasks it cannot resolve before deleting
+     * them. Those rows belong to the other lanes, so db-scheduler's default of 14 days must never be reached.
+     */
+    public static final Duration SHARED_TABLE_DELETE_UNRESOLVED_AFTER = Duration.ofDays(365L * 100);
+
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+    private final Map<String, Lane> laneByTask = new HashMap<>();
+
+    public TaskLanes(List<Lane> lanes, MeterRegistry meterRegistry) {
+        for (Lane lane : lanes) {
+            this.lanes.put(lane.shard() + "/" + lane.name(), lane);
+            if (TaskShards.PRIMARY_SHARD.equals(lane.shard())) {
+                lane.taskNames().forEach(taskName -> laneByTask.put(taskName, lane));
+            }
+            Gauge.builder("scheduler.lane.executing", lane, TaskLanes::executing)
+                .tag("shard", lane.shard())
+                .tag("lane", lane.name())
+                .register(meterRegistry);
+            Gauge.builder("scheduler.lane.saturation", lane, l -> (double) executing(l) / l.capacity())
+                .tag("shard", lane.shard())
+                .tag("lane", lane.name())
+                .register(meterRegistry);
+        }
+        if (!this.lanes.containsKey(TaskShards.PRIMARY_SHARD + "/" + DEFAULT_LANE)) {
+            throw new IllegalArgumentException("No " + DEFAULT_LANE + " lane");
+        }
+    }
+
+    public void start() {
+        lanes.values().forEach(lane -> {
+            log.info("Starting scheduler lane {} on shard {} with {} executions for {}", lane.name(), lane.shard(),
+                     lane.capacity(), lane.taskNames());
+            lane.scheduler().start();
+        });
+    }
+
+    public void stop() {
+        lanes.values().forEach(lane -> lane.scheduler().stop());
+    }
+
+    /**
+     * Wakes the primary shard lane that runs {@code taskName}; tasks not assigned to a lane run in the default lane.
+     */
+    public void triggerCheckForDueExecutions(String taskName) {
+        laneByTask.getOrDefault(taskName, lanes.get(TaskShards.PRIMARY_SHARD + "/" + DEFAULT_LANE))
+            .scheduler().triggerCheckForDueExecutions();
+    }
+
+    /**
+     * Wakes every lane.
+     */
+    public void triggerCheckForDueExecutions() {
+        lanes.values().forEach(lane -> lane.scheduler().triggerCheckForDueExecutions());
+    }
+
+    private static int executing(Lane lane) {
+        return lane.scheduler().getCurrentlyExecuting().size();
+    }
+
+    public record Lane(String shard, String name, Scheduler scheduler, int capacity, Set<String> taskNames) {
+    }
+}
@@ -0,0 +1,179 @@
+package uk.gov.hmcts.reform.enforcement.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskShards.Shard;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves unpicked instances of sharded tasks to the shard they now hash to, e.g. after a shard was added.
+ * Each source shard is walked in pages locked with {@code FOR UPDATE SKIP LOCKED}; misplaced rows are copied
+ * to their target (ignoring rows already there), every column as it is, NULLs included, and deleted from the
+ * source before the page is committed.
+ * Executing and locked rows are left for a later run. The copy and the delete commit on different databases,
+ * so a failure between the two leaves the instance on both shards until the source copy runs.
+ */
+@Slf4j
+public class TaskShardRebalancer {
+
+    private static final String LOCK_PAGE = """
+        SELECT task_name, task_instance, task_data, execution_time, picked, picked_by, last_success, last_failure,
+               consecutive_failures, last_heartbeat, version, priority
+        FROM scheduled_tasks
+        WHERE task_name IN (%s) AND picked = false AND (task_name, task_instance) > (?, ?)
+        ORDER BY task_name, task_instance
+        LIMIT ?
+        FOR UPDATE SKIP LOCKED
+        """;
+
+    private static final String COPY = """
+        INSERT INTO scheduled_tasks (task_name, task_instance, task_data, execution_time, picked, picked_by,
+                                     last_success, last_failure, consecutive_failures, last_heartbeat, version,
+                                     priority)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        ON CONFLICT (task_name, task_instance) DO NOTHING
+        """;
+
+    private static final String DELETE = """
+        DELETE FROM scheduled_tasks WHERE task_name = ? AND task_instance = ? AND picked = false
+        """;
+
+    private static final String COUNT = """
+        SELECT count(*) FROM scheduled_tasks WHERE task_name IN (%s)
+        """;
+
+    private final TaskShards taskShards;
+
+    public TaskShardRebalancer(TaskShards taskShards) {
+        this.taskShards = taskShards;
+    }
+
+    /**
+     * Instances of sharded tasks on each shard.
+     */
+    public Map<String, Long> distribution() {
+        List<String> taskNames = List.copyOf(taskShards.shardedTasks());
+        Map<String, Long> distribution = new LinkedHashMap<>();
+        for (Shard shard : taskShards.shards()) {
+            distribution.put(shard.name(), new JdbcTemplate(shard.dataSource())
+                .queryForObject(COUNT.formatted(placeholders(taskNames)), Long.class, taskNames.toArray()));
+        }
+        return distribution;
+    }
+
+    /**
+     * Moves misplaced instances, {@code pageSize} rows of a shard at a time.
+     *
+     * @return the number of instances moved off each shard
+     */
+    public Map<String, Integer> rebalance(int pageSize) {
+        Map<String, Integer> moved = new LinkedHashMap<>();
+        for (Shard source : taskShards.shards()) {
+            int movedFromSource = rebalanceFrom(source, pageSize);
+            moved.put(source.name(), movedFromSource);
+            log.info("Moved {} task instances off shard {}", movedFromSource, source.name());
+        }
+        return moved;
+    }
+
+    private int rebalanceFrom(Shard source, int pageSize) {
+        JdbcTemplate sourceJdbc = new JdbcTemplate(source.dataSource());
+        TransactionTemplate sourceTransaction = new TransactionTemplate(
+            new DataSourceTransactionManager(source.dataSource()));
+        List<String> taskNames = List.copyOf(taskShards.shardedTasks());
+        String lockPage = LOCK_PAGE.formatted(placeholders(taskNames));
+
+        int moved = 0;
+        String[] after = {"", ""};
+        boolean more = true;
+        while (more) {
+            Integer movedInPage = sourceTransaction.execute(status -> {
+                List<Object> args = new ArrayList<>(taskNames);
+                args.add(after[0]);
+                args.add(after[1]);
+                args.add(pageSize);
+                List<Row> page = sourceJdbc.query(lockPage, (rs, rowNum) -> new Row(
+                    rs.getString("task_name"),
+                    rs.getString("task_instance"),
+                    rs.getBytes("task_data"),
+                    rs.getTimestamp("execution_time"),
+                    rs.getBoolean("picked"),
+                    rs.getString("picked_by"),
+                    rs.getTimestamp("last_success"),
+                    rs.getTimestamp("last_failure"),
+                    rs.getObject("consecutive_failures", Integer.class),
+                    rs.getTimestamp("last_heartbeat"),
+                    rs.getLong("version"),
+                    rs.getObject("priority", Integer.class)
+                ), args.toArray());
+                if (page.isEmpty()) {
+                    return -1;
+                }
+                Row last = page.getLast();
+                after[0] = last.taskName();
+                after[1] = last.taskInstance();
+
+                Map<Shard, List<Row>> misplaced = new LinkedHashMap<>();
+                for (Row row : page) {
+                    Shard target = taskShards.shardFor(row.taskName(), row.taskInstance());
+                    if (!target.name().equals(source.name())) {
+                        misplaced.computeIfAbsent(target, shard -> new ArrayList<>()).add(row);
+                    }
+                }
+                misplaced.forEach(TaskShardRebalancer::copy);
+                List<Row> moving = misplaced.values().stream().flatMap(List::stream).toList();
+                if (!moving.isEmpty()) {
+                    sourceJdbc.batchUpdate(DELETE, moving, moving.size(), (ps, row) -> {
+                        ps.setString(1, row.taskName());
+                        ps.setString(2, row.taskInstance());
+                    });
+                }
+                return moving.size();
+            });
+            if (movedInPage == null || movedInPage < 0) {
+                more = false;
+            } else {
+                moved += movedInPage;
+            }
+        }
+        return moved;
+    }
+
+    private static void copy(Shard target, List<Row> rows) {
+        new JdbcTemplate(target.dataSource()).batchUpdate(COPY, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.taskName());
+            ps.setString(2, row.taskInstance());
+            ps.setBytes(3, row.taskData());
+            ps.setTimestamp(4, row.executionTime());
+            ps.setBoolean(5, row.picked());
+            ps.setString(6, row.pickedBy());
+            ps.setTimestamp(7, row.lastSuccess());
+            ps.setTimestamp(8, row.lastFailure());
+            ps.setObject(9, row.consecutiveFailures(), Types.INTEGER);
+            ps.setTimestamp(10, row.lastHeartbeat());
+            ps.setLong(11, row.version());
+            ps.setObject(12, row.priority(), Types.SMALLINT);
+        });
+    }
+
+    private static String placeholders(List<String> values) {
+        return String.join(", ", Collections.nCopies(values.size(), "?"));
+    }
+
+    /**
+     * A scheduled_tasks row, every column as read; nullable columns stay null.
+     */
+    private record Row(String taskName, String taskInstance, byte[] taskData, Timestamp executionTime,
+                       boolean picked, String pickedBy, Timestamp lastSuccess, Timestamp lastFailure,
+                       Integer consecutiveFailures, Timestamp lastHeartbeat, long version, Integer priority) {
+    }
+}
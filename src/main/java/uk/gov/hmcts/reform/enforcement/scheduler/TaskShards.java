@@ -0,0 +1,130 @@
+package uk.gov.hmcts.reform.enforcement.scheduler;
+
+import com.github.kagkarlsson.scheduler.SchedulerClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The databases holding {@code scheduled_tasks}. Without sharding there is only the primary shard, the
+ * application database. With sharding, instances of the sharded tasks are placed by rendezvous hashing of
+ * the instance id over every shard, so the same instance always lands on the same shard, and adding a
+ * shard only moves the instances that now belong to it (see {@link TaskShardRebalancer}).
+ */
+@Slf4j
+public class TaskShards implements Closeable {
+
+    public static final String PRIMARY_SHARD = "primary";
+
+    private final List<Shard> shards;
+    private final Set<String> shardedTasks;
+
+    public TaskShards(List<Shard> shards, Set<String> shardedTasks) {
+        if (shards.isEmpty() || !PRIMARY_SHARD.equals(shards.getFirst().name())) {
+            throw new IllegalArgumentException("The first shard must be the " + PRIMARY_SHARD + " shard");
+        }
+        this.shards = List.copyOf(shards);
+        this.shardedTasks = Set.copyOf(shardedTasks);
+    }
+
+    public List<Shard> shards() {
+        return shards;
+    }
+
+    public Set<String> shardedTasks() {
+        return shardedTasks;
+    }
+
+    public Shard primary() {
+        return shards.getFirst();
+    }
+
+    /**
+     * The shard an instance of {@code taskName} belongs on; the primary shard for tasks that are not sharded.
+     */
+    public Shard shardFor(String taskName, String taskInstance) {
+        if (shards.size() == 1 || !shardedTasks.contains(taskName)) {
+            return primary();
+        }
+        Shard owner = null;
+        long ownerScore = 0;
+        for (Shard shard : shards) {
+            long score = score(shard.name(), taskInstance);
+            if (owner == null || score > ownerScore) {
+                owner = shard;
+                ownerScore = score;
+            }
+        }
+        return owner;
+    }
+
+    public SchedulerClient clientFor(String taskName, String taskInstance) {
+        return shardFor(taskName, taskInstance).client();
+    }
+
+    public ScheduledTaskRepository tasksFor(String taskName, String taskInstance) {
+        return shardFor(taskName, taskInstance).tasks();
+    }
+
+    /**
+     * Runs a write to {@code shard} in step with the current transaction. Writes to the primary shard join the
+     * transaction and run straight away. Writes to any other shard cannot join it, so they run once it has
+     * committed: a task there never comes due before the rows it refers to are visible, and a rollback never
+     * leaves one behind. Without an active transaction the write runs straight away.
+     */
+    public void write(Shard shard, Runnable write) {
+        if (shard == primary() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            write.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    write.run();
+                } catch (RuntimeException e) {
+                    log.error("Write to shard {} failed after the transaction committed", shard.name(), e);
+                    throw e;
+                }
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        for (Shard shard : shards.subList(1, shards.size())) {
+            if (shard.dataSource() instanceof Closeable closeable) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    log.warn("Failed to close data source of shard {}", shard.name(), e);
+                }
+            }
+        }
+    }
+
+    private static long score(String shardName, String taskInstance) {
+        byte[] key = (shardName + ':' + taskInstance).getBytes(StandardCharsets.UTF_8);
+        return UUID.nameUUIDFromBytes(key).getMostSignificantBits();
+    }
+
+    /**
+     * A database holding {@code scheduled_tasks}, with the scheduler client and the set-based repository
+     * writing to it.
+     */
+    public record Shard(String name, DataSource dataSource, SchedulerClient client, ScheduledTaskRepository tasks) {
+
+        public Shard(String name, DataSource dataSource, SchedulerClient client) {
+            this(name, dataSource, client, new ScheduledTaskRepository(new JdbcTemplate(dataSource)));
+        }
+    }
+}
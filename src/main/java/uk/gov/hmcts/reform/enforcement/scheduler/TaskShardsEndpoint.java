@@ -0,0 +1,38 @@
+package uk.gov.hmcts.reform.enforcement.scheduler;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Operator access to the sharded scheduler mode: {@code GET /taskshards} shows how many instances of sharded
+ * tasks each shard holds, {@code POST /taskshards} moves misplaced instances after shards were added.
+ */
+@Component
+@Endpoint(id = "taskshards")
+@ConditionalOnProperty(prefix = "db-scheduler.sharding", name = "enabled", havingValue = "true")
+public class TaskShardsEndpoint {
+
+    private static final int DEFAULT_PAGE_SIZE = 500;
+
+    private final TaskShardRebalancer rebalancer;
+
+    public TaskShardsEndpoint(TaskShards taskShards) {
+        this.rebalancer = new TaskShardRebalancer(taskShards);
+    }
+
+    @ReadOperation
+    public Map<String, Long> distribution() {
+        return rebalancer.distribution();
+    }
+
+    @WriteOperation
+    public Map<String, Integer> rebalance(@Nullable Integer pageSize) {
+        return rebalancer.rebalance(pageSize == null ? DEFAULT_PAGE_SIZE : pageSize);
+    }
+}
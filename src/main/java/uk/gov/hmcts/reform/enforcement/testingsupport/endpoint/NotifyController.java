@@ -2,17 +2,28 @@ package uk.gov.hmcts.reform.enforcement.testingsupport.endpoint;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import uk.gov.hmcts.reform.enforcement.notify.exception.IdempotencyKeyReusedException;
+import uk.gov.hmcts.reform.enforcement.notify.model.DeliveryReceipt;
 import uk.gov.hmcts.reform.enforcement.notify.model.EmailNotificationRequest;
 import uk.gov.hmcts.reform.enforcement.notify.model.EmailNotificationResponse;
+import uk.gov.hmcts.reform.enforcement.notify.service.DeliveryReceiptService;
+import uk.gov.hmcts.reform.enforcement.notify.service.NotificationAdmissionControl;
 import uk.gov.hmcts.reform.enforcement.notify.service.NotificationService;
 
+import java.time.Duration;
+import java.util.Optional;
+
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 
 @Slf4j
@@ -22,11 +33,22 @@ import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 public class NotifyController {
 
     private final NotificationService notificationService;
+    private final DeliveryReceiptService deliveryReceiptService;
+    private final NotificationAdmissionControl admissionControl;
 
-    public NotifyController(NotificationService notificationService) {
+    public NotifyController(NotificationService notificationService,
+                            DeliveryReceiptService deliveryReceiptService,
+                            NotificationAdmissionControl admissionControl) {
         this.notificationService = notificationService;
+        this.deliveryReceiptService = deliveryReceiptService;
+        this.admissionControl = admissionControl;
     }
 
+    /**
+     * Schedules one email. Turned away with 429 and a Retry-After while the service is shedding load at the
+     * email's priority, with 409 when its idempotency key was already used for a different email, and with 503
+     * when no database connection could be had in time.
+     */
     @PostMapping(value = "/send-email", consumes = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<EmailNotificationResponse> sendEmail(
         @RequestHeader(value = AUTHORIZATION, defaultValue = "DummyId") String authorisation,
@@ -35,15 +57,59 @@ public class NotifyController {
 
         log.info("Received request to send email to: {}", emailRequest.getEmailAddress());
 
+        Optional<Duration> shed = admissionControl.shed(emailRequest.getPriority());
+        if (shed.isPresent()) {
+            log.warn("Shedding email request, retry after {}", shed.get());
+            return withRetryAfter(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS), shed.get());
+        }
+
         try {
             EmailNotificationResponse response = notificationService.scheduleEmailNotification(emailRequest);
 
             log.info("Email notification scheduled successfully with task ID: {}", response.getTaskId());
             return ResponseEntity.ok().body(response);
 
+        } catch (IdempotencyKeyReusedException e) {
+            log.warn("Rejected email request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
+            if (isDatabaseUnavailable(e)) {
+                log.error("Database unavailable to schedule email notification: {}", e.getMessage());
+                return withRetryAfter(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE),
+                                      admissionControl.getRefreshInterval());
+            }
             log.error("Failed to schedule email notification: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    /**
+     * Stands in for GOV.UK Notify posting a delivery receipt, so tests can drive the callback flow
+     * without a Notify callback configured.
+     */
+    @PostMapping(value = "/delivery-receipt", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> deliveryReceipt(
+        @RequestHeader(value = AUTHORIZATION, defaultValue = "DummyId") String authorisation,
+        @RequestHeader(value = "ServiceAuthorization") String serviceAuthorization,
+        @RequestBody DeliveryReceipt receipt) {
+
+        DeliveryReceiptService.Outcome outcome = deliveryReceiptService.apply(receipt);
+        log.info("Stub delivery receipt {} for Notify notification {}: {}",
+                 receipt.getStatus(), receipt.getId(), outcome);
+        return ResponseEntity.ok(outcome.name());
+    }
+
+    private static <T> ResponseEntity<T> withRetryAfter(ResponseEntity.BodyBuilder response, Duration retryAfter) {
+        return response.header(HttpHeaders.RETRY_AFTER, Long.toString(Math.ceilDiv(retryAfter.toMillis(), 1000)))
+            .build();
+    }
+
+    private static boolean isDatabaseUnavailable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CannotCreateTransactionException || cause instanceof TransientDataAccessException) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
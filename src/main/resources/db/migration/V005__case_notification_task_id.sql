@@ -0,0 +1 @@
+ALTER TABLE case_notification ADD COLUMN task_id VARCHAR(255);
@@ -0,0 +1,19 @@
+CREATE TABLE notification_campaign (
+    campaign_id UUID PRIMARY KEY,
+    template_id VARCHAR(255) NOT NULL,
+    personalisation TEXT,
+    reference VARCHAR(255),
+    email_reply_to_id VARCHAR(255),
+    recipient_count INTEGER NOT NULL,
+    next_index INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    completed_at TIMESTAMP WITH TIME ZONE
+);
+
+CREATE TABLE campaign_recipient (
+    campaign_id UUID NOT NULL REFERENCES notification_campaign (campaign_id) ON DELETE CASCADE,
+    recipient_index INTEGER NOT NULL,
+    email_address VARCHAR(255) NOT NULL,
+    personalisation TEXT,
+    PRIMARY KEY (campaign_id, recipient_index)
+);
@@ -0,0 +1,3 @@
+ALTER TABLE case_notification ADD COLUMN idempotency_key VARCHAR(255);
+
+CREATE UNIQUE INDEX ux_case_notification_idempotency_key ON case_notification(idempotency_key);
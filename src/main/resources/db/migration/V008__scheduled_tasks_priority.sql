@@ -0,0 +1,3 @@
+UPDATE scheduled_tasks
+SET priority = CASE task_name WHEN 'verify-email-task' THEN 10 ELSE 50 END
+WHERE priority IS NULL;
@@ -0,0 +1,13 @@
+ALTER TABLE case_notification ADD COLUMN sequence_key VARCHAR(255);
+ALTER TABLE case_notification ADD COLUMN sequence_number BIGINT;
+
+CREATE INDEX ix_case_notification_sequence ON case_notification(sequence_key, sequence_number)
+    WHERE sequence_key IS NOT NULL;
+
+CREATE SEQUENCE notification_sequence_number;
+
+CREATE TABLE notification_sequence (
+    sequence_key VARCHAR(255) PRIMARY KEY,
+    head BIGINT NOT NULL,
+    tail BIGINT NOT NULL
+);
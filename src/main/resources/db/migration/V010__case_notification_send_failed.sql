@@ -0,0 +1,5 @@
+-- failures of our own send attempts were recorded with Notify's failure statuses; Notify never saw these
+UPDATE case_notification
+SET status = 'SEND_FAILED'
+WHERE status IN ('TEMPORARY_FAILURE', 'TECHNICAL_FAILURE')
+  AND provider_notification_id IS NULL;
@@ -0,0 +1 @@
+ALTER TABLE case_notification ADD COLUMN request_hash VARCHAR(64);
@@ -0,0 +1,2 @@
+-- the bulk verifier looks for notifications it has not resolved by when they were submitted
+CREATE INDEX idx_case_notification_submitted_at ON case_notification(submitted_at);
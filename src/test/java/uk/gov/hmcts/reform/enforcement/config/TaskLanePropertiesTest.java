@@ -0,0 +1,66 @@
+package uk.gov.hmcts.reform.enforcement.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskLanePropertiesTest {
+
+    @Test
+    void shouldAssignListedTasksToTheirLaneAndTheRestToDefault() {
+        TaskLaneProperties properties = new TaskLaneProperties();
+        properties.getLanes().put("verify", lane("verify-email-task"));
+
+        assertThat(properties.laneOf("verify-email-task")).isEqualTo("verify");
+        assertThat(properties.laneOf("send-email-task")).isEqualTo("default");
+    }
+
+    @Test
+    void shouldRejectTaskListedInTwoLanes() {
+        TaskLaneProperties properties = new TaskLaneProperties();
+        properties.getLanes().put("verify", lane("verify-email-task"));
+        properties.getLanes().put("slow", lane("verify-email-task"));
+
+        assertThatThrownBy(() -> properties.laneOf("verify-email-task"))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldRejectLockAndFetchOnATableSharedWithOtherLanes() {
+        Map<String, TaskLaneProperties.Lane> shardLanes = new LinkedHashMap<>();
+        shardLanes.put("default", lane(TaskLaneProperties.PollingStrategy.FETCH));
+        shardLanes.put("verify", lane(TaskLaneProperties.PollingStrategy.LOCK_AND_FETCH));
+
+        assertThatThrownBy(() -> TaskLaneProperties.checkSharedTable("primary", shardLanes))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("[verify]");
+    }
+
+    @Test
+    void shouldAllowLockAndFetchOnATableALaneHasToItself() {
+        Map<String, TaskLaneProperties.Lane> shardLanes = Map.of(
+            "default", lane(TaskLaneProperties.PollingStrategy.LOCK_AND_FETCH));
+
+        assertThatCode(() -> TaskLaneProperties.checkSharedTable("a", shardLanes)).doesNotThrowAnyException();
+    }
+
+    private static TaskLaneProperties.Lane lane(TaskLaneProperties.PollingStrategy strategy) {
+        TaskLaneProperties.Polling polling = new TaskLaneProperties.Polling();
+        polling.setStrategy(strategy);
+        TaskLaneProperties.Lane lane = new TaskLaneProperties.Lane();
+        lane.setPolling(polling);
+        return lane;
+    }
+
+    private static TaskLaneProperties.Lane lane(String... tasks) {
+        TaskLaneProperties.Lane lane = new TaskLaneProperties.Lane();
+        lane.setTasks(List.of(tasks));
+        return lane;
+    }
+}
@@ -0,0 +1,117 @@
+package uk.gov.hmcts.reform.enforcement.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import uk.gov.hmcts.reform.enforcement.notify.model.BulkEmailNotificationRequest;
+import uk.gov.hmcts.reform.enforcement.notify.model.BulkEmailNotificationResponse;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailCampaignRequest;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationPriority;
+import uk.gov.hmcts.reform.enforcement.notify.service.BulkNotificationService;
+import uk.gov.hmcts.reform.enforcement.notify.service.CampaignService;
+import uk.gov.hmcts.reform.enforcement.notify.service.NotificationAdmissionControl;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationControllerTest {
+
+    @Mock
+    private BulkNotificationService bulkNotificationService;
+
+    @Mock
+    private CampaignService campaignService;
+
+    @Mock
+    private NotificationAdmissionControl admissionControl;
+
+    private NotificationController controller;
+    private BulkEmailNotificationRequest request;
+
+    @BeforeEach
+    void setUp() {
+        controller = new NotificationController(bulkNotificationService, campaignService, admissionControl);
+        request = BulkEmailNotificationRequest.builder().notifications(List.of()).build();
+    }
+
+    @Test
+    void shouldReturnPerItemResults() {
+        BulkEmailNotificationResponse expected = new BulkEmailNotificationResponse(1, 0, List.of());
+        when(bulkNotificationService.scheduleEmailNotifications(request)).thenReturn(expected);
+
+        ResponseEntity<BulkEmailNotificationResponse> response = controller.scheduleEmails("s2s-token", request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(expected);
+    }
+
+    @Test
+    void shouldReturnBadRequestForInvalidRequests() {
+        when(bulkNotificationService.scheduleEmailNotifications(request))
+            .thenThrow(new IllegalArgumentException("No notifications in request"));
+
+        ResponseEntity<BulkEmailNotificationResponse> response = controller.scheduleEmails("s2s-token", request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void shouldStreamResultsAsNdjsonFromRequestedLine() throws Exception {
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.streamEmails("s2s-token", 42, body, response);
+
+        assertThat(response.getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON_VALUE);
+        verify(bulkNotificationService).streamEmailNotifications(body, response.getOutputStream(), 42);
+    }
+
+    @Test
+    void shouldReturnBadRequestForInvalidCampaign() {
+        EmailCampaignRequest campaign = EmailCampaignRequest.builder().templateId("template-1").build();
+        when(campaignService.createCampaign(campaign))
+            .thenThrow(new IllegalArgumentException("No recipients in campaign"));
+
+        assertThat(controller.createCampaign("s2s-token", campaign).getStatusCode())
+            .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void shouldShedBulkRequestsUnderPressure() {
+        when(admissionControl.shed(NotificationPriority.BULK)).thenReturn(Optional.of(Duration.ofSeconds(30)));
+
+        ResponseEntity<BulkEmailNotificationResponse> response = controller.scheduleEmails("s2s-token", request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("30");
+        verifyNoInteractions(bulkNotificationService);
+    }
+
+    @Test
+    void shouldShedStreamsBeforeReadingThem() throws Exception {
+        when(admissionControl.shed(NotificationPriority.BULK)).thenReturn(Optional.of(Duration.ofSeconds(30)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.streamEmails("s2s-token", 1, new ByteArrayInputStream(new byte[0]), response);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("30");
+        verifyNoInteractions(bulkNotificationService);
+    }
+}
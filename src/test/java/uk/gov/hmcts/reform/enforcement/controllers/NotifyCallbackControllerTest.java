@@ -0,0 +1,75 @@
+package uk.gov.hmcts.reform.enforcement.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import uk.gov.hmcts.reform.enforcement.notify.model.DeliveryReceipt;
+import uk.gov.hmcts.reform.enforcement.notify.service.DeliveryReceiptService;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotifyCallbackControllerTest {
+
+    @Mock
+    private DeliveryReceiptService deliveryReceiptService;
+
+    private NotifyCallbackController controller;
+    private DeliveryReceipt receipt;
+
+    @BeforeEach
+    void setUp() {
+        controller = new NotifyCallbackController(deliveryReceiptService, "callback-token");
+        receipt = DeliveryReceipt.builder()
+            .id(UUID.randomUUID())
+            .status("delivered")
+            .notificationType("email")
+            .build();
+    }
+
+    @Test
+    void shouldApplyReceiptWithValidBearerToken() {
+        when(deliveryReceiptService.apply(receipt)).thenReturn(DeliveryReceiptService.Outcome.APPLIED);
+
+        ResponseEntity<Void> response = controller.deliveryReceipt("Bearer callback-token", receipt);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownNotifications() {
+        when(deliveryReceiptService.apply(receipt)).thenReturn(DeliveryReceiptService.Outcome.UNKNOWN);
+
+        ResponseEntity<Void> response = controller.deliveryReceipt("Bearer callback-token", receipt);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void shouldRejectInvalidOrMissingBearerToken() {
+        assertThat(controller.deliveryReceipt("Bearer wrong-token", receipt).getStatusCode())
+            .isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(controller.deliveryReceipt(null, receipt).getStatusCode())
+            .isEqualTo(HttpStatus.UNAUTHORIZED);
+
+        verify(deliveryReceiptService, never()).apply(any());
+    }
+
+    @Test
+    void shouldRejectEverythingWhenNoTokenIsConfigured() {
+        NotifyCallbackController unconfigured = new NotifyCallbackController(deliveryReceiptService, "");
+
+        assertThat(unconfigured.deliveryReceipt("Bearer ", receipt).getStatusCode())
+            .isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+}
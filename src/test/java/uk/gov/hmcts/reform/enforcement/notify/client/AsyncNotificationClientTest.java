@@ -0,0 +1,133 @@
+package uk.gov.hmcts.reform.enforcement.notify.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.service.notify.NotificationClientException;
+import uk.gov.service.notify.NotificationList;
+import uk.gov.service.notify.SendEmailResponse;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AsyncNotificationClientTest {
+
+    private static final String API_KEY =
+        "test_key-26785a09-ab16-4eb0-8407-a37497a57506-3d844edf-8d35-48ac-975b-e847b4f122b0";
+    private static final UUID NOTIFICATION_ID = UUID.randomUUID();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicReference<String> requestBody = new AtomicReference<>();
+    private final AtomicReference<String> authorization = new AtomicReference<>();
+    private HttpServer server;
+    private AsyncNotificationClient client;
+    private int status = 201;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v2/notifications/email", exchange -> {
+            requestBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            authorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            byte[] response = (status == 201 ? sendEmailResponse() : "{\"status_code\":" + status + "}")
+                .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+
+        client = new AsyncNotificationClient(API_KEY, "http://localhost:" + server.getAddress().getPort(),
+                                             objectMapper, Duration.ofSeconds(2), Duration.ofSeconds(2),
+                                             Duration.ofSeconds(25));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldSendEmailAndParseResponse() throws Exception {
+        SendEmailResponse response = client.sendEmail("template-1", "test@example.com",
+                                                      Map.of("name", "John Doe"), "ref-1");
+
+        assertThat(response.getNotificationId()).isEqualTo(NOTIFICATION_ID);
+        JsonNode body = objectMapper.readTree(requestBody.get());
+        assertThat(body.get("email_address").asText()).isEqualTo("test@example.com");
+        assertThat(body.get("template_id").asText()).isEqualTo("template-1");
+        assertThat(body.get("personalisation").get("name").asText()).isEqualTo("John Doe");
+        assertThat(body.get("reference").asText()).isEqualTo("ref-1");
+        assertThat(authorization.get()).startsWith("Bearer ");
+    }
+
+    @Test
+    void shouldReuseSignedTokenAcrossRequests() throws Exception {
+        client.sendEmailAsync("template-1", "test@example.com", Map.of(), "ref-1", null).join();
+        String firstToken = authorization.get();
+
+        client.sendEmailAsync("template-1", "test@example.com", Map.of(), "ref-2", null).join();
+
+        assertThat(authorization.get()).isEqualTo(firstToken);
+    }
+
+    @Test
+    void shouldReportHttpStatusOfErrorResponses() {
+        status = 429;
+
+        assertThatThrownBy(() -> client.sendEmail("template-1", "test@example.com", Map.of(), "ref-1"))
+            .isInstanceOf(NotificationClientException.class)
+            .satisfies(e -> assertThat(((NotificationClientException) e).getHttpResult()).isEqualTo(429));
+    }
+
+    @Test
+    void shouldListNotificationsWithEncodedFilters() throws Exception {
+        AtomicReference<String> query = new AtomicReference<>();
+        server.createContext("/v2/notifications", exchange -> {
+            query.set(exchange.getRequestURI().getRawQuery());
+            byte[] response = """
+                {"notifications": [], "links": {"current": "https://example.com/v2/notifications"}}
+                """.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+
+        NotificationList list = client.getNotifications(null, "email", "ref 1", "older-id");
+
+        assertThat(list.getNotifications()).isEmpty();
+        assertThat(query.get()).isEqualTo("template_type=email&reference=ref+1&older_than=older-id");
+    }
+
+    @Test
+    void shouldReportZeroStatusWhenNoResponseArrives() {
+        server.stop(0);
+
+        assertThatThrownBy(() -> client.sendEmail("template-1", "test@example.com", Map.of(), "ref-1"))
+            .isInstanceOf(NotificationClientException.class)
+            .satisfies(e -> assertThat(((NotificationClientException) e).getHttpResult()).isZero());
+    }
+
+    private static String sendEmailResponse() {
+        return """
+            {
+              "id": "%s",
+              "reference": "ref-1",
+              "content": {"body": "Hello", "subject": "Subject", "from_email": "noreply@example.com"},
+              "uri": "https://api.notifications.service.gov.uk/v2/notifications/%s",
+              "template": {"id": "%s", "version": 1, "uri": "https://example.com/template"}
+            }
+            """.formatted(NOTIFICATION_ID, NOTIFICATION_ID, UUID.randomUUID());
+    }
+}
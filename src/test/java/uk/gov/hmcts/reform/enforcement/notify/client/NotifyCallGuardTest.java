@@ -0,0 +1,208 @@
+package uk.gov.hmcts.reform.enforcement.notify.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.hmcts.reform.enforcement.notify.exception.NotifyCallRejectedException;
+import uk.gov.service.notify.NotificationClientException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.hmcts.reform.enforcement.notify.helper.NotificationTestHelper.createNotificationClientException;
+
+@ExtendWith(MockitoExtension.class)
+class NotifyCallGuardTest {
+
+    @Mock
+    private NotifyConcurrencyLimit concurrencyLimit;
+
+    @Mock
+    private NotifyRateLimiter rateLimiter;
+
+    @Mock
+    private NotifyCircuitBreaker circuitBreaker;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NotifyCallGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        guard = new NotifyCallGuard(concurrencyLimit, rateLimiter, circuitBreaker, Duration.ofSeconds(5),
+                                    meterRegistry);
+    }
+
+    @Test
+    void shouldReturnResultOfCallAndRecordSuccess() throws Exception {
+        when(circuitBreaker.tryAcquirePermission()).thenReturn(true);
+        when(concurrencyLimit.tryAcquire()).thenReturn(true);
+
+        assertThat(guard.call(() -> "sent")).isEqualTo("sent");
+
+        verify(concurrencyLimit).onSuccess(anyLong());
+    }
+
+    @Test
+    void shouldRejectWithoutCallingWhenLimitIsReached() {
+        when(circuitBreaker.tryAcquirePermission()).thenReturn(true);
+        when(concurrencyLimit.tryAcquire()).thenReturn(false);
+
+        assertThatThrownBy(() -> guard.call(() -> {
+            throw new IllegalStateException("should not be called");
+        }))
+            .isInstanceOf(NotifyCallRejectedException.class)
+            .satisfies(e -> assertThat(((NotifyCallRejectedException) e).getRetryAfter())
+                .isEqualTo(Duration.ofSeconds(5)));
+        assertThat(meterRegistry.get("notify.calls.rejected").counter().count()).isEqualTo(1);
+        verify(circuitBreaker).onIgnore();
+    }
+
+    @Test
+    void shouldRejectWhileCircuitIsOpen() {
+        when(circuitBreaker.tryAcquirePermission()).thenReturn(false);
+        when(circuitBreaker.remainingOpen()).thenReturn(Duration.ofSeconds(20));
+
+        assertThatThrownBy(() -> guard.call(() -> "sent"))
+            .isInstanceOf(NotifyCallRejectedException.class)
+            .satisfies(e -> assertThat(((NotifyCallRejectedException) e).getRetryAfter())
+                .isEqualTo(Duration.ofSeconds(25)));
+        verify(concurrencyLimit, never()).tryAcquire();
+    }
+
+    @Test
+    void shouldReleasePermitWithRoundTripWhenAsyncCallCompletes() {
+        when(concurrencyLimit.tryAcquire()).thenReturn(true);
+        CompletableFuture<String> response = new CompletableFuture<>();
+
+        Optional<CompletableFuture<String>> call = guard.tryCallAsync(() -> response);
+
+        assertThat(call).isPresent();
+        verify(concurrencyLimit, never()).onSuccess(anyLong());
+        response.complete("sent");
+        assertThat(call.get().join()).isEqualTo("sent");
+        verify(concurrencyLimit).onSuccess(anyLong());
+    }
+
+    @Test
+    void shouldDropPermitWhenAsyncCallShowsOverload() {
+        when(concurrencyLimit.tryAcquire()).thenReturn(true);
+        NotificationClientException exception = createNotificationClientException(429, "Too Many Requests");
+
+        guard.tryCallAsync(() -> CompletableFuture.failedFuture(new CompletionException(exception)));
+
+        verify(concurrencyLimit).onDropped();
+        verify(circuitBreaker, never()).onFailure();
+    }
+
+    @Test
+    void shouldNotStartAsyncCallWhenLimitIsReached() {
+        when(concurrencyLimit.tryAcquire()).thenReturn(false);
+
+        assertThat(guard.tryCallAsync(() -> {
+            throw new IllegalStateException("should not be called");
+        })).isEmpty();
+        assertThat(meterRegistry.get("notify.calls.rejected").tag("reason", "in-flight").counter().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void shouldReportOutageDeferralOnlyWhileCircuitIsOpen() {
+        when(circuitBreaker.isCallPermitted()).thenReturn(true, false);
+        when(circuitBreaker.remainingOpen()).thenReturn(Duration.ofSeconds(20));
+
+        assertThat(guard.outageDeferral()).isEmpty();
+        assertThat(guard.outageDeferral()).contains(Duration.ofSeconds(25));
+    }
+
+    @Test
+    void shouldReportOverloadResponsesAsDropped() {
+        when(circuitBreaker.tryAcquirePermission()).thenReturn(true);
+        when(concurrencyLimit.tryAcquire()).thenReturn(true);
+        NotificationClientException exception = createNotificationClientException(429, "Too Many Requests");
+
+        assertThatThrownBy(() -> guard.call(() -> {
+            throw exception;
+        })).isSameAs(exception);
+
+        verify(concurrencyLimit).onDropped();
+        verify(circuitBreaker).onFailure();
+    }
+
+    @Test
+    void shouldNotReduceLimitForClientErrors() {
+        when(circuitBreaker.tryAcquirePermission()).thenReturn(true);
+        when(concurrencyLimit.tryAcquire()).thenReturn(true);
+        NotificationClientException exception = createNotificationClientException(400, "Bad Request");
+
+        assertThatThrownBy(() -> guard.call(() -> {
+            throw exception;
+        })).isSameAs(exception);
+
+        verify(concurrencyLimit).onIgnore();
+        verify(concurrencyLimit, never()).onDropped();
+        verify(circuitBreaker).onSuccess();
+    }
+
+    @Test
+    void shouldTakeRateLimitTokenBeforeSending() throws Exception {
+        when(circuitBreaker.isCallPermitted()).thenReturn(true);
+        when(circuitBreaker.tryAcquirePermission()).thenReturn(true);
+        when(concurrencyLimit.tryAcquire()).thenReturn(true);
+
+        assertThat(guard.send(() -> "sent")).isEqualTo("sent");
+
+        verify(rateLimiter).acquire();
+    }
+
+    @Test
+    void shouldNotCallNotifyWhenRateLimited() {
+        when(circuitBreaker.isCallPermitted()).thenReturn(true);
+        doThrow(new NotifyCallRejectedException("Notify rate limit reached", Duration.ofSeconds(5)))
+            .when(rateLimiter).acquire();
+
+        assertThatThrownBy(() -> guard.send(() -> {
+            throw new IllegalStateException("should not be called");
+        })).isInstanceOf(NotifyCallRejectedException.class);
+        verify(concurrencyLimit, never()).tryAcquire();
+    }
+
+    @Test
+    void shouldReturnRateLimitTokenWhenInFlightLimitRejectsTheSend() {
+        when(circuitBreaker.isCallPermitted()).thenReturn(true);
+        when(circuitBreaker.tryAcquirePermission()).thenReturn(true);
+        when(concurrencyLimit.tryAcquire()).thenReturn(false);
+
+        assertThatThrownBy(() -> guard.send(() -> {
+            throw new IllegalStateException("should not be called");
+        })).isInstanceOf(NotifyCallRejectedException.class);
+        verify(rateLimiter).acquire();
+        verify(rateLimiter).release(1);
+    }
+
+    @Test
+    void shouldKeepRateLimitTokenOnceTheSendIsMade() throws Exception {
+        when(circuitBreaker.isCallPermitted()).thenReturn(true);
+        when(circuitBreaker.tryAcquirePermission()).thenReturn(true);
+        when(concurrencyLimit.tryAcquire()).thenReturn(true);
+        NotificationClientException exception = createNotificationClientException(500, "Server Error");
+
+        assertThatThrownBy(() -> guard.send(() -> {
+            throw exception;
+        })).isSameAs(exception);
+        verify(rateLimiter, never()).release(anyInt());
+    }
+}
@@ -0,0 +1,117 @@
+package uk.gov.hmcts.reform.enforcement.notify.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class NotifyCircuitBreakerTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T10:00:00Z");
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private Clock clock;
+
+    private NotifyCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        when(clock.instant()).thenReturn(NOW);
+        circuitBreaker = new NotifyCircuitBreaker(eventPublisher, clock, 10, 4, 0.5, Duration.ofSeconds(30), 3);
+    }
+
+    @Test
+    void shouldStayClosedBelowMinimumCalls() {
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(NotifyCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void shouldOpenWhenFailureRateIsReachedAndPublishEvent() {
+        open();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(NotifyCircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+        assertThat(circuitBreaker.isCallPermitted()).isFalse();
+        assertThat(circuitBreaker.remainingOpen()).isEqualTo(Duration.ofSeconds(30));
+        verify(eventPublisher, times(1)).publishEvent(new NotifyCircuitOpenedEvent(NOW.plusSeconds(30)));
+    }
+
+    @Test
+    void shouldNotOpenWhileMostCallsSucceed() {
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.onSuccess();
+        }
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(NotifyCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void shouldLetOneProbeThroughAfterOpenDuration() {
+        open();
+        when(clock.instant()).thenReturn(NOW.plusSeconds(31));
+
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.getState()).isEqualTo(NotifyCircuitBreaker.State.HALF_OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    void shouldDoubleProbesAndCloseAfterEnoughSuccesses() {
+        open();
+        when(clock.instant()).thenReturn(NOW.plusSeconds(31));
+
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        circuitBreaker.onSuccess();
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(NotifyCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void shouldReopenWhenProbeFails() {
+        open();
+        when(clock.instant()).thenReturn(NOW.plusSeconds(31));
+        circuitBreaker.tryAcquirePermission();
+
+        circuitBreaker.onFailure();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(NotifyCircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.remainingOpen()).isEqualTo(Duration.ofSeconds(30));
+        verify(eventPublisher, times(2)).publishEvent(any(NotifyCircuitOpenedEvent.class));
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.onFailure();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package uk.gov.hmcts.reform.enforcement.notify.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotifyConcurrencyLimitTest {
+
+    private static final long RTT = Duration.ofMillis(100).toNanos();
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    @Test
+    void shouldRejectOnceLimitIsInFlight() {
+        NotifyConcurrencyLimit limit = adaptiveLimit(2);
+
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isFalse();
+        assertThat(limit.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldIncreaseAdditivelyWhileLimitIsUsed() {
+        NotifyConcurrencyLimit limit = adaptiveLimit(4);
+
+        limit.tryAcquire();
+        limit.tryAcquire();
+        limit.onSuccess(RTT);
+
+        assertThat(limit.getLimit()).isEqualTo(5);
+        assertThat(limit.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotIncreaseWhenLimitIsMostlyUnused() {
+        NotifyConcurrencyLimit limit = adaptiveLimit(10);
+
+        limit.tryAcquire();
+        limit.onSuccess(RTT);
+
+        assertThat(limit.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldDecreaseMultiplicativelyOnDrop() {
+        NotifyConcurrencyLimit limit = adaptiveLimit(10);
+
+        limit.tryAcquire();
+        limit.onDropped();
+
+        assertThat(limit.getLimit()).isEqualTo(9);
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    @Test
+    void shouldDecreaseWhenLatencyRisesAboveBaseline() {
+        NotifyConcurrencyLimit limit = adaptiveLimit(2);
+        limit.tryAcquire();
+        limit.tryAcquire();
+        limit.onSuccess(RTT);
+        double afterFastCall = limit.getLimit();
+
+        limit.tryAcquire();
+        limit.onSuccess(RTT * 3);
+
+        assertThat(limit.getLimit()).isLessThan(afterFastCall);
+    }
+
+    @Test
+    void shouldNotGoBelowMinimum() {
+        NotifyConcurrencyLimit limit = adaptiveLimit(2);
+
+        for (int i = 0; i < 10; i++) {
+            limit.tryAcquire();
+            limit.onDropped();
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldKeepFixedLimitWhenNotAdaptive() {
+        NotifyConcurrencyLimit limit = new NotifyConcurrencyLimit(false, 5, 2, 20, 0.9, 2.0,
+                                                                  Duration.ofSeconds(60), nanoTime::get);
+
+        limit.tryAcquire();
+        limit.onDropped();
+
+        assertThat(limit.getLimit()).isEqualTo(20);
+    }
+
+    private NotifyConcurrencyLimit adaptiveLimit(int initialLimit) {
+        return new NotifyConcurrencyLimit(true, initialLimit, 2, 20, 0.9, 2.0, Duration.ofSeconds(60), nanoTime::get);
+    }
+}
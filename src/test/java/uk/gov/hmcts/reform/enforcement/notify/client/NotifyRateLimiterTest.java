@@ -0,0 +1,172 @@
+package uk.gov.hmcts.reform.enforcement.notify.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.hmcts.reform.enforcement.notify.exception.NotifyCallRejectedException;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotifyRateLimitRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotifyRateLimiterTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T10:00:00Z");
+
+    @Mock
+    private NotifyRateLimitRepository repository;
+
+    @Mock
+    private Clock clock;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void shouldGrantEverythingWhenDisabled() {
+        NotifyRateLimiter rateLimiter = rateLimiter(false);
+
+        rateLimiter.configureBucket();
+
+        assertThat(rateLimiter.tryAcquire(50)).isEqualTo(50);
+        verify(repository, never()).configure(anyString(), anyDouble(), anyDouble());
+        verify(repository, never()).lease(anyString(), anyInt());
+    }
+
+    @Test
+    void shouldConfigureBucketFromPerMinuteLimit() {
+        rateLimiter(true).configureBucket();
+
+        verify(repository).configure("notify-email", 100, 50);
+    }
+
+    @Test
+    void shouldSpendLeasedTokensLocally() {
+        when(clock.instant()).thenReturn(NOW);
+        when(repository.lease("notify-email", 20)).thenReturn(20);
+        NotifyRateLimiter rateLimiter = rateLimiter(true);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(rateLimiter.tryAcquire(1)).isEqualTo(1);
+        }
+
+        verify(repository, times(1)).lease("notify-email", 20);
+    }
+
+    @Test
+    void shouldDropUnspentTokensWhenLeaseExpires() {
+        when(clock.instant()).thenReturn(NOW, NOW.plusSeconds(3));
+        when(repository.lease("notify-email", 20)).thenReturn(20, 0);
+        NotifyRateLimiter rateLimiter = rateLimiter(true);
+
+        assertThat(rateLimiter.tryAcquire(1)).isEqualTo(1);
+        assertThat(rateLimiter.tryAcquire(1)).isZero();
+    }
+
+    @Test
+    void shouldLeaseEnoughForALargeRequest() {
+        when(clock.instant()).thenReturn(NOW);
+        when(repository.lease("notify-email", 100)).thenReturn(60);
+        NotifyRateLimiter rateLimiter = rateLimiter(true);
+
+        assertThat(rateLimiter.tryAcquire(100)).isEqualTo(60);
+    }
+
+    @Test
+    void shouldReuseReleasedTokens() {
+        when(clock.instant()).thenReturn(NOW);
+        when(repository.lease("notify-email", 20)).thenReturn(5);
+        NotifyRateLimiter rateLimiter = rateLimiter(true);
+
+        assertThat(rateLimiter.tryAcquire(20)).isEqualTo(5);
+        rateLimiter.release(3);
+
+        assertThat(rateLimiter.tryAcquire(3)).isEqualTo(3);
+        verify(repository, times(1)).lease(anyString(), anyInt());
+    }
+
+    @Test
+    void shouldNotExtendTheLifeOfTokensAlreadyHeld() {
+        when(clock.instant()).thenReturn(NOW, NOW.plusSeconds(1), NOW.plusSeconds(1), NOW.plusMillis(2500));
+        when(repository.lease("notify-email", 20)).thenReturn(20, 20, 0);
+        NotifyRateLimiter rateLimiter = rateLimiter(true);
+
+        assertThat(rateLimiter.tryAcquire(20)).isEqualTo(20);
+        assertThat(rateLimiter.tryAcquire(1)).isEqualTo(1);
+        rateLimiter.release(5);
+
+        assertThat(rateLimiter.tryAcquire(24)).isEqualTo(19);
+    }
+
+    @Test
+    void shouldShareALeaseAlreadyInFlight() throws Exception {
+        when(clock.instant()).thenReturn(NOW);
+        CountDownLatch leasing = new CountDownLatch(1);
+        CountDownLatch leaseReturns = new CountDownLatch(1);
+        when(repository.lease("notify-email", 20)).thenAnswer(invocation -> {
+            leasing.countDown();
+            leaseReturns.await();
+            return 20;
+        });
+        NotifyRateLimiter rateLimiter = rateLimiter(true);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = executor.submit(() -> rateLimiter.tryAcquire(1));
+            leasing.await();
+            Future<Integer> second = executor.submit(() -> rateLimiter.tryAcquire(1));
+
+            verify(repository, after(200).times(1)).lease(anyString(), anyInt());
+            leaseReturns.countDown();
+
+            assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(second.get(1, TimeUnit.SECONDS)).isEqualTo(1);
+            verify(repository, times(1)).lease(anyString(), anyInt());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldRejectWhenNoTokenBecomesAvailable() {
+        when(clock.instant()).thenReturn(NOW);
+        when(repository.lease("notify-email", 20)).thenReturn(0);
+        NotifyRateLimiter rateLimiter = rateLimiter(true);
+
+        assertThatThrownBy(rateLimiter::acquire)
+            .isInstanceOf(NotifyCallRejectedException.class)
+            .satisfies(e -> assertThat(((NotifyCallRejectedException) e).getRetryAfter())
+                .isEqualTo(Duration.ofSeconds(5)));
+        assertThat(meterRegistry.get("notify.calls.rejected").tag("reason", "rate-limit").counter().count())
+            .isEqualTo(1);
+    }
+
+    private NotifyRateLimiter rateLimiter(boolean enabled) {
+        return new NotifyRateLimiter(repository, meterRegistry, clock, enabled, "notify-email", 3000, 100, 20,
+                                     Duration.ofSeconds(2), Duration.ZERO, Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,45 @@
+package uk.gov.hmcts.reform.enforcement.notify.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NotifyTokenSignerTest {
+
+    private static final String API_KEY =
+        "test_key-26785a09-ab16-4eb0-8407-a37497a57506-3d844edf-8d35-48ac-975b-e847b4f122b0";
+    private static final Instant NOW = Instant.parse("2025-01-01T10:00:00Z");
+
+    @Test
+    void shouldIssueTokenForServiceId() {
+        Clock clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(NOW);
+
+        String token = new NotifyTokenSigner(API_KEY, Duration.ofSeconds(25), clock).token();
+
+        String[] parts = token.split("\\.");
+        assertThat(parts).hasSize(3);
+        assertThat(new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8))
+            .isEqualTo("{\"iss\":\"26785a09-ab16-4eb0-8407-a37497a57506\",\"iat\":" + NOW.getEpochSecond() + "}");
+    }
+
+    @Test
+    void shouldReuseTokenWithinTtlAndReissueAfter() {
+        Clock clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(NOW, NOW.plusSeconds(10), NOW.plusSeconds(25));
+        NotifyTokenSigner signer = new NotifyTokenSigner(API_KEY, Duration.ofSeconds(25), clock);
+
+        String first = signer.token();
+
+        assertThat(signer.token()).isEqualTo(first);
+        assertThat(signer.token()).isNotEqualTo(first);
+    }
+}
@@ -32,7 +32,7 @@ class NotificationErrorHandlerTest {
     }
 
     @Test
-    void handleSendEmailException_ShouldUpdateStatusToSubmitted_WhenHttpStatus400() {
+    void handleSendEmailException_ShouldUpdateStatusToPermanentFailure_WhenHttpStatus400() {
         NotificationClientException exception = mock(NotificationClientException.class);
         when(exception.getHttpResult()).thenReturn(400);
         when(exception.getMessage()).thenReturn("Bad Request");
@@ -47,7 +47,7 @@ class NotificationErrorHandlerTest {
             statusUpdate -> updatedStatus.set(statusUpdate.status().toString())
         );
 
-        assertEquals("submitted", updatedStatus.get());
+        assertEquals("permanent-failure", updatedStatus.get());
     }
 
     @Test
@@ -70,7 +70,7 @@ class NotificationErrorHandlerTest {
             // Expected exception
         }
 
-        assertEquals("temporary-failure", updatedStatus.get());
+        assertEquals("send-failed", updatedStatus.get());
     }
 
     @Test
@@ -93,7 +93,7 @@ class NotificationErrorHandlerTest {
             // Expected exception
         }
 
-        assertEquals("technical-failure", updatedStatus.get());
+        assertEquals("send-failed", updatedStatus.get());
     }
 
     @Test
@@ -0,0 +1,73 @@
+package uk.gov.hmcts.reform.enforcement.notify.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.CREATED;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.DELIVERED;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.PENDING;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.PENDING_SCHEDULE;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.PERMANENT_FAILURE;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.SCHEDULED;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.SEND_FAILED;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.SENDING;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.SUBMITTED;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.TECHNICAL_FAILURE;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.TEMPORARY_FAILURE;
+
+class NotificationLifecycleTest {
+
+    @Test
+    void shouldNeverLeaveTerminalStatuses() {
+        for (NotificationStatus status : NotificationStatus.values()) {
+            assertThat(NotificationLifecycle.canTransition(DELIVERED, status)).isFalse();
+            assertThat(NotificationLifecycle.canTransition(PERMANENT_FAILURE, status)).isFalse();
+            assertThat(NotificationLifecycle.canTransition(TEMPORARY_FAILURE, status)).isFalse();
+            assertThat(NotificationLifecycle.canTransition(TECHNICAL_FAILURE, status)).isFalse();
+        }
+        assertThat(DELIVERED.isTerminal()).isTrue();
+        assertThat(PERMANENT_FAILURE.isTerminal()).isTrue();
+        assertThat(TEMPORARY_FAILURE.isTerminal()).isTrue();
+        assertThat(TECHNICAL_FAILURE.isTerminal()).isTrue();
+    }
+
+    @Test
+    void shouldNotLetLateSubmissionOverwriteReportedStatus() {
+        assertThat(SUBMITTED.allowedPredecessors())
+            .containsExactlyInAnyOrder(PENDING_SCHEDULE, SCHEDULED, SEND_FAILED);
+        assertThat(NotificationLifecycle.canTransition(SENDING, SUBMITTED)).isFalse();
+    }
+
+    @Test
+    void shouldRetryOwnSendFailuresWithoutOverwritingReportedStatus() {
+        assertThat(NotificationLifecycle.nextAction(SEND_FAILED)).isEqualTo(NotificationLifecycle.Action.SEND);
+        assertThat(SEND_FAILED.allowedPredecessors())
+            .containsExactlyInAnyOrder(PENDING_SCHEDULE, SCHEDULED, SEND_FAILED);
+    }
+
+    @Test
+    void shouldInvertTransitionsIntoPredecessors() {
+        assertThat(PENDING_SCHEDULE.allowedPredecessors()).isEmpty();
+        assertThat(SCHEDULED.allowedPredecessors()).containsExactly(PENDING_SCHEDULE);
+        assertThat(DELIVERED.allowedPredecessors()).isEqualTo(EnumSet.of(
+            PENDING_SCHEDULE, SCHEDULED, SEND_FAILED, SUBMITTED, CREATED, SENDING, PENDING));
+    }
+
+    @Test
+    void shouldRepollInFlightStatuses() {
+        assertThat(NotificationLifecycle.nextAction(CREATED)).isEqualTo(NotificationLifecycle.Action.REPOLL);
+        assertThat(NotificationLifecycle.nextAction(SENDING)).isEqualTo(NotificationLifecycle.Action.REPOLL);
+        assertThat(NotificationLifecycle.nextAction(PENDING)).isEqualTo(NotificationLifecycle.Action.REPOLL);
+        assertThat(NotificationLifecycle.nextAction(SUBMITTED)).isEqualTo(NotificationLifecycle.Action.VERIFY);
+        assertThat(NotificationLifecycle.nextAction(SCHEDULED)).isEqualTo(NotificationLifecycle.Action.SEND);
+    }
+
+    @Test
+    void shouldHaveAnActionForEveryStatus() {
+        for (NotificationStatus status : NotificationStatus.values()) {
+            assertThat(NotificationLifecycle.nextAction(status)).isNotNull();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package uk.gov.hmcts.reform.enforcement.notify.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationPriorityTest {
+
+    @Test
+    void shouldPlaceVerifyTasksBelowEverySend() {
+        for (NotificationPriority priority : NotificationPriority.values()) {
+            assertThat(NotificationPriority.VERIFY_TASK_PRIORITY).isLessThan(priority.taskPriority());
+        }
+        assertThat(NotificationPriority.URGENT.taskPriority())
+            .isGreaterThan(NotificationPriority.NORMAL.taskPriority());
+        assertThat(NotificationPriority.NORMAL.taskPriority()).isGreaterThan(NotificationPriority.BULK.taskPriority());
+    }
+
+    @Test
+    void shouldFallBackWhenNoPriorityGiven() {
+        assertThat(NotificationPriority.taskPriority(null, NotificationPriority.BULK)).isEqualTo(30);
+        assertThat(NotificationPriority.taskPriority(NotificationPriority.URGENT, NotificationPriority.BULK))
+            .isEqualTo(70);
+    }
+
+    @Test
+    void shouldCountAgedTasksTowardsTheLaneTheyReached() {
+        assertThat(NotificationPriority.lane(40)).isEqualTo("bulk");
+        assertThat(NotificationPriority.lane(50)).isEqualTo("normal");
+        assertThat(NotificationPriority.lane(10)).isEqualTo("verify");
+    }
+}
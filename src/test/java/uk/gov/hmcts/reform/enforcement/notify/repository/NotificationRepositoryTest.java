@@ -9,6 +9,7 @@ import uk.gov.hmcts.reform.enforcement.notify.entities.CaseNotification;
 import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus;
 import uk.gov.hmcts.reform.enforcement.notify.model.NotificationType;
 
+import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -52,4 +53,40 @@ class NotificationRepositoryTest {
 
         assertThat(found).isEmpty();
     }
+
+    @Test
+    void testUpdateStatusIfInAppliesOnlyFromAllowedPredecessors() {
+        CaseNotification notification = new CaseNotification();
+        notification.setCaseId(UUID.randomUUID());
+        notification.setStatus(NotificationStatus.SCHEDULED);
+        notification.setType(NotificationType.EMAIL.toString());
+        notification.setRecipient("test@example.com");
+        UUID notificationId = repository.save(notification).getNotificationId();
+        UUID providerNotificationId = UUID.randomUUID();
+        Instant now = Instant.now();
+
+        int submitted = repository.updateStatusIfIn(notificationId, NotificationStatus.SUBMITTED,
+                                                    providerNotificationId, now, now,
+                                                    NotificationStatus.SUBMITTED.allowedPredecessors());
+        int delivered = repository.updateStatusIfIn(notificationId, NotificationStatus.DELIVERED, null, null, now,
+                                                    NotificationStatus.DELIVERED.allowedPredecessors());
+        int lateSubmitted = repository.updateStatusIfIn(notificationId, NotificationStatus.SUBMITTED,
+                                                        UUID.randomUUID(), now, now,
+                                                        NotificationStatus.SUBMITTED.allowedPredecessors());
+
+        assertThat(submitted).isEqualTo(1);
+        assertThat(delivered).isEqualTo(1);
+        assertThat(lateSubmitted).isZero();
+        CaseNotification found = repository.findById(notificationId).orElseThrow();
+        assertThat(found.getStatus()).isEqualTo(NotificationStatus.DELIVERED);
+        assertThat(found.getProviderNotificationId()).isEqualTo(providerNotificationId);
+    }
+
+    @Test
+    void testUpdateStatusIfInReturnsZeroWhenNotificationIsMissing() {
+        int updated = repository.updateStatusIfIn(UUID.randomUUID(), NotificationStatus.DELIVERED, null, null,
+                                                  Instant.now(), NotificationStatus.DELIVERED.allowedPredecessors());
+
+        assertThat(updated).isZero();
+    }
 }
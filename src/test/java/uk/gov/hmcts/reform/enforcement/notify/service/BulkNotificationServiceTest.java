@@ -0,0 +1,338 @@
+package uk.gov.hmcts.reform.enforcement.notify.service;
+
+import com.github.kagkarlsson.scheduler.SchedulerClient;
+import com.github.kagkarlsson.scheduler.serializer.Serializer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.hmcts.reform.enforcement.config.JacksonConfiguration;
+import uk.gov.hmcts.reform.enforcement.notify.entities.CaseNotification;
+import uk.gov.hmcts.reform.enforcement.notify.model.BulkEmailNotificationRequest;
+import uk.gov.hmcts.reform.enforcement.notify.model.BulkEmailNotificationResponse;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailNotificationRequest;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationStatusJdbcRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository.NewTask;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskShards;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class BulkNotificationServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    @Mock
+    private NotificationStatusJdbcRepository notificationJdbcRepository;
+
+    @Mock
+    private ScheduledTaskRepository scheduledTaskRepository;
+
+    @Mock
+    private ScheduledTaskRepository shardTaskRepository;
+
+    @Mock
+    private Serializer taskDataSerializer;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private BulkNotificationService service;
+
+    @BeforeEach
+    void setUp() {
+        TaskShards taskShards = new TaskShards(List.of(new TaskShards.Shard(
+            TaskShards.PRIMARY_SHARD, mock(DataSource.class), mock(SchedulerClient.class), scheduledTaskRepository)),
+                                               Set.of());
+        service = service(taskShards);
+        when(taskDataSerializer.serialize(any())).thenReturn(new byte[] {1});
+        when(notificationJdbcRepository.findByIdempotencyKeys(any())).thenReturn(Map.of());
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void shouldInsertNotificationsAndTasksInOneTransaction() {
+        BulkEmailNotificationResponse response = service.scheduleEmailNotifications(request(null, email(), email()));
+
+        assertThat(response.getAccepted()).isEqualTo(2);
+        assertThat(response.getRejected()).isZero();
+
+        List<CaseNotification> notifications = capturedNotifications();
+        List<NewTask> tasks = capturedTasks();
+        assertThat(notifications).hasSize(2)
+            .allSatisfy(notification -> assertThat(notification.getStatus()).isEqualTo(NotificationStatus.SCHEDULED));
+        assertThat(tasks).extracting(NewTask::taskName).containsOnly("send-email-task");
+        assertThat(tasks).extracting(NewTask::taskInstance)
+            .containsExactly(notifications.get(0).getTaskId(), notifications.get(1).getTaskId());
+        assertThat(response.getResults()).extracting(BulkEmailNotificationResponse.Item::getNotificationId)
+            .containsExactly(notifications.get(0).getNotificationId(), notifications.get(1).getNotificationId());
+    }
+
+    @Test
+    void shouldReportInvalidItemsAndScheduleTheRest() {
+        EmailNotificationRequest missingAddress = EmailNotificationRequest.builder().templateId("template").build();
+
+        BulkEmailNotificationResponse response = service.scheduleEmailNotifications(
+            request(null, email(), missingAddress, email()));
+
+        assertThat(response.getAccepted()).isEqualTo(2);
+        assertThat(response.getRejected()).isEqualTo(1);
+        BulkEmailNotificationResponse.Item rejected = response.getResults().get(1);
+        assertThat(rejected.getIndex()).isEqualTo(1);
+        assertThat(rejected.getError()).isEqualTo("emailAddress is required");
+        assertThat(rejected.getTaskId()).isNull();
+        assertThat(response.getResults().get(2).getStatus()).isEqualTo("scheduled");
+        assertThat(capturedTasks()).hasSize(2);
+    }
+
+    @Test
+    void shouldSpreadExecutionTimesAtScheduleRate() {
+        service.scheduleEmailNotifications(request(null, email(), email(), email(), email()));
+
+        assertThat(capturedTasks()).extracting(NewTask::executionTime).containsExactly(
+            NOW, NOW.plusMillis(500), NOW.plusSeconds(1), NOW.plusMillis(1500));
+    }
+
+    @Test
+    void shouldCapRequestedSpread() {
+        service.scheduleEmailNotifications(request(Duration.ofHours(2), email(), email()));
+
+        assertThat(capturedTasks()).extracting(NewTask::executionTime)
+            .containsExactly(NOW, NOW.plusSeconds(30));
+    }
+
+    @Test
+    void shouldRejectEmptyAndOversizedRequests() {
+        EmailNotificationRequest[] tooMany = IntStream.range(0, 11).mapToObj(i -> email())
+            .toArray(EmailNotificationRequest[]::new);
+
+        assertThatThrownBy(() -> service.scheduleEmailNotifications(request(null)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.scheduleEmailNotifications(request(null, tooMany)))
+            .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    void shouldStreamResultsPerLineCommittingInChunks() throws Exception {
+        String ndjson = """
+            {"templateId":"template-1","emailAddress":"a@example.com"}
+            {"templateId":"template-1"}
+
+            not json
+            {"templateId":"template-1","emailAddress":"b@example.com"}
+            {"templateId":"template-1","emailAddress":"c@example.com"}
+            """;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long scheduled = service.streamEmailNotifications(
+            new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), out, 1);
+
+        assertThat(scheduled).isEqualTo(3);
+        verify(scheduledTaskRepository, times(3)).insertAll(any());
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(5);
+        assertThat(lines.get(0)).contains("\"index\":1", "\"status\":\"scheduled\"");
+        assertThat(lines.get(1)).contains("\"index\":2", "emailAddress is required");
+        assertThat(lines.get(2)).contains("\"index\":4", "Invalid JSON");
+        assertThat(lines.get(4)).contains("\"index\":6", "\"status\":\"scheduled\"");
+    }
+
+    @Test
+    void shouldResumeStreamFromGivenLine() throws Exception {
+        String ndjson = """
+            {"templateId":"template-1","emailAddress":"a@example.com"}
+            {"templateId":"template-1","emailAddress":"b@example.com"}
+            {"templateId":"template-1","emailAddress":"c@example.com"}
+            """;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long scheduled = service.streamEmailNotifications(
+            new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), out, 3);
+
+        assertThat(scheduled).isEqualTo(1);
+        assertThat(out.toString(StandardCharsets.UTF_8).lines().toList())
+            .singleElement().asString().contains("\"index\":3");
+        assertThat(capturedTasks()).extracting(NewTask::executionTime).containsExactly(NOW);
+    }
+
+    @Test
+    void shouldSkipOverlongLinesAndCarryOn() throws Exception {
+        String ndjson = "{\"templateId\":\"template-1\",\"emailAddress\":\"" + "a".repeat(200) + "@example.com\"}\r\n"
+            + "{\"templateId\":\"template-1\",\"emailAddress\":\"b@example.com\"}\r\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long scheduled = service.streamEmailNotifications(
+            new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), out, 1);
+
+        assertThat(scheduled).isEqualTo(1);
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).contains("\"index\":1", "Line longer than 100 characters");
+        assertThat(lines.get(1)).contains("\"index\":2", "\"status\":\"scheduled\"");
+    }
+
+    @Test
+    void shouldReturnExistingNotificationsForTakenIdempotencyKeys() {
+        CaseNotification existing = new CaseNotification();
+        existing.setNotificationId(UUID.randomUUID());
+        existing.setTaskId("existing-task");
+        existing.setStatus(NotificationStatus.SUBMITTED);
+        when(notificationJdbcRepository.findByIdempotencyKeys(Set.of("key-1", "key-2")))
+            .thenReturn(Map.of("key-1", existing));
+
+        BulkEmailNotificationResponse response = service.scheduleEmailNotifications(
+            request(null, email("key-1"), email("key-2"), email("key-2")));
+
+        assertThat(response.getResults()).extracting(BulkEmailNotificationResponse.Item::getTaskId)
+            .containsExactly("existing-task", capturedTasks().getFirst().taskInstance(),
+                             capturedTasks().getFirst().taskInstance());
+        assertThat(response.getResults().getFirst().getStatus()).isEqualTo("submitted");
+        assertThat(capturedNotifications()).singleElement()
+            .satisfies(notification -> assertThat(notification.getIdempotencyKey()).isEqualTo("key-2"));
+    }
+
+    @Test
+    void shouldRejectKeysReusedForADifferentEmail() {
+        CaseNotification existing = new CaseNotification();
+        existing.setTaskId("existing-task");
+        existing.setStatus(NotificationStatus.SCHEDULED);
+        existing.setRequestHash("hash-of-another-email");
+        when(notificationJdbcRepository.findByIdempotencyKeys(Set.of("key-1", "key-2")))
+            .thenReturn(Map.of("key-1", existing));
+        EmailNotificationRequest otherRecipient = email("key-2");
+        otherRecipient.setEmailAddress("other@example.com");
+
+        BulkEmailNotificationResponse response = service.scheduleEmailNotifications(
+            request(null, email("key-1"), email("key-2"), otherRecipient));
+
+        assertThat(response.getAccepted()).isEqualTo(1);
+        assertThat(response.getRejected()).isEqualTo(2);
+        assertThat(response.getResults()).extracting(BulkEmailNotificationResponse.Item::getError).containsExactly(
+            "idempotencyKey already used for a different email", null,
+            "idempotencyKey already used for a different email");
+    }
+
+    @Test
+    void shouldDeriveIdsFromIdempotencyKeysSoRetriesCollide() {
+        service.scheduleEmailNotifications(request(null, email("key-1")));
+        service.scheduleEmailNotifications(request(null, email("key-1")));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<NewTask>> tasks = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTaskRepository, times(2)).insertAll(tasks.capture());
+        assertThat(tasks.getAllValues().get(0).getFirst().taskInstance())
+            .isEqualTo(tasks.getAllValues().get(1).getFirst().taskInstance());
+    }
+
+    @Test
+    void shouldScheduleAgainWhenAConcurrentRequestTookAKey() {
+        doThrow(new DataIntegrityViolationException("duplicate key")).doNothing()
+            .when(notificationJdbcRepository).insertAll(any());
+
+        BulkEmailNotificationResponse response = service.scheduleEmailNotifications(request(null, email("key-1")));
+
+        assertThat(response.getAccepted()).isEqualTo(1);
+        verify(notificationJdbcRepository, times(2)).findByIdempotencyKeys(Set.of("key-1"));
+    }
+
+    @Test
+    void shouldWriteSendTasksToTheShardTheyBelongOn() {
+        TaskShards sharded = new TaskShards(List.of(
+            new TaskShards.Shard(TaskShards.PRIMARY_SHARD, mock(DataSource.class), mock(SchedulerClient.class),
+                                 scheduledTaskRepository),
+            new TaskShards.Shard("a", mock(DataSource.class), mock(SchedulerClient.class), shardTaskRepository)),
+                                            Set.of("send-email-task"));
+
+        service(sharded).scheduleEmailNotifications(
+            request(null, email("key-1"), email("key-2"), email("key-3"), email("key-4")));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<NewTask>> primaryTasks = ArgumentCaptor.forClass(List.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<NewTask>> shardTasks = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTaskRepository, times(1)).insertAll(primaryTasks.capture());
+        verify(shardTaskRepository, times(1)).insertAll(shardTasks.capture());
+        assertThat(primaryTasks.getValue()).allSatisfy(task -> assertThat(
+            sharded.shardFor(task.taskName(), task.taskInstance()).name()).isEqualTo(TaskShards.PRIMARY_SHARD));
+        assertThat(shardTasks.getValue()).allSatisfy(task -> assertThat(
+            sharded.shardFor(task.taskName(), task.taskInstance()).name()).isEqualTo("a"));
+        assertThat(primaryTasks.getValue()).hasSize(1);
+        assertThat(shardTasks.getValue()).hasSize(3);
+    }
+
+    private BulkNotificationService service(TaskShards taskShards) {
+        return new BulkNotificationService(notificationJdbcRepository, taskShards, taskDataSerializer,
+                                           transactionTemplate, new SimpleMeterRegistry(),
+                                           new JacksonConfiguration().getMapper(),
+                                           Clock.fixed(NOW, ZoneOffset.UTC), 10, 2, 100, 2, Duration.ofMinutes(1));
+    }
+
+    private List<CaseNotification> capturedNotifications() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CaseNotification>> captor = ArgumentCaptor.forClass(List.class);
+        verify(notificationJdbcRepository).insertAll(captor.capture());
+        return captor.getValue();
+    }
+
+    private List<NewTask> capturedTasks() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<NewTask>> captor = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTaskRepository).insertAll(captor.capture());
+        return captor.getValue();
+    }
+
+    private static BulkEmailNotificationRequest request(Duration spread, EmailNotificationRequest... emails) {
+        return BulkEmailNotificationRequest.builder().notifications(List.of(emails)).spread(spread).build();
+    }
+
+    private static EmailNotificationRequest email() {
+        return email(null);
+    }
+
+    private static EmailNotificationRequest email(String idempotencyKey) {
+        return EmailNotificationRequest.builder()
+            .templateId("template-1")
+            .emailAddress("test@example.com")
+            .idempotencyKey(idempotencyKey)
+            .build();
+    }
+}
@@ -0,0 +1,195 @@
+package uk.gov.hmcts.reform.enforcement.notify.service;
+
+import com.github.kagkarlsson.scheduler.SchedulerClient;
+import com.github.kagkarlsson.scheduler.serializer.Serializer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.hmcts.reform.enforcement.config.JacksonConfiguration;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailCampaignRequest;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailCampaignResponse;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailNotificationRequest;
+import uk.gov.hmcts.reform.enforcement.notify.repository.CampaignJdbcRepository;
+import uk.gov.hmcts.reform.enforcement.notify.repository.CampaignJdbcRepository.Campaign;
+import uk.gov.hmcts.reform.enforcement.notify.repository.CampaignJdbcRepository.Recipient;
+import uk.gov.hmcts.reform.enforcement.notify.service.CampaignService.Expansion;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository.NewTask;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskShards;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CampaignServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+    private static final UUID CAMPAIGN_ID = UUID.randomUUID();
+    private static final Duration INTERVAL = Duration.ofMillis(20);
+
+    @Mock
+    private CampaignJdbcRepository campaignRepository;
+
+    @Mock
+    private BulkNotificationService bulkNotificationService;
+
+    @Mock
+    private ScheduledTaskRepository scheduledTaskRepository;
+
+    @Mock
+    private Serializer taskDataSerializer;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private CampaignService service;
+
+    @BeforeEach
+    void setUp() {
+        TaskShards taskShards = new TaskShards(List.of(new TaskShards.Shard(
+            TaskShards.PRIMARY_SHARD, mock(DataSource.class), mock(SchedulerClient.class), scheduledTaskRepository)),
+                                               Set.of());
+        service = new CampaignService(campaignRepository, bulkNotificationService, taskShards,
+                                      taskDataSerializer, transactionTemplate, new SimpleMeterRegistry(),
+                                      new JacksonConfiguration().getMapper(), Clock.fixed(NOW, ZoneOffset.UTC), 10);
+        when(taskDataSerializer.serialize(any())).thenReturn(new byte[] {1});
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(transactionTemplate.execute(any())).thenAnswer(
+            invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(
+                mock(TransactionStatus.class)));
+    }
+
+    @Test
+    void shouldStoreRecipientsOnceAndScheduleOneDriverTask() {
+        EmailCampaignRequest request = EmailCampaignRequest.builder()
+            .templateId("template-1")
+            .personalisation(Map.of("hearingDate", "1 March"))
+            .recipients(List.of(recipient("a@example.com", Map.of("name", "A")),
+                                recipient(null, null),
+                                recipient("b@example.com", null)))
+            .build();
+
+        EmailCampaignResponse response = service.createCampaign(request);
+
+        assertThat(response.getAccepted()).isEqualTo(2);
+        assertThat(response.getRejected()).isEqualTo(1);
+        assertThat(response.getRejections()).singleElement()
+            .satisfies(item -> assertThat(item.getIndex()).isEqualTo(1));
+
+        ArgumentCaptor<Campaign> campaign = ArgumentCaptor.forClass(Campaign.class);
+        verify(campaignRepository).insert(campaign.capture(), eq(NOW));
+        assertThat(campaign.getValue().campaignId()).isEqualTo(response.getCampaignId());
+        assertThat(campaign.getValue().personalisation()).isEqualTo("{\"hearingDate\":\"1 March\"}");
+        assertThat(campaign.getValue().recipientCount()).isEqualTo(2);
+        verify(campaignRepository).insertRecipients(response.getCampaignId(), List.of(
+            new Recipient(0, "a@example.com", "{\"name\":\"A\"}"),
+            new Recipient(1, "b@example.com", null)));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<NewTask>> tasks = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTaskRepository).insertAll(tasks.capture());
+        assertThat(tasks.getValue()).singleElement().satisfies(task -> {
+            assertThat(task.taskName()).isEqualTo("campaign-driver-task");
+            assertThat(task.taskInstance()).isEqualTo(response.getCampaignId().toString());
+            assertThat(task.executionTime()).isEqualTo(NOW);
+        });
+    }
+
+    @Test
+    void shouldRejectCampaignWithoutTemplateOrRecipients() {
+        EmailCampaignRequest noTemplate = EmailCampaignRequest.builder()
+            .recipients(List.of(recipient("a@example.com", null))).build();
+        EmailCampaignRequest noRecipients = EmailCampaignRequest.builder().templateId("template-1").build();
+
+        assertThatThrownBy(() -> service.createCampaign(noTemplate)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.createCampaign(noRecipients)).isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    void shouldExpandWindowWithMergedPersonalisationAndAdvance() {
+        when(campaignRepository.findForUpdate(CAMPAIGN_ID)).thenReturn(Optional.of(
+            new Campaign(CAMPAIGN_ID, "template-1", "{\"hearingDate\":\"1 March\",\"name\":\"you\"}", "ref", null,
+                         5, 2, false)));
+        when(campaignRepository.findRecipients(CAMPAIGN_ID, 2, 2)).thenReturn(List.of(
+            new Recipient(2, "c@example.com", "{\"name\":\"C\"}"),
+            new Recipient(3, "d@example.com", null)));
+
+        Expansion expansion = service.expand(CAMPAIGN_ID, 2, INTERVAL);
+
+        assertThat(expansion).isEqualTo(new Expansion(2, false));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EmailNotificationRequest>> emails = ArgumentCaptor.forClass(List.class);
+        verify(bulkNotificationService).schedule(emails.capture(), eq(List.of(2, 3)), eq(NOW), eq(INTERVAL),
+                                                 eq(NOW));
+        assertThat(emails.getValue()).extracting(EmailNotificationRequest::getPersonalisation).containsExactly(
+            Map.of("hearingDate", "1 March", "name", "C"),
+            Map.of("hearingDate", "1 March", "name", "you"));
+        assertThat(emails.getValue()).allSatisfy(email -> {
+            assertThat(email.getTemplateId()).isEqualTo("template-1");
+            assertThat(email.getReference()).isEqualTo("ref");
+        });
+        assertThat(emails.getValue()).extracting(EmailNotificationRequest::getIdempotencyKey)
+            .containsExactly(CAMPAIGN_ID + ":2", CAMPAIGN_ID + ":3");
+        verify(campaignRepository).advance(CAMPAIGN_ID, 4, null);
+    }
+
+    @Test
+    void shouldCompleteWhenLastRecipientsAreExpanded() {
+        when(campaignRepository.findForUpdate(CAMPAIGN_ID)).thenReturn(Optional.of(
+            new Campaign(CAMPAIGN_ID, "template-1", null, null, null, 5, 4, false)));
+        when(campaignRepository.findRecipients(CAMPAIGN_ID, 4, 2)).thenReturn(List.of(
+            new Recipient(4, "e@example.com", null)));
+
+        assertThat(service.expand(CAMPAIGN_ID, 2, INTERVAL)).isEqualTo(new Expansion(1, true));
+        verify(campaignRepository).advance(CAMPAIGN_ID, 5, NOW);
+    }
+
+    @Test
+    void shouldNotExpandCompletedCampaign() {
+        when(campaignRepository.findForUpdate(CAMPAIGN_ID)).thenReturn(Optional.of(
+            new Campaign(CAMPAIGN_ID, "template-1", null, null, null, 5, 5, true)));
+
+        assertThat(service.expand(CAMPAIGN_ID, 2, INTERVAL)).isEqualTo(new Expansion(0, true));
+        verify(campaignRepository, never()).findRecipients(any(), anyInt(), anyInt());
+        verify(bulkNotificationService, never()).schedule(anyList(), anyList(), any(), any(), any());
+    }
+
+    private static EmailCampaignRequest.Recipient recipient(String emailAddress, Map<String, Object> overrides) {
+        return EmailCampaignRequest.Recipient.builder().emailAddress(emailAddress).personalisation(overrides).build();
+    }
+}
@@ -0,0 +1,119 @@
+package uk.gov.hmcts.reform.enforcement.notify.service;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeliveryLatencyTrackerTest {
+
+    private static final Instant START = Instant.parse("2026-01-01T10:00:00Z");
+    private static final Duration WINDOW = Duration.ofMinutes(15);
+
+    private final AtomicReference<Instant> now = new AtomicReference<>(START);
+    private SimpleMeterRegistry meterRegistry;
+    private DeliveryLatencyTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        Clock clock = mock(Clock.class);
+        when(clock.instant()).thenAnswer(invocation -> now.get());
+        tracker = new DeliveryLatencyTracker(meterRegistry, clock, WINDOW);
+    }
+
+    @Test
+    void shouldReportNothingBelowMinimumSamples() {
+        recordSeconds("template-1", 5, 9);
+
+        assertThat(tracker.quantile("template-1", 0.9, 10)).isEmpty();
+        assertThat(tracker.quantile("template-2", 0.9, 1)).isEmpty();
+    }
+
+    @Test
+    void shouldReportBucketBoundContainingQuantile() {
+        recordSeconds("template-1", 2, 90);
+        recordSeconds("template-1", 60, 10);
+
+        Duration p50 = tracker.quantile("template-1", 0.5, 10).orElseThrow();
+        Duration p99 = tracker.quantile("template-1", 0.99, 10).orElseThrow();
+
+        assertThat(p50).isBetween(Duration.ofSeconds(2), Duration.ofSeconds(3));
+        assertThat(p99).isBetween(Duration.ofSeconds(60), Duration.ofSeconds(90));
+    }
+
+    @Test
+    void shouldAlsoRecordAcrossAllTemplates() {
+        recordSeconds("template-1", 4, 5);
+        recordSeconds("template-2", 4, 5);
+
+        assertThat(tracker.quantile(DeliveryLatencyTracker.ALL_TEMPLATES, 0.5, 10)).isPresent();
+    }
+
+    @Test
+    void shouldAgeOutObservationsAfterTwoWindows() {
+        recordSeconds("template-1", 4, 20);
+
+        now.set(START.plus(WINDOW).plusSeconds(1));
+        assertThat(tracker.quantile("template-1", 0.5, 10)).isPresent();
+
+        now.set(START.plus(WINDOW.multipliedBy(2)).plusSeconds(2));
+        assertThat(tracker.quantile("template-1", 0.5, 10)).isEmpty();
+    }
+
+    @Test
+    void shouldIgnoreIncompleteObservations() {
+        tracker.record("template-1", START, null);
+        tracker.record("template-1", START, START.minusSeconds(1));
+
+        assertThat(tracker.quantile("template-1", 0.5, 1)).isEmpty();
+    }
+
+    @Test
+    void shouldPublishTimerPerTemplate() {
+        recordSeconds("template-1", 3, 2);
+
+        Timer timer = meterRegistry.get("notify.delivery.latency").tag("template", "template-1").timer();
+        assertThat(timer.count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldTagOnlyABoundedNumberOfTemplates() {
+        for (int i = 0; i < DeliveryLatencyTracker.MAX_TAGGED_TEMPLATES + 10; i++) {
+            recordSeconds("template-" + i, 3, 1);
+        }
+
+        assertThat(meterRegistry.find("notify.delivery.latency").timers())
+            .hasSize(DeliveryLatencyTracker.MAX_TAGGED_TEMPLATES + 1);
+        Timer other = meterRegistry.get("notify.delivery.latency")
+            .tag("template", DeliveryLatencyTracker.OTHER_TEMPLATES).timer();
+        assertThat(other.count()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldStopTrackingNewTemplatesSeparatelyOnceFull() {
+        for (int i = 0; i < DeliveryLatencyTracker.MAX_TRACKED_TEMPLATES; i++) {
+            recordSeconds("template-" + i, 3, 1);
+        }
+
+        recordSeconds("template-late", 3, 5);
+
+        assertThat(tracker.quantile("template-late", 0.5, 1)).isEmpty();
+        assertThat(tracker.quantile(DeliveryLatencyTracker.ALL_TEMPLATES, 0.5, 1)).isPresent();
+    }
+
+    private void recordSeconds(String templateId, long seconds, int times) {
+        for (int i = 0; i < times; i++) {
+            tracker.record(templateId, START, START.plusSeconds(seconds));
+        }
+    }
+}
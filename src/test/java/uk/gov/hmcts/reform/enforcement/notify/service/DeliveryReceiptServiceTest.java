@@ -0,0 +1,159 @@
+package uk.gov.hmcts.reform.enforcement.notify.service;
+
+import com.github.kagkarlsson.scheduler.SchedulerClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.hmcts.reform.enforcement.notify.entities.CaseNotification;
+import uk.gov.hmcts.reform.enforcement.notify.model.DeliveryReceipt;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskShards;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DeliveryReceiptServiceTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private ScheduledTaskRepository scheduledTaskRepository;
+
+    @Mock
+    private ProviderNotificationIdFilter providerIdFilter;
+
+    @Mock
+    private DeliveryLatencyTracker latencyTracker;
+
+    private DeliveryReceiptService service;
+    private UUID providerId;
+    private CaseNotification caseNotification;
+
+    @BeforeEach
+    void setUp() {
+        TaskShards taskShards = new TaskShards(List.of(new TaskShards.Shard(
+            TaskShards.PRIMARY_SHARD, mock(DataSource.class), mock(SchedulerClient.class), scheduledTaskRepository)),
+            Set.of());
+        service = new DeliveryReceiptService(notificationRepository, notificationService, taskShards,
+                                             providerIdFilter, latencyTracker, new SimpleMeterRegistry());
+        providerId = UUID.randomUUID();
+        caseNotification = new CaseNotification();
+        caseNotification.setNotificationId(UUID.randomUUID());
+        caseNotification.setTaskId("task-123");
+    }
+
+    @Test
+    void shouldApplyFinalStatusAndCancelVerifyTask() {
+        when(providerIdFilter.mightContain(providerId)).thenReturn(true);
+        when(notificationRepository.findByProviderNotificationId(providerId))
+            .thenReturn(Optional.of(caseNotification));
+        when(notificationService.updateNotificationStatus(caseNotification.getNotificationId(), "delivered"))
+            .thenReturn(NotificationService.StatusUpdate.APPLIED);
+
+        assertThat(service.apply(receipt("delivered"))).isEqualTo(DeliveryReceiptService.Outcome.APPLIED);
+
+        verify(scheduledTaskRepository).cancelUnpicked("verify-email-task", "task-123");
+    }
+
+    @Test
+    void shouldKeepVerifyTaskForInterimStatuses() {
+        when(providerIdFilter.mightContain(providerId)).thenReturn(true);
+        when(notificationRepository.findByProviderNotificationId(providerId))
+            .thenReturn(Optional.of(caseNotification));
+        when(notificationService.updateNotificationStatus(caseNotification.getNotificationId(), "sending"))
+            .thenReturn(NotificationService.StatusUpdate.APPLIED);
+
+        assertThat(service.apply(receipt("sending"))).isEqualTo(DeliveryReceiptService.Outcome.APPLIED);
+
+        verify(scheduledTaskRepository, never()).cancelUnpicked(any(), any());
+        verify(latencyTracker, never()).record(any(), any(), any());
+    }
+
+    @Test
+    void shouldKeepVerifyTaskWhileTheStatusIsOnlyQueued() {
+        when(providerIdFilter.mightContain(providerId)).thenReturn(true);
+        when(notificationRepository.findByProviderNotificationId(providerId))
+            .thenReturn(Optional.of(caseNotification));
+        when(notificationService.updateNotificationStatus(caseNotification.getNotificationId(), "delivered"))
+            .thenReturn(NotificationService.StatusUpdate.QUEUED);
+
+        assertThat(service.apply(receipt("delivered"))).isEqualTo(DeliveryReceiptService.Outcome.QUEUED);
+
+        verify(scheduledTaskRepository, never()).cancelUnpicked(any(), any());
+    }
+
+    @Test
+    void shouldRecordDeliveryLatency() {
+        UUID templateId = UUID.randomUUID();
+        Instant createdAt = Instant.parse("2026-01-01T10:00:00Z");
+        Instant completedAt = createdAt.plusSeconds(12);
+        when(providerIdFilter.mightContain(providerId)).thenReturn(true);
+        when(notificationRepository.findByProviderNotificationId(providerId))
+            .thenReturn(Optional.of(caseNotification));
+        when(notificationService.updateNotificationStatus(caseNotification.getNotificationId(), "delivered"))
+            .thenReturn(NotificationService.StatusUpdate.APPLIED);
+
+        DeliveryReceipt receipt = receipt("delivered");
+        receipt.setTemplateId(templateId);
+        receipt.setCreatedAt(createdAt);
+        receipt.setCompletedAt(completedAt);
+
+        service.apply(receipt);
+
+        verify(latencyTracker).record(templateId.toString(), createdAt, completedAt);
+    }
+
+    @Test
+    void shouldRejectIdsMissingFromTheFilterWithoutALookup() {
+        when(providerIdFilter.mightContain(providerId)).thenReturn(false);
+
+        assertThat(service.apply(receipt("delivered"))).isEqualTo(DeliveryReceiptService.Outcome.UNKNOWN);
+
+        verify(notificationRepository, never()).findByProviderNotificationId(any());
+    }
+
+    @Test
+    void shouldReportUnknownWhenNoNotificationMatches() {
+        when(providerIdFilter.mightContain(providerId)).thenReturn(true);
+        when(notificationRepository.findByProviderNotificationId(providerId)).thenReturn(Optional.empty());
+
+        assertThat(service.apply(receipt("delivered"))).isEqualTo(DeliveryReceiptService.Outcome.UNKNOWN);
+    }
+
+    @Test
+    void shouldIgnoreReceiptsThatDoNotApply() {
+        when(providerIdFilter.mightContain(providerId)).thenReturn(true);
+        when(notificationRepository.findByProviderNotificationId(providerId))
+            .thenReturn(Optional.of(caseNotification));
+        when(notificationService.updateNotificationStatus(caseNotification.getNotificationId(), "sending"))
+            .thenReturn(NotificationService.StatusUpdate.NOT_APPLIED);
+
+        assertThat(service.apply(receipt("sending"))).isEqualTo(DeliveryReceiptService.Outcome.IGNORED);
+
+        verify(scheduledTaskRepository, never()).cancelUnpicked(any(), any());
+    }
+
+    private DeliveryReceipt receipt(String status) {
+        return DeliveryReceipt.builder().id(providerId).status(status).notificationType("email").build();
+    }
+}
@@ -0,0 +1,156 @@
+package uk.gov.hmcts.reform.enforcement.notify.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationPriority;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationAdmissionControlTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+    private static final Duration REFRESH_INTERVAL = Duration.ofSeconds(5);
+
+    @Mock
+    private ScheduledTaskRepository scheduledTaskRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationAdmissionControl admissionControl;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        admissionControl = admissionControl(true);
+        lenient().when(scheduledTaskRepository.oldestDue(any(), anyInt())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void shouldAdmitEverythingWhenTheQueueIsShort() {
+        when(scheduledTaskRepository.countDue(NOW, 30, 2000)).thenReturn(100L);
+
+        admissionControl.refresh();
+
+        assertThat(admissionControl.getPressure()).isEqualTo(0.1);
+        assertThat(admissionControl.shed(NotificationPriority.BULK)).isEmpty();
+        assertThat(admissionControl.shed(NotificationPriority.URGENT)).isEmpty();
+    }
+
+    @Test
+    void shouldShedBulkBeforeNormalAndNormalBeforeUrgent() {
+        when(scheduledTaskRepository.countDue(any(), anyInt(), anyInt())).thenReturn(900L, 1200L, 1600L);
+
+        admissionControl.refresh();
+        assertThat(admissionControl.shed(NotificationPriority.BULK)).isPresent();
+        assertThat(admissionControl.shed(NotificationPriority.NORMAL)).isEmpty();
+
+        admissionControl.refresh();
+        assertThat(admissionControl.shed(NotificationPriority.NORMAL)).isPresent();
+        assertThat(admissionControl.shed(null)).isPresent();
+        assertThat(admissionControl.shed(NotificationPriority.URGENT)).isEmpty();
+
+        admissionControl.refresh();
+        assertThat(admissionControl.shed(NotificationPriority.URGENT)).isPresent();
+        assertThat(meterRegistry.get("notify.admission.shed").tag("priority", "normal").counter().count())
+            .isEqualTo(2);
+    }
+
+    @Test
+    void shouldShedWhenTheOldestDueTaskHasWaitedTooLong() {
+        when(scheduledTaskRepository.countDue(any(), anyInt(), anyInt())).thenReturn(1L);
+        when(scheduledTaskRepository.oldestDue(NOW, 30)).thenReturn(Optional.of(NOW.minus(Duration.ofMinutes(20))));
+
+        admissionControl.refresh();
+
+        assertThat(admissionControl.getPressure()).isEqualTo(2.0);
+        assertThat(admissionControl.shed(NotificationPriority.URGENT)).isPresent();
+    }
+
+    @Test
+    void shouldShedWhenConnectionsAreSlowToAcquire() {
+        when(scheduledTaskRepository.countDue(any(), anyInt(), anyInt())).thenReturn(0L);
+        Timer acquire = meterRegistry.timer("hikaricp.connections.acquire", "pool", "enforcement");
+        admissionControl.refresh();
+
+        acquire.record(Duration.ofMillis(10));
+        acquire.record(Duration.ofMillis(590));
+        admissionControl.refresh();
+
+        assertThat(admissionControl.getPressure()).isEqualTo(0.6);
+
+        acquire.record(Duration.ofMillis(1500));
+        admissionControl.refresh();
+
+        assertThat(admissionControl.getPressure()).isEqualTo(3.0);
+        assertThat(admissionControl.shed(NotificationPriority.URGENT)).isPresent();
+    }
+
+    @Test
+    void shouldTreatConnectionTimeoutsAsTwiceTheLimit() {
+        when(scheduledTaskRepository.countDue(any(), anyInt(), anyInt())).thenReturn(0L);
+        Counter timeouts = meterRegistry.counter("hikaricp.connections.timeout", "pool", "enforcement");
+        admissionControl.refresh();
+
+        timeouts.increment();
+        admissionControl.refresh();
+
+        assertThat(admissionControl.getPressure()).isEqualTo(2.0);
+
+        admissionControl.refresh();
+
+        assertThat(admissionControl.getPressure()).isZero();
+    }
+
+    @Test
+    void shouldKeepThePoolPressureWhenTheBacklogCannotBeMeasured() {
+        Counter timeouts = meterRegistry.counter("hikaricp.connections.timeout", "pool", "enforcement");
+        when(scheduledTaskRepository.countDue(any(), anyInt(), anyInt()))
+            .thenThrow(new IllegalStateException("timeout"));
+
+        timeouts.increment();
+        assertThatThrownBy(() -> admissionControl.refresh()).isInstanceOf(IllegalStateException.class);
+
+        assertThat(admissionControl.getPressure()).isEqualTo(2.0);
+    }
+
+    @Test
+    void shouldSuggestLongerRetriesUnderMorePressure() {
+        assertThat(admissionControl.retryAfter(0.8, 0.8)).isEqualTo(REFRESH_INTERVAL);
+        assertThat(admissionControl.retryAfter(3.2, 0.8)).isEqualTo(Duration.ofSeconds(20));
+        assertThat(admissionControl.retryAfter(1000, 0.8)).isEqualTo(Duration.ofMinutes(1));
+    }
+
+    @Test
+    void shouldNeverShedWhenDisabled() {
+        NotificationAdmissionControl disabled = admissionControl(false);
+        when(scheduledTaskRepository.countDue(any(), anyInt(), anyInt())).thenReturn(2000L);
+
+        disabled.refresh();
+
+        assertThat(disabled.shed(NotificationPriority.BULK)).isEmpty();
+    }
+
+    private NotificationAdmissionControl admissionControl(boolean enabled) {
+        return new NotificationAdmissionControl(
+            scheduledTaskRepository, meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC), enabled, REFRESH_INTERVAL,
+            1000, Duration.ofMinutes(10), Duration.ofMillis(500), Duration.ofMinutes(1), 0.8, 1.0, 1.5);
+    }
+}
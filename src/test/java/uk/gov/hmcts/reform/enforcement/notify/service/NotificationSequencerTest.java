@@ -0,0 +1,174 @@
+package uk.gov.hmcts.reform.enforcement.notify.service;
+
+import com.github.kagkarlsson.scheduler.SchedulerClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailState;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationSequenceRepository;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationSequenceRepository.Entry;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationSequenceRepository.Position;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskShards;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationSequencerTest {
+
+    private static final String KEY = "case-1";
+
+    @Mock
+    private NotificationSequenceRepository sequenceRepository;
+
+    @Mock
+    private ScheduledTaskRepository scheduledTaskRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private NotificationSequencer sequencer;
+
+    @BeforeEach
+    void setUp() {
+        TaskShards taskShards = new TaskShards(List.of(new TaskShards.Shard(
+            TaskShards.PRIMARY_SHARD, mock(DataSource.class), mock(SchedulerClient.class), scheduledTaskRepository)),
+            Set.of());
+        sequencer = new NotificationSequencer(sequenceRepository, taskShards, transactionTemplate,
+                                              Duration.ofHours(6));
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation -> invocation
+            .<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+    }
+
+    @Test
+    void shouldAlwaysLetUnsequencedEmailsRun() {
+        assertThat(sequencer.isTurn(EmailState.builder().build())).isTrue();
+
+        sequencer.release(EmailState.builder().build());
+
+        verifyNoInteractions(sequenceRepository, transactionTemplate);
+    }
+
+    @Test
+    void shouldOnlyLetTheHeadRun() {
+        when(sequenceRepository.head(KEY)).thenReturn(Optional.of(5L));
+        when(sequenceRepository.lock(KEY)).thenReturn(Optional.of(new Position(5L, 9L)));
+        when(sequenceRepository.entry(KEY, 5L)).thenReturn(Optional.of(new Entry("task-5", 5L)));
+        when(scheduledTaskRepository.exists("send-email-task", "task-5")).thenReturn(true);
+
+        assertThat(sequencer.isTurn(sequenced(5))).isTrue();
+        assertThat(sequencer.isTurn(sequenced(4))).isTrue();
+        assertThat(sequencer.isTurn(sequenced(6))).isFalse();
+        verify(sequenceRepository, never()).advance(anyString(), anyLong());
+    }
+
+    @Test
+    void shouldLetAnEmailTakeItsTurnOnceEveryEmailAheadHasLeft() {
+        when(sequenceRepository.head(KEY)).thenReturn(Optional.of(5L));
+        when(sequenceRepository.lock(KEY)).thenReturn(Optional.of(new Position(5L, 9L)));
+        when(sequenceRepository.entry(KEY, 5L)).thenReturn(Optional.of(new Entry("task-5", 5L)));
+        when(sequenceRepository.next(KEY, 5L)).thenReturn(Optional.of(new Entry("task-6", 6L)));
+        when(sequenceRepository.next(KEY, 6L)).thenReturn(Optional.of(new Entry("task-7", 7L)));
+
+        assertThat(sequencer.isTurn(sequenced(7))).isTrue();
+
+        verify(sequenceRepository).advance(KEY, 7L);
+    }
+
+    @Test
+    void shouldLetEmailsRunOnceTheirKeyIsGone() {
+        when(sequenceRepository.head(KEY)).thenReturn(Optional.empty());
+
+        assertThat(sequencer.isTurn(sequenced(5))).isTrue();
+    }
+
+    @Test
+    void shouldWakeTheNextEmailOnRelease() {
+        when(sequenceRepository.lock(KEY)).thenReturn(Optional.of(new Position(5L, 9L)));
+        when(sequenceRepository.next(KEY, 5L)).thenReturn(Optional.of(new Entry("task-7", 7L)));
+        when(scheduledTaskRepository.wake(eq("send-email-task"), eq("task-7"), any())).thenReturn(true);
+
+        sequencer.release(sequenced(5));
+
+        verify(sequenceRepository).advance(KEY, 7L);
+        verify(sequenceRepository, never()).remove(anyString());
+    }
+
+    @Test
+    void shouldLeaveTheHeadWhenTheNextEmailIsRunning() {
+        when(sequenceRepository.lock(KEY)).thenReturn(Optional.of(new Position(5L, 9L)));
+        when(sequenceRepository.next(KEY, 5L)).thenReturn(Optional.of(new Entry("task-7", 7L)));
+        when(scheduledTaskRepository.wake(eq("send-email-task"), eq("task-7"), any())).thenReturn(false);
+        when(scheduledTaskRepository.exists("send-email-task", "task-7")).thenReturn(true);
+
+        sequencer.release(sequenced(5));
+
+        verify(sequenceRepository, never()).advance(anyString(), anyLong());
+        verify(sequenceRepository, never()).remove(anyString());
+    }
+
+    @Test
+    void shouldSkipEmailsWhoseTaskIsGone() {
+        when(sequenceRepository.lock(KEY)).thenReturn(Optional.of(new Position(5L, 9L)));
+        when(sequenceRepository.next(KEY, 5L)).thenReturn(Optional.of(new Entry("task-7", 7L)));
+        when(sequenceRepository.next(KEY, 7L)).thenReturn(Optional.of(new Entry("task-9", 9L)));
+        when(scheduledTaskRepository.wake(eq("send-email-task"), eq("task-7"), any())).thenReturn(false);
+        when(scheduledTaskRepository.wake(eq("send-email-task"), eq("task-9"), any())).thenReturn(true);
+
+        sequencer.release(sequenced(5));
+
+        verify(sequenceRepository).advance(KEY, 9L);
+    }
+
+    @Test
+    void shouldRemoveTheKeyWhenReleasingTheLastEmail() {
+        when(sequenceRepository.lock(KEY)).thenReturn(Optional.of(new Position(9L, 9L)));
+
+        sequencer.release(sequenced(9));
+
+        verify(sequenceRepository).remove(KEY);
+        verify(sequenceRepository, never()).advance(anyString(), anyLong());
+    }
+
+    @Test
+    void shouldIgnoreReleasesOfEmailsThatAreNotTheHead() {
+        when(sequenceRepository.lock(KEY)).thenReturn(Optional.of(new Position(7L, 9L)));
+
+        sequencer.release(sequenced(5));
+
+        verify(sequenceRepository, never()).advance(anyString(), anyLong());
+        verify(sequenceRepository, never()).remove(anyString());
+        verifyNoInteractions(scheduledTaskRepository);
+    }
+
+    private static EmailState sequenced(long number) {
+        return EmailState.builder().id("task-" + number).sequenceKey(KEY).sequenceNumber(number).build();
+    }
+}
@@ -6,34 +6,57 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import uk.gov.hmcts.reform.enforcement.notify.entities.CaseNotification;
+import uk.gov.hmcts.reform.enforcement.notify.exception.IdempotencyKeyReusedException;
 import uk.gov.hmcts.reform.enforcement.notify.exception.NotificationException;
 import uk.gov.hmcts.reform.enforcement.notify.model.EmailNotificationRequest;
 import uk.gov.hmcts.reform.enforcement.notify.model.EmailNotificationResponse;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailState;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationPriority;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatusChange;
 import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationRepository;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationSequenceRepository.Position;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskShards;
 
+import javax.sql.DataSource;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.DELIVERED;
 import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.PENDING_SCHEDULE;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.PERMANENT_FAILURE;
 import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.SCHEDULED;
 import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.SENDING;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.SUBMITTED;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.TEMPORARY_FAILURE;
 import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationType.EMAIL;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,7 +69,20 @@ class NotificationServiceTest {
     @Mock
     private SchedulerClient schedulerClient;
 
-    @InjectMocks
+    private TaskShards taskShards;
+
+    @Mock
+    private NotificationStatusWriteBehind statusWriteBehind;
+
+    @Mock
+    private ProviderNotificationIdFilter providerIdFilter;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private NotificationSequencer notificationSequencer;
+
     private NotificationService notificationService;
 
     private EmailNotificationRequest emailRequest;
@@ -55,6 +91,11 @@ class NotificationServiceTest {
 
     @BeforeEach
     void setUp() {
+        taskShards = new TaskShards(List.of(new TaskShards.Shard(TaskShards.PRIMARY_SHARD, mock(DataSource.class),
+                                                                 schedulerClient, mock(ScheduledTaskRepository.class))),
+                                    Set.of());
+        notificationService = new NotificationService(notificationRepository, taskShards, statusWriteBehind,
+                                                      providerIdFilter, transactionTemplate, notificationSequencer);
         notificationId = UUID.randomUUID();
         final UUID caseId = UUID.randomUUID();
 
@@ -76,11 +117,15 @@ class NotificationServiceTest {
         savedNotification.setType(EMAIL.toString());
         savedNotification.setRecipient("test@example.com");
         savedNotification.setSubmittedAt(Instant.now());
+
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(
+            invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(
+                mock(TransactionStatus.class)));
     }
 
     @Test
     void scheduleEmailNotification_ShouldReturnResponse_WhenSuccessfullyScheduled() {
-        when(notificationRepository.save(any(CaseNotification.class))).thenReturn(savedNotification);
+        when(notificationRepository.saveAndFlush(any(CaseNotification.class))).thenReturn(savedNotification);
         when(schedulerClient.scheduleIfNotExists(any(SchedulableInstance.class))).thenReturn(true);
 
         EmailNotificationResponse response = notificationService.scheduleEmailNotification(emailRequest);
@@ -90,25 +135,22 @@ class NotificationServiceTest {
         assertThat(response.getStatus()).isEqualTo(SCHEDULED.toString());
         assertThat(response.getNotificationId()).isEqualTo(notificationId);
 
-        verify(notificationRepository, times(2)).save(any(CaseNotification.class));
         verify(schedulerClient).scheduleIfNotExists(any(SchedulableInstance.class));
+        verify(transactionTemplate).execute(any());
 
         ArgumentCaptor<CaseNotification> notificationCaptor = ArgumentCaptor.forClass(CaseNotification.class);
-        verify(notificationRepository, times(2)).save(notificationCaptor.capture());
-
-        CaseNotification firstSave = notificationCaptor.getAllValues().getFirst();
-        assertThat(firstSave.getRecipient()).isEqualTo("test@example.com");
-        assertThat(firstSave.getStatus()).isEqualTo(PENDING_SCHEDULE);
-        assertThat(firstSave.getType()).isEqualTo(EMAIL.toString());
+        verify(notificationRepository).saveAndFlush(notificationCaptor.capture());
 
-        CaseNotification secondSave = notificationCaptor.getAllValues().get(1);
-        assertThat(secondSave.getStatus()).isEqualTo(SCHEDULED);
-        assertThat(secondSave.getLastUpdatedAt()).isNotNull();
+        CaseNotification saved = notificationCaptor.getValue();
+        assertThat(saved.getRecipient()).isEqualTo("test@example.com");
+        assertThat(saved.getStatus()).isEqualTo(SCHEDULED);
+        assertThat(saved.getType()).isEqualTo(EMAIL.toString());
+        assertThat(saved.getScheduledAt()).isNotNull();
     }
 
     @Test
     void scheduleEmailNotification_ShouldStillReturnResponse_WhenTaskAlreadyExists() {
-        when(notificationRepository.save(any(CaseNotification.class))).thenReturn(savedNotification);
+        when(notificationRepository.saveAndFlush(any(CaseNotification.class))).thenReturn(savedNotification);
         when(schedulerClient.scheduleIfNotExists(any(SchedulableInstance.class))).thenReturn(false);
 
         EmailNotificationResponse response = notificationService.scheduleEmailNotification(emailRequest);
@@ -118,37 +160,112 @@ class NotificationServiceTest {
         assertThat(response.getNotificationId()).isEqualTo(notificationId);
 
         verify(schedulerClient).scheduleIfNotExists(any(SchedulableInstance.class));
-        verify(notificationRepository, times(2)).save(any(CaseNotification.class));
+        verify(notificationRepository).saveAndFlush(any(CaseNotification.class));
     }
 
     @Test
     void scheduleEmailNotification_ShouldThrowException_WhenDatabaseSaveFails() {
         DataAccessException dbException = new DataAccessException("Database connection failed") {};
-        when(notificationRepository.save(any(CaseNotification.class))).thenThrow(dbException);
+        when(notificationRepository.saveAndFlush(any(CaseNotification.class))).thenThrow(dbException);
 
         assertThatThrownBy(() -> notificationService.scheduleEmailNotification(emailRequest))
             .isInstanceOf(NotificationException.class)
             .hasMessage("Failed to save Case Notification.")
             .hasCause(dbException);
 
-        verify(notificationRepository).save(any(CaseNotification.class));
+        verify(notificationRepository).saveAndFlush(any(CaseNotification.class));
         verify(schedulerClient, never()).scheduleIfNotExists(any(SchedulableInstance.class));
     }
 
     @Test
-    void scheduleEmailNotification_ShouldGenerateUniqueTaskIds() {
-        when(notificationRepository.save(any(CaseNotification.class))).thenReturn(savedNotification);
+    void scheduleEmailNotification_ShouldGenerateUniqueTaskIds_WithoutIdempotencyKey() {
+        emailRequest.setReference(null);
+        when(notificationRepository.saveAndFlush(any(CaseNotification.class))).thenReturn(savedNotification);
         when(schedulerClient.scheduleIfNotExists(any(SchedulableInstance.class))).thenReturn(true);
 
         EmailNotificationResponse response1 = notificationService.scheduleEmailNotification(emailRequest);
         EmailNotificationResponse response2 = notificationService.scheduleEmailNotification(emailRequest);
 
         assertThat(response1.getTaskId()).isNotEqualTo(response2.getTaskId());
+        verify(notificationRepository, never()).findByIdempotencyKey(any());
+    }
+
+    @Test
+    void scheduleEmailNotification_ShouldReturnExistingNotification_WhenReferenceWasSeenBefore() {
+        savedNotification.setTaskId("existing-task");
+        savedNotification.setStatus(SUBMITTED);
+        when(notificationRepository.findByIdempotencyKey("notification-ref"))
+            .thenReturn(Optional.of(savedNotification));
+
+        EmailNotificationResponse response = notificationService.scheduleEmailNotification(emailRequest);
+
+        assertThat(response.getTaskId()).isEqualTo("existing-task");
+        assertThat(response.getNotificationId()).isEqualTo(notificationId);
+        assertThat(response.getStatus()).isEqualTo(SUBMITTED.toString());
+        verify(notificationRepository, never()).saveAndFlush(any(CaseNotification.class));
+        verify(schedulerClient, never()).scheduleIfNotExists(any(SchedulableInstance.class));
+    }
+
+    @Test
+    void scheduleEmailNotification_ShouldRefuseAKeyReusedForADifferentEmail() {
+        savedNotification.setRequestHash("hash-of-another-email");
+        when(notificationRepository.findByIdempotencyKey("notification-ref"))
+            .thenReturn(Optional.of(savedNotification));
+
+        assertThatThrownBy(() -> notificationService.scheduleEmailNotification(emailRequest))
+            .isInstanceOf(IdempotencyKeyReusedException.class);
+        verify(notificationRepository, never()).saveAndFlush(any(CaseNotification.class));
+    }
+
+    @Test
+    void scheduleEmailNotification_ShouldReturnExistingNotification_WhenTheSameEmailIsRetried() {
+        savedNotification.setTaskId("existing-task");
+        savedNotification.setRequestHash(EmailRequestHash.of(emailRequest));
+        when(notificationRepository.findByIdempotencyKey("notification-ref"))
+            .thenReturn(Optional.of(savedNotification));
+
+        EmailNotificationResponse response = notificationService.scheduleEmailNotification(emailRequest);
+
+        assertThat(response.getTaskId()).isEqualTo("existing-task");
+        verify(notificationRepository, never()).saveAndFlush(any(CaseNotification.class));
+    }
+
+    @Test
+    void scheduleEmailNotification_ShouldStoreIdempotencyKeyAndDeriveTaskIdFromIt() {
+        emailRequest.setIdempotencyKey("caller-key");
+        when(notificationRepository.saveAndFlush(any(CaseNotification.class))).thenReturn(savedNotification);
+        when(schedulerClient.scheduleIfNotExists(any(SchedulableInstance.class))).thenReturn(true);
+
+        EmailNotificationResponse response1 = notificationService.scheduleEmailNotification(emailRequest);
+        EmailNotificationResponse response2 = notificationService.scheduleEmailNotification(emailRequest);
+
+        assertThat(response1.getTaskId()).isEqualTo(response2.getTaskId());
+        ArgumentCaptor<CaseNotification> notificationCaptor = ArgumentCaptor.forClass(CaseNotification.class);
+        verify(notificationRepository, times(2)).saveAndFlush(notificationCaptor.capture());
+        assertThat(notificationCaptor.getAllValues().getFirst().getIdempotencyKey()).isEqualTo("caller-key");
+        assertThat(notificationCaptor.getAllValues().getFirst().getRequestHash())
+            .isEqualTo(EmailRequestHash.of(emailRequest));
+        verify(notificationRepository, times(2)).findByIdempotencyKey("caller-key");
+    }
+
+    @Test
+    void scheduleEmailNotification_ShouldReturnExistingNotification_WhenConcurrentRequestWonTheInsert() {
+        savedNotification.setTaskId("existing-task");
+        when(notificationRepository.findByIdempotencyKey("notification-ref"))
+            .thenReturn(Optional.empty(), Optional.of(savedNotification));
+        when(notificationRepository.saveAndFlush(any(CaseNotification.class)))
+            .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        EmailNotificationResponse response = notificationService.scheduleEmailNotification(emailRequest);
+
+        assertThat(response.getTaskId()).isEqualTo("existing-task");
+        assertThat(response.getNotificationId()).isEqualTo(notificationId);
+        verify(schedulerClient, never()).scheduleIfNotExists(any(SchedulableInstance.class));
     }
 
     @Test
     void scheduleEmailNotification_ShouldScheduleTaskWithCorrectTiming() {
-        when(notificationRepository.save(any(CaseNotification.class))).thenReturn(savedNotification);
+        when(notificationRepository.saveAndFlush(any(CaseNotification.class))).thenReturn(savedNotification);
         when(schedulerClient.scheduleIfNotExists(any(SchedulableInstance.class))).thenReturn(true);
 
         notificationService.scheduleEmailNotification(emailRequest);
@@ -160,9 +277,25 @@ class NotificationServiceTest {
         assertThat(scheduledTask).isNotNull();
     }
 
+    @Test
+    void scheduleEmailNotification_ShouldScheduleTaskAtRequestedPriority() {
+        when(notificationRepository.saveAndFlush(any(CaseNotification.class))).thenReturn(savedNotification);
+        when(schedulerClient.scheduleIfNotExists(any(SchedulableInstance.class))).thenReturn(true);
+
+        notificationService.scheduleEmailNotification(emailRequest);
+        emailRequest.setPriority(NotificationPriority.URGENT);
+        notificationService.scheduleEmailNotification(emailRequest);
+
+        ArgumentCaptor<SchedulableInstance<?>> taskCaptor = ArgumentCaptor.forClass(SchedulableInstance.class);
+        verify(schedulerClient, times(2)).scheduleIfNotExists(taskCaptor.capture());
+
+        assertThat(taskCaptor.getAllValues()).extracting(task -> task.getTaskInstance().getPriority())
+            .containsExactly(NotificationPriority.NORMAL.taskPriority(), NotificationPriority.URGENT.taskPriority());
+    }
+
     @Test
     void scheduleEmailNotification_ShouldScheduleImmediately() {
-        when(notificationRepository.save(any(CaseNotification.class))).thenReturn(savedNotification);
+        when(notificationRepository.saveAndFlush(any(CaseNotification.class))).thenReturn(savedNotification);
         when(schedulerClient.scheduleIfNotExists(any(SchedulableInstance.class))).thenReturn(true);
 
         Instant beforeScheduling = Instant.now();
@@ -179,22 +312,72 @@ class NotificationServiceTest {
         assertThat(scheduledTime).isBetween(beforeScheduling, afterScheduling);
     }
 
+    @Test
+    void scheduleEmailNotification_ShouldScheduleFirstEmailForSequenceKeyImmediately() {
+        when(notificationRepository.saveAndFlush(any(CaseNotification.class))).thenReturn(savedNotification);
+        when(notificationSequencer.enqueue("case-1")).thenReturn(new Position(7L, 7L));
+        emailRequest.setSequenceKey("case-1");
+
+        Instant beforeScheduling = Instant.now();
+        notificationService.scheduleEmailNotification(emailRequest);
+        Instant afterScheduling = Instant.now();
+
+        ArgumentCaptor<SchedulableInstance<?>> taskCaptor = ArgumentCaptor.forClass(SchedulableInstance.class);
+        verify(schedulerClient).scheduleIfNotExists(taskCaptor.capture());
+        assertThat(taskCaptor.getValue().getNextExecutionTime(Instant.now()))
+            .isBetween(beforeScheduling, afterScheduling);
+        EmailState emailState = (EmailState) taskCaptor.getValue().getTaskInstance().getData();
+        assertThat(emailState.getSequenceKey()).isEqualTo("case-1");
+        assertThat(emailState.getSequenceNumber()).isEqualTo(7L);
+
+        ArgumentCaptor<CaseNotification> notificationCaptor = ArgumentCaptor.forClass(CaseNotification.class);
+        verify(notificationRepository).saveAndFlush(notificationCaptor.capture());
+        assertThat(notificationCaptor.getValue().getSequenceKey()).isEqualTo("case-1");
+        assertThat(notificationCaptor.getValue().getSequenceNumber()).isEqualTo(7L);
+    }
+
+    @Test
+    void scheduleEmailNotification_ShouldParkEmailBehindEarlierOnesForSequenceKey() {
+        when(notificationRepository.saveAndFlush(any(CaseNotification.class))).thenReturn(savedNotification);
+        when(notificationSequencer.enqueue("case-1")).thenReturn(new Position(7L, 9L));
+        when(notificationSequencer.getParkTimeout()).thenReturn(Duration.ofHours(6));
+        emailRequest.setSequenceKey("case-1");
+
+        Instant beforeScheduling = Instant.now();
+        notificationService.scheduleEmailNotification(emailRequest);
+
+        ArgumentCaptor<SchedulableInstance<?>> taskCaptor = ArgumentCaptor.forClass(SchedulableInstance.class);
+        verify(schedulerClient).scheduleIfNotExists(taskCaptor.capture());
+        assertThat(taskCaptor.getValue().getNextExecutionTime(Instant.now()))
+            .isAfterOrEqualTo(beforeScheduling.plus(Duration.ofHours(6)));
+        assertThat(((EmailState) taskCaptor.getValue().getTaskInstance().getData()).getSequenceNumber())
+            .isEqualTo(9L);
+    }
+
+    @Test
+    void scheduleEmailNotification_ShouldNotSequenceWithoutSequenceKey() {
+        when(notificationRepository.saveAndFlush(any(CaseNotification.class))).thenReturn(savedNotification);
+
+        notificationService.scheduleEmailNotification(emailRequest);
+
+        verify(notificationSequencer, never()).enqueue(any());
+    }
+
     @Test
     void scheduleEmailNotification_ShouldGenerateRandomCaseId() {
-        when(notificationRepository.save(any(CaseNotification.class))).thenReturn(savedNotification);
+        when(notificationRepository.saveAndFlush(any(CaseNotification.class))).thenReturn(savedNotification);
         when(schedulerClient.scheduleIfNotExists(any(SchedulableInstance.class))).thenReturn(true);
 
         notificationService.scheduleEmailNotification(emailRequest);
         notificationService.scheduleEmailNotification(emailRequest);
 
         ArgumentCaptor<CaseNotification> notificationCaptor = ArgumentCaptor.forClass(CaseNotification.class);
-        verify(notificationRepository, times(4)).save(notificationCaptor.capture());
+        verify(notificationRepository, times(2)).saveAndFlush(notificationCaptor.capture());
 
-        // Get the first saves (before status updates)
         CaseNotification firstNotification = notificationCaptor.getAllValues().getFirst();
-        CaseNotification thirdNotification = notificationCaptor.getAllValues().get(2);
+        CaseNotification secondNotification = notificationCaptor.getAllValues().get(1);
 
-        assertThat(firstNotification.getCaseId()).isNotEqualTo(thirdNotification.getCaseId());
+        assertThat(firstNotification.getCaseId()).isNotEqualTo(secondNotification.getCaseId());
     }
 
     @Test
@@ -206,7 +389,7 @@ class NotificationServiceTest {
         requestWithNullPersonalisation.setReference("notification-ref");
         requestWithNullPersonalisation.setEmailReplyToId("reply-to-123");
 
-        when(notificationRepository.save(any(CaseNotification.class))).thenReturn(savedNotification);
+        when(notificationRepository.saveAndFlush(any(CaseNotification.class))).thenReturn(savedNotification);
         when(schedulerClient.scheduleIfNotExists(any(SchedulableInstance.class))).thenReturn(true);
 
         EmailNotificationResponse response = notificationService
@@ -227,7 +410,7 @@ class NotificationServiceTest {
         requestWithEmptyPersonalisation.setReference("notification-ref");
         requestWithEmptyPersonalisation.setEmailReplyToId("reply-to-123");
 
-        when(notificationRepository.save(any(CaseNotification.class))).thenReturn(savedNotification);
+        when(notificationRepository.saveAndFlush(any(CaseNotification.class))).thenReturn(savedNotification);
         when(schedulerClient.scheduleIfNotExists(any(SchedulableInstance.class))).thenReturn(true);
 
         EmailNotificationResponse response = notificationService
@@ -241,17 +424,17 @@ class NotificationServiceTest {
 
     @Test
     void createCaseNotification_ShouldSetCorrectInitialValues() {
-        when(notificationRepository.save(any(CaseNotification.class))).thenReturn(savedNotification);
+        when(notificationRepository.saveAndFlush(any(CaseNotification.class))).thenReturn(savedNotification);
         when(schedulerClient.scheduleIfNotExists(any(SchedulableInstance.class))).thenReturn(true);
 
         notificationService.scheduleEmailNotification(emailRequest);
 
         ArgumentCaptor<CaseNotification> notificationCaptor = ArgumentCaptor.forClass(CaseNotification.class);
-        verify(notificationRepository, times(2)).save(notificationCaptor.capture());
+        verify(notificationRepository).saveAndFlush(notificationCaptor.capture());
 
-        CaseNotification initialNotification = notificationCaptor.getAllValues().getFirst();
+        CaseNotification initialNotification = notificationCaptor.getValue();
         assertThat(initialNotification.getCaseId()).isNotNull();
-        assertThat(initialNotification.getStatus()).isEqualTo(PENDING_SCHEDULE);
+        assertThat(initialNotification.getStatus()).isEqualTo(SCHEDULED);
         assertThat(initialNotification.getType()).isEqualTo(EMAIL.toString());
         assertThat(initialNotification.getRecipient()).isEqualTo("test@example.com");
         assertThat(initialNotification.getNotificationId()).isNull(); // Should be null before save
@@ -261,230 +444,152 @@ class NotificationServiceTest {
     }
 
     @Test
-    void updateNotificationStatus_ShouldUpdateStatus_WhenNotificationExists() {
-        CaseNotification existingNotification = new CaseNotification();
-        existingNotification.setNotificationId(notificationId);
-        existingNotification.setStatus(SCHEDULED);
-
-        when(notificationRepository.findById(notificationId)).thenReturn(Optional.of(existingNotification));
-        when(notificationRepository.save(any(CaseNotification.class))).thenReturn(existingNotification);
-
-        notificationService.updateNotificationStatus(notificationId, "SENDING");
-
-        ArgumentCaptor<CaseNotification> captor = ArgumentCaptor.forClass(CaseNotification.class);
-        verify(notificationRepository).save(captor.capture());
+    void updateNotificationStatus_ShouldApplyConditionalUpdate_WhenTransitionIsAllowed() {
+        when(notificationRepository.updateStatusIfIn(eq(notificationId), eq(SENDING), isNull(), any(), any(),
+                                                      eq(SENDING.allowedPredecessors()))).thenReturn(1);
 
-        CaseNotification updatedNotification = captor.getValue();
-        assertThat(updatedNotification.getStatus()).isEqualTo(SENDING);
-        assertThat(updatedNotification.getLastUpdatedAt()).isNotNull();
-        assertThat(updatedNotification.getSubmittedAt()).isNotNull();
+        assertThat(notificationService.updateNotificationStatus(notificationId, "SENDING"))
+            .isEqualTo(NotificationService.StatusUpdate.APPLIED);
+        verify(notificationRepository, never()).findById(any());
+        verify(notificationRepository, never()).save(any(CaseNotification.class));
     }
 
     @Test
     void updateNotificationStatus_ShouldSetSubmittedAt_WhenStatusIsSending() {
-        CaseNotification existingNotification = new CaseNotification();
-        existingNotification.setNotificationId(notificationId);
-        existingNotification.setStatus(SCHEDULED);
-
-        when(notificationRepository.findById(notificationId)).thenReturn(Optional.of(existingNotification));
-        when(notificationRepository.save(any(CaseNotification.class))).thenReturn(existingNotification);
+        Instant beforeUpdate = Instant.now();
 
         notificationService.updateNotificationStatus(notificationId, "SENDING");
 
-        ArgumentCaptor<CaseNotification> captor = ArgumentCaptor.forClass(CaseNotification.class);
-        verify(notificationRepository).save(captor.capture());
-
-        CaseNotification updatedNotification = captor.getValue();
-        assertThat(updatedNotification.getStatus()).isEqualTo(SENDING);
-        assertThat(updatedNotification.getSubmittedAt()).isNotNull();
+        ArgumentCaptor<Instant> submittedAt = ArgumentCaptor.forClass(Instant.class);
+        ArgumentCaptor<Instant> updatedAt = ArgumentCaptor.forClass(Instant.class);
+        verify(notificationRepository).updateStatusIfIn(eq(notificationId), eq(SENDING), isNull(),
+                                                         submittedAt.capture(), updatedAt.capture(), any());
+        assertThat(submittedAt.getValue()).isNotNull().isAfterOrEqualTo(beforeUpdate);
+        assertThat(updatedAt.getValue()).isEqualTo(submittedAt.getValue());
     }
 
     @Test
-    void updateNotificationStatus_ShouldNotSetSubmittedAt_WhenStatusIsNotSending() {
-        CaseNotification existingNotification = new CaseNotification();
-        existingNotification.setNotificationId(notificationId);
-        existingNotification.setStatus(SCHEDULED);
-
-        when(notificationRepository.findById(notificationId)).thenReturn(Optional.of(existingNotification));
-        when(notificationRepository.save(any(CaseNotification.class))).thenReturn(existingNotification);
-
-        notificationService.updateNotificationStatus(notificationId, "DELIVERED");
-
-        ArgumentCaptor<CaseNotification> captor = ArgumentCaptor.forClass(CaseNotification.class);
-        verify(notificationRepository).save(captor.capture());
-
-        CaseNotification updatedNotification = captor.getValue();
-        assertThat(updatedNotification.getStatus()).isEqualTo(DELIVERED);
-        assertThat(updatedNotification.getSubmittedAt()).isNull();
-        assertThat(updatedNotification.getLastUpdatedAt()).isNotNull();
-    }
-
-    @Test
-    void updateNotificationStatus_ShouldPreserveExistingSubmittedAt_WhenStatusIsNotSending() {
-        Instant existingSubmittedAt = Instant.now().minusSeconds(3600);
-        CaseNotification existingNotification = new CaseNotification();
-        existingNotification.setNotificationId(notificationId);
-        existingNotification.setStatus(SENDING);
-        existingNotification.setSubmittedAt(existingSubmittedAt);
-
-        when(notificationRepository.findById(notificationId)).thenReturn(Optional.of(existingNotification));
-        when(notificationRepository.save(any(CaseNotification.class))).thenReturn(existingNotification);
+    void updateNotificationStatus_ShouldLeaveSubmittedAt_WhenStatusIsNotSending() {
+        Instant beforeUpdate = Instant.now();
 
         notificationService.updateNotificationStatus(notificationId, "DELIVERED");
+        Instant afterUpdate = Instant.now();
 
-        ArgumentCaptor<CaseNotification> captor = ArgumentCaptor.forClass(CaseNotification.class);
-        verify(notificationRepository).save(captor.capture());
-
-        CaseNotification updatedNotification = captor.getValue();
-        assertThat(updatedNotification.getStatus()).isEqualTo(DELIVERED);
-        assertThat(updatedNotification.getSubmittedAt()).isEqualTo(existingSubmittedAt);
-        assertThat(updatedNotification.getLastUpdatedAt()).isNotNull();
+        ArgumentCaptor<Instant> updatedAt = ArgumentCaptor.forClass(Instant.class);
+        verify(notificationRepository).updateStatusIfIn(eq(notificationId), eq(DELIVERED), isNull(), isNull(),
+                                                         updatedAt.capture(), any());
+        assertThat(updatedAt.getValue()).isBetween(beforeUpdate, afterUpdate);
     }
 
     @Test
-    void updateNotificationStatus_ShouldUpdateLastUpdatedAt_ForAllStatusChanges() {
-        CaseNotification existingNotification = new CaseNotification();
-        existingNotification.setNotificationId(notificationId);
-        existingNotification.setStatus(SCHEDULED);
-        existingNotification.setLastUpdatedAt(Instant.now().minusSeconds(3600));
-
-        when(notificationRepository.findById(notificationId)).thenReturn(Optional.of(existingNotification));
-        when(notificationRepository.save(any(CaseNotification.class))).thenReturn(existingNotification);
+    void updateNotificationStatus_ShouldNeverOverwriteTerminalStatuses() {
+        notificationService.updateNotificationStatus(notificationId, "TEMPORARY-FAILURE");
 
-        Instant beforeUpdate = Instant.now();
-        notificationService.updateNotificationStatus(notificationId, "SENDING");
-        Instant afterUpdate = Instant.now();
-
-        ArgumentCaptor<CaseNotification> captor = ArgumentCaptor.forClass(CaseNotification.class);
-        verify(notificationRepository).save(captor.capture());
-
-        CaseNotification updatedNotification = captor.getValue();
-        assertThat(updatedNotification.getLastUpdatedAt()).isBetween(beforeUpdate, afterUpdate);
+        ArgumentCaptor<Collection<NotificationStatus>> allowedFrom = ArgumentCaptor.forClass(Collection.class);
+        verify(notificationRepository).updateStatusIfIn(eq(notificationId), eq(TEMPORARY_FAILURE), isNull(),
+                                                         isNull(), any(), allowedFrom.capture());
+        assertThat(allowedFrom.getValue()).doesNotContain(DELIVERED, PERMANENT_FAILURE);
     }
 
     @Test
-    void updateNotificationStatus_ShouldLogError_WhenNotificationNotFound() {
-        when(notificationRepository.findById(notificationId)).thenReturn(Optional.empty());
-
-        notificationService.updateNotificationStatus(notificationId, "DELIVERED");
+    void updateNotificationStatus_ShouldReturnFalse_WhenTransitionIsNotApplied() {
+        when(notificationRepository.updateStatusIfIn(any(), any(), any(), any(), any(), any())).thenReturn(0);
 
-        verify(notificationRepository).findById(notificationId);
-        verify(notificationRepository, never()).save(any(CaseNotification.class));
+        assertThat(notificationService.updateNotificationStatus(notificationId, "DELIVERED"))
+            .isEqualTo(NotificationService.StatusUpdate.NOT_APPLIED);
     }
 
     @Test
     void updateNotificationStatus_ShouldLogWarning_WhenInvalidStatusString() {
-        CaseNotification existingNotification = new CaseNotification();
-        existingNotification.setNotificationId(notificationId);
-        existingNotification.setStatus(SCHEDULED);
-
-        when(notificationRepository.findById(notificationId)).thenReturn(Optional.of(existingNotification));
-
-        notificationService.updateNotificationStatus(notificationId, "INVALID_STATUS");
-
-        verify(notificationRepository).findById(notificationId);
-        verify(notificationRepository, never()).save(any(CaseNotification.class));
+        assertThat(notificationService.updateNotificationStatus(notificationId, "INVALID_STATUS"))
+            .isEqualTo(NotificationService.StatusUpdate.NOT_APPLIED);
+        verify(notificationRepository, never()).updateStatusIfIn(any(), any(), any(), any(), any(), any());
     }
 
     @Test
-    void updateNotificationStatus_ShouldHandleException_WhenSaveFails() {
-        CaseNotification existingNotification = new CaseNotification();
-        existingNotification.setNotificationId(notificationId);
-        existingNotification.setStatus(SCHEDULED);
-
-        when(notificationRepository.findById(notificationId)).thenReturn(Optional.of(existingNotification));
-        when(notificationRepository.save(any(CaseNotification.class)))
+    void updateNotificationStatus_ShouldHandleException_WhenUpdateFails() {
+        when(notificationRepository.updateStatusIfIn(any(), any(), any(), any(), any(), any()))
             .thenThrow(new RuntimeException("Database error"));
 
         assertThatCode(() ->
                             notificationService.updateNotificationStatus(notificationId, "DELIVERED")
         ).doesNotThrowAnyException();
-
-        verify(notificationRepository).save(any(CaseNotification.class));
     }
 
     @Test
     void updateNotificationStatus_ShouldHandleAllValidStatusTransitions() {
-        CaseNotification existingNotification = new CaseNotification();
-        existingNotification.setNotificationId(notificationId);
-        existingNotification.setStatus(SCHEDULED);
-
-        when(notificationRepository.findById(notificationId)).thenReturn(Optional.of(existingNotification));
-        when(notificationRepository.save(any(CaseNotification.class))).thenReturn(existingNotification);
-
         String[] validStatuses = {"SENDING", "DELIVERED", "SCHEDULED"};
 
         for (String statusString : validStatuses) {
             notificationService.updateNotificationStatus(notificationId, statusString);
         }
 
-        verify(notificationRepository, times(validStatuses.length)).save(any(CaseNotification.class));
+        verify(notificationRepository, times(validStatuses.length))
+            .updateStatusIfIn(eq(notificationId), any(), any(), any(), any(), any());
     }
 
     @Test
-    void updateNotificationAfterSending_ShouldUpdateProviderNotificationId_WhenNotificationExists() {
-        CaseNotification existingNotification = new CaseNotification();
-        existingNotification.setNotificationId(notificationId);
-        existingNotification.setStatus(SCHEDULED);
-
+    void updateNotificationAfterSending_ShouldUpdateProviderNotificationIdInOneStatement() {
         UUID providerNotificationId = UUID.randomUUID();
+        when(notificationRepository.updateStatusIfIn(eq(notificationId), eq(SUBMITTED), eq(providerNotificationId),
+                                                      any(), any(), eq(SUBMITTED.allowedPredecessors())))
+            .thenReturn(1);
 
-        when(notificationRepository.findById(notificationId)).thenReturn(Optional.of(existingNotification));
-        when(notificationRepository.save(any(CaseNotification.class))).thenReturn(existingNotification);
-
-        notificationService.updateNotificationAfterSending(notificationId, providerNotificationId);
-
-        ArgumentCaptor<CaseNotification> captor = ArgumentCaptor.forClass(CaseNotification.class);
-        verify(notificationRepository).save(captor.capture());
-
-        CaseNotification updatedNotification = captor.getValue();
-        assertThat(updatedNotification.getProviderNotificationId()).isEqualTo(providerNotificationId);
-        assertThat(updatedNotification.getStatus().toString()).isEqualTo("submitted");
+        assertThat(notificationService.updateNotificationAfterSending(notificationId, providerNotificationId))
+            .isEqualTo(NotificationService.StatusUpdate.APPLIED);
+        verify(notificationRepository, never()).findById(any());
+        verify(notificationRepository, never()).save(any(CaseNotification.class));
     }
 
     @Test
-    void updateNotificationAfterSending_ShouldDoNothing_WhenNotificationNotFound() {
-        when(notificationRepository.findById(notificationId)).thenReturn(Optional.empty());
-
-        notificationService.updateNotificationAfterSending(notificationId, UUID.randomUUID());
+    void updateNotificationAfterSending_ShouldNotApply_WhenNotificationIsMissingOrAlreadyReported() {
+        when(notificationRepository.updateStatusIfIn(any(), any(), any(), any(), any(), any())).thenReturn(0);
 
-        verify(notificationRepository).findById(notificationId);
-        verify(notificationRepository, never()).save(any(CaseNotification.class));
+        assertThat(notificationService.updateNotificationAfterSending(notificationId, UUID.randomUUID()))
+            .isEqualTo(NotificationService.StatusUpdate.NOT_APPLIED);
     }
 
     @Test
-    void updateNotificationAfterFailure_ShouldUpdateStatusToPermanentFailure_WhenNotificationExists() {
-        CaseNotification existingNotification = new CaseNotification();
-        existingNotification.setNotificationId(notificationId);
-        existingNotification.setStatus(SCHEDULED);
-
-        when(notificationRepository.findById(notificationId)).thenReturn(Optional.of(existingNotification));
-        when(notificationRepository.save(any(CaseNotification.class))).thenReturn(existingNotification);
-
+    void updateNotificationAfterFailure_ShouldUpdateStatusToSubmitted() {
         Exception exception = new RuntimeException("Test failure");
         notificationService.updateNotificationAfterFailure(notificationId, exception);
 
-        ArgumentCaptor<CaseNotification> captor = ArgumentCaptor.forClass(CaseNotification.class);
-        verify(notificationRepository).save(captor.capture());
-
-        CaseNotification updatedNotification = captor.getValue();
-        assertThat(updatedNotification.getStatus().toString()).isEqualTo("submitted");
+        verify(notificationRepository).updateStatusIfIn(eq(notificationId), eq(SUBMITTED), isNull(), any(), any(),
+                                                         eq(SUBMITTED.allowedPredecessors()));
     }
 
     @Test
-    void updateNotificationAfterFailure_ShouldDoNothing_WhenNotificationNotFound() {
-        when(notificationRepository.findById(notificationId)).thenReturn(Optional.empty());
-
-        Exception exception = new RuntimeException("Test failure");
-        notificationService.updateNotificationAfterFailure(notificationId, exception);
+    void updateNotificationStatus_ShouldQueueUpdate_WhenWriteBehindIsEnabled() {
+        when(statusWriteBehind.isEnabled()).thenReturn(true);
+        when(statusWriteBehind.enqueue(any())).thenReturn(true);
+
+        assertThat(notificationService.updateNotificationAfterSending(notificationId, UUID.randomUUID()))
+            .isEqualTo(NotificationService.StatusUpdate.QUEUED);
+        ArgumentCaptor<NotificationStatusChange> change = ArgumentCaptor.forClass(NotificationStatusChange.class);
+        verify(statusWriteBehind).enqueue(change.capture());
+        assertThat(change.getValue().notificationId()).isEqualTo(notificationId);
+        assertThat(change.getValue().status()).isEqualTo(SUBMITTED);
+        assertThat(change.getValue().submittedAt()).isNotNull();
+        verify(notificationRepository, never()).updateStatusIfIn(any(), any(), any(), any(), any(), any());
+    }
 
-        verify(notificationRepository).findById(notificationId);
-        verify(notificationRepository, never()).save(any(CaseNotification.class));
+    @Test
+    void updateNotificationStatus_ShouldWriteDirectly_WhenWriteBehindIsFull() {
+        when(statusWriteBehind.isEnabled()).thenReturn(true);
+        when(statusWriteBehind.enqueue(any())).thenReturn(false);
+        when(notificationRepository.updateStatusIfIn(any(), any(), any(), any(), any(), any())).thenReturn(1);
+
+        assertThat(notificationService.updateNotificationStatus(notificationId, "DELIVERED"))
+            .isEqualTo(NotificationService.StatusUpdate.APPLIED);
+        verify(notificationRepository).updateStatusIfIn(eq(notificationId), eq(DELIVERED), isNull(), isNull(),
+                                                         any(), any());
     }
 
     @Test
     void constructor_ShouldInitializeFields() {
-        NotificationService service = new NotificationService(notificationRepository, schedulerClient);
+        NotificationService service = new NotificationService(notificationRepository, taskShards,
+                                                              statusWriteBehind, providerIdFilter,
+                                                              transactionTemplate, notificationSequencer);
 
         assertThat(service).isNotNull();
     }
@@ -0,0 +1,131 @@
+package uk.gov.hmcts.reform.enforcement.notify.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatusChange;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationStatusJdbcRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.DELIVERED;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.SENDING;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.SUBMITTED;
+
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings("unchecked")
+class NotificationStatusWriteBehindTest {
+
+    @Mock
+    private NotificationStatusJdbcRepository repository;
+
+    private NotificationStatusWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        writeBehind = new NotificationStatusWriteBehind(repository, new SimpleMeterRegistry(), true,
+                                                        Duration.ofSeconds(10), 200, 3, Duration.ofMillis(100));
+    }
+
+    @Test
+    void shouldCoalesceTransitionsForTheSameNotification() {
+        UUID notificationId = UUID.randomUUID();
+        UUID providerId = UUID.randomUUID();
+        Instant submittedAt = Instant.now();
+
+        writeBehind.enqueue(new NotificationStatusChange(notificationId, SUBMITTED, providerId, submittedAt,
+                                                         submittedAt));
+        writeBehind.enqueue(NotificationStatusChange.of(notificationId, SENDING, Instant.now()));
+        writeBehind.enqueue(NotificationStatusChange.of(notificationId, DELIVERED, Instant.now()));
+        writeBehind.flush();
+
+        ArgumentCaptor<Collection<NotificationStatusChange>> changes = ArgumentCaptor.forClass(Collection.class);
+        verify(repository).updateStatusesIfAllowed(changes.capture());
+        assertThat(changes.getValue()).singleElement().satisfies(change -> {
+            assertThat(change.status()).isEqualTo(DELIVERED);
+            assertThat(change.providerNotificationId()).isEqualTo(providerId);
+            assertThat(change.submittedAt()).isEqualTo(submittedAt);
+        });
+    }
+
+    @Test
+    void shouldNotLetAnEarlierStatusReplaceATerminalOne() {
+        UUID notificationId = UUID.randomUUID();
+
+        NotificationStatusChange delivered = NotificationStatusChange.of(notificationId, DELIVERED, Instant.now());
+        NotificationStatusChange sending = NotificationStatusChange.of(notificationId, SENDING, Instant.now());
+
+        assertThat(NotificationStatusWriteBehind.coalesce(delivered, sending)).isSameAs(delivered);
+    }
+
+    @Test
+    void shouldFlushOnTheCallingThreadWhenFull() {
+        writeBehind.enqueue(NotificationStatusChange.of(UUID.randomUUID(), DELIVERED, Instant.now()));
+        writeBehind.enqueue(NotificationStatusChange.of(UUID.randomUUID(), DELIVERED, Instant.now()));
+        verify(repository, never()).updateStatusesIfAllowed(anyCollection());
+
+        writeBehind.enqueue(NotificationStatusChange.of(UUID.randomUUID(), DELIVERED, Instant.now()));
+
+        verify(repository).updateStatusesIfAllowed(anyCollection());
+        assertThat(writeBehind.pendingCount()).isZero();
+        assertThat(writeBehind.awaitFlushed()).isTrue();
+    }
+
+    @Test
+    void shouldRequeueChangesWhenTheWriteFails() {
+        when(repository.updateStatusesIfAllowed(anyCollection()))
+            .thenThrow(new QueryTimeoutException("timeout"))
+            .thenReturn(1);
+        writeBehind.enqueue(NotificationStatusChange.of(UUID.randomUUID(), DELIVERED, Instant.now()));
+
+        assertThatThrownBy(writeBehind::flush).isInstanceOf(IllegalStateException.class);
+        assertThat(writeBehind.pendingCount()).isEqualTo(1);
+
+        writeBehind.flush();
+
+        verify(repository, times(2)).updateStatusesIfAllowed(anyCollection());
+        assertThat(writeBehind.awaitFlushed()).isTrue();
+    }
+
+    @Test
+    void shouldRefuseNewNotificationsOnceFullOfUnwrittenChanges() {
+        when(repository.updateStatusesIfAllowed(anyCollection())).thenThrow(new QueryTimeoutException("timeout"));
+        UUID notificationId = UUID.randomUUID();
+        writeBehind.enqueue(NotificationStatusChange.of(notificationId, SENDING, Instant.now()));
+        writeBehind.enqueue(NotificationStatusChange.of(UUID.randomUUID(), DELIVERED, Instant.now()));
+        writeBehind.enqueue(NotificationStatusChange.of(UUID.randomUUID(), DELIVERED, Instant.now()));
+
+        assertThat(writeBehind.enqueue(NotificationStatusChange.of(UUID.randomUUID(), DELIVERED, Instant.now())))
+            .isFalse();
+        assertThat(writeBehind.enqueue(NotificationStatusChange.of(notificationId, DELIVERED, Instant.now())))
+            .isTrue();
+        assertThat(writeBehind.pendingCount()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldReportUnwrittenChangesWhenWaiting() {
+        writeBehind.enqueue(NotificationStatusChange.of(UUID.randomUUID(), DELIVERED, Instant.now()));
+
+        assertThat(writeBehind.awaitFlushed()).isFalse();
+    }
+
+    @Test
+    void shouldNotWaitWhenNothingWasEnqueued() {
+        assertThat(writeBehind.awaitFlushed()).isTrue();
+    }
+}
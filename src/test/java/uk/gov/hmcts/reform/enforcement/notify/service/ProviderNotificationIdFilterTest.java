@@ -0,0 +1,112 @@
+package uk.gov.hmcts.reform.enforcement.notify.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProviderNotificationIdFilterTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Test
+    void shouldContainIdsLoadedFromTheDatabaseAndAddedLocally() {
+        UUID loaded = UUID.randomUUID();
+        UUID sent = UUID.randomUUID();
+        when(notificationRepository.findProviderNotificationIdsUpdatedSince(any())).thenReturn(List.of(loaded));
+        ProviderNotificationIdFilter filter = filter(true);
+
+        filter.start();
+        filter.add(sent);
+
+        assertThat(filter.mightContain(loaded)).isTrue();
+        assertThat(filter.mightContain(sent)).isTrue();
+        filter.stop();
+    }
+
+    @Test
+    void shouldRejectMostUnknownIds() {
+        when(notificationRepository.findProviderNotificationIdsUpdatedSince(any())).thenReturn(
+            IntStream.range(0, 1000).mapToObj(i -> UUID.randomUUID()).toList());
+        ProviderNotificationIdFilter filter = filter(true);
+        filter.start();
+
+        long falsePositives = IntStream.range(0, 10_000)
+            .filter(i -> filter.mightContain(UUID.randomUUID()))
+            .count();
+
+        assertThat(falsePositives).isLessThan(500);
+        filter.stop();
+    }
+
+    @Test
+    void shouldPickUpNewIdsOnRefresh() {
+        UUID later = UUID.randomUUID();
+        when(notificationRepository.findProviderNotificationIdsUpdatedSince(any()))
+            .thenReturn(List.of())
+            .thenReturn(List.of(later));
+        ProviderNotificationIdFilter filter = filter(true);
+        filter.start();
+
+        assertThat(filter.mightContain(later)).isFalse();
+        filter.refresh();
+        assertThat(filter.mightContain(later)).isTrue();
+        filter.stop();
+    }
+
+    @Test
+    void shouldKeepIdsAddedLocallyButNotYetWrittenAcrossARebuild() {
+        UUID old = UUID.randomUUID();
+        UUID sent = UUID.randomUUID();
+        Instant startedAt = Instant.parse("2026-01-01T10:00:00Z");
+        Clock clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(startedAt);
+        when(notificationRepository.findProviderNotificationIdsUpdatedSince(any()))
+            .thenReturn(List.of(old))
+            .thenReturn(List.of());
+        ProviderNotificationIdFilter filter = new ProviderNotificationIdFilter(
+            notificationRepository, clock, true, 1000, Duration.ofDays(7), Duration.ofHours(1));
+        filter.start();
+
+        when(clock.instant()).thenReturn(startedAt.plus(Duration.ofDays(1)).minusSeconds(60));
+        filter.add(sent);
+        when(clock.instant()).thenReturn(startedAt.plus(Duration.ofDays(1)).plusSeconds(60));
+        filter.refresh();
+
+        assertThat(filter.mightContain(sent)).isTrue();
+        assertThat(filter.mightContain(old)).isFalse();
+        filter.stop();
+    }
+
+    @Test
+    void shouldLetEverythingThroughWhenDisabled() {
+        ProviderNotificationIdFilter filter = filter(false);
+
+        filter.start();
+
+        assertThat(filter.mightContain(UUID.randomUUID())).isTrue();
+        verify(notificationRepository, never()).findProviderNotificationIdsUpdatedSince(any());
+    }
+
+    private ProviderNotificationIdFilter filter(boolean enabled) {
+        return new ProviderNotificationIdFilter(notificationRepository, Clock.systemUTC(), enabled, 1000,
+                                                Duration.ofDays(7), Duration.ofHours(1));
+    }
+}
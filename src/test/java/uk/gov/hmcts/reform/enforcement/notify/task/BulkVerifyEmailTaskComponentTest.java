@@ -0,0 +1,206 @@
+package uk.gov.hmcts.reform.enforcement.notify.task;
+
+import com.github.kagkarlsson.scheduler.SchedulerClient;
+import com.github.kagkarlsson.scheduler.serializer.Serializer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCall;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCallGuard;
+import uk.gov.hmcts.reform.enforcement.notify.entities.CaseNotification;
+import uk.gov.hmcts.reform.enforcement.notify.exception.NotifyCallRejectedException;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailState;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationPriority;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationStatusJdbcRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository.NewTask;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskShards;
+import uk.gov.service.notify.Notification;
+import uk.gov.service.notify.NotificationClient;
+import uk.gov.service.notify.NotificationList;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.CREATED;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.DELIVERED;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.PENDING;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.PERMANENT_FAILURE;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.SENDING;
+import static uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus.SUBMITTED;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@SuppressWarnings("unchecked")
+class BulkVerifyEmailTaskComponentTest {
+
+    private static final Instant NOW = Instant.parse("2025-06-01T12:00:00Z");
+
+    @Mock
+    private NotificationClient notificationClient;
+
+    @Mock
+    private NotifyCallGuard notifyCallGuard;
+
+    @Mock
+    private NotificationStatusJdbcRepository statusRepository;
+
+    @Mock
+    private ScheduledTaskRepository scheduledTaskRepository;
+
+    @Mock
+    private Serializer taskDataSerializer;
+
+    private BulkVerifyEmailTaskComponent component;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(notifyCallGuard.outageDeferral()).thenReturn(Optional.empty());
+        when(notifyCallGuard.call(any())).thenAnswer(invocation -> invocation.<NotifyCall<?>>getArgument(0).call());
+
+        TaskShards taskShards = new TaskShards(List.of(new TaskShards.Shard(
+            TaskShards.PRIMARY_SHARD, mock(DataSource.class), mock(SchedulerClient.class), scheduledTaskRepository)),
+                                               Set.of());
+        when(taskDataSerializer.serialize(any())).thenReturn(new byte[] {1});
+        component = new BulkVerifyEmailTaskComponent(notificationClient, notifyCallGuard, statusRepository,
+                                                     taskShards, taskDataSerializer, new SimpleMeterRegistry(),
+                                                     Clock.fixed(NOW, ZoneOffset.UTC), Duration.ofSeconds(30),
+                                                     Duration.ofHours(2), Duration.ofMinutes(15), 10);
+    }
+
+    @Test
+    void shouldApplyFinalStatusesFromAllPagesInOneUpdate() throws Exception {
+        Notification delivered = notification("delivered", NOW.minusSeconds(60));
+        Notification sending = notification("sending", NOW.minusSeconds(120));
+        Notification failed = notification("permanent-failure", NOW.minusSeconds(600));
+        Notification expired = notification("delivered", NOW.minus(Duration.ofHours(3)));
+
+        NotificationList firstPage = page(delivered, sending);
+        NotificationList secondPage = page(failed, expired);
+        String cursor = sending.getId().toString();
+        when(notificationClient.getNotifications(isNull(), eq("email"), isNull(), isNull())).thenReturn(firstPage);
+        when(notificationClient.getNotifications(isNull(), eq("email"), isNull(), eq(cursor))).thenReturn(secondPage);
+        when(statusRepository.updateStatusesByProviderId(anyMap(), eq(NOW))).thenReturn(2);
+
+        assertThat(component.verifyRecent()).isEqualTo(2);
+
+        ArgumentCaptor<Map<UUID, NotificationStatus>> statuses = ArgumentCaptor.forClass(Map.class);
+        verify(statusRepository).updateStatusesByProviderId(statuses.capture(), eq(NOW));
+        Map<UUID, NotificationStatus> expected = Map.of(delivered.getId(), DELIVERED,
+                                                        failed.getId(), PERMANENT_FAILURE);
+        assertThat(statuses.getValue()).containsExactlyInAnyOrderEntriesOf(expected);
+    }
+
+    @Test
+    void shouldStopPagingAtAnEmptyPage() throws Exception {
+        NotificationList emptyPage = page();
+        when(notificationClient.getNotifications(any(), any(), any(), any())).thenReturn(emptyPage);
+
+        component.verifyRecent();
+
+        verify(notificationClient).getNotifications(isNull(), eq("email"), isNull(), isNull());
+        verify(statusRepository).updateStatusesByProviderId(Map.of(), NOW);
+    }
+
+    @Test
+    void shouldApplyStatusesReadBeforeBeingRejected() throws Exception {
+        Notification delivered = notification("delivered", NOW.minusSeconds(60));
+        NotificationList firstPage = page(delivered);
+        when(notifyCallGuard.call(any()))
+            .thenReturn(firstPage)
+            .thenThrow(new NotifyCallRejectedException("Notify circuit open", Duration.ofSeconds(30)));
+
+        UUID deliveredId = delivered.getId();
+
+        component.verifyRecent();
+
+        verify(statusRepository).updateStatusesByProviderId(Map.of(deliveredId, DELIVERED), NOW);
+    }
+
+    @Test
+    void shouldSkipWhileNotifyIsUnavailable() throws Exception {
+        when(notifyCallGuard.outageDeferral()).thenReturn(Optional.of(Duration.ofSeconds(30)));
+
+        assertThat(component.verifyRecent()).isZero();
+
+        verify(notificationClient, never()).getNotifications(any(), any(), any(), any());
+        verify(statusRepository, never()).updateStatusesByProviderId(anyMap(), any());
+    }
+
+    @Test
+    void shouldScheduleVerifyTasksForEmailsStillAwaitingAFinalStatus() {
+        CaseNotification straggler = new CaseNotification();
+        straggler.setNotificationId(UUID.randomUUID());
+        straggler.setProviderNotificationId(UUID.randomUUID());
+        straggler.setTaskId("task-1");
+        when(statusRepository.findSubmittedInStatus(NOW.minus(Duration.ofHours(2)), NOW.minus(Duration.ofMinutes(15)),
+                                                    Set.of(SUBMITTED, CREATED, SENDING, PENDING)))
+            .thenReturn(List.of(straggler));
+
+        assertThat(component.scheduleStragglers()).isEqualTo(1);
+
+        ArgumentCaptor<List<NewTask>> tasks = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTaskRepository).insertAll(tasks.capture());
+        assertThat(tasks.getValue()).singleElement().satisfies(task -> {
+            assertThat(task.taskName()).isEqualTo("verify-email-task");
+            assertThat(task.taskInstance()).isEqualTo("task-1");
+            assertThat(task.executionTime()).isEqualTo(NOW);
+            assertThat(task.priority()).isEqualTo(NotificationPriority.VERIFY_TASK_PRIORITY);
+        });
+        ArgumentCaptor<EmailState> emailState = ArgumentCaptor.forClass(EmailState.class);
+        verify(taskDataSerializer).serialize(emailState.capture());
+        assertThat(emailState.getValue().getId()).isEqualTo("task-1");
+        assertThat(emailState.getValue().getNotificationId())
+            .isEqualTo(straggler.getProviderNotificationId().toString());
+        assertThat(emailState.getValue().getDbNotificationId()).isEqualTo(straggler.getNotificationId());
+    }
+
+    @Test
+    void shouldScheduleNothingWithoutStragglers() {
+        when(statusRepository.findSubmittedInStatus(any(), any(), any())).thenReturn(List.of());
+
+        assertThat(component.scheduleStragglers()).isZero();
+
+        verify(scheduledTaskRepository, never()).insertAll(anyList());
+    }
+
+    private static Notification notification(String status, Instant createdAt) {
+        Notification notification = mock(Notification.class);
+        when(notification.getId()).thenReturn(UUID.randomUUID());
+        when(notification.getStatus()).thenReturn(status);
+        when(notification.getCreatedAt()).thenReturn(ZonedDateTime.ofInstant(createdAt, ZoneOffset.UTC));
+        return notification;
+    }
+
+    private static NotificationList page(Notification... notifications) {
+        NotificationList page = mock(NotificationList.class);
+        when(page.getNotifications()).thenReturn(List.of(notifications));
+        return page;
+    }
+}
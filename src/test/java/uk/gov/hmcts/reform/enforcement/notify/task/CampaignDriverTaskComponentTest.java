@@ -0,0 +1,86 @@
+package uk.gov.hmcts.reform.enforcement.notify.task;
+
+import com.github.kagkarlsson.scheduler.task.CompletionHandler;
+import com.github.kagkarlsson.scheduler.task.ExecutionContext;
+import com.github.kagkarlsson.scheduler.task.TaskInstance;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCallGuard;
+import uk.gov.hmcts.reform.enforcement.notify.model.CampaignState;
+import uk.gov.hmcts.reform.enforcement.notify.service.CampaignService;
+import uk.gov.hmcts.reform.enforcement.notify.service.CampaignService.Expansion;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CampaignDriverTaskComponentTest {
+
+    private static final UUID CAMPAIGN_ID = UUID.randomUUID();
+
+    @Mock
+    private CampaignService campaignService;
+
+    @Mock
+    private NotifyCallGuard notifyCallGuard;
+
+    @Mock
+    private TaskInstance<CampaignState> taskInstance;
+
+    @Mock
+    private ExecutionContext executionContext;
+
+    private CampaignDriverTaskComponent component;
+
+    @BeforeEach
+    void setUp() {
+        component = new CampaignDriverTaskComponent(campaignService, notifyCallGuard, 100, 3000,
+                                                    Duration.ofSeconds(30));
+        when(taskInstance.getData()).thenReturn(new CampaignState(CAMPAIGN_ID));
+        when(notifyCallGuard.outageDeferral()).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void shouldExpandOneWindowSpacedAtTheRateLimitAndReschedule() {
+        when(campaignService.expand(CAMPAIGN_ID, 100, Duration.ofMillis(20))).thenReturn(new Expansion(100, false));
+
+        CompletionHandler<CampaignState> result = component.campaignDriverTask().execute(taskInstance,
+                                                                                        executionContext);
+
+        assertThat(result).isInstanceOf(CompletionHandler.OnCompleteReplace.class);
+        verify(campaignService).expand(CAMPAIGN_ID, 100, Duration.ofMillis(20));
+    }
+
+    @Test
+    void shouldRemoveItselfOnceCampaignIsExpanded() {
+        when(campaignService.expand(CAMPAIGN_ID, 100, Duration.ofMillis(20))).thenReturn(new Expansion(40, true));
+
+        CompletionHandler<CampaignState> result = component.campaignDriverTask().execute(taskInstance,
+                                                                                        executionContext);
+
+        assertThat(result).isInstanceOf(CompletionHandler.OnCompleteRemove.class);
+    }
+
+    @Test
+    void shouldNotExpandWhileNotifyIsUnavailable() {
+        when(notifyCallGuard.outageDeferral()).thenReturn(Optional.of(Duration.ofSeconds(35)));
+
+        CompletionHandler<CampaignState> result = component.campaignDriverTask().execute(taskInstance,
+                                                                                        executionContext);
+
+        assertThat(result).isInstanceOf(CompletionHandler.OnCompleteReplace.class);
+        verifyNoInteractions(campaignService);
+    }
+}
@@ -0,0 +1,69 @@
+package uk.gov.hmcts.reform.enforcement.notify.task;
+
+import com.github.kagkarlsson.scheduler.event.ExecutionChain;
+import com.github.kagkarlsson.scheduler.task.CompletionHandler;
+import com.github.kagkarlsson.scheduler.task.ExecutionContext;
+import com.github.kagkarlsson.scheduler.task.TaskInstance;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.hmcts.reform.enforcement.notify.exception.TemporaryNotificationException;
+import uk.gov.hmcts.reform.enforcement.notify.service.NotificationStatusWriteBehind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationStatusFlushInterceptorTest {
+
+    @Mock
+    private TaskInstance<Object> taskInstance;
+
+    @Mock
+    private ExecutionContext executionContext;
+
+    @Mock
+    private ExecutionChain chain;
+
+    @Mock
+    private NotificationStatusWriteBehind statusWriteBehind;
+
+    private NotificationStatusFlushInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new NotificationStatusFlushInterceptor(statusWriteBehind);
+    }
+
+    @Test
+    void shouldCompleteOnceBufferedStatusesAreWritten() {
+        CompletionHandler<Object> completion = new CompletionHandler.OnCompleteRemove<>();
+        when(chain.proceed(taskInstance, executionContext)).thenAnswer(invocation -> completion);
+        when(statusWriteBehind.awaitFlushed()).thenReturn(true);
+
+        assertThat(interceptor.execute(taskInstance, executionContext, chain)).isSameAs(completion);
+    }
+
+    @Test
+    void shouldFailTheExecutionWhenBufferedStatusesAreNotWritten() {
+        when(chain.proceed(taskInstance, executionContext))
+            .thenAnswer(invocation -> new CompletionHandler.OnCompleteRemove<>());
+        when(statusWriteBehind.awaitFlushed()).thenReturn(false);
+
+        assertThatThrownBy(() -> interceptor.execute(taskInstance, executionContext, chain))
+            .isInstanceOf(TemporaryNotificationException.class);
+    }
+
+    @Test
+    void shouldStillWaitWhenTheExecutionFails() {
+        when(chain.proceed(taskInstance, executionContext)).thenThrow(new IllegalStateException("boom"));
+
+        assertThatThrownBy(() -> interceptor.execute(taskInstance, executionContext, chain))
+            .isInstanceOf(IllegalStateException.class);
+        verify(statusWriteBehind).awaitFlushed();
+    }
+}
@@ -0,0 +1,47 @@
+package uk.gov.hmcts.reform.enforcement.notify.task;
+
+import com.github.kagkarlsson.scheduler.SchedulerClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCircuitOpenedEvent;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskShards;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class NotifyOutageTaskPostponerTest {
+
+    @Mock
+    private ScheduledTaskRepository scheduledTaskRepository;
+
+    @Mock
+    private ScheduledTaskRepository shardTaskRepository;
+
+    @Test
+    void shouldPostponeSendAndVerifyTasksOnEveryShardUntilCircuitCanClose() {
+        Instant openUntil = Instant.parse("2025-01-01T10:00:30Z");
+        TaskShards taskShards = new TaskShards(List.of(
+            new TaskShards.Shard(TaskShards.PRIMARY_SHARD, mock(DataSource.class), mock(SchedulerClient.class),
+                                 scheduledTaskRepository),
+            new TaskShards.Shard("a", mock(DataSource.class), mock(SchedulerClient.class), shardTaskRepository)),
+            Set.of("send-email-task"));
+        NotifyOutageTaskPostponer postponer = new NotifyOutageTaskPostponer(taskShards, Duration.ofSeconds(60));
+
+        postponer.onCircuitOpened(new NotifyCircuitOpenedEvent(openUntil));
+
+        verify(scheduledTaskRepository).postponeDue(
+            List.of("send-email-task", "verify-email-task"), openUntil, Duration.ofSeconds(60));
+        verify(shardTaskRepository).postponeDue(
+            List.of("send-email-task", "verify-email-task"), openUntil, Duration.ofSeconds(60));
+    }
+}
@@ -0,0 +1,424 @@
+package uk.gov.hmcts.reform.enforcement.notify.task;
+
+import com.github.kagkarlsson.scheduler.serializer.Serializer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCallGuard;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCircuitBreaker;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyConcurrencyLimit;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyRateLimiter;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailState;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationPriority;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatusChange;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationStatusJdbcRepository;
+import uk.gov.hmcts.reform.enforcement.notify.service.NotificationSequencer;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository.ClaimedTask;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository.Replacement;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository.Retry;
+import uk.gov.service.notify.NotificationClient;
+import uk.gov.service.notify.NotificationClientException;
+import uk.gov.service.notify.SendEmailResponse;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.hmcts.reform.enforcement.notify.helper.NotificationTestHelper.createNotificationClientException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@SuppressWarnings("unchecked")
+class SendEmailBatchTaskComponentTest {
+
+    private static final byte[] TASK_DATA = {1, 2, 3};
+
+    @Mock
+    private ScheduledTaskRepository scheduledTaskRepository;
+
+    @Mock
+    private NotificationStatusJdbcRepository statusRepository;
+
+    @Mock
+    private NotificationClient notificationClient;
+
+    @Mock
+    private NotifyRateLimiter rateLimiter;
+
+    @Mock
+    private NotifyCircuitBreaker circuitBreaker;
+
+    @Mock
+    private Serializer taskDataSerializer;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private NotificationSequencer notificationSequencer;
+
+    private SendEmailBatchTaskComponent component;
+    private SimpleMeterRegistry meterRegistry;
+    private NotifyConcurrencyLimit concurrencyLimit;
+    private final UUID dbNotificationId = UUID.randomUUID();
+    private EmailState emailState;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        concurrencyLimit = new NotifyConcurrencyLimit(false, 4, 1, 4, 0.9, 2.0, Duration.ofSeconds(60), meterRegistry);
+        component = component(true);
+
+        emailState = EmailState.builder()
+            .id("task-1")
+            .templateId("template-1")
+            .emailAddress("test@example.com")
+            .personalisation(Map.of("name", "John Doe"))
+            .dbNotificationId(dbNotificationId)
+            .build();
+
+        when(circuitBreaker.isClosed()).thenReturn(true);
+        when(rateLimiter.tryAcquire(anyInt())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(taskDataSerializer.deserialize(EmailState.class, TASK_DATA)).thenReturn(emailState);
+        when(taskDataSerializer.serialize(any())).thenReturn(new byte[] {4, 5, 6});
+        when(statusRepository.findStatuses(any())).thenReturn(Map.of(dbNotificationId, NotificationStatus.SCHEDULED));
+        when(notificationSequencer.isTurn(any())).thenReturn(true);
+        when(notificationSequencer.getParkTimeout()).thenReturn(Duration.ofHours(6));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> invocation
+            .<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        component.shutdown();
+    }
+
+    @Test
+    void shouldReturnZeroWhenNothingIsDue() {
+        when(scheduledTaskRepository.claimDue(eq("send-email-task"), eq(10), anyString(), any()))
+            .thenReturn(List.of());
+
+        assertThat(component.processBatch()).isZero();
+    }
+
+    @Test
+    void shouldNotClaimUnlessCircuitBreakerIsClosed() {
+        when(circuitBreaker.isClosed()).thenReturn(false);
+
+        assertThat(component.processBatch()).isZero();
+        verify(scheduledTaskRepository, never()).claimDue(anyString(), anyInt(), anyString(), any());
+    }
+
+    @Test
+    void shouldNotClaimWhenNoRateLimitTokensAreAvailable() {
+        when(rateLimiter.tryAcquire(10)).thenReturn(0);
+
+        assertThat(component.processBatch()).isZero();
+        verify(scheduledTaskRepository, never()).claimDue(anyString(), anyInt(), anyString(), any());
+    }
+
+    @Test
+    void shouldClaimOnlyAsManyTasksAsTokensAndReturnTheRest() {
+        when(rateLimiter.tryAcquire(10)).thenReturn(4);
+        when(scheduledTaskRepository.claimDue(eq("send-email-task"), eq(4), anyString(), any()))
+            .thenReturn(List.of());
+
+        component.processBatch();
+
+        verify(rateLimiter).release(4);
+    }
+
+    @Test
+    void shouldReplaceSentTasksWithVerifyTasksInOneBatch() throws Exception {
+        UUID providerId = UUID.randomUUID();
+        SendEmailResponse response = mock(SendEmailResponse.class);
+        when(response.getNotificationId()).thenReturn(providerId);
+        when(notificationClient.sendEmail(anyString(), anyString(), any(), anyString())).thenReturn(response);
+        claim(new ClaimedTask("send-email-task", "task-1", TASK_DATA, 0, 2L));
+
+        assertThat(component.processBatch()).isEqualTo(1);
+
+        ArgumentCaptor<List<Replacement>> replacements = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTaskRepository).replaceAll(replacements.capture(), any());
+        assertThat(replacements.getValue()).singleElement()
+            .satisfies(replacement -> {
+                assertThat(replacement.newTaskName()).isEqualTo("verify-email-task");
+                assertThat(replacement.priority()).isEqualTo(NotificationPriority.VERIFY_TASK_PRIORITY);
+            });
+
+        NotificationStatusChange change = capturedStatusChange();
+        assertThat(change.status()).isEqualTo(NotificationStatus.SUBMITTED);
+        assertThat(change.providerNotificationId()).isEqualTo(providerId);
+    }
+
+    @Test
+    void shouldRemoveSentTasksWithoutVerifyTasksWhileBulkVerifyIsEnabled() throws Exception {
+        component.shutdown();
+        component = component(false);
+        SendEmailResponse response = mock(SendEmailResponse.class);
+        when(response.getNotificationId()).thenReturn(UUID.randomUUID());
+        when(notificationClient.sendEmail(anyString(), anyString(), any(), anyString())).thenReturn(response);
+        claim(new ClaimedTask("send-email-task", "task-1", TASK_DATA, 0, 2L));
+
+        assertThat(component.processBatch()).isEqualTo(1);
+
+        ArgumentCaptor<List<ClaimedTask>> removals = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTaskRepository).removeAll(removals.capture());
+        assertThat(removals.getValue()).extracting(ClaimedTask::taskInstance).containsExactly("task-1");
+        verify(scheduledTaskRepository).replaceAll(eq(List.of()), any());
+        assertThat(capturedStatusChange().status()).isEqualTo(NotificationStatus.SUBMITTED);
+    }
+
+    @Test
+    void shouldRemovePermanentlyRejectedTasks() throws Exception {
+        NotificationClientException exception = createNotificationClientException(400, "Bad Request");
+        when(notificationClient.sendEmail(anyString(), anyString(), any(), anyString())).thenThrow(exception);
+        claim(new ClaimedTask("send-email-task", "task-1", TASK_DATA, 0, 2L));
+
+        component.processBatch();
+
+        ArgumentCaptor<List<ClaimedTask>> removals = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTaskRepository).removeAll(removals.capture());
+        assertThat(removals.getValue()).hasSize(1);
+        assertThat(capturedStatusChange().status()).isEqualTo(NotificationStatus.PERMANENT_FAILURE);
+    }
+
+    @Test
+    void shouldRetryTemporaryFailuresWithBackoff() throws Exception {
+        NotificationClientException exception = createNotificationClientException(429, "Too Many Requests");
+        when(notificationClient.sendEmail(anyString(), anyString(), any(), anyString())).thenThrow(exception);
+        claim(new ClaimedTask("send-email-task", "task-1", TASK_DATA, 0, 2L));
+
+        component.processBatch();
+
+        ArgumentCaptor<List<Retry>> retries = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTaskRepository).retryAll(retries.capture(), any());
+        assertThat(retries.getValue()).hasSize(1);
+        assertThat(capturedStatusChange().status()).isEqualTo(NotificationStatus.SEND_FAILED);
+        verify(circuitBreaker).onFailure();
+    }
+
+    @Test
+    void shouldGiveUpAfterMaxRetries() throws Exception {
+        NotificationClientException exception = createNotificationClientException(500, "Server Error");
+        when(notificationClient.sendEmail(anyString(), anyString(), any(), anyString())).thenThrow(exception);
+        claim(new ClaimedTask("send-email-task", "task-1", TASK_DATA, 2, 2L));
+
+        component.processBatch();
+
+        ArgumentCaptor<List<ClaimedTask>> removals = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTaskRepository).removeAll(removals.capture());
+        assertThat(removals.getValue()).hasSize(1);
+    }
+
+    @Test
+    void shouldParkSequencedTasksClaimedBeforeTheirTurn() throws Exception {
+        EmailState sequenced = emailState.toBuilder().sequenceKey("case-1").sequenceNumber(2L).build();
+        when(taskDataSerializer.deserialize(EmailState.class, TASK_DATA)).thenReturn(sequenced);
+        when(notificationSequencer.isTurn(sequenced)).thenReturn(false);
+        claim(new ClaimedTask("send-email-task", "task-1", TASK_DATA, 0, 2L));
+
+        component.processBatch();
+
+        verify(notificationClient, never()).sendEmail(anyString(), anyString(), any(), anyString());
+        ArgumentCaptor<List<Replacement>> replacements = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTaskRepository).replaceAll(replacements.capture(), any());
+        assertThat(replacements.getValue()).singleElement()
+            .satisfies(replacement -> {
+                assertThat(replacement.newTaskName()).isEqualTo("send-email-task");
+                assertThat(replacement.newTaskData()).isSameAs(TASK_DATA);
+            });
+        verify(notificationSequencer, never()).release(any());
+    }
+
+    @Test
+    void shouldReleaseSequencedEmailsOnceSent() throws Exception {
+        EmailState sequenced = emailState.toBuilder().sequenceKey("case-1").sequenceNumber(1L).build();
+        when(taskDataSerializer.deserialize(EmailState.class, TASK_DATA)).thenReturn(sequenced);
+        SendEmailResponse response = mock(SendEmailResponse.class);
+        when(response.getNotificationId()).thenReturn(UUID.randomUUID());
+        when(notificationClient.sendEmail(anyString(), anyString(), any(), anyString())).thenReturn(response);
+        claim(new ClaimedTask("send-email-task", "task-1", TASK_DATA, 0, 2L));
+
+        component.processBatch();
+
+        verify(notificationSequencer).release(sequenced);
+    }
+
+    @Test
+    void shouldNotReleaseSequencedEmailsThatAreRetried() throws Exception {
+        EmailState sequenced = emailState.toBuilder().sequenceKey("case-1").sequenceNumber(1L).build();
+        when(taskDataSerializer.deserialize(EmailState.class, TASK_DATA)).thenReturn(sequenced);
+        NotificationClientException exception = createNotificationClientException(429, "Too Many Requests");
+        when(notificationClient.sendEmail(anyString(), anyString(), any(), anyString())).thenThrow(exception);
+        claim(new ClaimedTask("send-email-task", "task-1", TASK_DATA, 0, 2L));
+
+        component.processBatch();
+
+        verify(notificationSequencer, never()).release(any());
+    }
+
+    @Test
+    void shouldRemoveTasksWhoseNotificationWasAlreadySentWithoutCallingNotify() throws Exception {
+        EmailState sequenced = emailState.toBuilder().sequenceKey("case-1").sequenceNumber(1L).build();
+        when(taskDataSerializer.deserialize(EmailState.class, TASK_DATA)).thenReturn(sequenced);
+        when(statusRepository.findStatuses(List.of(dbNotificationId)))
+            .thenReturn(Map.of(dbNotificationId, NotificationStatus.SUBMITTED));
+        ClaimedTask task = new ClaimedTask("send-email-task", "task-1", TASK_DATA, 0, 2L);
+        claim(task);
+
+        component.processBatch();
+
+        verify(notificationClient, never()).sendEmail(anyString(), anyString(), any(), anyString());
+        ArgumentCaptor<List<ClaimedTask>> removals = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTaskRepository).removeAll(removals.capture());
+        assertThat(removals.getValue()).containsExactly(task);
+        ArgumentCaptor<Collection<NotificationStatusChange>> changes = ArgumentCaptor.forClass(Collection.class);
+        verify(statusRepository).applyStatusesIfAllowed(changes.capture());
+        assertThat(changes.getValue()).isEmpty();
+        verify(notificationSequencer).release(sequenced);
+    }
+
+    @Test
+    void shouldRemoveTasksWhoseNotificationIsMissingWithoutCallingNotify() throws Exception {
+        when(statusRepository.findStatuses(List.of(dbNotificationId))).thenReturn(Map.of());
+        ClaimedTask task = new ClaimedTask("send-email-task", "task-1", TASK_DATA, 0, 2L);
+        claim(task);
+
+        component.processBatch();
+
+        verify(notificationClient, never()).sendEmail(anyString(), anyString(), any(), anyString());
+        ArgumentCaptor<List<ClaimedTask>> removals = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTaskRepository).removeAll(removals.capture());
+        assertThat(removals.getValue()).containsExactly(task);
+    }
+
+    @Test
+    void shouldParkTasksThatGetNoInFlightPermitAndHandBackTheirTokens() throws Exception {
+        // every permit taken by calls elsewhere on this node
+        for (int i = 0; i < 4; i++) {
+            concurrencyLimit.tryAcquire();
+        }
+        claim(new ClaimedTask("send-email-task", "task-1", TASK_DATA, 0, 2L));
+
+        component.processBatch();
+
+        verify(notificationClient, never()).sendEmail(anyString(), anyString(), any(), anyString());
+        ArgumentCaptor<List<Replacement>> replacements = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTaskRepository).replaceAll(replacements.capture(), any());
+        assertThat(replacements.getValue()).singleElement()
+            .satisfies(replacement -> assertThat(replacement.newTaskName()).isEqualTo("send-email-task"));
+        verify(rateLimiter).release(1);
+    }
+
+    @Test
+    void shouldSendMoreTasksThanTheInFlightLimitInOneBatch() throws Exception {
+        SendEmailResponse response = mock(SendEmailResponse.class);
+        when(response.getNotificationId()).thenReturn(UUID.randomUUID());
+        when(notificationClient.sendEmail(anyString(), anyString(), any(), anyString())).thenReturn(response);
+        ClaimedTask[] tasks = new ClaimedTask[6];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new ClaimedTask("send-email-task", "task-" + i, TASK_DATA, 0, 2L);
+        }
+        claim(tasks);
+
+        component.processBatch();
+
+        verify(notificationClient, times(6)).sendEmail(anyString(), anyString(), any(), anyString());
+        assertThat(concurrencyLimit.getInFlight()).isZero();
+    }
+
+    @Test
+    void shouldFailTheNotificationOfTasksWithUnreadableData() {
+        byte[] unreadable = {9, 9};
+        when(taskDataSerializer.deserialize(EmailState.class, unreadable))
+            .thenThrow(new IllegalArgumentException("Unsupported task data schema version: 9"));
+        ClaimedTask task = new ClaimedTask("send-email-task", "task-2", unreadable, 0, 2L);
+        claim(task);
+
+        component.processBatch();
+
+        ArgumentCaptor<List<ClaimedTask>> removals = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTaskRepository).removeAll(removals.capture());
+        assertThat(removals.getValue()).containsExactly(task);
+        verify(statusRepository).updateStatusesByTaskId(eq(List.of("task-2")), eq(NotificationStatus.PERMANENT_FAILURE),
+                                                        any());
+    }
+
+    @Test
+    void shouldDropOutcomesOfTasksClaimedAgainMeanwhile() throws Exception {
+        EmailState sequenced = emailState.toBuilder().sequenceKey("case-1").sequenceNumber(1L).build();
+        when(taskDataSerializer.deserialize(EmailState.class, TASK_DATA)).thenReturn(sequenced);
+        SendEmailResponse response = mock(SendEmailResponse.class);
+        when(response.getNotificationId()).thenReturn(UUID.randomUUID());
+        when(notificationClient.sendEmail(anyString(), anyString(), any(), anyString())).thenReturn(response);
+        ClaimedTask task = new ClaimedTask("send-email-task", "task-1", TASK_DATA, 0, 2L);
+        claim(task);
+        when(scheduledTaskRepository.replaceAll(any(), any())).thenReturn(List.of(task));
+
+        component.processBatch();
+
+        ArgumentCaptor<Collection<NotificationStatusChange>> changes = ArgumentCaptor.forClass(Collection.class);
+        verify(statusRepository).applyStatusesIfAllowed(changes.capture());
+        assertThat(changes.getValue()).isEmpty();
+        verify(notificationSequencer, never()).release(any());
+    }
+
+    private void claim(ClaimedTask... tasks) {
+        when(scheduledTaskRepository.claimDue(eq("send-email-task"), anyInt(), anyString(), any()))
+            .thenReturn(List.of(tasks));
+    }
+
+    private SendEmailBatchTaskComponent component(boolean verifyOnSend) {
+        return new SendEmailBatchTaskComponent(
+            scheduledTaskRepository,
+            statusRepository,
+            notificationClient,
+            rateLimiter,
+            circuitBreaker,
+            new NotifyCallGuard(concurrencyLimit, rateLimiter, circuitBreaker, Duration.ofSeconds(5), meterRegistry),
+            taskDataSerializer,
+            transactionTemplate,
+            meterRegistry,
+            10,
+            4,
+            Duration.ofSeconds(1),
+            3,
+            Duration.ofSeconds(300),
+            new VerifyDelayPolicy(null, () -> 0.5, verifyOnSend, null, Duration.ofSeconds(60), false, 0.9, 0.99,
+                                  50, Duration.ofSeconds(5), Duration.ofMinutes(30), 0.2),
+            notificationSequencer
+        );
+    }
+
+    private NotificationStatusChange capturedStatusChange() {
+        ArgumentCaptor<Collection<NotificationStatusChange>> changes = ArgumentCaptor.forClass(Collection.class);
+        verify(statusRepository).applyStatusesIfAllowed(changes.capture());
+        assertThat(changes.getValue()).hasSize(1);
+        return changes.getValue().iterator().next();
+    }
+}
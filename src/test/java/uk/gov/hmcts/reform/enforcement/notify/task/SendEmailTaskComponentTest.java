@@ -14,14 +14,18 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCall;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCallGuard;
 import uk.gov.hmcts.reform.enforcement.notify.config.NotificationErrorHandler;
 import uk.gov.hmcts.reform.enforcement.notify.config.NotificationErrorHandler.NotificationStatusUpdate;
 import uk.gov.hmcts.reform.enforcement.notify.entities.CaseNotification;
+import uk.gov.hmcts.reform.enforcement.notify.exception.NotifyCallRejectedException;
 import uk.gov.hmcts.reform.enforcement.notify.exception.PermanentNotificationException;
 import uk.gov.hmcts.reform.enforcement.notify.exception.TemporaryNotificationException;
 import uk.gov.hmcts.reform.enforcement.notify.model.EmailState;
 import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus;
 import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationRepository;
+import uk.gov.hmcts.reform.enforcement.notify.service.NotificationSequencer;
 import uk.gov.hmcts.reform.enforcement.notify.service.NotificationService;
 import uk.gov.service.notify.NotificationClient;
 import uk.gov.service.notify.NotificationClientException;
@@ -62,6 +66,9 @@ class SendEmailTaskComponentTest {
     @Mock
     private NotificationErrorHandler errorHandler;
 
+    @Mock
+    private NotifyCallGuard notifyCallGuard;
+
     @Mock
     private NotificationRepository notificationRepository;
 
@@ -77,9 +84,14 @@ class SendEmailTaskComponentTest {
     @Mock
     private SendEmailResponse sendEmailResponse;
 
+    @Mock
+    private NotificationSequencer notificationSequencer;
+
     private final Duration sendingBackoffDelay = Duration.ofSeconds(30);
     private final Duration processingDelay = Duration.ofSeconds(2);
-    private final Duration statusCheckTaskDelay = Duration.ofMinutes(5);
+    private final VerifyDelayPolicy verifyDelayPolicy = new VerifyDelayPolicy(
+        null, () -> 0.5, true, null, Duration.ofMinutes(5), false, 0.9, 0.99, 50,
+        Duration.ofSeconds(5), Duration.ofMinutes(30), 0.2);
 
     private EmailState emailState;
     private final UUID dbNotificationId = UUID.randomUUID();
@@ -89,17 +101,21 @@ class SendEmailTaskComponentTest {
     private final UUID notificationId = UUID.randomUUID();
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws Exception {
+        when(notifyCallGuard.send(any())).thenAnswer(invocation -> invocation.<NotifyCall<?>>getArgument(0).call());
+
         int maxRetriesSendEmail = 3;
         sendEmailTaskComponent = new SendEmailTaskComponent(
             notificationService,
             notificationClient,
             errorHandler,
             notificationRepository,
+            notifyCallGuard,
             maxRetriesSendEmail,
             sendingBackoffDelay,
             processingDelay,
-            statusCheckTaskDelay
+            verifyDelayPolicy,
+            notificationSequencer
         );
 
         String taskId = "task-123";
@@ -113,6 +129,9 @@ class SendEmailTaskComponentTest {
 
         when(taskInstance.getData()).thenReturn(emailState);
         when(taskInstance.getId()).thenReturn(taskId);
+        when(caseNotification.getStatus()).thenReturn(NotificationStatus.SCHEDULED);
+        when(notificationSequencer.isTurn(any())).thenReturn(true);
+        when(notificationSequencer.getParkTimeout()).thenReturn(Duration.ofHours(6));
     }
 
     @Nested
@@ -158,8 +177,35 @@ class SendEmailTaskComponentTest {
         }
 
         @Test
-        @DisplayName("Should generate unique reference ID for each email")
-        void shouldGenerateUniqueReferenceIdForEachEmail() throws Exception {
+        @DisplayName("Should send email without scheduling verify task while bulk verify is enabled")
+        void shouldSendEmailWithoutVerifyTaskWhileBulkVerifyIsEnabled() throws Exception {
+            when(notificationRepository.findById(dbNotificationId)).thenReturn(Optional.of(caseNotification));
+            when(sendEmailResponse.getNotificationId()).thenReturn(notificationId);
+            when(notificationClient.sendEmail(eq(templateId), eq(emailAddress), eq(personalisation), anyString()))
+                .thenReturn(sendEmailResponse);
+            SendEmailTaskComponent component = new SendEmailTaskComponent(
+                notificationService,
+                notificationClient,
+                errorHandler,
+                notificationRepository,
+                notifyCallGuard,
+                3,
+                sendingBackoffDelay,
+                processingDelay,
+                new VerifyDelayPolicy(null, () -> 0.5, false, null, Duration.ofMinutes(5), false, 0.9, 0.99, 50,
+                                      Duration.ofSeconds(5), Duration.ofMinutes(30), 0.2),
+                notificationSequencer
+            );
+
+            CompletionHandler<EmailState> result = component.sendEmailTask().execute(taskInstance, executionContext);
+
+            verify(notificationService).updateNotificationAfterSending(dbNotificationId, notificationId);
+            assertThat(result).isInstanceOf(CompletionHandler.OnCompleteRemove.class);
+        }
+
+        @Test
+        @DisplayName("Should send notification ID as reference when caller gave none")
+        void shouldSendNotificationIdAsReferenceWhenCallerGaveNone() throws Exception {
             when(notificationRepository.findById(dbNotificationId)).thenReturn(Optional.of(caseNotification));
             when(sendEmailResponse.getNotificationId()).thenReturn(notificationId);
             when(notificationClient.sendEmail(eq(templateId), eq(emailAddress), eq(personalisation), anyString()))
@@ -173,9 +219,7 @@ class SendEmailTaskComponentTest {
             verify(notificationClient).sendEmail(eq(templateId), eq(emailAddress), eq(personalisation),
                 referenceCaptor.capture());
 
-            String referenceId = referenceCaptor.getValue();
-            assertThat(referenceId).isNotNull().isNotEmpty();
-            assertThat(UUID.fromString(referenceId)).isNotNull();
+            assertThat(referenceCaptor.getValue()).isEqualTo(dbNotificationId.toString());
         }
 
         @Test
@@ -223,6 +267,20 @@ class SendEmailTaskComponentTest {
 
             assertThat(result).isInstanceOf(CompletionHandler.OnCompleteRemove.class);
         }
+
+        @Test
+        @DisplayName("Should not send again when the notification is already past sending")
+        void shouldNotSendAgainWhenNotificationIsAlreadyPastSending() throws Exception {
+            when(notificationRepository.findById(dbNotificationId)).thenReturn(Optional.of(caseNotification));
+            when(caseNotification.getStatus()).thenReturn(NotificationStatus.SUBMITTED);
+
+            CompletionHandler<EmailState> result = sendEmailTaskComponent.sendEmailTask()
+                .execute(taskInstance, executionContext);
+
+            assertThat(result).isInstanceOf(CompletionHandler.OnCompleteRemove.class);
+            verify(notificationClient, never()).sendEmail(anyString(), anyString(), any(), anyString());
+            verify(notificationSequencer).release(emailState);
+        }
     }
 
     @Nested
@@ -272,7 +330,7 @@ class SendEmailTaskComponentTest {
                 anyString(), 
                 any()
             );            
-            assertThat(result).isInstanceOf(CompletionHandler.OnCompleteReplace.class);
+            assertThat(result).isInstanceOf(CompletionHandler.OnCompleteRemove.class);
         }
 
         @Test
@@ -291,7 +349,7 @@ class SendEmailTaskComponentTest {
             CompletionHandler<EmailState> result = task.execute(taskInstance, executionContext);
 
             verify(errorHandler).handleSendEmailException(eq(exception), eq(caseNotification), anyString(), any());
-            assertThat(result).isInstanceOf(CompletionHandler.OnCompleteReplace.class);
+            assertThat(result).isInstanceOf(CompletionHandler.OnCompleteRemove.class);
         }
 
         @Test
@@ -373,7 +431,7 @@ class SendEmailTaskComponentTest {
             
             CompletionHandler<EmailState> result400 = sendEmailTaskComponent.sendEmailTask()
                 .execute(taskInstance, executionContext);
-            assertThat(result400).isInstanceOf(CompletionHandler.OnCompleteReplace.class);
+            assertThat(result400).isInstanceOf(CompletionHandler.OnCompleteRemove.class);
             verify(errorHandler).handleSendEmailException(
                 eq(exception400), 
                 eq(caseNotification), 
@@ -388,7 +446,7 @@ class SendEmailTaskComponentTest {
                 
             CompletionHandler<EmailState> result403 = sendEmailTaskComponent.sendEmailTask()
                 .execute(taskInstance, executionContext);
-            assertThat(result403).isInstanceOf(CompletionHandler.OnCompleteReplace.class);
+            assertThat(result403).isInstanceOf(CompletionHandler.OnCompleteRemove.class);
             verify(errorHandler).handleSendEmailException(
                 eq(exception403), 
                 eq(caseNotification), 
@@ -484,7 +542,7 @@ class SendEmailTaskComponentTest {
 
             CompletionHandler<EmailState> result = task.execute(taskInstance, executionContext);
 
-            verify(notificationClient).sendEmail(eq(templateId), eq(emailAddress), eq(personalisation), anyString());
+            verify(notificationClient).sendEmail(templateId, emailAddress, personalisation, "custom-reference");
             assertThat(result).isInstanceOf(CompletionHandler.OnCompleteReplace.class);
         }
     }
@@ -509,10 +567,12 @@ class SendEmailTaskComponentTest {
                 notificationClient,
                 errorHandler,
                 notificationRepository,
+                notifyCallGuard,
                 5,
                 Duration.ofMinutes(1),
                 Duration.ofSeconds(2),
-                Duration.ofMinutes(10)
+                verifyDelayPolicy,
+                notificationSequencer
             );
 
             CustomTask<EmailState> task = component.sendEmailTask();
@@ -543,8 +603,8 @@ class SendEmailTaskComponentTest {
         }
 
         @Test
-        @DisplayName("Should handle failure flow with proper scheduling of verify task")
-        void shouldHandleFailureFlowWithProperSchedulingOfVerifyTask() throws Exception {
+        @DisplayName("Should complete without a verify task when Notify rejects the email")
+        void shouldCompleteWithoutVerifyTaskWhenNotifyRejectsTheEmail() throws Exception {
             NotificationClientException exception = mock(NotificationClientException.class);
             when(exception.getHttpResult()).thenReturn(400);
             when(exception.getMessage()).thenReturn("Bad Request");
@@ -566,7 +626,7 @@ class SendEmailTaskComponentTest {
                 any()
             );
             
-            assertThat(result).isInstanceOf(CompletionHandler.OnCompleteReplace.class);
+            assertThat(result).isInstanceOf(CompletionHandler.OnCompleteRemove.class);
         }
 
         @Test
@@ -654,4 +714,80 @@ class SendEmailTaskComponentTest {
             statusUpdater.accept(statusUpdate);
         }).isInstanceOf(NullPointerException.class);
     }
+
+    @Nested
+    @DisplayName("Notify Unavailable Tests")
+    class NotifyUnavailableTests {
+
+        @Test
+        @DisplayName("Should defer without reading the notification while Notify is unavailable")
+        void shouldDeferWithoutReadingNotificationWhileNotifyIsUnavailable() {
+            when(notifyCallGuard.outageDeferral()).thenReturn(Optional.of(Duration.ofSeconds(30)));
+
+            CompletionHandler<EmailState> result = sendEmailTaskComponent.sendEmailTask()
+                .execute(taskInstance, executionContext);
+
+            assertThat(result).isInstanceOf(CompletionHandler.OnCompleteReplace.class);
+            verifyNoInteractions(notificationRepository, notificationClient, notificationService);
+        }
+
+        @Test
+        @DisplayName("Should defer instead of failing when the Notify call is rejected")
+        void shouldDeferWhenNotifyCallIsRejected() throws Exception {
+            when(notificationRepository.findById(dbNotificationId)).thenReturn(Optional.of(caseNotification));
+            doThrow(new NotifyCallRejectedException("Notify in-flight limit reached", Duration.ofSeconds(5)))
+                .when(notifyCallGuard).send(any());
+
+            CompletionHandler<EmailState> result = sendEmailTaskComponent.sendEmailTask()
+                .execute(taskInstance, executionContext);
+
+            assertThat(result).isInstanceOf(CompletionHandler.OnCompleteReplace.class);
+            verifyNoInteractions(errorHandler, notificationService);
+            verify(notificationSequencer, never()).release(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Sequenced Email Tests")
+    class SequencedEmailTests {
+
+        @Test
+        @DisplayName("Should park a sequenced email until earlier ones are released")
+        void shouldParkSequencedEmailBeforeItsTurn() {
+            when(notificationSequencer.isTurn(emailState)).thenReturn(false);
+
+            CompletionHandler<EmailState> result = sendEmailTaskComponent.sendEmailTask()
+                .execute(taskInstance, executionContext);
+
+            assertThat(result).isInstanceOf(CompletionHandler.OnCompleteReplace.class);
+            verifyNoInteractions(notificationRepository, notificationClient, notificationService);
+            verify(notificationSequencer, never()).release(any());
+        }
+
+        @Test
+        @DisplayName("Should release the next email once this one is sent")
+        void shouldReleaseOnceSent() throws Exception {
+            when(notificationRepository.findById(dbNotificationId)).thenReturn(Optional.of(caseNotification));
+            when(sendEmailResponse.getNotificationId()).thenReturn(notificationId);
+            when(notificationClient.sendEmail(eq(templateId), eq(emailAddress), eq(personalisation), anyString()))
+                .thenReturn(sendEmailResponse);
+
+            sendEmailTaskComponent.sendEmailTask().execute(taskInstance, executionContext);
+
+            verify(notificationSequencer).release(emailState);
+        }
+
+        @Test
+        @DisplayName("Should release the next email when Notify rejects this one")
+        void shouldReleaseWhenRejected() throws Exception {
+            when(notificationRepository.findById(dbNotificationId)).thenReturn(Optional.of(caseNotification));
+            NotificationClientException exception = mock(NotificationClientException.class);
+            when(exception.getHttpResult()).thenReturn(400);
+            when(notificationClient.sendEmail(anyString(), anyString(), any(), anyString())).thenThrow(exception);
+
+            sendEmailTaskComponent.sendEmailTask().execute(taskInstance, executionContext);
+
+            verify(notificationSequencer).release(emailState);
+        }
+    }
 }
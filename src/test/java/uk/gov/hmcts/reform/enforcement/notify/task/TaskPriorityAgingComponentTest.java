@@ -0,0 +1,107 @@
+package uk.gov.hmcts.reform.enforcement.notify.task;
+
+import com.github.kagkarlsson.scheduler.SchedulerClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.TaskShards;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskPriorityAgingComponentTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    @Mock
+    private ScheduledTaskRepository scheduledTaskRepository;
+
+    @Mock
+    private ScheduledTaskRepository shardTaskRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TaskPriorityAgingComponent component;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        component = component(shard(TaskShards.PRIMARY_SHARD, scheduledTaskRepository));
+    }
+
+    @Test
+    void shouldRaiseSendsBelowUrgentAndVerifiesBelowSends() {
+        when(scheduledTaskRepository.ageWaiting(NOW.minus(Duration.ofMinutes(2)), 10, 30, 69)).thenReturn(3);
+        when(scheduledTaskRepository.ageWaiting(NOW.minus(Duration.ofMinutes(2)), 10, 10, 29)).thenReturn(2);
+
+        assertThat(component.ageAndMeasure()).isEqualTo(5);
+        assertThat(meterRegistry.counter("scheduler.priority.aged").count()).isEqualTo(5.0);
+    }
+
+    @Test
+    void shouldReportQueueDepthPerLane() {
+        when(scheduledTaskRepository.countDueByPriority(NOW)).thenReturn(Map.of(70, 1L, 60, 2L, 30, 4L, 10, 8L));
+
+        component.ageAndMeasure();
+
+        assertThat(depth("urgent")).isEqualTo(1.0);
+        assertThat(depth("normal")).isEqualTo(2.0);
+        assertThat(depth("bulk")).isEqualTo(4.0);
+        assertThat(depth("verify")).isEqualTo(8.0);
+    }
+
+    @Test
+    void shouldResetEmptiedLanesToZero() {
+        when(scheduledTaskRepository.countDueByPriority(NOW)).thenReturn(Map.of(30, 4L), Map.of());
+
+        component.ageAndMeasure();
+        component.ageAndMeasure();
+
+        verify(scheduledTaskRepository, times(2)).countDueByPriority(NOW);
+        assertThat(depth("bulk")).isZero();
+    }
+
+    @Test
+    void shouldAgeAndMeasureEveryShard() {
+        meterRegistry = new SimpleMeterRegistry();
+        TaskPriorityAgingComponent sharded = component(
+            shard(TaskShards.PRIMARY_SHARD, scheduledTaskRepository), shard("a", shardTaskRepository));
+        when(shardTaskRepository.ageWaiting(NOW.minus(Duration.ofMinutes(2)), 10, 30, 69)).thenReturn(2);
+        when(scheduledTaskRepository.countDueByPriority(NOW)).thenReturn(Map.of(30, 4L));
+        when(shardTaskRepository.countDueByPriority(NOW)).thenReturn(Map.of(30, 1L, 10, 3L));
+
+        assertThat(sharded.ageAndMeasure()).isEqualTo(2);
+        assertThat(depth("bulk")).isEqualTo(5.0);
+        assertThat(depth("verify")).isEqualTo(3.0);
+    }
+
+    private TaskPriorityAgingComponent component(TaskShards.Shard... shards) {
+        return new TaskPriorityAgingComponent(new TaskShards(List.of(shards), Set.of()), meterRegistry,
+                                              Clock.fixed(NOW, ZoneOffset.UTC), Duration.ofSeconds(30),
+                                              Duration.ofMinutes(2), 10);
+    }
+
+    private static TaskShards.Shard shard(String name, ScheduledTaskRepository tasks) {
+        return new TaskShards.Shard(name, mock(DataSource.class), mock(SchedulerClient.class), tasks);
+    }
+
+    private double depth(String lane) {
+        return meterRegistry.get("scheduler.queue.depth").tag("priority", lane).gauge().value();
+    }
+}
@@ -0,0 +1,87 @@
+package uk.gov.hmcts.reform.enforcement.notify.task;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.hmcts.reform.enforcement.notify.service.DeliveryLatencyTracker;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VerifyDelayPolicyTest {
+
+    private static final String TEMPLATE = "template-1";
+    private static final Duration DEFAULT_DELAY = Duration.ofSeconds(60);
+
+    @Mock
+    private DeliveryLatencyTracker latencyTracker;
+
+    @Test
+    void shouldWaitForFallbackDeadlineWhenReceiptsResolveDelivery() {
+        VerifyDelayPolicy policy = policy(Duration.ofMinutes(30), 0.5);
+
+        assertThat(policy.firstCheckDelay(TEMPLATE)).isEqualTo(Duration.ofMinutes(30));
+        verifyNoInteractions(latencyTracker);
+    }
+
+    @Test
+    void shouldUseObservedQuantileForFirstCheck() {
+        when(latencyTracker.quantile(TEMPLATE, 0.9, 50)).thenReturn(Optional.of(Duration.ofSeconds(12)));
+
+        assertThat(policy(null, 0.5).firstCheckDelay(TEMPLATE)).isEqualTo(Duration.ofSeconds(12));
+    }
+
+    @Test
+    void shouldFallBackToDefaultDelayWithoutEnoughSamples() {
+        when(latencyTracker.quantile(eq(TEMPLATE), anyDouble(), anyInt())).thenReturn(Optional.empty());
+
+        assertThat(policy(null, 0.5).firstCheckDelay(TEMPLATE)).isEqualTo(DEFAULT_DELAY);
+    }
+
+    @Test
+    void shouldJitterWithinConfiguredFraction() {
+        when(latencyTracker.quantile(TEMPLATE, 0.9, 50)).thenReturn(Optional.of(Duration.ofSeconds(10)));
+
+        assertThat(policy(null, 0.0).firstCheckDelay(TEMPLATE)).isEqualTo(Duration.ofSeconds(8));
+        assertThat(policy(null, 1.0).firstCheckDelay(TEMPLATE)).isEqualTo(Duration.ofSeconds(12));
+    }
+
+    @Test
+    void shouldClampToConfiguredBounds() {
+        when(latencyTracker.quantile(TEMPLATE, 0.9, 50)).thenReturn(Optional.of(Duration.ofMillis(1500)));
+
+        assertThat(policy(null, 0.5).firstCheckDelay(TEMPLATE)).isEqualTo(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void shouldRecheckWhenTailQuantileIsReached() {
+        when(latencyTracker.quantile(TEMPLATE, 0.99, 50)).thenReturn(Optional.of(Duration.ofSeconds(90)));
+
+        assertThat(policy(null, 0.5).recheckDelay(TEMPLATE, Duration.ofSeconds(20)))
+            .isEqualTo(Duration.ofSeconds(70));
+    }
+
+    @Test
+    void shouldBackOffWithElapsedTimeOnceTailIsPassed() {
+        when(latencyTracker.quantile(TEMPLATE, 0.99, 50)).thenReturn(Optional.of(Duration.ofSeconds(90)));
+
+        assertThat(policy(null, 0.5).recheckDelay(TEMPLATE, Duration.ofMinutes(10)))
+            .isEqualTo(Duration.ofMinutes(5));
+        assertThat(policy(null, 0.5).recheckDelay(TEMPLATE, Duration.ofHours(5)))
+            .isEqualTo(Duration.ofMinutes(30));
+    }
+
+    private VerifyDelayPolicy policy(Duration fallbackDeadline, double random) {
+        return new VerifyDelayPolicy(latencyTracker, () -> random, true, fallbackDeadline, DEFAULT_DELAY, true,
+                                     0.9, 0.99, 50, Duration.ofSeconds(5), Duration.ofMinutes(30), 0.2);
+    }
+}
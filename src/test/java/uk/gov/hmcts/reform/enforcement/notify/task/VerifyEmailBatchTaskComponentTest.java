@@ -0,0 +1,262 @@
+package uk.gov.hmcts.reform.enforcement.notify.task;
+
+import com.github.kagkarlsson.scheduler.serializer.Serializer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCallGuard;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCircuitBreaker;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyConcurrencyLimit;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyRateLimiter;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailState;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationPriority;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatusChange;
+import uk.gov.hmcts.reform.enforcement.notify.repository.NotificationStatusJdbcRepository;
+import uk.gov.hmcts.reform.enforcement.notify.service.DeliveryLatencyTracker;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository.ClaimedTask;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository.Replacement;
+import uk.gov.hmcts.reform.enforcement.scheduler.ScheduledTaskRepository.Retry;
+import uk.gov.service.notify.Notification;
+import uk.gov.service.notify.NotificationClient;
+import uk.gov.service.notify.NotificationClientException;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.hmcts.reform.enforcement.notify.helper.NotificationTestHelper.createNotificationClientException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@SuppressWarnings("unchecked")
+class VerifyEmailBatchTaskComponentTest {
+
+    private static final byte[] TASK_DATA = {1, 2, 3};
+
+    @Mock
+    private ScheduledTaskRepository scheduledTaskRepository;
+
+    @Mock
+    private NotificationStatusJdbcRepository statusRepository;
+
+    @Mock
+    private NotificationClient notificationClient;
+
+    @Mock
+    private NotifyCircuitBreaker circuitBreaker;
+
+    @Mock
+    private Serializer taskDataSerializer;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private DeliveryLatencyTracker latencyTracker;
+
+    private VerifyEmailBatchTaskComponent component;
+    private NotifyConcurrencyLimit concurrencyLimit;
+    private final UUID dbNotificationId = UUID.randomUUID();
+    private EmailState emailState;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        concurrencyLimit = new NotifyConcurrencyLimit(false, 4, 1, 4, 0.9, 2.0, Duration.ofSeconds(60), meterRegistry);
+        component = new VerifyEmailBatchTaskComponent(
+            scheduledTaskRepository,
+            statusRepository,
+            notificationClient,
+            circuitBreaker,
+            new NotifyCallGuard(concurrencyLimit, mock(NotifyRateLimiter.class), circuitBreaker, Duration.ofSeconds(5),
+                                meterRegistry),
+            taskDataSerializer,
+            transactionTemplate,
+            meterRegistry,
+            new VerifyDelayPolicy(null, () -> 0.5, true, null, Duration.ofSeconds(60), false, 0.9, 0.99, 50,
+                                  Duration.ofSeconds(5), Duration.ofMinutes(30), 0.2),
+            latencyTracker,
+            10,
+            4,
+            Duration.ofSeconds(1),
+            3,
+            Duration.ofSeconds(3600)
+        );
+
+        emailState = EmailState.builder()
+            .id("task-1")
+            .templateId("template-1")
+            .notificationId("provider-1")
+            .dbNotificationId(dbNotificationId)
+            .build();
+
+        when(circuitBreaker.isClosed()).thenReturn(true);
+        when(taskDataSerializer.deserialize(EmailState.class, TASK_DATA)).thenReturn(emailState);
+        when(statusRepository.findTerminal(any())).thenReturn(Set.of());
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> invocation
+            .<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        component.shutdown();
+    }
+
+    @Test
+    void shouldNotClaimUnlessCircuitBreakerIsClosed() {
+        when(circuitBreaker.isClosed()).thenReturn(false);
+
+        assertThat(component.processBatch()).isZero();
+        verify(scheduledTaskRepository, never()).claimDue(anyString(), anyInt(), anyString(), any());
+    }
+
+    @Test
+    void shouldStoreDeliveredStatusesAndRemoveTheirTasks() throws Exception {
+        ZonedDateTime createdAt = ZonedDateTime.now().minusMinutes(2);
+        Notification notification = mock(Notification.class);
+        when(notification.getStatus()).thenReturn("delivered");
+        when(notification.getCreatedAt()).thenReturn(createdAt);
+        when(notification.getCompletedAt()).thenReturn(Optional.of(createdAt.plusSeconds(30)));
+        when(notificationClient.getNotificationById("provider-1")).thenReturn(notification);
+        ClaimedTask task = new ClaimedTask("verify-email-task", "task-1", TASK_DATA, 0, 2L);
+        claim(task);
+
+        assertThat(component.processBatch()).isEqualTo(1);
+
+        ArgumentCaptor<List<ClaimedTask>> removals = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTaskRepository).removeAll(removals.capture());
+        assertThat(removals.getValue()).containsExactly(task);
+        assertThat(capturedStatusChange().status()).isEqualTo(NotificationStatus.DELIVERED);
+        verify(latencyTracker).record(eq("template-1"), any(), any());
+        assertThat(concurrencyLimit.getInFlight()).isZero();
+    }
+
+    @Test
+    void shouldCheckAgainLaterWhileNotifyIsStillSending() throws Exception {
+        Notification notification = mock(Notification.class);
+        when(notification.getStatus()).thenReturn("sending");
+        when(notification.getCreatedAt()).thenReturn(ZonedDateTime.now().minusSeconds(30));
+        when(notificationClient.getNotificationById("provider-1")).thenReturn(notification);
+        claim(new ClaimedTask("verify-email-task", "task-1", TASK_DATA, 0, 2L));
+
+        component.processBatch();
+
+        ArgumentCaptor<List<Replacement>> replacements = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTaskRepository).replaceAll(replacements.capture(), any());
+        assertThat(replacements.getValue()).singleElement()
+            .satisfies(replacement -> {
+                assertThat(replacement.newTaskName()).isEqualTo("verify-email-task");
+                assertThat(replacement.newTaskData()).isSameAs(TASK_DATA);
+                assertThat(replacement.priority()).isEqualTo(NotificationPriority.VERIFY_TASK_PRIORITY);
+            });
+        ArgumentCaptor<Collection<NotificationStatusChange>> changes = ArgumentCaptor.forClass(Collection.class);
+        verify(statusRepository).updateStatusesIfAllowed(changes.capture());
+        assertThat(changes.getValue()).isEmpty();
+    }
+
+    @Test
+    void shouldSkipNotificationsAlreadyFinal() throws Exception {
+        when(statusRepository.findTerminal(List.of(dbNotificationId))).thenReturn(Set.of(dbNotificationId));
+        claim(new ClaimedTask("verify-email-task", "task-1", TASK_DATA, 0, 2L));
+
+        component.processBatch();
+
+        verify(notificationClient, never()).getNotificationById(anyString());
+        verify(scheduledTaskRepository).removeAll(any());
+    }
+
+    @Test
+    void shouldFailNotificationsUnknownToNotify() throws Exception {
+        NotificationClientException exception = createNotificationClientException(404, "Not Found");
+        when(notificationClient.getNotificationById("provider-1")).thenThrow(exception);
+        claim(new ClaimedTask("verify-email-task", "task-1", TASK_DATA, 0, 2L));
+
+        component.processBatch();
+
+        assertThat(capturedStatusChange().status()).isEqualTo(NotificationStatus.PERMANENT_FAILURE);
+    }
+
+    @Test
+    void shouldRetryLookupFailuresWithBackoff() throws Exception {
+        NotificationClientException exception = createNotificationClientException(503, "Service Unavailable");
+        when(notificationClient.getNotificationById("provider-1")).thenThrow(exception);
+        claim(new ClaimedTask("verify-email-task", "task-1", TASK_DATA, 0, 2L));
+
+        component.processBatch();
+
+        ArgumentCaptor<List<Retry>> retries = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTaskRepository).retryAll(retries.capture(), any());
+        assertThat(retries.getValue()).hasSize(1);
+        verify(circuitBreaker).onFailure();
+    }
+
+    @Test
+    void shouldParkLookupsThatGetNoInFlightPermit() throws Exception {
+        // every permit taken by calls elsewhere on this node
+        for (int i = 0; i < 4; i++) {
+            concurrencyLimit.tryAcquire();
+        }
+        claim(new ClaimedTask("verify-email-task", "task-1", TASK_DATA, 0, 2L));
+
+        component.processBatch();
+
+        verify(notificationClient, never()).getNotificationById(anyString());
+        ArgumentCaptor<List<Replacement>> replacements = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTaskRepository).replaceAll(replacements.capture(), any());
+        assertThat(replacements.getValue()).singleElement()
+            .satisfies(replacement -> assertThat(replacement.newTaskName()).isEqualTo("verify-email-task"));
+    }
+
+    @Test
+    void shouldDropOutcomesOfTasksClaimedAgainMeanwhile() throws Exception {
+        Notification notification = mock(Notification.class);
+        when(notification.getStatus()).thenReturn("delivered");
+        when(notificationClient.getNotificationById("provider-1")).thenReturn(notification);
+        ClaimedTask task = new ClaimedTask("verify-email-task", "task-1", TASK_DATA, 0, 2L);
+        claim(task);
+        when(scheduledTaskRepository.removeAll(any())).thenReturn(List.of(task));
+
+        component.processBatch();
+
+        ArgumentCaptor<Collection<NotificationStatusChange>> changes = ArgumentCaptor.forClass(Collection.class);
+        verify(statusRepository).updateStatusesIfAllowed(changes.capture());
+        assertThat(changes.getValue()).isEmpty();
+    }
+
+    private void claim(ClaimedTask... tasks) {
+        when(scheduledTaskRepository.claimDue(eq("verify-email-task"), anyInt(), anyString(), any()))
+            .thenReturn(List.of(tasks));
+    }
+
+    private NotificationStatusChange capturedStatusChange() {
+        ArgumentCaptor<Collection<NotificationStatusChange>> changes = ArgumentCaptor.forClass(Collection.class);
+        verify(statusRepository).updateStatusesIfAllowed(changes.capture());
+        assertThat(changes.getValue()).hasSize(1);
+        return changes.getValue().iterator().next();
+    }
+}
@@ -10,19 +10,24 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCall;
+import uk.gov.hmcts.reform.enforcement.notify.client.NotifyCallGuard;
 import uk.gov.hmcts.reform.enforcement.notify.config.NotificationErrorHandler;
 import uk.gov.hmcts.reform.enforcement.notify.exception.NotificationException;
 import uk.gov.hmcts.reform.enforcement.notify.helper.NotificationTestHelper;
 import uk.gov.hmcts.reform.enforcement.notify.model.EmailState;
 import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus;
+import uk.gov.hmcts.reform.enforcement.notify.service.DeliveryLatencyTracker;
 import uk.gov.hmcts.reform.enforcement.notify.service.NotificationService;
 import uk.gov.service.notify.Notification;
 import uk.gov.service.notify.NotificationClient;
 import uk.gov.service.notify.NotificationClientException;
 
 import java.time.Duration;
+import java.time.ZonedDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -50,6 +55,15 @@ class VerifyEmailTaskComponentTest {
     @Mock
     private NotificationErrorHandler errorHandler;
 
+    @Mock
+    private NotifyCallGuard notifyCallGuard;
+
+    @Mock
+    private VerifyDelayPolicy verifyDelayPolicy;
+
+    @Mock
+    private DeliveryLatencyTracker latencyTracker;
+
     @Mock
     private TaskInstance<EmailState> taskInstance;
 
@@ -64,7 +78,9 @@ class VerifyEmailTaskComponentTest {
     private Map<String, Object> personalisation;
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws Exception {
+        when(notifyCallGuard.call(any())).thenAnswer(invocation -> invocation.<NotifyCall<?>>getArgument(0).call());
+
         dbNotificationId = UUID.randomUUID();
         notificationId = UUID.randomUUID().toString();
 
@@ -88,6 +104,9 @@ class VerifyEmailTaskComponentTest {
             notificationService,
             notificationClient,
             errorHandler,
+            notifyCallGuard,
+            verifyDelayPolicy,
+            latencyTracker,
             5,
             Duration.ofSeconds(3600)
         );
@@ -110,6 +129,63 @@ class VerifyEmailTaskComponentTest {
         assertThat(result).isInstanceOf(CompletionHandler.OnCompleteRemove.class);
     }
 
+    @Test
+    void execute_ShouldSkipNotifyCall_WhenStatusIsAlreadyFinal() throws Exception {
+        when(notificationService.hasTerminalStatus(dbNotificationId)).thenReturn(true);
+
+        CompletionHandler<EmailState> result = verifyEmailTaskComponent.verifyEmailTask()
+            .execute(taskInstance, executionContext);
+
+        verify(notificationClient, never()).getNotificationById(any());
+        verify(notificationService, never()).updateNotificationStatus(any(), any());
+        assertThat(result).isInstanceOf(CompletionHandler.OnCompleteRemove.class);
+    }
+
+    @Test
+    void execute_ShouldRecordDeliveryLatency_WhenDelivered() throws Exception {
+        ZonedDateTime createdAt = ZonedDateTime.parse("2026-01-01T10:00:00Z");
+        ZonedDateTime completedAt = createdAt.plusSeconds(8);
+        Notification notification = mock(Notification.class);
+        when(notificationClient.getNotificationById(notificationId)).thenReturn(notification);
+        when(notification.getStatus()).thenReturn(NotificationStatus.DELIVERED.toString());
+        when(notification.getCreatedAt()).thenReturn(createdAt);
+        when(notification.getCompletedAt()).thenReturn(Optional.of(completedAt));
+
+        verifyEmailTaskComponent.verifyEmailTask().execute(taskInstance, executionContext);
+
+        verify(latencyTracker).record("template-123", createdAt.toInstant(), completedAt.toInstant());
+    }
+
+    @Test
+    void execute_ShouldCheckAgain_WhenEmailIsStillSending() throws Exception {
+        Notification notification = mock(Notification.class);
+        when(notificationClient.getNotificationById(notificationId)).thenReturn(notification);
+        when(notification.getStatus()).thenReturn("sending");
+        when(notification.getCreatedAt()).thenReturn(ZonedDateTime.now().minusSeconds(30));
+        when(verifyDelayPolicy.recheckDelay(eq("template-123"), any())).thenReturn(Duration.ofSeconds(20));
+
+        CompletionHandler<EmailState> result = verifyEmailTaskComponent.verifyEmailTask()
+            .execute(taskInstance, executionContext);
+
+        verify(notificationService, never()).updateNotificationStatus(any(), any());
+        assertThat(result).isInstanceOf(CompletionHandler.OnCompleteReplace.class);
+    }
+
+    @Test
+    void execute_ShouldCheckAgain_WhenEmailIsPending() throws Exception {
+        Notification notification = mock(Notification.class);
+        when(notificationClient.getNotificationById(notificationId)).thenReturn(notification);
+        when(notification.getStatus()).thenReturn("pending");
+        when(notification.getCreatedAt()).thenReturn(ZonedDateTime.now().minusSeconds(30));
+        when(verifyDelayPolicy.recheckDelay(eq("template-123"), any())).thenReturn(Duration.ofSeconds(20));
+
+        CompletionHandler<EmailState> result = verifyEmailTaskComponent.verifyEmailTask()
+            .execute(taskInstance, executionContext);
+
+        verify(notificationService, never()).updateNotificationStatus(any(), any());
+        assertThat(result).isInstanceOf(CompletionHandler.OnCompleteReplace.class);
+    }
+
     @Test
     void execute_ShouldUpdateStatusToPermanentFailure_WhenNotificationStatusIsNotDelivered() throws Exception {
         Notification notification = mock(Notification.class);
@@ -175,8 +251,8 @@ class VerifyEmailTaskComponentTest {
 
         verify(notificationClient).getNotificationById(notificationId);
         verify(notificationService).updateNotificationStatus(
-            dbNotificationId, 
-            NotificationStatus.PERMANENT_FAILURE.toString()
+            dbNotificationId,
+            NotificationStatus.TEMPORARY_FAILURE.toString()
         );
         assertThat(result).isInstanceOf(CompletionHandler.OnCompleteRemove.class);
     }
@@ -0,0 +1,146 @@
+package uk.gov.hmcts.reform.enforcement.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduledTaskNotificationListenerTest {
+
+    private static final String SEND_EMAIL_TASK = "send-email-task";
+    private static final Duration FALLBACK_POLLING_INTERVAL = Duration.ofMillis(50);
+
+    @Mock
+    private TaskLanes lanes;
+
+    @Mock
+    private ScheduledTaskWakeups wakeups;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ScheduledTaskNotificationListener listener;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (listener != null) {
+            listener.stop();
+        }
+    }
+
+    @Test
+    void shouldWakeLaneForTaskThatIsAlreadyDue() {
+        listener = listener(() -> {
+            throw new SQLException("not used");
+        });
+        Instant executionTime = Instant.now().minusSeconds(1);
+
+        listener.handle(executionTime.toEpochMilli() + "|" + SEND_EMAIL_TASK + "|task-1");
+
+        verify(wakeups).wakeupReceived(SEND_EMAIL_TASK, "task-1", Instant.ofEpochMilli(executionTime.toEpochMilli()));
+        verify(lanes).triggerCheckForDueExecutions(SEND_EMAIL_TASK);
+    }
+
+    @Test
+    void shouldDelayWakeupUntilTaskIsDue() {
+        listener = listener(() -> {
+            throw new SQLException("not used");
+        });
+        Instant executionTime = Instant.now().plusMillis(500);
+
+        listener.handle(executionTime.toEpochMilli() + "|" + SEND_EMAIL_TASK + "|task-1");
+
+        verify(lanes, never()).triggerCheckForDueExecutions(SEND_EMAIL_TASK);
+        verify(lanes, timeout(2000)).triggerCheckForDueExecutions(SEND_EMAIL_TASK);
+        assertThat(Instant.now()).isAfterOrEqualTo(Instant.ofEpochMilli(executionTime.toEpochMilli()));
+    }
+
+    @Test
+    void shouldWakeAllLanesForMalformedPayload() {
+        listener = listener(() -> {
+            throw new SQLException("not used");
+        });
+
+        listener.handle("not-a-number|" + SEND_EMAIL_TASK + "|task-1");
+        listener.handle("missing-parts");
+
+        verify(lanes, atLeast(2)).triggerCheckForDueExecutions();
+        verify(lanes, never()).triggerCheckForDueExecutions(anyString());
+        verify(wakeups, never()).wakeupReceived(anyString(), anyString(), any());
+    }
+
+    @Test
+    void shouldFallBackToPollingUntilListenerReconnects() throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        PGConnection pgConnection = mock(PGConnection.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        lenient().when(pgConnection.getNotifications(anyInt())).thenAnswer(invocation -> {
+            Thread.sleep(10);
+            return null;
+        });
+        AtomicInteger attempts = new AtomicInteger();
+        listener = listener(() -> {
+            if (attempts.getAndIncrement() < 2) {
+                throw new SQLException("connection refused");
+            }
+            return connection;
+        });
+
+        listener.start();
+
+        verify(statement, timeout(2000)).execute("LISTEN " + ScheduledTaskNotificationListener.CHANNEL);
+        verify(lanes, timeout(2000).times(3)).triggerCheckForDueExecutions();
+        Counter fallbackPolls = meterRegistry.find("scheduler.wakeup.fallback.polls").counter();
+        assertThat(fallbackPolls).isNotNull();
+        assertThat(fallbackPolls.count()).isEqualTo(2);
+        assertThat(meterRegistry.get("scheduler.wakeup.listener.connected").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldFallBackToPollingWhenListeningFailsUnexpectedly() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement()).thenThrow(new IllegalStateException("driver bug"));
+        listener = listener(() -> connection);
+
+        listener.start();
+
+        verify(lanes, timeout(2000).atLeast(2)).triggerCheckForDueExecutions();
+        assertThat(meterRegistry.get("scheduler.wakeup.fallback.polls").counter().count()).isPositive();
+    }
+
+    private ScheduledTaskNotificationListener listener(ScheduledTaskNotificationListener.ConnectionSource source) {
+        return new ScheduledTaskNotificationListener(
+            lanes, source, wakeups, FALLBACK_POLLING_INTERVAL, meterRegistry
+        );
+    }
+}
@@ -0,0 +1,85 @@
+package uk.gov.hmcts.reform.enforcement.scheduler;
+
+import com.github.kagkarlsson.scheduler.event.ExecutionChain;
+import com.github.kagkarlsson.scheduler.task.CompletionHandler;
+import com.github.kagkarlsson.scheduler.task.ExecutionContext;
+import com.github.kagkarlsson.scheduler.task.TaskInstance;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduledTaskWakeupsTest {
+
+    @Mock
+    private TaskInstance<Object> taskInstance;
+
+    @Mock
+    private ExecutionContext executionContext;
+
+    @Mock
+    private ExecutionChain chain;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ScheduledTaskWakeups wakeups;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        wakeups = new ScheduledTaskWakeups(meterRegistry);
+    }
+
+    @Test
+    void shouldRecordPickLatencyForAnnouncedTask() {
+        when(taskInstance.getTaskName()).thenReturn("send-email-task");
+        when(taskInstance.getId()).thenReturn("task-1");
+        CompletionHandler<Object> completion = new CompletionHandler.OnCompleteRemove<>();
+        when(chain.proceed(taskInstance, executionContext)).thenAnswer(invocation -> completion);
+
+        wakeups.wakeupReceived("send-email-task", "task-1", Instant.now());
+        CompletionHandler<?> result = wakeups.execute(taskInstance, executionContext, chain);
+
+        assertThat(result).isSameAs(completion);
+        Timer timer = meterRegistry.find("scheduler.wakeup.pick.latency").tag("task", "send-email-task").timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(wakeups.pendingCount()).isZero();
+    }
+
+    @Test
+    void shouldNotRecordLatencyForTaskThatWasNotAnnounced() {
+        when(taskInstance.getTaskName()).thenReturn("verify-email-task");
+        when(taskInstance.getId()).thenReturn("task-2");
+
+        wakeups.execute(taskInstance, executionContext, chain);
+
+        verify(chain).proceed(taskInstance, executionContext);
+        assertThat(meterRegistry.find("scheduler.wakeup.pick.latency").timer()).isNull();
+    }
+
+    @Test
+    void shouldEvictAnnouncementsPickedElsewhere() {
+        Instant announcedAt = Instant.now();
+        Clock clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(announcedAt, announcedAt.plus(Duration.ofMinutes(5)));
+        wakeups = new ScheduledTaskWakeups(meterRegistry, clock);
+
+        wakeups.wakeupReceived("send-email-task", "task-3", announcedAt);
+        wakeups.evictOlderThan(Duration.ofSeconds(10));
+
+        assertThat(wakeups.pendingCount()).isZero();
+    }
+}
@@ -0,0 +1,24 @@
+package uk.gov.hmcts.reform.enforcement.scheduler;
+
+import com.github.kagkarlsson.scheduler.event.SchedulerListener.CandidateEventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SchedulerPollMetricsTest {
+
+    @Test
+    void shouldCountCandidatesByOutcome() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SchedulerPollMetrics metrics = new SchedulerPollMetrics(meterRegistry);
+
+        metrics.onCandidateEvent(CandidateEventType.EXECUTED);
+        metrics.onCandidateEvent(CandidateEventType.EXECUTED);
+        metrics.onCandidateEvent(CandidateEventType.ALREADY_PICKED);
+
+        assertThat(meterRegistry.counter("scheduler.poll.candidates", "outcome", "executed").count()).isEqualTo(2);
+        assertThat(meterRegistry.counter("scheduler.poll.candidates", "outcome", "already_picked").count())
+            .isEqualTo(1);
+    }
+}
@@ -0,0 +1,92 @@
+package uk.gov.hmcts.reform.enforcement.scheduler;
+
+import com.github.kagkarlsson.scheduler.serializer.JavaSerializer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.reform.enforcement.config.JacksonConfiguration;
+import uk.gov.hmcts.reform.enforcement.notify.model.EmailState;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskDataSerializerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TaskDataSerializer serializer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        serializer = new TaskDataSerializer(new JacksonConfiguration().getMapper(), 1024, meterRegistry);
+    }
+
+    @Test
+    void shouldRoundTripEmailState() {
+        EmailState emailState = emailState(Map.of("name", "John", "caseNumber", "1234"));
+
+        byte[] serialized = serializer.serialize(emailState);
+
+        assertThat(serialized[0]).isEqualTo(TaskDataSerializer.SCHEMA_VERSION);
+        assertThat(serialized[1]).isEqualTo(TaskDataSerializer.ENCODING_JSON);
+        assertThat(serializer.deserialize(EmailState.class, serialized)).isEqualTo(emailState);
+    }
+
+    @Test
+    void shouldCompressLargePayloads() {
+        EmailState emailState = emailState(Map.of("body", "Lorem ipsum dolor sit amet. ".repeat(100)));
+
+        byte[] serialized = serializer.serialize(emailState);
+
+        assertThat(serialized[1]).isEqualTo(TaskDataSerializer.ENCODING_GZIP_JSON);
+        assertThat(serialized.length).isLessThan(1024);
+        assertThat(serializer.deserialize(EmailState.class, serialized)).isEqualTo(emailState);
+    }
+
+    @Test
+    void shouldReadRowsWrittenWithJavaSerialization() {
+        EmailState emailState = emailState(Map.of("name", "John"));
+        byte[] legacy = new JavaSerializer().serialize(emailState);
+
+        assertThat(serializer.deserialize(EmailState.class, legacy)).isEqualTo(emailState);
+        assertThat(meterRegistry.get("scheduler.task-data.size").tag("format", "java").summary().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void shouldWriteSmallerRowsThanJavaSerialization() {
+        EmailState emailState = emailState(Map.of("name", "John", "caseNumber", "1234"));
+
+        int javaSize = new JavaSerializer().serialize(emailState).length;
+        int jsonSize = serializer.serialize(emailState).length;
+
+        assertThat(jsonSize).isLessThan(javaSize / 2);
+    }
+
+    @Test
+    void shouldRejectUnknownSchemaVersions() {
+        assertThatThrownBy(() -> serializer.deserialize(EmailState.class, new byte[] {9, 0, '{', '}'}))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("schema version");
+    }
+
+    @Test
+    void shouldPassThroughNull() {
+        assertThat(serializer.serialize(null)).isNull();
+        assertThat(serializer.deserialize(EmailState.class, null)).isNull();
+    }
+
+    private static EmailState emailState(Map<String, Object> personalisation) {
+        return EmailState.builder()
+            .id(UUID.randomUUID().toString())
+            .emailAddress("test@example.com")
+            .templateId("template-id")
+            .personalisation(personalisation)
+            .reference("reference")
+            .dbNotificationId(UUID.randomUUID())
+            .build();
+    }
+}
@@ -0,0 +1,91 @@
+package uk.gov.hmcts.reform.enforcement.scheduler;
+
+import com.github.kagkarlsson.scheduler.CurrentlyExecuting;
+import com.github.kagkarlsson.scheduler.Scheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskLanesTest {
+
+    @Mock
+    private Scheduler defaultScheduler;
+
+    @Mock
+    private Scheduler verifyScheduler;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TaskLanes lanes;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lanes = new TaskLanes(List.of(
+            new TaskLanes.Lane(TaskShards.PRIMARY_SHARD, TaskLanes.DEFAULT_LANE, defaultScheduler, 10,
+                               Set.of("send-email-task")),
+            new TaskLanes.Lane(TaskShards.PRIMARY_SHARD, "verify", verifyScheduler, 4, Set.of("verify-email-task"))
+        ), meterRegistry);
+    }
+
+    @Test
+    void shouldWakeOnlyTheLaneRunningTheTask() {
+        lanes.triggerCheckForDueExecutions("verify-email-task");
+
+        verify(verifyScheduler).triggerCheckForDueExecutions();
+        verify(defaultScheduler, never()).triggerCheckForDueExecutions();
+    }
+
+    @Test
+    void shouldWakeDefaultLaneForTasksNotAssignedToALane() {
+        lanes.triggerCheckForDueExecutions("hello-world-task");
+
+        verify(defaultScheduler).triggerCheckForDueExecutions();
+        verify(verifyScheduler, never()).triggerCheckForDueExecutions();
+    }
+
+    @Test
+    void shouldReportSaturationPerLane() {
+        when(verifyScheduler.getCurrentlyExecuting()).thenReturn(
+            List.of(mock(CurrentlyExecuting.class), mock(CurrentlyExecuting.class), mock(CurrentlyExecuting.class)));
+        when(defaultScheduler.getCurrentlyExecuting()).thenReturn(List.of());
+
+        assertThat(meterRegistry.get("scheduler.lane.saturation").tag("lane", "verify").gauge().value())
+            .isEqualTo(0.75);
+        assertThat(meterRegistry.get("scheduler.lane.executing").tag("lane", TaskLanes.DEFAULT_LANE).gauge().value())
+            .isZero();
+    }
+
+    @Test
+    void shouldStartAndStopEveryLane() {
+        lanes.start();
+        lanes.stop();
+
+        verify(defaultScheduler).start();
+        verify(verifyScheduler).start();
+        verify(defaultScheduler).stop();
+        verify(verifyScheduler).stop();
+    }
+
+    @Test
+    void shouldRequireDefaultLane() {
+        List<TaskLanes.Lane> withoutDefault = List.of(
+            new TaskLanes.Lane(TaskShards.PRIMARY_SHARD, "verify", verifyScheduler, 4, Set.of("verify-email-task")));
+
+        assertThatThrownBy(() -> new TaskLanes(withoutDefault, new SimpleMeterRegistry()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,134 @@
+package uk.gov.hmcts.reform.enforcement.scheduler;
+
+import com.github.kagkarlsson.scheduler.SchedulerClient;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class TaskShardsTest {
+
+    private static final String SHARDED_TASK = "send-email-task";
+
+    private final TaskShards.Shard primary = shard(TaskShards.PRIMARY_SHARD);
+    private final TaskShards.Shard shardA = shard("a");
+    private final TaskShards.Shard shardB = shard("b");
+
+    @Test
+    void shouldKeepUnshardedTasksOnPrimary() {
+        TaskShards shards = new TaskShards(List.of(primary, shardA, shardB), Set.of(SHARDED_TASK));
+
+        IntStream.range(0, 100).forEach(i ->
+            assertThat(shards.shardFor("campaign-driver-task", "instance-" + i)).isSameAs(primary));
+    }
+
+    @Test
+    void shouldKeepEverythingOnPrimaryWithoutExtraShards() {
+        TaskShards shards = new TaskShards(List.of(primary), Set.of(SHARDED_TASK));
+
+        assertThat(shards.clientFor(SHARDED_TASK, "instance-1")).isSameAs(primary.client());
+    }
+
+    @Test
+    void shouldRouteTheSameInstanceToTheSameShard() {
+        TaskShards shards = new TaskShards(List.of(primary, shardA, shardB), Set.of(SHARDED_TASK));
+        TaskShards sameShards = new TaskShards(List.of(primary, shardA, shardB), Set.of(SHARDED_TASK));
+
+        IntStream.range(0, 100).forEach(i ->
+            assertThat(sameShards.shardFor(SHARDED_TASK, "instance-" + i).name())
+                .isEqualTo(shards.shardFor(SHARDED_TASK, "instance-" + i).name()));
+    }
+
+    @Test
+    void shouldSpreadInstancesOverEveryShard() {
+        TaskShards shards = new TaskShards(List.of(primary, shardA, shardB), Set.of(SHARDED_TASK));
+
+        Set<String> used = IntStream.range(0, 300)
+            .mapToObj(i -> shards.shardFor(SHARDED_TASK, "instance-" + i).name())
+            .collect(Collectors.toSet());
+
+        assertThat(used).containsExactlyInAnyOrder(TaskShards.PRIMARY_SHARD, "a", "b");
+    }
+
+    @Test
+    void shouldOnlyMoveInstancesToAnAddedShard() {
+        TaskShards before = new TaskShards(List.of(primary, shardA), Set.of(SHARDED_TASK));
+        TaskShards after = new TaskShards(List.of(primary, shardA, shardB), Set.of(SHARDED_TASK));
+
+        IntStream.range(0, 500).forEach(i -> {
+            String instance = "instance-" + i;
+            String placedAfter = after.shardFor(SHARDED_TASK, instance).name();
+            if (!placedAfter.equals("b")) {
+                assertThat(placedAfter).isEqualTo(before.shardFor(SHARDED_TASK, instance).name());
+            }
+        });
+    }
+
+    @Test
+    void shouldWriteToOtherShardsOnlyOnceTheTransactionCommits() {
+        TaskShards shards = new TaskShards(List.of(primary, shardA), Set.of(SHARDED_TASK));
+        List<String> written = new ArrayList<>();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            shards.write(primary, () -> written.add(TaskShards.PRIMARY_SHARD));
+            shards.write(shardA, () -> written.add("a"));
+
+            assertThat(written).containsExactly(TaskShards.PRIMARY_SHARD);
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+            assertThat(written).containsExactly(TaskShards.PRIMARY_SHARD, "a");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldWriteToOtherShardsStraightAwayOutsideATransaction() {
+        TaskShards shards = new TaskShards(List.of(primary, shardA), Set.of(SHARDED_TASK));
+        List<String> written = new ArrayList<>();
+
+        shards.write(shardA, () -> written.add("a"));
+
+        assertThat(written).containsExactly("a");
+    }
+
+    @Test
+    void shouldRequirePrimaryShardFirst() {
+        List<TaskShards.Shard> primaryNotFirst = List.of(shardA, primary);
+
+        assertThatThrownBy(() -> new TaskShards(primaryNotFirst, Set.of(SHARDED_TASK)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldCloseOnlyExtraShardDataSources() {
+        HikariDataSource primaryDataSource = mock(HikariDataSource.class);
+        HikariDataSource shardDataSource = mock(HikariDataSource.class);
+        TaskShards shards = new TaskShards(List.of(
+            new TaskShards.Shard(TaskShards.PRIMARY_SHARD, primaryDataSource, mock(SchedulerClient.class)),
+            new TaskShards.Shard("a", shardDataSource, mock(SchedulerClient.class))
+        ), Set.of(SHARDED_TASK));
+
+        shards.close();
+
+        verify(shardDataSource).close();
+        verify(primaryDataSource, never()).close();
+    }
+
+    private static TaskShards.Shard shard(String name) {
+        return new TaskShards.Shard(name, mock(DataSource.class), mock(SchedulerClient.class));
+    }
+}
@@ -6,20 +6,30 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
+import uk.gov.hmcts.reform.enforcement.notify.exception.IdempotencyKeyReusedException;
 import uk.gov.hmcts.reform.enforcement.notify.exception.NotificationException;
+import uk.gov.hmcts.reform.enforcement.notify.model.DeliveryReceipt;
 import uk.gov.hmcts.reform.enforcement.notify.model.EmailNotificationRequest;
 import uk.gov.hmcts.reform.enforcement.notify.model.EmailNotificationResponse;
+import uk.gov.hmcts.reform.enforcement.notify.model.NotificationPriority;
 import uk.gov.hmcts.reform.enforcement.notify.model.NotificationStatus;
+import uk.gov.hmcts.reform.enforcement.notify.service.DeliveryReceiptService;
+import uk.gov.hmcts.reform.enforcement.notify.service.NotificationAdmissionControl;
 import uk.gov.hmcts.reform.enforcement.notify.service.NotificationService;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +38,12 @@ class NotifyControllerTest {
     @Mock
     private NotificationService notificationService;
 
+    @Mock
+    private DeliveryReceiptService deliveryReceiptService;
+
+    @Mock
+    private NotificationAdmissionControl admissionControl;
+
     @InjectMocks
     private NotifyController notifyController;
 
@@ -86,6 +102,17 @@ class NotifyControllerTest {
         verify(notificationService).scheduleEmailNotification(emailRequest);
     }
 
+    @Test
+    void sendEmail_ShouldReturnConflict_WhenIdempotencyKeyWasUsedForADifferentEmail() {
+        when(notificationService.scheduleEmailNotification(emailRequest))
+            .thenThrow(new IdempotencyKeyReusedException("notification-ref"));
+
+        ResponseEntity<EmailNotificationResponse> response = notifyController.sendEmail(
+            authorization, serviceAuthorization, emailRequest);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
     @Test
     void sendEmail_ShouldReturnInternalServerError_WhenRuntimeExceptionOccurs() {
         when(notificationService.scheduleEmailNotification(emailRequest))
@@ -113,9 +140,48 @@ class NotifyControllerTest {
         verify(notificationService).scheduleEmailNotification(emailRequest);
     }
 
+    @Test
+    void sendEmail_ShouldReturnTooManyRequests_WhenSheddingTheEmailsPriority() {
+        emailRequest.setPriority(NotificationPriority.BULK);
+        when(admissionControl.shed(NotificationPriority.BULK)).thenReturn(Optional.of(Duration.ofMillis(11_500)));
+
+        ResponseEntity<EmailNotificationResponse> response = notifyController.sendEmail(
+            authorization, serviceAuthorization, emailRequest);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("12");
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void sendEmail_ShouldReturnServiceUnavailable_WhenNoDatabaseConnection() {
+        when(admissionControl.getRefreshInterval()).thenReturn(Duration.ofSeconds(5));
+        when(notificationService.scheduleEmailNotification(emailRequest))
+            .thenThrow(new CannotCreateTransactionException("Connection is not available"));
+
+        ResponseEntity<EmailNotificationResponse> response = notifyController.sendEmail(
+            authorization, serviceAuthorization, emailRequest);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("5");
+    }
+
     @Test
     void constructor_ShouldInitializeFields() {
-        NotifyController controller = new NotifyController(notificationService);
+        NotifyController controller = new NotifyController(notificationService, deliveryReceiptService,
+                                                         admissionControl);
         assertThat(controller).isNotNull();
     }
+
+    @Test
+    void deliveryReceipt_ShouldApplyReceiptAndReturnOutcome() {
+        DeliveryReceipt receipt = DeliveryReceipt.builder().id(UUID.randomUUID()).status("delivered").build();
+        when(deliveryReceiptService.apply(receipt)).thenReturn(DeliveryReceiptService.Outcome.APPLIED);
+
+        ResponseEntity<String> response = notifyController.deliveryReceipt(
+            authorization, serviceAuthorization, receipt);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo("APPLIED");
+    }
 }